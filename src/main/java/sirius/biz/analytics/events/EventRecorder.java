@@ -20,9 +20,12 @@ import sirius.db.mixing.annotations.Realm;
 import sirius.kernel.Sirius;
 import sirius.kernel.Startable;
 import sirius.kernel.Stoppable;
+import sirius.kernel.async.Tasks;
+import sirius.kernel.commons.RateLimit;
 import sirius.kernel.commons.Strings;
 import sirius.kernel.di.std.Part;
 import sirius.kernel.di.std.Register;
+import sirius.kernel.health.Counter;
 import sirius.kernel.health.Exceptions;
 import sirius.kernel.health.HandledException;
 import sirius.kernel.health.Log;
@@ -37,11 +40,14 @@ import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.YearMonth;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
@@ -53,9 +59,13 @@ import java.util.stream.StreamSupport;
  * <p>
  * To minimize the impact on the running application and to maximize the performance, events are collected and queued.
  * This queue is batch processed in regular intervals (which greatly increases the performance of Clickhouse).
+ * Each insertion run groups its events by type, so that one large batch insert is performed per table. If the
+ * buffer contains more events than a single insertion run can handle, additional runs are forked into the
+ * <tt>event-recorder</tt> executor so that several batches are inserted in parallel.
  * <p>
  * In case of a missing data store or a system overload condition (more events are generated than persisted), events
- * will be dropped as we favor system stability over perfect metrics.
+ * will be dropped as we favor system stability over perfect metrics. The number of dropped events as well as the
+ * lag of the buffer are reported as metrics.
  */
 @Register(classes = {EventRecorder.class, Startable.class, Stoppable.class, MetricProvider.class})
 public class EventRecorder implements Startable, Stoppable, MetricProvider {
@@ -63,7 +73,7 @@ public class EventRecorder implements Startable, Stoppable, MetricProvider {
     /**
      * Determines the max number of events to keep in the queue.
      */
-    public static final int MAX_BUFFER_SIZE = 16 * 1024;
+    public static final int MAX_BUFFER_SIZE = 64 * 1024;
 
     /**
      * Determines the min number of events before an insertion run is performed.
@@ -85,17 +95,30 @@ public class EventRecorder implements Startable, Stoppable, MetricProvider {
      */
     private static final int MAX_EVENTS_PER_PROCESS = 16 * 1024;
 
+    /**
+     * Contains the name of the executor used to run additional insertion runs in parallel.
+     */
+    private static final String EXECUTOR_EVENT_RECORDER = "event-recorder";
+
     private static final String AGGREGATION_COUNTER = "counter";
     private static final String AGGREGATION_SUM = "summation";
     private static final String AGGREGATION_DISTINCT_COUNT = "distinctCount";
 
     private volatile LocalDateTime lastProcessed;
+    private volatile long lastDrained = System.currentTimeMillis();
     private final AtomicInteger bufferedEvents = new AtomicInteger();
     private final Queue<Event<?>> buffer = new ConcurrentLinkedQueue<>();
+    private final Counter recordedEvents = new Counter();
+    private final Counter droppedEvents = new Counter();
+    private final Counter persistedEvents = new Counter();
+    private final RateLimit dropLogLimit = RateLimit.timeInterval(10, TimeUnit.MINUTES);
 
     @Part
     private Schema schema;
 
+    @Part
+    private Tasks tasks;
+
     @Part
     private OMA oma;
 
@@ -133,6 +156,36 @@ public class EventRecorder implements Startable, Stoppable, MetricProvider {
                                 "Event Buffer Usage",
                                 100 * bufferedEvents.doubleValue() / MAX_BUFFER_SIZE,
                                 Metric.UNIT_PERCENT);
+        metricsCollector.differentialMetric("events_recorded",
+                                            "events-recorded",
+                                            "Recorded Events",
+                                            recordedEvents.getCount(),
+                                            Metric.UNIT_PER_MIN);
+        metricsCollector.differentialMetric("events_persisted",
+                                            "events-persisted",
+                                            "Persisted Events",
+                                            persistedEvents.getCount(),
+                                            Metric.UNIT_PER_MIN);
+        metricsCollector.differentialMetric("events_dropped",
+                                            "events-dropped",
+                                            "Dropped Events",
+                                            droppedEvents.getCount(),
+                                            Metric.UNIT_PER_MIN);
+        metricsCollector.metric("events_lag", "events-lag", "Event Buffer Lag", getLagMillis(), Metric.UNIT_MS);
+    }
+
+    /**
+     * Determines for how long events have been piling up in the buffer.
+     *
+     * @return the number of milliseconds since the buffer was last observed to be empty or <tt>0</tt> if the buffer is
+     * currently empty
+     */
+    private long getLagMillis() {
+        if (bufferedEvents.get() == 0) {
+            return 0;
+        }
+
+        return System.currentTimeMillis() - lastDrained;
     }
 
     /**
@@ -435,6 +488,10 @@ public class EventRecorder implements Startable, Stoppable, MetricProvider {
         }
 
         if (bufferedEvents.get() >= MAX_BUFFER_SIZE) {
+            droppedEvents.inc();
+            if (dropLogLimit.check()) {
+                Log.BACKGROUND.WARN("EventRecorder: Dropping events as the internal buffer is full!");
+            }
             return;
         }
 
@@ -442,6 +499,7 @@ public class EventRecorder implements Startable, Stoppable, MetricProvider {
             event.getDescriptor().beforeSave(event);
             buffer.offer(event);
             bufferedEvents.incrementAndGet();
+            recordedEvents.inc();
         } catch (HandledException exception) {
             Log.BACKGROUND.WARN("An event was not recorded due to a before-save warning. Event: %s (%s): %s",
                                 event.toString(),
@@ -470,13 +528,17 @@ public class EventRecorder implements Startable, Stoppable, MetricProvider {
      * An insertion run will be started if there are enough events in the buffer (more than {@link #MIN_BUFFER_SIZE})
      * or if enough time elapsed since the last insertion run (more than {@link #MAX_BUFFER_AGE} or
      * {@link #MAX_BUFFER_AGE_DEV} in development systems).
+     * <p>
+     * If the buffer contains more events than a single insertion run can handle, additional runs are forked so that
+     * several batches are inserted in parallel.
      *
-     * @return the number of inserted events
+     * @return the number of inserted events (by this thread)
      */
     protected int processIfBufferIsFilled() {
         if (bufferedEvents.get() > MIN_BUFFER_SIZE
             || lastProcessed == null
             || Duration.between(lastProcessed, LocalDateTime.now()).compareTo(getEffectiveMaxAge()) > 0) {
+            forkAdditionalInsertionRuns();
             return process();
         } else {
             return 0;
@@ -488,30 +550,89 @@ public class EventRecorder implements Startable, Stoppable, MetricProvider {
     }
 
     /**
-     * Processes the queued events by creating a {@link BatchContext} and batch-inserting all events.
+     * Forks an additional insertion run for each full batch of events beyond the first one.
+     * <p>
+     * The executor has no queue, therefore runs are dropped if all flushers are busy. This is fine, as the events
+     * simply remain in the buffer until the next attempt.
+     */
+    private void forkAdditionalInsertionRuns() {
+        int additionalRuns = bufferedEvents.get() / MAX_EVENTS_PER_PROCESS - 1;
+        for (int i = 0; i < additionalRuns; i++) {
+            tasks.executor(EXECUTOR_EVENT_RECORDER).dropOnOverload(() -> {
+                Log.BACKGROUND.FINE("EventRecorder: Skipping an additional insertion run as all flushers are busy.");
+            }).fork(this::processBatch);
+        }
+    }
+
+    /**
+     * Processes all queued events by creating batch-inserts for them.
+     * <p>
+     * The events are processed in batches of up to {@link #MAX_EVENTS_PER_PROCESS} events. Note that this may
+     * run concurrently with other insertion runs.
      *
      * @return the number of inserted events
      */
-    public synchronized int process() {
+    public int process() {
         lastProcessed = LocalDateTime.now();
         int processedEvents = 0;
+        int processedInBatch = processBatch();
+        processedEvents += processedInBatch;
+        while (processedInBatch >= MAX_EVENTS_PER_PROCESS) {
+            processedInBatch = processBatch();
+            processedEvents += processedInBatch;
+        }
+
+        return processedEvents;
+    }
+
+    /**
+     * Fetches up to {@link #MAX_EVENTS_PER_PROCESS} events from the buffer and inserts them using a
+     * {@link BatchContext}.
+     * <p>
+     * The events are grouped by their type so that all events of a table are inserted as one large batch.
+     *
+     * @return the number of inserted events
+     */
+    private int processBatch() {
+        List<Event<?>> events = fetchBufferedEvents(MAX_EVENTS_PER_PROCESS);
+        if (events.size() < MAX_EVENTS_PER_PROCESS) {
+            lastDrained = System.currentTimeMillis();
+        }
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        int processedEvents = 0;
+        boolean failed = false;
         try (BatchContext ctx = new BatchContext(() -> "Process recorded events.", Duration.ofMinutes(1))) {
             Map<Class<? extends Event<?>>, InsertQuery<Event<?>>> queries = new HashMap<>();
-            Event<?> nextEvent = fetchBufferedEvent();
-            while (nextEvent != null) {
-                processEvent(ctx, queries, nextEvent);
-                if (++processedEvents >= MAX_EVENTS_PER_PROCESS) {
-                    return processedEvents;
-                }
-
-                nextEvent = fetchBufferedEvent();
+            for (Event<?> event : events) {
+                processEvent(ctx, queries, event);
+                processedEvents++;
             }
         } catch (HandledException exception) {
+            // This has already been logged by whoever created the exception...
             Exceptions.ignore(exception);
+            failed = true;
         } catch (Exception exception) {
             Exceptions.handle(Log.BACKGROUND, exception);
+            failed = true;
         }
 
+        // If the run was aborted, we re-queue the events which haven't been processed at all (the failed one has
+        // already been re-queued by processEvent)...
+        for (int i = processedEvents + 1; i < events.size(); i++) {
+            retry(events.get(i));
+        }
+
+        // The events are only written once the batch is executed (at the latest when the context is closed).
+        // Therefore, we cannot tell which of the processed events have been written if the run failed and
+        // conservatively count none of them...
+        if (failed) {
+            return 0;
+        }
+
+        persistedEvents.add(processedEvents);
         return processedEvents;
     }
 
@@ -533,14 +654,34 @@ public class EventRecorder implements Startable, Stoppable, MetricProvider {
                                                                                                                   false));
             query.insert(event, false, true);
         } catch (Exception exception) {
-            if (!event.retried) {
-                event.retried = true;
-                record(event);
-            }
+            retry(event);
             throw exception;
         }
     }
 
+    /**
+     * Puts the given event back into the buffer, unless it has already been retried once.
+     * <p>
+     * Note that this doesn't use {@link #record(Event)}, as the event has already been counted as recorded and the
+     * before save handlers have already been invoked.
+     *
+     * @param event the event to retry
+     */
+    private void retry(Event<?> event) {
+        if (event.retried) {
+            return;
+        }
+
+        event.retried = true;
+        if (bufferedEvents.get() >= MAX_BUFFER_SIZE) {
+            droppedEvents.inc();
+            return;
+        }
+
+        buffer.offer(event);
+        bufferedEvents.incrementAndGet();
+    }
+
     /**
      * Fetches the next event to process.
      *
@@ -556,6 +697,29 @@ public class EventRecorder implements Startable, Stoppable, MetricProvider {
         return result;
     }
 
+    /**
+     * Fetches up to the given number of events to process, grouped by their type.
+     *
+     * @param maxEvents the maximal number of events to fetch
+     * @return the events to process, where all events of the same type are placed next to each other
+     */
+    private List<Event<?>> fetchBufferedEvents(int maxEvents) {
+        Map<Class<?>, List<Event<?>>> eventsPerType = new LinkedHashMap<>();
+        int numberOfEvents = 0;
+        Event<?> nextEvent = fetchBufferedEvent();
+        while (nextEvent != null) {
+            eventsPerType.computeIfAbsent(nextEvent.getClass(), _ -> new ArrayList<>()).add(nextEvent);
+            if (++numberOfEvents >= maxEvents) {
+                break;
+            }
+            nextEvent = fetchBufferedEvent();
+        }
+
+        List<Event<?>> result = new ArrayList<>(numberOfEvents);
+        eventsPerType.values().forEach(result::addAll);
+        return result;
+    }
+
     /// Fetches all user events which match the given query assuming that users can only trigger one event (of the type
     /// in question) at the same time.
     ///
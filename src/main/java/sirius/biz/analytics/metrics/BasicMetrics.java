@@ -13,11 +13,18 @@ import sirius.db.mixing.Mixing;
 import sirius.kernel.cache.Cache;
 import sirius.kernel.cache.CacheManager;
 import sirius.kernel.commons.Explain;
+import sirius.kernel.commons.UnitOfWork;
 import sirius.kernel.nls.NLS;
 
+import javax.annotation.Nullable;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Base class which handles all the database independent boilerplate.
@@ -37,7 +44,13 @@ public abstract class BasicMetrics<E extends BaseEntity<?>> implements Metrics {
     private static final String METRIC_NLS_PREFIX = "Metric.";
     private static final String DESCRIPTION_NLS_SUFFIX = ".description";
 
+    /**
+     * Determines the maximal number of targets to resolve using a single bulk query.
+     */
+    private static final int MAX_TARGETS_PER_BULK_QUERY = 256;
+
     private final Cache<String, Integer> metricCache = CacheManager.createCoherentCache("metrics");
+    private final ThreadLocal<MetricsBatch> currentBatch = new ThreadLocal<>();
 
     /**
      * Returns the entity type used to store facts.
@@ -123,16 +136,7 @@ public abstract class BasicMetrics<E extends BaseEntity<?>> implements Metrics {
 
     @Override
     public void updateFact(String targetType, String targetId, String name, int value) {
-        if (value == 0) {
-            deleteMetric(getFactType(), targetType, targetId, name, null, null, null);
-            return;
-        }
-
-        if (updateMetric(getFactType(), targetType, targetId, name, value, null, null, null)) {
-            return;
-        }
-
-        createFact(targetType, targetId, name, value);
+        storeOrBufferMetric(new MetricKey(getFactType(), targetType, targetId, name, null, null, null), value);
     }
 
     /**
@@ -175,16 +179,7 @@ public abstract class BasicMetrics<E extends BaseEntity<?>> implements Metrics {
 
     @Override
     public void updateYearlyMetric(String targetType, String targetId, String name, int year, int value) {
-        if (value == 0) {
-            deleteMetric(getYearlyMetricType(), targetType, targetId, name, year, null, null);
-            return;
-        }
-
-        if (updateMetric(getYearlyMetricType(), targetType, targetId, name, value, year, null, null)) {
-            return;
-        }
-
-        createYearlyMetric(targetType, targetId, name, value, year);
+        storeOrBufferMetric(new MetricKey(getYearlyMetricType(), targetType, targetId, name, year, null, null), value);
     }
 
     /**
@@ -234,16 +229,8 @@ public abstract class BasicMetrics<E extends BaseEntity<?>> implements Metrics {
 
     @Override
     public void updateMonthlyMetric(String targetType, String targetId, String name, int year, int month, int value) {
-        if (value == 0) {
-            deleteMetric(getMonthlyMetricType(), targetType, targetId, name, year, month, null);
-            return;
-        }
-
-        if (updateMetric(getMonthlyMetricType(), targetType, targetId, name, value, year, month, null)) {
-            return;
-        }
-
-        createMonthlyMetric(targetType, targetId, name, year, month, value);
+        storeOrBufferMetric(new MetricKey(getMonthlyMetricType(), targetType, targetId, name, year, month, null),
+                            value);
     }
 
     /**
@@ -307,16 +294,7 @@ public abstract class BasicMetrics<E extends BaseEntity<?>> implements Metrics {
                                   int month,
                                   int day,
                                   int value) {
-        if (value == 0) {
-            deleteMetric(getDailyMetricType(), targetType, targetId, name, year, month, day);
-            return;
-        }
-
-        if (updateMetric(getDailyMetricType(), targetType, targetId, name, value, year, month, day)) {
-            return;
-        }
-
-        createDailyMetric(targetType, targetId, name, year, month, day, value);
+        storeOrBufferMetric(new MetricKey(getDailyMetricType(), targetType, targetId, name, year, month, day), value);
     }
 
     /**
@@ -338,11 +316,119 @@ public abstract class BasicMetrics<E extends BaseEntity<?>> implements Metrics {
                                               int day,
                                               int value);
 
+    /**
+     * Identifies a single metric value.
+     *
+     * @param table      the table which stores the metric
+     * @param targetType the type of the object for which the metric is stored
+     * @param targetId   the id of the object for which the metric is stored
+     * @param name       the name of the metric
+     * @param year       the year (if available) of the metric
+     * @param month      the month (if available) of the metric
+     * @param day        the day (if available) of the metric
+     */
+    protected record MetricKey(Class<?> table,
+                               String targetType,
+                               String targetId,
+                               String name,
+                               Integer year,
+                               Integer month,
+                               Integer day) {
+    }
+
+    @Override
+    public MetricsBatch createBatch() {
+        return new MetricsBatch(this);
+    }
+
+    /**
+     * Executes the given task while buffering all metric updates of the current thread in the given batch.
+     *
+     * @param batch the batch to record the updates in
+     * @param task  the task to execute
+     * @throws Exception in case the task fails
+     */
+    protected void executeInBatch(MetricsBatch batch, UnitOfWork task) throws Exception {
+        MetricsBatch previousBatch = currentBatch.get();
+        currentBatch.set(batch);
+        try {
+            task.execute();
+        } finally {
+            if (previousBatch == null) {
+                currentBatch.remove();
+            } else {
+                currentBatch.set(previousBatch);
+            }
+        }
+    }
+
+    private void storeOrBufferMetric(MetricKey key, int value) {
+        MetricsBatch batch = currentBatch.get();
+        if (batch != null) {
+            batch.add(key, value);
+        } else {
+            storeMetric(key, value);
+        }
+    }
+
+    /**
+     * Writes the given metric values into the database.
+     * <p>
+     * This is invoked by {@link MetricsBatch} for all buffered values. By default, each value is stored individually.
+     * Subclasses should overwrite this to use bulk operations of the underlying database.
+     *
+     * @param metrics the values to store per metric. A value of 0 indicates that the metric is to be deleted
+     */
+    protected void storeMetrics(Map<MetricKey, Integer> metrics) {
+        metrics.forEach(this::storeMetric);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void storeMetric(MetricKey key, int value) {
+        Class<? extends E> table = (Class<? extends E>) key.table();
+        if (value == 0) {
+            deleteMetric(table, key.targetType(), key.targetId(), key.name(), key.year(), key.month(), key.day());
+            return;
+        }
+
+        if (updateMetric(table,
+                         key.targetType(),
+                         key.targetId(),
+                         key.name(),
+                         value,
+                         key.year(),
+                         key.month(),
+                         key.day())) {
+            return;
+        }
+
+        if (table == getFactType()) {
+            createFact(key.targetType(), key.targetId(), key.name(), value);
+        } else if (table == getYearlyMetricType()) {
+            createYearlyMetric(key.targetType(), key.targetId(), key.name(), value, key.year());
+        } else if (table == getMonthlyMetricType()) {
+            createMonthlyMetric(key.targetType(), key.targetId(), key.name(), key.year(), key.month(), value);
+        } else {
+            createDailyMetric(key.targetType(),
+                              key.targetId(),
+                              key.name(),
+                              key.year(),
+                              key.month(),
+                              key.day(),
+                              value);
+        }
+    }
+
     @Override
     public MetricQuery query() {
         return new MetricQuery(this);
     }
 
+    @Override
+    public BulkMetricQuery bulkQuery() {
+        return new BulkMetricQuery(this);
+    }
+
     @Override
     public List<Integer> fetchMetricValuesForLast12Months(BaseEntity<?> entity, String metric) {
         LocalDate startDate = LocalDate.now().minusYears(1).plusMonths(1);
@@ -419,17 +505,7 @@ public abstract class BasicMetrics<E extends BaseEntity<?>> implements Metrics {
                                                 Integer year,
                                                 Integer month,
                                                 Integer day) {
-        String cacheKey = interval + "-" + targetType + "-" + targetId + "-" + name;
-        if (year != null) {
-            cacheKey = cacheKey + "-" + year;
-        }
-        if (month != null) {
-            cacheKey = cacheKey + "-" + month;
-        }
-        if (day != null) {
-            cacheKey = cacheKey + "-" + day;
-        }
-
+        String cacheKey = computeCacheKey(interval, targetType, targetId, name, year, month, day);
         Integer result = metricCache.get(cacheKey,
                                          ignored -> queryMetric(table,
                                                                 targetType,
@@ -445,6 +521,29 @@ public abstract class BasicMetrics<E extends BaseEntity<?>> implements Metrics {
         }
     }
 
+    @SuppressWarnings("java:S107")
+    @Explain("The simplest way seems to have that many parameters.")
+    private String computeCacheKey(MetricQuery.Interval interval,
+                                   String targetType,
+                                   String targetId,
+                                   String name,
+                                   Integer year,
+                                   Integer month,
+                                   Integer day) {
+        String cacheKey = interval + "-" + targetType + "-" + targetId + "-" + name;
+        if (year != null) {
+            cacheKey = cacheKey + "-" + year;
+        }
+        if (month != null) {
+            cacheKey = cacheKey + "-" + month;
+        }
+        if (day != null) {
+            cacheKey = cacheKey + "-" + day;
+        }
+
+        return cacheKey;
+    }
+
     /**
      * Queries the given metric.
      *
@@ -464,4 +563,105 @@ public abstract class BasicMetrics<E extends BaseEntity<?>> implements Metrics {
                                                      Integer year,
                                                      Integer month,
                                                      Integer day);
+
+    /**
+     * Executes the given bulk query.
+     * <p>
+     * All values of a target type are loaded using one query per chunk of 256 targets.
+     * The values are only kept in the returned matrix and not put into the shared metric cache, as this would evict
+     * the frequently used values of single {@link MetricQuery queries} by large amounts of mostly missing values.
+     *
+     * @param interval         the metric type to query
+     * @param targetIdsPerType the ids of the targets to query per target type
+     * @param names            the names of the metrics to query
+     * @param dates            the dates which determine the periods to query
+     * @return the matrix containing a value for each target, metric and period
+     */
+    protected MetricMatrix executeBulkQuery(MetricQuery.Interval interval,
+                                            Map<String, ? extends Collection<String>> targetIdsPerType,
+                                            List<String> names,
+                                            List<LocalDate> dates) {
+        MetricMatrix matrix = new MetricMatrix(dates);
+        if (names.isEmpty() || dates.isEmpty()) {
+            return matrix;
+        }
+
+        Class<? extends E> table = determineTable(interval);
+        Set<Integer> years = interval == MetricQuery.Interval.FACT ?
+                             null :
+                             dates.stream().map(LocalDate::getYear).collect(Collectors.toSet());
+        Set<Integer> months = interval == MetricQuery.Interval.DAILY ?
+                              dates.stream().map(LocalDate::getMonthValue).collect(Collectors.toSet()) :
+                              null;
+
+        targetIdsPerType.forEach((targetType, targetIds) -> {
+            List<String> allTargetIds = new ArrayList<>(targetIds);
+            for (int offset = 0; offset < allTargetIds.size(); offset += MAX_TARGETS_PER_BULK_QUERY) {
+                int end = Math.min(allTargetIds.size(), offset + MAX_TARGETS_PER_BULK_QUERY);
+                List<String> targetIdsOfQuery = allTargetIds.subList(offset, end);
+                Map<MetricKey, Integer> values =
+                        queryMetrics(table, targetType, targetIdsOfQuery, names, years, months);
+                fillMatrix(matrix, interval, table, targetType, targetIdsOfQuery, names, values);
+            }
+        });
+
+        return matrix;
+    }
+
+    @SuppressWarnings("java:S107")
+    @Explain("The simplest way seems to have that many parameters.")
+    private void fillMatrix(MetricMatrix matrix,
+                            MetricQuery.Interval interval,
+                            Class<? extends E> table,
+                            String targetType,
+                            List<String> targetIds,
+                            List<String> names,
+                            Map<MetricKey, Integer> values) {
+        List<LocalDate> dates = matrix.getDates();
+        for (String targetId : targetIds) {
+            for (String name : names) {
+                for (int index = 0; index < dates.size(); index++) {
+                    LocalDate date = dates.get(index);
+                    Integer year = interval == MetricQuery.Interval.FACT ? null : date.getYear();
+                    Integer month = interval == MetricQuery.Interval.MONTHLY
+                                    || interval == MetricQuery.Interval.DAILY ? date.getMonthValue() : null;
+                    Integer day = interval == MetricQuery.Interval.DAILY ? date.getDayOfMonth() : null;
+
+                    Integer value = values.get(new MetricKey(table, targetType, targetId, name, year, month, day));
+                    matrix.put(targetType, targetId, name, index, value == null ? 0 : value);
+                }
+            }
+        }
+    }
+
+    private Class<? extends E> determineTable(MetricQuery.Interval interval) {
+        return switch (interval) {
+            case YEARLY -> getYearlyMetricType();
+            case MONTHLY -> getMonthlyMetricType();
+            case DAILY -> getDailyMetricType();
+            case FACT -> getFactType();
+        };
+    }
+
+    /**
+     * Queries all values of the given metrics for the given targets.
+     * <p>
+     * Note that the given years and months only limit the amount of data to load. An implementation may therefore
+     * also return values of other periods, which are simply ignored.
+     *
+     * @param table      the table to query
+     * @param targetType the target type to query
+     * @param targetIds  the ids of the targets to query for
+     * @param names      the names of the metrics to query
+     * @param years      the years to query or <tt>null</tt> when querying facts
+     * @param months     the months to query or <tt>null</tt> if all months are to be queried
+     * @return all values found, where each {@link MetricKey} contains the given table and the period of the metric
+     * (as far as applicable for the table)
+     */
+    protected abstract Map<MetricKey, Integer> queryMetrics(Class<? extends E> table,
+                                                            String targetType,
+                                                            List<String> targetIds,
+                                                            List<String> names,
+                                                            @Nullable Set<Integer> years,
+                                                            @Nullable Set<Integer> months);
 }
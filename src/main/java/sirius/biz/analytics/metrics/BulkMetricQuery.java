@@ -0,0 +1,222 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.analytics.metrics;
+
+import sirius.db.mixing.BaseEntity;
+import sirius.db.mixing.Mixing;
+import sirius.db.mixing.types.BaseEntityRef;
+
+import javax.annotation.CheckReturnValue;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Provides a fluent API to query several metrics of many targets at once.
+ * <p>
+ * In contrast to a {@link MetricQuery}, which fetches each value individually, this loads all values of a table
+ * using a few bulk queries and returns them as {@link MetricMatrix}. Therefore, this should be used when rendering
+ * dashboards or reports which show the same metrics for many entities.
+ * <p>
+ * Note that the fetched values are not put into the cache used by {@link MetricQuery}. The returned matrix is rather
+ * intended to be kept by the caller while processing the request.
+ */
+public class BulkMetricQuery {
+
+    private final BasicMetrics<?> metrics;
+    private final List<String> metricNames = new ArrayList<>();
+    private final Map<String, Set<String>> targetIdsPerType = new LinkedHashMap<>();
+    private MetricQuery.Interval interval;
+
+    protected BulkMetricQuery(BasicMetrics<?> metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Queries the yearly metrics with the given names.
+     *
+     * @param names the metrics to query
+     * @return the query itself for fluent method calls
+     */
+    @CheckReturnValue
+    public BulkMetricQuery yearly(String... names) {
+        return withMetrics(MetricQuery.Interval.YEARLY, names);
+    }
+
+    /**
+     * Queries the monthly metrics with the given names.
+     *
+     * @param names the metrics to query
+     * @return the query itself for fluent method calls
+     */
+    @CheckReturnValue
+    public BulkMetricQuery monthly(String... names) {
+        return withMetrics(MetricQuery.Interval.MONTHLY, names);
+    }
+
+    /**
+     * Queries the daily metrics with the given names.
+     *
+     * @param names the metrics to query
+     * @return the query itself for fluent method calls
+     */
+    @CheckReturnValue
+    public BulkMetricQuery daily(String... names) {
+        return withMetrics(MetricQuery.Interval.DAILY, names);
+    }
+
+    /**
+     * Queries the facts with the given names.
+     *
+     * @param names the facts to query
+     * @return the query itself for fluent method calls
+     */
+    @CheckReturnValue
+    public BulkMetricQuery facts(String... names) {
+        return withMetrics(MetricQuery.Interval.FACT, names);
+    }
+
+    private BulkMetricQuery withMetrics(MetricQuery.Interval interval, String... names) {
+        if (this.interval != null && this.interval != interval) {
+            throw new IllegalStateException("A bulk query can only fetch metrics of a single interval: " + this);
+        }
+
+        this.interval = interval;
+        this.metricNames.addAll(Arrays.asList(names));
+
+        return this;
+    }
+
+    /**
+     * Adds an object to query metrics for.
+     *
+     * @param targetType the type of the entity to query metrics for
+     * @param targetId   the id of the entity to query metrics for
+     * @return the query itself for fluent method calls
+     */
+    @CheckReturnValue
+    public BulkMetricQuery of(String targetType, String targetId) {
+        targetIdsPerType.computeIfAbsent(targetType, _ -> new LinkedHashSet<>()).add(targetId);
+
+        return this;
+    }
+
+    /**
+     * Adds an entity to query metrics for.
+     *
+     * @param entity the entity to query metrics for
+     * @return the query itself for fluent method calls
+     */
+    @CheckReturnValue
+    public BulkMetricQuery of(BaseEntity<?> entity) {
+        return of(entity.getTypeName(), entity.getIdAsString());
+    }
+
+    /**
+     * Adds the entity referenced by the given reference to query metrics for.
+     *
+     * @param ref the reference pointing to the entity to query metrics for
+     * @return the query itself for fluent method calls
+     */
+    @CheckReturnValue
+    public BulkMetricQuery of(BaseEntityRef<?, ?> ref) {
+        return of(Mixing.getNameForType(ref.getType()), ref.getIdAsString());
+    }
+
+    /**
+     * Adds all given entities to query metrics for.
+     *
+     * @param entities the entities to query metrics for
+     * @return the query itself for fluent method calls
+     */
+    @CheckReturnValue
+    public BulkMetricQuery ofAll(Collection<? extends BaseEntity<?>> entities) {
+        entities.forEach(this::of);
+
+        return this;
+    }
+
+    /**
+     * Specifies that global metrics (not associated to an entity but rather system-wide values) should be queried as
+     * well.
+     *
+     * @return the query itself for fluent method calls
+     */
+    @CheckReturnValue
+    public BulkMetricQuery global() {
+        return of(BasicMetrics.GLOBAL, BasicMetrics.GLOBAL);
+    }
+
+    /**
+     * Fetches all metrics starting from the <tt>startDate</tt> up until the <tt>untilDate</tt> is reached.
+     *
+     * @param startDate the first date to fetch metrics for
+     * @param untilDate the last date to fetch metrics for
+     * @return the matrix containing the values of all requested metrics and targets. Note that the same circuit
+     * breakers as in {@link MetricQuery#values(LocalDate, LocalDate)} apply.
+     */
+    public MetricMatrix values(LocalDate startDate, LocalDate untilDate) {
+        assertParametersArePresent();
+        List<LocalDate> dates = new ArrayList<>();
+        LocalDate date = startDate;
+        LocalDate endDate = untilDate == null ? LocalDate.now() : untilDate;
+        int limit = MetricQuery.determineLimit(interval);
+        while (!date.isAfter(endDate) && dates.size() < limit) {
+            dates.add(date);
+            date = MetricQuery.increment(date, interval);
+        }
+
+        return metrics.executeBulkQuery(interval, targetIdsPerType, metricNames, dates);
+    }
+
+    /**
+     * Fetches the requested number of metrics up until the <tt>endDate</tt>.
+     *
+     * @param endDate        the last date to fetch metrics for
+     * @param numberOfValues the number of metrics to fetch (before the given end date) per target and metric
+     * @return the matrix containing the values of all requested metrics and targets. Note that the same circuit
+     * breakers as in {@link MetricQuery#valuesUntil(LocalDate, int)} apply.
+     */
+    public MetricMatrix valuesUntil(LocalDate endDate, int numberOfValues) {
+        assertParametersArePresent();
+        List<LocalDate> dates = new ArrayList<>();
+        LocalDate date = endDate;
+        int limit = Math.min(numberOfValues, MetricQuery.determineLimit(interval));
+        while (dates.size() < limit) {
+            dates.addFirst(date);
+            date = MetricQuery.decrement(date, interval);
+        }
+
+        return metrics.executeBulkQuery(interval, targetIdsPerType, metricNames, dates);
+    }
+
+    private void assertParametersArePresent() {
+        if (interval == null) {
+            throw new IllegalStateException("No metrics have been chosen for the bulk metric query: " + this);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "BulkMetricQuery{"
+               + "metricNames="
+               + metricNames
+               + ", targets="
+               + targetIdsPerType
+               + ", interval="
+               + interval
+               + '}';
+    }
+}
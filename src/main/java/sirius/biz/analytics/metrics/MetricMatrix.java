@@ -0,0 +1,104 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.analytics.metrics;
+
+import sirius.db.mixing.BaseEntity;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Contains the result of a {@link BulkMetricQuery}.
+ * <p>
+ * The matrix provides a value for each combination of target, metric and period which was requested. Missing values
+ * are reported as 0, just like {@link MetricQuery#values(LocalDate, LocalDate)} does.
+ * <p>
+ * As the matrix is completely kept in memory, it can be used as a short-lived cache while rendering a page or report
+ * (e.g. to fill many sparklines).
+ */
+public class MetricMatrix {
+
+    private final List<LocalDate> dates;
+    private final Map<String, int[]> values = new HashMap<>();
+
+    protected MetricMatrix(List<LocalDate> dates) {
+        this.dates = Collections.unmodifiableList(dates);
+    }
+
+    /**
+     * Stores the value of the given metric for the period at the given index.
+     *
+     * @param targetType the type of the target
+     * @param targetId   the id of the target
+     * @param name       the name of the metric
+     * @param index      the index of the period as given in {@link #getDates()}
+     * @param value      the value to store
+     */
+    protected void put(String targetType, String targetId, String name, int index, int value) {
+        values.computeIfAbsent(computeKey(targetType, targetId, name), _ -> new int[dates.size()])[index] = value;
+    }
+
+    private String computeKey(String targetType, String targetId, String name) {
+        return targetType + "-" + targetId + "-" + name;
+    }
+
+    /**
+     * Returns the dates which represent the queried periods.
+     *
+     * @return the dates (sorted ascending) of the periods for which values are available
+     */
+    public List<LocalDate> getDates() {
+        return dates;
+    }
+
+    /**
+     * Returns the values of the given metric for the given target.
+     *
+     * @param targetType the type of the target
+     * @param targetId   the id of the target
+     * @param name       the name of the metric
+     * @return the values for all {@link #getDates() periods}. If the metric or target wasn't part of the query, a
+     * list of zeros is returned
+     */
+    public List<Integer> values(String targetType, String targetId, String name) {
+        int[] valuesOfMetric = values.get(computeKey(targetType, targetId, name));
+        if (valuesOfMetric == null) {
+            return Collections.nCopies(dates.size(), 0);
+        }
+
+        return Arrays.stream(valuesOfMetric).boxed().toList();
+    }
+
+    /**
+     * Returns the values of the given metric for the given entity.
+     *
+     * @param entity the entity to fetch the values for
+     * @param name   the name of the metric
+     * @return the values for all {@link #getDates() periods}
+     * @see #values(String, String, String)
+     */
+    public List<Integer> values(BaseEntity<?> entity, String name) {
+        return values(entity.getTypeName(), entity.getIdAsString(), name);
+    }
+
+    /**
+     * Returns the global values of the given metric.
+     *
+     * @param name the name of the metric
+     * @return the values for all {@link #getDates() periods}
+     * @see #values(String, String, String)
+     */
+    public List<Integer> globalValues(String name) {
+        return values(BasicMetrics.GLOBAL, BasicMetrics.GLOBAL, name);
+    }
+}
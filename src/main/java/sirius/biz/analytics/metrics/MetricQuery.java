@@ -281,7 +281,7 @@ public class MetricQuery {
         return result;
     }
 
-    private LocalDate increment(LocalDate date, Interval interval) {
+    static LocalDate increment(LocalDate date, Interval interval) {
         return switch (interval) {
             case DAILY -> date.plusDays(1);
             case MONTHLY -> date.plusMonths(1);
@@ -293,7 +293,7 @@ public class MetricQuery {
         };
     }
 
-    private LocalDate decrement(LocalDate date, Interval interval) {
+    static LocalDate decrement(LocalDate date, Interval interval) {
         return switch (interval) {
             case DAILY -> date.minusDays(1);
             case MONTHLY -> date.minusMonths(1);
@@ -305,7 +305,7 @@ public class MetricQuery {
         };
     }
 
-    private int determineLimit(Interval interval) {
+    static int determineLimit(Interval interval) {
         return switch (interval) {
             case DAILY -> MAX_DAILY_METRICS;
             case MONTHLY -> MAX_MONTHLY_METRICS;
@@ -207,6 +207,20 @@ public interface Metrics {
      */
     void updateGlobalDailyMetric(String name, LocalDate date, int value);
 
+    /**
+     * Creates a batch which buffers metric updates so that these can be written using bulk operations.
+     * <p>
+     * Updates are only buffered while a task is executed via
+     * {@link MetricsBatch#execute(sirius.kernel.commons.UnitOfWork)}. All <tt>update...</tt> calls of this task only
+     * record the new value. The recorded values are written once enough values have been collected or when the batch
+     * is closed. If a metric is updated several times, only the last
+     * value is written. Note that queries don't observe buffered values.
+     *
+     * @return the batch which has to be closed (e.g. using a try-with-resources block) to write all buffered values
+     * @see sirius.biz.analytics.scheduler.AnalyticalTask#isBatchingMetrics()
+     */
+    MetricsBatch createBatch();
+
     /**
      * Creates a query against the metrics database.
      *
@@ -214,6 +228,16 @@ public interface Metrics {
      */
     MetricQuery query();
 
+    /**
+     * Creates a query which fetches several metrics for many targets at once.
+     * <p>
+     * This should be preferred over {@link #query()} when rendering dashboards or tables which show the same metrics
+     * for many entities, as all values are loaded using a few bulk queries instead of one query per value.
+     *
+     * @return a bulk query to be executed against the metrics database
+     */
+    BulkMetricQuery bulkQuery();
+
     /**
      * Fetches the metric values of the last 12 months for the given entity.
      *
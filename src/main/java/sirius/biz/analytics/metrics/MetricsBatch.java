@@ -0,0 +1,90 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.analytics.metrics;
+
+import sirius.kernel.commons.UnitOfWork;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Buffers metric updates so that these can be written using bulk operations.
+ * <p>
+ * A batch is created via {@link Metrics#createBatch()} and only buffers the updates performed by tasks which are
+ * executed via {@link #execute(UnitOfWork)}. All other updates are written immediately. Analytics batches use this
+ * for all metric computers which opt in via {@link sirius.biz.analytics.scheduler.AnalyticalTask#isBatchingMetrics()}.
+ * <p>
+ * Note that a batch isn't thread-safe and must therefore only be used by a single thread.
+ *
+ * @see BasicMetrics#storeMetrics(Map)
+ */
+public class MetricsBatch implements AutoCloseable {
+
+    /**
+     * Determines the number of distinct metrics to buffer before these are written.
+     */
+    private static final int MAX_BUFFERED_METRICS = 1024;
+
+    private final BasicMetrics<?> metrics;
+    private Map<BasicMetrics.MetricKey, Integer> pendingValues = new HashMap<>();
+
+    protected MetricsBatch(BasicMetrics<?> metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Executes the given task while buffering all of its metric updates in this batch.
+     *
+     * @param task the task to execute
+     * @throws Exception in case the task fails
+     */
+    public void execute(UnitOfWork task) throws Exception {
+        metrics.executeInBatch(this, task);
+    }
+
+    /**
+     * Records the new value of the given metric.
+     *
+     * @param key   the metric to update
+     * @param value the new value or 0 to delete the metric
+     */
+    protected void add(BasicMetrics.MetricKey key, int value) {
+        pendingValues.put(key, value);
+        if (pendingValues.size() >= MAX_BUFFERED_METRICS) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes all buffered values.
+     */
+    public void flush() {
+        if (pendingValues.isEmpty()) {
+            return;
+        }
+
+        Map<BasicMetrics.MetricKey, Integer> values = pendingValues;
+        pendingValues = new HashMap<>();
+        metrics.storeMetrics(values);
+    }
+
+    /**
+     * Returns the number of buffered values.
+     *
+     * @return the number of metrics which haven't been written yet
+     */
+    public int size() {
+        return pendingValues.size();
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+}
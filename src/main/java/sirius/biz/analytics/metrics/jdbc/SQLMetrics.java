@@ -12,13 +12,27 @@ import sirius.biz.analytics.metrics.BasicMetrics;
 import sirius.biz.analytics.metrics.Metrics;
 import sirius.db.jdbc.OMA;
 import sirius.db.jdbc.SQLEntity;
+import sirius.db.jdbc.SmartQuery;
+import sirius.db.jdbc.batch.BatchContext;
+import sirius.db.jdbc.batch.DeleteQuery;
+import sirius.db.jdbc.batch.InsertQuery;
+import sirius.db.jdbc.batch.UpdateQuery;
 import sirius.db.mixing.Mixing;
 import sirius.kernel.di.std.Part;
 import sirius.kernel.di.std.Register;
 import sirius.kernel.health.Exceptions;
 
+import javax.annotation.Nullable;
+import java.io.IOException;
 import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Stores metrics into the appropriate tables of the underlying JDBC database.
@@ -31,6 +45,11 @@ public class SQLMetrics extends BasicMetrics<SQLEntity> {
      */
     public static final String FRAMEWORK_JDBC_METRICS = "biz.analytics-metrics-jdbc";
 
+    /**
+     * Determines the maximal number of targets to resolve using a single query.
+     */
+    private static final int MAX_TARGETS_PER_QUERY = 256;
+
     @Part
     private OMA oma;
 
@@ -170,6 +189,166 @@ public class SQLMetrics extends BasicMetrics<SQLEntity> {
         oma.update(metric);
     }
 
+    /**
+     * Groups metrics which only differ in their target id, so that these can be loaded using a single query.
+     *
+     * @param table      the table which stores the metrics
+     * @param targetType the type of the targets
+     * @param name       the name of the metric
+     * @param year       the year (if available) of the metric
+     * @param month      the month (if available) of the metric
+     * @param day        the day (if available) of the metric
+     */
+    private record MetricGroup(Class<? extends SQLEntity> table,
+                               String targetType,
+                               String name,
+                               Integer year,
+                               Integer month,
+                               Integer day) {
+    }
+
+    /**
+     * Keeps the batch queries per table which are used to store buffered metrics.
+     */
+    private static class MetricWriter {
+
+        private final BatchContext batchContext;
+        private final Map<Class<? extends SQLEntity>, InsertQuery<SQLEntity>> insertQueries = new HashMap<>();
+        private final Map<Class<? extends SQLEntity>, UpdateQuery<SQLEntity>> updateQueries = new HashMap<>();
+        private final Map<Class<? extends SQLEntity>, DeleteQuery<SQLEntity>> deleteQueries = new HashMap<>();
+
+        MetricWriter(BatchContext batchContext) {
+            this.batchContext = batchContext;
+        }
+
+        @SuppressWarnings("unchecked")
+        void insert(Fact metric) {
+            insertQueries.computeIfAbsent(metric.getClass(),
+                                          type -> batchContext.insertQuery((Class<SQLEntity>) type, false))
+                         .insert(metric, false, true);
+        }
+
+        @SuppressWarnings("unchecked")
+        void update(Fact metric) {
+            updateQueries.computeIfAbsent(metric.getClass(),
+                                          type -> batchContext.updateQuery((Class<SQLEntity>) type, SQLEntity.ID)
+                                                              .withUpdatedMappings(Fact.VALUE))
+                         .update(metric, false, true);
+        }
+
+        @SuppressWarnings("unchecked")
+        void delete(Fact metric) {
+            deleteQueries.computeIfAbsent(metric.getClass(),
+                                          type -> batchContext.deleteQuery((Class<SQLEntity>) type, SQLEntity.ID))
+                         .delete(metric, false, true);
+        }
+    }
+
+    /**
+     * Stores the given metrics by loading the existing values in bulk and then performing batch updates via a
+     * {@link BatchContext}.
+     * <p>
+     * Note that we cannot use an upsert here, as the metric tables don't have a unique key which could be used to
+     * detect conflicts.
+     *
+     * @param metrics the values to store per metric. A value of 0 indicates that the metric is to be deleted
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    protected void storeMetrics(Map<MetricKey, Integer> metrics) {
+        Map<MetricGroup, Map<String, Integer>> groups = new HashMap<>();
+        metrics.forEach((key, value) -> {
+            MetricGroup group = new MetricGroup((Class<? extends SQLEntity>) key.table(),
+                                                key.targetType(),
+                                                key.name(),
+                                                key.year(),
+                                                key.month(),
+                                                key.day());
+            groups.computeIfAbsent(group, _ -> new HashMap<>()).put(key.targetId(), value);
+        });
+
+        try (BatchContext batchContext = new BatchContext(() -> "Store buffered metrics", Duration.ofMinutes(5))) {
+            MetricWriter writer = new MetricWriter(batchContext);
+            groups.forEach((group, valuesPerTarget) -> {
+                List<String> targetIds = new ArrayList<>(valuesPerTarget.keySet());
+                for (int offset = 0; offset < targetIds.size(); offset += MAX_TARGETS_PER_QUERY) {
+                    storeMetrics(writer,
+                                 group,
+                                 targetIds.subList(offset, Math.min(targetIds.size(), offset + MAX_TARGETS_PER_QUERY)),
+                                 valuesPerTarget);
+                }
+            });
+        } catch (IOException exception) {
+            throw Exceptions.handle()
+                            .to(Mixing.LOG)
+                            .error(exception)
+                            .withSystemErrorMessage("Failed to store metrics: %s (%s)")
+                            .handle();
+        }
+    }
+
+    private void storeMetrics(MetricWriter writer,
+                              MetricGroup group,
+                              List<String> targetIds,
+                              Map<String, Integer> valuesPerTarget) {
+        Set<String> existingTargets = new HashSet<>();
+        oma.select(group.table())
+           .fields(SQLEntity.ID, Fact.TARGET_ID, Fact.VALUE)
+           .eq(Fact.TARGET_TYPE, group.targetType())
+           .eq(Fact.NAME, group.name())
+           .eqIgnoreNull(YearlyMetric.YEAR, group.year())
+           .eqIgnoreNull(MonthlyMetric.MONTH, group.month())
+           .eqIgnoreNull(DailyMetric.DAY, group.day())
+           .where(OMA.FILTERS.oneInField(Fact.TARGET_ID, targetIds).build())
+           .iterateAll(entity -> {
+               Fact metric = (Fact) entity;
+               existingTargets.add(metric.getTargetId());
+               int value = valuesPerTarget.getOrDefault(metric.getTargetId(), 0);
+               if (value == 0) {
+                   writer.delete(metric);
+               } else if (value != metric.getValue()) {
+                   metric.setValue(value);
+                   writer.update(metric);
+               }
+           });
+
+        for (String targetId : targetIds) {
+            int value = valuesPerTarget.get(targetId);
+            if (value != 0 && !existingTargets.contains(targetId)) {
+                writer.insert(createMetric(group, targetId, value));
+            }
+        }
+    }
+
+    private Fact createMetric(MetricGroup group, String targetId, int value) {
+        Fact metric;
+        if (group.table() == DailyMetric.class) {
+            metric = new DailyMetric();
+        } else if (group.table() == MonthlyMetric.class) {
+            metric = new MonthlyMetric();
+        } else if (group.table() == YearlyMetric.class) {
+            metric = new YearlyMetric();
+        } else {
+            metric = new Fact();
+        }
+
+        metric.setTargetType(group.targetType());
+        metric.setTargetId(targetId);
+        metric.setName(group.name());
+        metric.setValue(value);
+        if (metric instanceof YearlyMetric yearlyMetric) {
+            yearlyMetric.setYear(group.year());
+        }
+        if (metric instanceof MonthlyMetric monthlyMetric) {
+            monthlyMetric.setMonth(group.month());
+        }
+        if (metric instanceof DailyMetric dailyMetric) {
+            dailyMetric.setDay(group.day());
+        }
+
+        return metric;
+    }
+
     @Override
     protected Optional<Integer> queryMetric(Class<? extends SQLEntity> table,
                                             String targetType,
@@ -194,4 +373,38 @@ public class SQLMetrics extends BasicMetrics<SQLEntity> {
             throw Exceptions.handle(OMA.LOG, exception);
         }
     }
+
+    @Override
+    protected Map<MetricKey, Integer> queryMetrics(Class<? extends SQLEntity> table,
+                                                   String targetType,
+                                                   List<String> targetIds,
+                                                   List<String> names,
+                                                   @Nullable Set<Integer> years,
+                                                   @Nullable Set<Integer> months) {
+        Map<MetricKey, Integer> result = new HashMap<>();
+        SmartQuery<? extends SQLEntity> query = oma.select(table)
+                                                   .eq(Fact.TARGET_TYPE, targetType)
+                                                   .where(OMA.FILTERS.oneInField(Fact.TARGET_ID, targetIds).build())
+                                                   .where(OMA.FILTERS.oneInField(Fact.NAME, names).build());
+        if (years != null) {
+            query.where(OMA.FILTERS.oneInField(YearlyMetric.YEAR, years).build());
+        }
+        if (months != null) {
+            query.where(OMA.FILTERS.oneInField(MonthlyMetric.MONTH, months).build());
+        }
+
+        query.iterateAll(entity -> {
+            Fact metric = (Fact) entity;
+            result.put(new MetricKey(table,
+                                     targetType,
+                                     metric.getTargetId(),
+                                     metric.getName(),
+                                     metric instanceof YearlyMetric yearlyMetric ? yearlyMetric.getYear() : null,
+                                     metric instanceof MonthlyMetric monthlyMetric ? monthlyMetric.getMonth() : null,
+                                     metric instanceof DailyMetric dailyMetric ? dailyMetric.getDay() : null),
+                       metric.getValue());
+        });
+
+        return result;
+    }
 }
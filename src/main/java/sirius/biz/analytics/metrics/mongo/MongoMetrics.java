@@ -8,6 +8,13 @@
 
 package sirius.biz.analytics.metrics.mongo;
 
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.DeleteOneModel;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
 import sirius.biz.analytics.metrics.BasicMetrics;
 import sirius.biz.analytics.metrics.Metrics;
 import sirius.db.KeyGenerator;
@@ -15,11 +22,20 @@ import sirius.db.mongo.Deleter;
 import sirius.db.mongo.Mango;
 import sirius.db.mongo.Mongo;
 import sirius.db.mongo.MongoEntity;
+import sirius.db.mongo.MongoQuery;
+import sirius.db.mongo.QueryBuilder;
 import sirius.db.mongo.Updater;
+import sirius.db.mixing.Mixing;
 import sirius.kernel.di.std.Part;
 import sirius.kernel.di.std.Register;
 
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Stores metrics into the appropriate collections of the underlying MongoDB.
@@ -41,6 +57,9 @@ public class MongoMetrics extends BasicMetrics<MongoEntity> {
     @Part
     private KeyGenerator keyGenerator;
 
+    @Part
+    private Mixing mixing;
+
     @Override
     protected Class<? extends MongoEntity> getFactType() {
         return Fact.class;
@@ -161,6 +180,52 @@ public class MongoMetrics extends BasicMetrics<MongoEntity> {
              .into(DailyMetric.class);
     }
 
+    /**
+     * Stores the given metrics using one unordered bulk write per collection.
+     * <p>
+     * Each value is written as upsert, so that no additional roundtrip is required to determine if a metric exists.
+     *
+     * @param metrics the values to store per metric. A value of 0 indicates that the metric is to be deleted
+     */
+    @Override
+    protected void storeMetrics(Map<MetricKey, Integer> metrics) {
+        Map<Class<?>, List<WriteModel<Document>>> writesPerTable = new HashMap<>();
+        metrics.forEach((key, value) -> {
+            writesPerTable.computeIfAbsent(key.table(), _ -> new ArrayList<>()).add(createWriteModel(key, value));
+        });
+
+        writesPerTable.forEach((table, writes) -> {
+            mongo.db()
+                 .getCollection(mixing.getDescriptor(table).getRelationName())
+                 .bulkWrite(writes, new BulkWriteOptions().ordered(false));
+        });
+    }
+
+    private WriteModel<Document> createWriteModel(MetricKey key, int value) {
+        Document filter = new Document().append(Fact.TARGET_TYPE.toString(), key.targetType())
+                                        .append(Fact.TARGET_ID.toString(), key.targetId())
+                                        .append(Fact.NAME.toString(), key.name());
+        if (key.year() != null) {
+            filter.append(YearlyMetric.YEAR.toString(), key.year());
+        }
+        if (key.month() != null) {
+            filter.append(MonthlyMetric.MONTH.toString(), key.month());
+        }
+        if (key.day() != null) {
+            filter.append(DailyMetric.DAY.toString(), key.day());
+        }
+
+        if (value == 0) {
+            return new DeleteOneModel<>(filter);
+        }
+
+        return new UpdateOneModel<>(filter,
+                                    Updates.combine(Updates.set(Fact.VALUE.toString(), value),
+                                                    Updates.setOnInsert(Fact.ID.toString(),
+                                                                        keyGenerator.generateId())),
+                                    new UpdateOptions().upsert(true));
+    }
+
     @Override
     protected Optional<Integer> queryMetric(Class<? extends MongoEntity> table,
                                             String targetType,
@@ -179,4 +244,39 @@ public class MongoMetrics extends BasicMetrics<MongoEntity> {
                     .singleIn(table)
                     .map(doc -> doc.get(Fact.VALUE).asInt(0));
     }
+
+    @Override
+    protected Map<MetricKey, Integer> queryMetrics(Class<? extends MongoEntity> table,
+                                                   String targetType,
+                                                   List<String> targetIds,
+                                                   List<String> names,
+                                                   @Nullable Set<Integer> years,
+                                                   @Nullable Set<Integer> months) {
+        Map<MetricKey, Integer> result = new HashMap<>();
+        MongoQuery<? extends MongoEntity> query =
+                mango.select(table)
+                     .eq(Fact.TARGET_TYPE, targetType)
+                     .where(QueryBuilder.FILTERS.oneInField(Fact.TARGET_ID, targetIds).build())
+                     .where(QueryBuilder.FILTERS.oneInField(Fact.NAME, names).build());
+        if (years != null) {
+            query.where(QueryBuilder.FILTERS.oneInField(YearlyMetric.YEAR, years).build());
+        }
+        if (months != null) {
+            query.where(QueryBuilder.FILTERS.oneInField(MonthlyMetric.MONTH, months).build());
+        }
+
+        query.iterateAll(entity -> {
+            Fact metric = (Fact) entity;
+            result.put(new MetricKey(table,
+                                     targetType,
+                                     metric.getTargetId(),
+                                     metric.getName(),
+                                     metric instanceof YearlyMetric yearlyMetric ? yearlyMetric.getYear() : null,
+                                     metric instanceof MonthlyMetric monthlyMetric ? monthlyMetric.getMonth() : null,
+                                     metric instanceof DailyMetric dailyMetric ? dailyMetric.getDay() : null),
+                       metric.getValue());
+        });
+
+        return result;
+    }
 }
@@ -61,6 +61,21 @@ public interface AnalyticalTask<E extends BaseEntity<?>> {
      */
     int getLevel();
 
+    /**
+     * Determines if the metric updates of this task may be buffered and written in bulk.
+     * <p>
+     * If enabled, all metric updates performed by this task within an analytics batch are collected and written
+     * using bulk operations once the batch is completed (or enough values are pending). This is most useful for tasks
+     * which update a few metrics for each of a large number of entities. Note that such a task doesn't observe its
+     * own updates when querying metrics, as these might not have been written yet.
+     *
+     * @return <tt>true</tt> if metric updates may be buffered, <tt>false</tt> to write them immediately
+     * @see sirius.biz.analytics.metrics.Metrics#createBatch()
+     */
+    default boolean isBatchingMetrics() {
+        return false;
+    }
+
     /**
      * Tracks the duration of the last computation.
      *
@@ -9,6 +9,8 @@
 package sirius.biz.analytics.scheduler;
 
 import tools.jackson.databind.node.ObjectNode;
+import sirius.biz.analytics.metrics.Metrics;
+import sirius.biz.analytics.metrics.MetricsBatch;
 import sirius.db.mixing.BaseEntity;
 import sirius.db.mixing.Mixing;
 import sirius.kernel.commons.MultiMap;
@@ -19,6 +21,7 @@ import sirius.kernel.di.std.Part;
 import sirius.kernel.health.Exceptions;
 import sirius.kernel.health.Microtiming;
 
+import javax.annotation.Nullable;
 import java.time.LocalDate;
 import java.util.function.Consumer;
 
@@ -47,6 +50,10 @@ abstract class BaseAnalyticalTaskScheduler<B extends BaseEntity<?>> implements A
     @Part
     protected AnalyticalEngine analyticalEngine;
 
+    @Part
+    @Nullable
+    protected Metrics metrics;
+
     protected MultiMap<Class<?>, AnalyticalTask<?>> tasks;
 
     private Boolean active;
@@ -147,11 +154,39 @@ abstract class BaseAnalyticalTaskScheduler<B extends BaseEntity<?>> implements A
      */
     protected abstract boolean isMatchingEntityType(AnalyticalTask<?> task);
 
-    protected void executeEntity(B entity, Class<?> type, LocalDate date, int level) {
+    /**
+     * Creates a batch which buffers the metric updates of all tasks which opted in via
+     * {@link AnalyticalTask#isBatchingMetrics()}.
+     * <p>
+     * The batch has to be closed once all entities of an analytics batch have been processed, so that the buffered
+     * metrics are written before the next level of tasks is scheduled.
+     *
+     * @param level the level of the tasks to execute
+     * @return the batch to pass to {@link #executeEntity(BaseEntity, Class, LocalDate, int, MetricsBatch)} or
+     * <tt>null</tt> if no task of the given level batches its metric updates
+     */
+    @Nullable
+    protected MetricsBatch createMetricsBatch(int level) {
+        if (metrics == null) {
+            return null;
+        }
+
+        boolean batchingTaskPresent = getTasks().values()
+                                                .stream()
+                                                .anyMatch(task -> task.getLevel() == level
+                                                                  && task.isBatchingMetrics());
+        return batchingTaskPresent ? metrics.createBatch() : null;
+    }
+
+    protected void executeEntity(B entity,
+                                 Class<?> type,
+                                 LocalDate date,
+                                 int level,
+                                 @Nullable MetricsBatch metricsBatch) {
         Watch watch = Watch.start();
         for (AnalyticalTask<?> task : getTasks().get(type)) {
             if (task.getLevel() == level) {
-                executeTaskForEntity(entity, type, date, task);
+                executeTaskForEntity(entity, type, date, task, metricsBatch);
             }
         }
         if (AnalyticalEngine.LOG.isFINE()) {
@@ -168,10 +203,18 @@ abstract class BaseAnalyticalTaskScheduler<B extends BaseEntity<?>> implements A
     }
 
     @SuppressWarnings("unchecked")
-    private void executeTaskForEntity(B entity, Class<?> type, LocalDate date, AnalyticalTask<?> task) {
+    private void executeTaskForEntity(B entity,
+                                      Class<?> type,
+                                      LocalDate date,
+                                      AnalyticalTask<?> task,
+                                      @Nullable MetricsBatch metricsBatch) {
         Watch watch = Watch.start();
         try {
-            ((AnalyticalTask<B>) task).compute(date, entity, useBestEffortScheduling());
+            if (metricsBatch != null && task.isBatchingMetrics()) {
+                metricsBatch.execute(() -> ((AnalyticalTask<B>) task).compute(date, entity, useBestEffortScheduling()));
+            } else {
+                ((AnalyticalTask<B>) task).compute(date, entity, useBestEffortScheduling());
+            }
         } catch (Exception exception) {
             Exceptions.handle()
                       .to(AnalyticalEngine.LOG)
@@ -9,6 +9,7 @@
 package sirius.biz.analytics.scheduler;
 
 import tools.jackson.databind.node.ObjectNode;
+import sirius.biz.analytics.metrics.MetricsBatch;
 import sirius.db.mongo.MongoEntity;
 import sirius.db.mongo.MongoQuery;
 import sirius.kernel.commons.Explain;
@@ -85,24 +86,26 @@ public abstract class MongoAnalyticalTaskScheduler extends BaseAnalyticalTaskSch
 
     @Override
     public void executeBatch(ObjectNode batchDescription, LocalDate date, int level) {
-        if (batchDescription.has(BaseAnalyticalTaskScheduler.CONTEXT_MARKER_GLOBAL_ENTITY)) {
-            AnalyticalEngine.LOG.FINE("Executing global batch: " + batchDescription);
+        try (MetricsBatch metricsBatch = createMetricsBatch(level)) {
+            if (batchDescription.has(BaseAnalyticalTaskScheduler.CONTEXT_MARKER_GLOBAL_ENTITY)) {
+                AnalyticalEngine.LOG.FINE("Executing global batch: " + batchDescription);
 
-            // A global run was detected, execute with "null" and MongoEntity as type...
-            executeEntity(null, MongoEntity.class, date, level);
-        } else if (batchDescription.has(BaseEntityBatchEmitter.TYPE)) {
-            // Note that we check for the presence of the TYPE, as (in case of some schedulers) we emit
-            // an empty batch, just to ensure that executors with the higher levels are executed, even if
-            // there are no tasks on the current level (see AnalyticalBatchExecutor.executeWork...)
-            AtomicInteger counter = new AtomicInteger();
-            batchEmitter.evaluateBatch(batchDescription, this::extendBatchQuery, e -> {
-                executeEntity(e, e.getClass(), date, level);
-                counter.incrementAndGet();
-            });
+                // A global run was detected, execute with "null" and MongoEntity as type...
+                executeEntity(null, MongoEntity.class, date, level, metricsBatch);
+            } else if (batchDescription.has(BaseEntityBatchEmitter.TYPE)) {
+                // Note that we check for the presence of the TYPE, as (in case of some schedulers) we emit
+                // an empty batch, just to ensure that executors with the higher levels are executed, even if
+                // there are no tasks on the current level (see AnalyticalBatchExecutor.executeWork...)
+                AtomicInteger counter = new AtomicInteger();
+                batchEmitter.evaluateBatch(batchDescription, this::extendBatchQuery, e -> {
+                    executeEntity(e, e.getClass(), date, level, metricsBatch);
+                    counter.incrementAndGet();
+                });
 
-            AnalyticalEngine.LOG.FINE("Executed %s entities for batch: %s", counter.get(), batchDescription);
-        } else {
-            AnalyticalEngine.LOG.FINE("Skipped a completely empty batch: %s", batchDescription);
+                AnalyticalEngine.LOG.FINE("Executed %s entities for batch: %s", counter.get(), batchDescription);
+            } else {
+                AnalyticalEngine.LOG.FINE("Skipped a completely empty batch: %s", batchDescription);
+            }
         }
     }
 }
@@ -9,6 +9,7 @@
 package sirius.biz.analytics.scheduler;
 
 import tools.jackson.databind.node.ObjectNode;
+import sirius.biz.analytics.metrics.MetricsBatch;
 import sirius.db.jdbc.SQLEntity;
 import sirius.db.jdbc.SmartQuery;
 import sirius.kernel.commons.Explain;
@@ -84,16 +85,18 @@ public abstract class SQLAnalyticalTaskScheduler extends BaseAnalyticalTaskSched
 
     @Override
     public void executeBatch(ObjectNode batchDescription, LocalDate date, int level) {
-        if (batchDescription.has(BaseAnalyticalTaskScheduler.CONTEXT_MARKER_GLOBAL_ENTITY)) {
-            // A global run was detected, execute with "null" and SQLEntity as type...
-            executeEntity(null, SQLEntity.class, date, level);
-        } else if (batchDescription.has(BaseEntityBatchEmitter.TYPE)) {
-            // Note that we check for the presence of the TYPE, as (in case of some schedulers) we emit
-            // an empty batch, just to ensure that executors with the higher levels are executed, even if
-            // there are no tasks on the current level (see AnalyticalBatchExecutor.executeWork...)
-            batchEmitter.evaluateBatch(batchDescription,
-                                       this::extendBatchQuery,
-                                       e -> executeEntity(e, e.getClass(), date, level));
+        try (MetricsBatch metricsBatch = createMetricsBatch(level)) {
+            if (batchDescription.has(BaseAnalyticalTaskScheduler.CONTEXT_MARKER_GLOBAL_ENTITY)) {
+                // A global run was detected, execute with "null" and SQLEntity as type...
+                executeEntity(null, SQLEntity.class, date, level, metricsBatch);
+            } else if (batchDescription.has(BaseEntityBatchEmitter.TYPE)) {
+                // Note that we check for the presence of the TYPE, as (in case of some schedulers) we emit
+                // an empty batch, just to ensure that executors with the higher levels are executed, even if
+                // there are no tasks on the current level (see AnalyticalBatchExecutor.executeWork...)
+                batchEmitter.evaluateBatch(batchDescription,
+                                           this::extendBatchQuery,
+                                           e -> executeEntity(e, e.getClass(), date, level, metricsBatch));
+            }
         }
     }
 }
@@ -31,11 +31,15 @@ public class BackgroundInfo {
     private final String version;
     private final String detailedVersion;
     private final int activeBackgroundTasks;
+    private final int activeDistributedTasks;
+    private final int distributedTasksCapacity;
     protected final Map<String, BackgroundJobInfo> jobs = new HashMap<>();
 
     protected BackgroundInfo(String nodeName,
                              boolean bleeding,
                              int activeBackgroundTasks,
+                             int activeDistributedTasks,
+                             int distributedTasksCapacity,
                              String uptime,
                              String version,
                              String detailedVersion) {
@@ -45,6 +49,8 @@ public class BackgroundInfo {
         this.version = version;
         this.detailedVersion = detailedVersion;
         this.activeBackgroundTasks = activeBackgroundTasks;
+        this.activeDistributedTasks = activeDistributedTasks;
+        this.distributedTasksCapacity = distributedTasksCapacity;
     }
 
     /**
@@ -102,6 +108,24 @@ public class BackgroundInfo {
         return activeBackgroundTasks;
     }
 
+    /**
+     * Returns the number of distributed tasks currently being executed on the node.
+     *
+     * @return the number of active distributed tasks
+     */
+    public int getActiveDistributedTasks() {
+        return activeDistributedTasks;
+    }
+
+    /**
+     * Returns the maximal number of distributed tasks which can be executed in parallel on the node.
+     *
+     * @return the capacity of the distributed tasks executor
+     */
+    public int getDistributedTasksCapacity() {
+        return distributedTasksCapacity;
+    }
+
     /**
      * Provides a map of all background jobs running on a node.
      *
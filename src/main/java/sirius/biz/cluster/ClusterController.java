@@ -80,6 +80,8 @@ public class ClusterController extends BasicController {
     public static final String RESPONSE_UPTIME = "uptime";
     public static final String RESPONSE_BLEEDING = "bleeding";
     public static final String RESPONSE_ACTIVE_BACKGROUND_TASKS = "activeBackgroundTasks";
+    public static final String RESPONSE_ACTIVE_DISTRIBUTED_TASKS = "activeDistributedTasks";
+    public static final String RESPONSE_DISTRIBUTED_TASKS_CAPACITY = "distributedTasksCapacity";
     public static final String RESPONSE_METRICS = "metrics";
     public static final String RESPONSE_METRIC = "metric";
     public static final String RESPONSE_VALUE = "value";
@@ -189,6 +191,8 @@ public class ClusterController extends BasicController {
                         NLS.convertDuration(Duration.ofMillis(Sirius.getUptimeInMilliseconds()), true, false));
         output.property(RESPONSE_BLEEDING, neighborhoodWatch.isBleeding());
         output.property(RESPONSE_ACTIVE_BACKGROUND_TASKS, neighborhoodWatch.getActiveBackgroundTasks());
+        output.property(RESPONSE_ACTIVE_DISTRIBUTED_TASKS, neighborhoodWatch.getActiveDistributedTasks());
+        output.property(RESPONSE_DISTRIBUTED_TASKS_CAPACITY, neighborhoodWatch.getDistributedTasksCapacity());
 
         output.beginArray(RESPONSE_JOBS);
         for (BackgroundJobInfo job : neighborhoodWatch.getLocalBackgroundInfo().getJobs().values()) {
@@ -8,7 +8,11 @@
 
 package sirius.biz.cluster;
 
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.node.ArrayNode;
 import tools.jackson.databind.node.ObjectNode;
+import sirius.kernel.Startable;
+import sirius.kernel.Stoppable;
 import sirius.kernel.async.CallContext;
 import sirius.kernel.cache.Cache;
 import sirius.kernel.cache.CacheCoherence;
@@ -17,60 +21,268 @@ import sirius.kernel.commons.Json;
 import sirius.kernel.commons.Strings;
 import sirius.kernel.di.std.Part;
 import sirius.kernel.di.std.Register;
+import sirius.kernel.health.Counter;
+import sirius.kernel.health.Exceptions;
+import sirius.kernel.health.metrics.Metric;
+import sirius.kernel.health.metrics.MetricProvider;
+import sirius.kernel.health.metrics.MetricsCollector;
 
 import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Provides a {@link CacheCoherence cache coherence} handler based on the {@link Interconnect}.
+ * <p>
+ * Invalidations are always applied to the local cache immediately. However, the messages for all other nodes are
+ * collected per cache and sent as a single message every few milliseconds. Therefore, a bulk update which evicts
+ * thousands of keys results in a few messages instead of thousands. If too many keys or removeAll requests of a single
+ * cache are pending, the whole cache is cleared on the other nodes instead, as this is way cheaper than transmitting
+ * and processing each of them. Clearing a cache is sent immediately and supersedes all pending invalidations of this
+ * cache.
+ * <p>
+ * Note that the pending invalidations are flushed by a dedicated thread rather than a
+ * {@link sirius.kernel.async.BackgroundLoop}, as the latter can be disabled via the orchestration, which would leave
+ * the caches of all other nodes outdated. For the same reason, all pending invalidations are flushed on shutdown.
  */
-@Register
-public class InterconnectCacheCoherence implements CacheCoherence, InterconnectHandler {
+@Register(classes = {InterconnectCacheCoherence.class, CacheCoherence.class, InterconnectHandler.class,
+        MetricProvider.class, Startable.class, Stoppable.class})
+public class InterconnectCacheCoherence
+        implements CacheCoherence, InterconnectHandler, MetricProvider, Startable, Stoppable {
 
     private static final String MESSAGE_TYPE = "type";
     private static final String TYPE_CLEAR = "clear";
     private static final String TYPE_REMOVE = "remove";
     private static final String TYPE_REMOVE_ALL = "removeAll";
+    private static final String TYPE_BATCH = "batch";
 
     private static final String MESSAGE_CACHE = "cache";
     private static final String MESSAGE_KEY = "key";
+    private static final String MESSAGE_KEYS = "keys";
     private static final String MESSAGE_DISCRIMINATOR = "discriminator";
     private static final String MESSAGE_TEST_VALUE = "testValue";
+    private static final String MESSAGE_REMOVE_ALL = "removeAll";
     private static final String MESSAGE_NODE = "node";
 
+    /**
+     * Limits the number of keys (and removeAll requests) which are sent in a single message.
+     */
+    private static final int MAX_ENTRIES_PER_MESSAGE = 256;
+
+    /**
+     * Determines the number of pending keys of a single cache, for which the cache is rather cleared on all other
+     * nodes than invalidating each key.
+     */
+    private static final int CLEAR_THRESHOLD = 4096;
+
+    /**
+     * Determines the number of pending removeAll requests of a single cache, for which the cache is rather cleared on
+     * all other nodes. This is way lower than {@link #CLEAR_THRESHOLD}, as each of these requests has to scan the
+     * whole cache on the receiving node.
+     */
+    private static final int REMOVE_ALL_CLEAR_THRESHOLD = 256;
+
+    /**
+     * Contains the interval in which pending invalidations are sent to the other nodes.
+     */
+    private static final Duration FLUSH_INTERVAL = Duration.ofMillis(20);
+
+    /**
+     * Represents a pending {@link #removeAll(Cache, String, String)} which has to be sent to the other nodes.
+     *
+     * @param discriminator the discriminator of the value based remover to invoke
+     * @param testValue     the value to pass into the remover
+     */
+    private record RemoveAllRequest(String discriminator, String testValue) {
+    }
+
+    /**
+     * Contains all invalidations of a cache which haven't been sent yet.
+     */
+    private static class PendingInvalidations {
+        private final Set<String> keys = new LinkedHashSet<>();
+        private final Set<RemoveAllRequest> removeAllRequests = new LinkedHashSet<>();
+        private boolean clear;
+    }
+
+    private final Map<String, PendingInvalidations> pendingInvalidations = new HashMap<>();
+    private final Counter recordedInvalidations = new Counter();
+    private final Counter sentMessages = new Counter();
+
+    private ScheduledExecutorService flushExecutor;
+
     @Part
     private Interconnect interconnect;
 
+    @Override
+    public int getPriority() {
+        return 900;
+    }
+
+    @Override
+    public void started() {
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                                                                         .name("cache-coherence-flush")
+                                                                         .daemon()
+                                                                         .factory());
+        flushExecutor.scheduleWithFixedDelay(this::flushSafely,
+                                             FLUSH_INTERVAL.toMillis(),
+                                             FLUSH_INTERVAL.toMillis(),
+                                             TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stopped() {
+        if (flushExecutor != null) {
+            flushExecutor.shutdown();
+            try {
+                if (!flushExecutor.awaitTermination(1, TimeUnit.SECONDS)) {
+                    Interconnect.LOG.WARN("The cache coherence flush didn't terminate within one second.");
+                }
+            } catch (InterruptedException exception) {
+                Exceptions.ignore(exception);
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // Make sure that the invalidations which have been recorded since the last flush aren't lost...
+        flushSafely();
+    }
+
+    private void flushSafely() {
+        try {
+            flushPendingInvalidations();
+        } catch (Exception exception) {
+            // An exception must not escape, as this would stop the scheduled execution...
+            Exceptions.handle(Interconnect.LOG, exception);
+        }
+    }
+
     @Override
     public void clear(Cache<String, ?> cache) {
         CacheManager.clearCoherentCacheLocally(cache.getName());
+        recordedInvalidations.inc();
+
+        // All pending invalidations of this cache are superseded by clearing it...
+        synchronized (pendingInvalidations) {
+            pendingInvalidations.remove(cache.getName());
+        }
+
+        sendClear(cache.getName());
+    }
+
+    private void sendClear(String cache) {
+        sentMessages.inc();
         interconnect.dispatch(getName(),
                               Json.createObject()
                                   .put(MESSAGE_TYPE, TYPE_CLEAR)
-                                  .put(MESSAGE_CACHE, cache.getName())
+                                  .put(MESSAGE_CACHE, cache)
                                   .put(MESSAGE_NODE, CallContext.getNodeName()));
     }
 
     @Override
     public void removeKey(Cache<String, ?> cache, String key) {
         CacheManager.removeCoherentCacheKeyLocally(cache.getName(), key);
-        interconnect.dispatch(getName(),
-                              Json.createObject()
-                                  .put(MESSAGE_TYPE, TYPE_REMOVE)
-                                  .put(MESSAGE_CACHE, cache.getName())
-                                  .put(MESSAGE_KEY, key)
-                                  .put(MESSAGE_NODE, CallContext.getNodeName()));
+        recordedInvalidations.inc();
+
+        synchronized (pendingInvalidations) {
+            PendingInvalidations pending =
+                    pendingInvalidations.computeIfAbsent(cache.getName(), _ -> new PendingInvalidations());
+            if (!pending.clear) {
+                pending.keys.add(key);
+                if (pending.keys.size() >= CLEAR_THRESHOLD) {
+                    escalateToClear(pending);
+                }
+            }
+        }
     }
 
     @Override
     public void removeAll(Cache<String, ?> cache, String discriminator, String testInput) {
         CacheManager.coherentCacheRemoveAllLocally(cache.getName(), discriminator, testInput);
-        interconnect.dispatch(getName(),
-                              Json.createObject()
-                                  .put(MESSAGE_TYPE, TYPE_REMOVE_ALL)
-                                  .put(MESSAGE_CACHE, cache.getName())
-                                  .put(MESSAGE_DISCRIMINATOR, discriminator)
-                                  .put(MESSAGE_TEST_VALUE, testInput)
-                                  .put(MESSAGE_NODE, CallContext.getNodeName()));
+        recordedInvalidations.inc();
+
+        synchronized (pendingInvalidations) {
+            PendingInvalidations pending =
+                    pendingInvalidations.computeIfAbsent(cache.getName(), _ -> new PendingInvalidations());
+            if (!pending.clear) {
+                pending.removeAllRequests.add(new RemoveAllRequest(discriminator, testInput));
+                if (pending.removeAllRequests.size() >= REMOVE_ALL_CLEAR_THRESHOLD) {
+                    escalateToClear(pending);
+                }
+            }
+        }
+    }
+
+    private void escalateToClear(PendingInvalidations pending) {
+        pending.clear = true;
+        pending.keys.clear();
+        pending.removeAllRequests.clear();
+    }
+
+    /**
+     * Sends all pending invalidations to the other nodes.
+     * <p>
+     * This is invoked by a dedicated thread every few milliseconds and once more on shutdown.
+     *
+     * @return the number of messages which have been sent
+     */
+    protected int flushPendingInvalidations() {
+        Map<String, PendingInvalidations> invalidations;
+        synchronized (pendingInvalidations) {
+            if (pendingInvalidations.isEmpty()) {
+                return 0;
+            }
+            invalidations = new HashMap<>(pendingInvalidations);
+            pendingInvalidations.clear();
+        }
+
+        long messagesBefore = sentMessages.getCount();
+        invalidations.forEach((cache, pending) -> {
+            if (pending.clear) {
+                sendClear(cache);
+            } else {
+                sendBatches(cache, new ArrayList<>(pending.keys), new ArrayList<>(pending.removeAllRequests));
+            }
+        });
+
+        return (int) (sentMessages.getCount() - messagesBefore);
+    }
+
+    private void sendBatches(String cache, List<String> keys, List<RemoveAllRequest> removeAllRequests) {
+        int keyIndex = 0;
+        int removeAllIndex = 0;
+        while (keyIndex < keys.size() || removeAllIndex < removeAllRequests.size()) {
+            ArrayNode keysToSend = Json.createArray();
+            while (keyIndex < keys.size() && keysToSend.size() < MAX_ENTRIES_PER_MESSAGE) {
+                keysToSend.add(keys.get(keyIndex++));
+            }
+
+            // Each removeAll request is transmitted as compact [discriminator, testValue] pair...
+            ArrayNode removeAllsToSend = Json.createArray();
+            while (removeAllIndex < removeAllRequests.size() && removeAllsToSend.size() < MAX_ENTRIES_PER_MESSAGE) {
+                RemoveAllRequest request = removeAllRequests.get(removeAllIndex++);
+                removeAllsToSend.add(Json.createArray().add(request.discriminator()).add(request.testValue()));
+            }
+
+            ObjectNode message = Json.createObject()
+                                     .put(MESSAGE_TYPE, TYPE_BATCH)
+                                     .put(MESSAGE_CACHE, cache)
+                                     .put(MESSAGE_NODE, CallContext.getNodeName());
+            message.set(MESSAGE_KEYS, keysToSend);
+            message.set(MESSAGE_REMOVE_ALL, removeAllsToSend);
+
+            sentMessages.inc();
+            interconnect.dispatch(getName(), message);
+        }
     }
 
     @Override
@@ -85,6 +297,8 @@ public class InterconnectCacheCoherence implements CacheCoherence, InterconnectH
 
         if (Strings.areEqual(type, TYPE_CLEAR)) {
             CacheManager.clearCoherentCacheLocally(cache);
+        } else if (Strings.areEqual(type, TYPE_BATCH)) {
+            handleBatch(event, cache);
         } else if (Strings.areEqual(type, TYPE_REMOVE)) {
             String key = Json.tryValueString(event, MESSAGE_KEY).orElse(null);
             CacheManager.removeCoherentCacheKeyLocally(cache, key);
@@ -95,9 +309,32 @@ public class InterconnectCacheCoherence implements CacheCoherence, InterconnectH
         }
     }
 
+    private void handleBatch(ObjectNode event, String cache) {
+        for (JsonNode key : Json.getArray(event, MESSAGE_KEYS)) {
+            CacheManager.removeCoherentCacheKeyLocally(cache, key.asString());
+        }
+        for (JsonNode request : Json.getArray(event, MESSAGE_REMOVE_ALL)) {
+            CacheManager.coherentCacheRemoveAllLocally(cache, request.path(0).asString(), request.path(1).asString());
+        }
+    }
+
     @Nonnull
     @Override
     public String getName() {
         return "CacheCoherence";
     }
+
+    @Override
+    public void gather(MetricsCollector metricsCollector) {
+        metricsCollector.differentialMetric("cache_coherence_invalidations",
+                                            "cache-coherence-invalidations",
+                                            "Cache Coherence Invalidations",
+                                            recordedInvalidations.getCount(),
+                                            Metric.UNIT_PER_MIN);
+        metricsCollector.differentialMetric("cache_coherence_messages",
+                                            "cache-coherence-messages",
+                                            "Cache Coherence Messages",
+                                            sentMessages.getCount(),
+                                            Metric.UNIT_PER_MIN);
+    }
 }
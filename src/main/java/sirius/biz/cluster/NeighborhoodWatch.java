@@ -438,13 +438,31 @@ public class NeighborhoodWatch implements Orchestration, Initializable, Intercon
 
     public int getActiveBackgroundTasks() {
         AsyncExecutor backgroundExecutor = tasks.executorService("background");
-        AsyncExecutor distributedTasksExecutor = tasks.executorService("distributed-tasks");
+        AsyncExecutor distributedTasksExecutor = distributedTasks.getLocalExecutor();
         return backgroundExecutor.getActiveCount()
                + backgroundExecutor.getQueue().size()
                + distributedTasksExecutor.getActiveCount()
                + distributedTasksExecutor.getQueue().size();
     }
 
+    /**
+     * Returns the number of distributed tasks currently being executed on this node.
+     *
+     * @return the number of active distributed tasks
+     */
+    public int getActiveDistributedTasks() {
+        return distributedTasks.getNumberOfActiveTasks();
+    }
+
+    /**
+     * Returns the maximal number of distributed tasks which can be executed in parallel on this node.
+     *
+     * @return the pool size of the distributed tasks executor
+     */
+    public int getDistributedTasksCapacity() {
+        return distributedTasks.getLocalExecutor().getMaximumPoolSize();
+    }
+
     /**
      * Returns a report of all local background activities.
      *
@@ -454,6 +472,8 @@ public class NeighborhoodWatch implements Orchestration, Initializable, Intercon
         BackgroundInfo result = new BackgroundInfo(CallContext.getNodeName(),
                                                    isBleeding(),
                                                    getActiveBackgroundTasks(),
+                                                   getActiveDistributedTasks(),
+                                                   getDistributedTasksCapacity(),
                                                    NLS.convertDuration(Duration.ofMillis(Sirius.getUptimeInMilliseconds()),
                                                                        true,
                                                                        false),
@@ -477,6 +497,8 @@ public class NeighborhoodWatch implements Orchestration, Initializable, Intercon
             return new BackgroundInfo(jsonObject.path(InterconnectClusterManager.RESPONSE_NODE_NAME).asString(null),
                                       false,
                                       0,
+                                      0,
+                                      0,
                                       "-",
                                       "-",
                                       "-");
@@ -486,6 +508,8 @@ public class NeighborhoodWatch implements Orchestration, Initializable, Intercon
                 new BackgroundInfo(jsonObject.path(InterconnectClusterManager.RESPONSE_NODE_NAME).asString(null),
                                    jsonObject.path(ClusterController.RESPONSE_BLEEDING).asBoolean(),
                                    jsonObject.path(ClusterController.RESPONSE_ACTIVE_BACKGROUND_TASKS).asInt(),
+                                   jsonObject.path(ClusterController.RESPONSE_ACTIVE_DISTRIBUTED_TASKS).asInt(),
+                                   jsonObject.path(ClusterController.RESPONSE_DISTRIBUTED_TASKS_CAPACITY).asInt(),
                                    jsonObject.path(ClusterController.RESPONSE_UPTIME).asString(null),
                                    jsonObject.path(ClusterController.RESPONSE_VERSION).asString(null),
                                    jsonObject.path(ClusterController.RESPONSE_DETAILED_VERSION).asString(null));
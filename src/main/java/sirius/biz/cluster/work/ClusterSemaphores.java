@@ -0,0 +1,53 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.cluster.work;
+
+import java.util.Map;
+
+/**
+ * Represents a set of semaphores which limit the parallelism across all nodes of the cluster.
+ * <p>
+ * In contrast to a plain {@link java.util.concurrent.Semaphore}, the limit is supplied per call, so that the
+ * configuration is always taken from the calling node.
+ */
+interface ClusterSemaphores {
+
+    /**
+     * Tries to acquire up to the given number of permits for the given semaphore.
+     *
+     * @param semaphore the name of the semaphore to acquire permits for
+     * @param limit     the maximal number of permits which may be held across the whole cluster
+     * @param permits   the number of permits to acquire
+     * @return the number of permits which have actually been acquired. This might be less than requested (or even
+     * <tt>0</tt>) if the limit has been reached.
+     */
+    int tryAcquire(String semaphore, int limit, int permits);
+
+    /**
+     * Releases the given number of permits for the given semaphore.
+     *
+     * @param semaphore the name of the semaphore to release permits for
+     * @param permits   the number of permits to release
+     */
+    void release(String semaphore, int permits);
+
+    /**
+     * Signals that this node is still alive and reports the number of permits it actually holds.
+     * <p>
+     * Implementations which are shared across nodes use this to detect crashed nodes so that their permits can be
+     * reclaimed. This has to be invoked regularly.
+     * <p>
+     * Also, the permits recorded for this node are overwritten with the given numbers. This reclaims permits which
+     * leaked as a release failed or as an acquisition succeeded but its result never reached the caller.
+     *
+     * @param heldPermits the number of permits held by this node per semaphore. Semaphores which aren't contained
+     *                    remain unchanged.
+     */
+    void keepAlive(Map<String, Integer> heldPermits);
+}
@@ -0,0 +1,343 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.cluster.work;
+
+import sirius.biz.cluster.Interconnect;
+import sirius.biz.cluster.InterconnectHandler;
+import sirius.kernel.async.AsyncExecutor;
+import sirius.kernel.async.CallContext;
+import sirius.kernel.commons.Json;
+import sirius.kernel.commons.RateLimit;
+import sirius.kernel.commons.Strings;
+import sirius.kernel.di.std.ConfigValue;
+import sirius.kernel.di.std.Part;
+import sirius.kernel.di.std.Register;
+import sirius.kernel.health.Exceptions;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.node.ObjectNode;
+
+import javax.annotation.Nonnull;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps track of the load of the distributed tasks executors of all nodes in the cluster.
+ * <p>
+ * Each node regularly broadcasts the utilization of its local executor along with some per-queue statistics (number
+ * of executed tasks, time spent waiting in the queue and time spent executing) via the {@link Interconnect}. This
+ * permits the {@link WorkLoaderLoop} to make load-aware decisions: A node which is already busier than the rest of
+ * the cluster will only pull as much work as needed to keep up with the cluster-wide utilization (plus some slack),
+ * so that idle nodes get a chance to pick up the remaining tasks. Note that this is disabled by default
+ * (see <tt>async.distributed.loadBalancing.enabled</tt>). Also, the loop polls more frequently as long as
+ * there is a backlog, so that idle nodes don't wait for the next regular tick.
+ * <p>
+ * The collected data is also used by {@link DistributedQueueLoadInfo} to provide a cluster-wide view of the
+ * throughput and latency of each queue.
+ */
+@Register(classes = {ClusterWorkLoad.class, InterconnectHandler.class})
+public class ClusterWorkLoad implements InterconnectHandler {
+
+    private static final String MESSAGE_NODE = "node";
+    private static final String MESSAGE_ACTIVE_TASKS = "activeTasks";
+    private static final String MESSAGE_CAPACITY = "capacity";
+    private static final String MESSAGE_BACKLOG = "backlog";
+    private static final String MESSAGE_INTERVAL = "interval";
+    private static final String MESSAGE_QUEUES = "queues";
+    private static final String MESSAGE_EXECUTED = "executed";
+    private static final String MESSAGE_WAIT_TIME = "waitTime";
+    private static final String MESSAGE_EXECUTION_TIME = "executionTime";
+
+    /**
+     * Determines how often the local load is broadcast. This is slightly shorter than the regular interval of the
+     * {@link WorkLoaderLoop} so that each tick reliably publishes a report.
+     */
+    private static final Duration PUBLISH_INTERVAL = Duration.ofSeconds(4);
+
+    /**
+     * Determines after which period a load report of a node is considered outdated. We give each node about three
+     * ticks before we ignore it.
+     */
+    private static final long MAX_REPORT_AGE_MILLIS = Duration.ofSeconds(16).toMillis();
+
+    @Part
+    private Interconnect interconnect;
+
+    @Part
+    private DistributedTasks distributedTasks;
+
+    @ConfigValue("async.distributed.loadBalancing.enabled")
+    private boolean loadBalancingEnabled;
+
+    @ConfigValue("async.distributed.loadBalancing.slack")
+    private double slack;
+
+    private final RateLimit publishLimit = RateLimit.timeInterval(PUBLISH_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+    private final Map<String, QueueStatistics> localStatistics = new ConcurrentHashMap<>();
+    private final Map<String, NodeLoad> nodeLoads = new ConcurrentHashMap<>();
+    private long lastPublish = System.currentTimeMillis();
+
+    /**
+     * Represents the statistics of a queue as observed by a single node within a single report interval.
+     *
+     * @param executed            the number of tasks which have been executed
+     * @param waitTimeMillis      the total time (summed up for all tasks) spent waiting in the queue
+     * @param executionTimeMillis the total time (summed up for all tasks) spent executing
+     */
+    public record QueueLoad(long executed, long waitTimeMillis, long executionTimeMillis) {
+    }
+
+    /**
+     * Represents the load report of a single node.
+     *
+     * @param nodeName       the name of the node
+     * @param activeTasks    the number of distributed tasks being executed on the node
+     * @param capacity       the maximal number of distributed tasks the node can execute in parallel
+     * @param backlog        the number of tasks which were waiting in the queues when the report was created
+     * @param intervalMillis the interval covered by the queue statistics
+     * @param queues         the statistics per queue
+     * @param receivedAt     the local timestamp when the report was received
+     */
+    public record NodeLoad(String nodeName,
+                           int activeTasks,
+                           int capacity,
+                           int backlog,
+                           long intervalMillis,
+                           Map<String, QueueLoad> queues,
+                           long receivedAt) {
+
+        /**
+         * Returns the number of idle executor slots of this node.
+         *
+         * @return the number of free slots
+         */
+        public int getFreeSlots() {
+            return Math.max(0, capacity - activeTasks);
+        }
+    }
+
+    /**
+     * Collects the statistics for a queue on this node until they are published.
+     */
+    private static class QueueStatistics {
+        private final LongAdder executed = new LongAdder();
+        private final LongAdder waitTime = new LongAdder();
+        private final LongAdder executionTime = new LongAdder();
+
+        private QueueLoad drain() {
+            return new QueueLoad(executed.sumThenReset(), waitTime.sumThenReset(), executionTime.sumThenReset());
+        }
+    }
+
+    /**
+     * Records the execution of a task.
+     *
+     * @param queue               the queue the task was pulled from
+     * @param waitTimeMillis      the time the task spent waiting in the queue (or 0 if unknown)
+     * @param executionTimeMillis the time it took to execute the task
+     */
+    protected void recordExecution(String queue, long waitTimeMillis, long executionTimeMillis) {
+        QueueStatistics statistics = localStatistics.computeIfAbsent(queue, _ -> new QueueStatistics());
+        statistics.executed.increment();
+        statistics.waitTime.add(Math.max(0, waitTimeMillis));
+        statistics.executionTime.add(executionTimeMillis);
+    }
+
+    /**
+     * Broadcasts the local load to all nodes if the publish interval has elapsed.
+     * <p>
+     * This is invoked by the {@link WorkLoaderLoop} so that no additional background activity is required.
+     */
+    protected void publishLoadIfNecessary() {
+        if (!publishLimit.check()) {
+            return;
+        }
+
+        try {
+            interconnect.dispatch(getName(), createLocalLoadReport());
+        } catch (Exception exception) {
+            Exceptions.handle(DistributedTasks.LOG, exception);
+        }
+    }
+
+    private ObjectNode createLocalLoadReport() {
+        AsyncExecutor executor = distributedTasks.getLocalExecutor();
+        long now = System.currentTimeMillis();
+
+        ObjectNode queues = Json.createObject();
+        localStatistics.forEach((queue, statistics) -> {
+            QueueLoad load = statistics.drain();
+            queues.putObject(queue)
+                  .put(MESSAGE_EXECUTED, load.executed())
+                  .put(MESSAGE_WAIT_TIME, load.waitTimeMillis())
+                  .put(MESSAGE_EXECUTION_TIME, load.executionTimeMillis());
+        });
+
+        ObjectNode report = Json.createObject()
+                                .put(MESSAGE_NODE, CallContext.getNodeName())
+                                .put(MESSAGE_ACTIVE_TASKS, executor.getActiveCount())
+                                .put(MESSAGE_CAPACITY, executor.getMaximumPoolSize())
+                                .put(MESSAGE_BACKLOG, computeBacklog())
+                                .put(MESSAGE_INTERVAL, now - lastPublish);
+        report.set(MESSAGE_QUEUES, queues);
+        lastPublish = now;
+
+        return report;
+    }
+
+    private int computeBacklog() {
+        int backlog = 0;
+        for (DistributedQueueInfo queue : distributedTasks.getQueues()) {
+            backlog += distributedTasks.getQueueLength(queue.getName());
+        }
+
+        return backlog;
+    }
+
+    @Override
+    public void handleEvent(ObjectNode event) {
+        String node = Json.tryValueString(event, MESSAGE_NODE).orElse(null);
+        if (Strings.isEmpty(node)) {
+            return;
+        }
+
+        Map<String, QueueLoad> queues = new HashMap<>();
+        JsonNode queuesNode = event.path(MESSAGE_QUEUES);
+        for (Map.Entry<String, JsonNode> queue : queuesNode.properties()) {
+            queues.put(queue.getKey(),
+                       new QueueLoad(queue.getValue().path(MESSAGE_EXECUTED).asLong(),
+                                     queue.getValue().path(MESSAGE_WAIT_TIME).asLong(),
+                                     queue.getValue().path(MESSAGE_EXECUTION_TIME).asLong()));
+        }
+
+        // We use the local receive time (instead of a timestamp sent by the node) so that clock skew between
+        // the nodes doesn't matter when detecting outdated reports...
+        nodeLoads.put(node,
+                      new NodeLoad(node,
+                                   event.path(MESSAGE_ACTIVE_TASKS).asInt(),
+                                   event.path(MESSAGE_CAPACITY).asInt(),
+                                   event.path(MESSAGE_BACKLOG).asInt(),
+                                   event.path(MESSAGE_INTERVAL).asLong(),
+                                   Collections.unmodifiableMap(queues),
+                                   System.currentTimeMillis()));
+    }
+
+    /**
+     * Returns the most recent load reports of all nodes (including this one) which are not outdated.
+     *
+     * @return the load reports of all active nodes
+     */
+    public List<NodeLoad> getNodeLoads() {
+        long limit = System.currentTimeMillis() - MAX_REPORT_AGE_MILLIS;
+        nodeLoads.values().removeIf(load -> load.receivedAt() < limit);
+        return List.copyOf(nodeLoads.values());
+    }
+
+    /**
+     * Determines if the last report of this node indicated that tasks are waiting in the queues.
+     *
+     * @return <tt>true</tt> if a backlog was detected, <tt>false</tt> otherwise
+     */
+    public boolean hasBacklog() {
+        NodeLoad localLoad = nodeLoads.get(CallContext.getNodeName());
+        return localLoad != null && localLoad.backlog() > 0;
+    }
+
+    /**
+     * Computes the number of tasks this node should execute in parallel.
+     *
+     * @param capacity the capacity of the local executor
+     * @return the number of tasks to execute in parallel (at least one)
+     * @see #computeTargetParallelism(int, int, int, List, double)
+     */
+    protected int computeTargetParallelism(int capacity) {
+        if (!loadBalancingEnabled || capacity <= 1) {
+            return capacity;
+        }
+
+        String localNode = CallContext.getNodeName();
+        int backlog = 0;
+        List<NodeLoad> otherLoads = new ArrayList<>();
+        for (NodeLoad load : getNodeLoads()) {
+            if (Strings.areEqual(localNode, load.nodeName())) {
+                backlog = load.backlog();
+            } else {
+                otherLoads.add(load);
+            }
+        }
+
+        return computeTargetParallelism(capacity,
+                                        distributedTasks.getNumberOfActiveTasks(),
+                                        backlog,
+                                        otherLoads,
+                                        slack);
+    }
+
+    /**
+     * Computes the number of tasks a node should execute in parallel based on the load of the other nodes.
+     * <p>
+     * A node only holds back if it is busier than the cluster-wide average, another node reports idle slots and the
+     * current backlog is too small to keep all nodes busy. In this case, it limits itself to the cluster-wide
+     * utilization (plus the given <tt>slack</tt>) so that the idle nodes can pick up the remaining work. Otherwise,
+     * the full capacity of the local executor is used. Note that nodes which are equally (or less) busy never hold
+     * back, as they would otherwise all throttle themselves at the same time, each counting on the others to pick up
+     * the work.
+     *
+     * @param capacity    the capacity of the local executor
+     * @param localActive the number of tasks being executed by the local executor
+     * @param backlog     the number of tasks waiting in the queues
+     * @param otherLoads  the load reports of all other nodes
+     * @param slack       the additional utilization (as fraction of the capacity) to permit
+     * @return the number of tasks to execute in parallel (at least one)
+     */
+    static int computeTargetParallelism(int capacity,
+                                        int localActive,
+                                        int backlog,
+                                        List<NodeLoad> otherLoads,
+                                        double slack) {
+        if (capacity <= 1) {
+            return capacity;
+        }
+
+        long totalActive = localActive;
+        long totalCapacity = capacity;
+        long otherFreeSlots = 0;
+        for (NodeLoad load : otherLoads) {
+            totalActive += load.activeTasks();
+            totalCapacity += load.capacity();
+            otherFreeSlots += load.getFreeSlots();
+        }
+
+        // If no other node is idle, or if there is enough work for everyone, there is no point in holding back...
+        if (otherFreeSlots == 0 || backlog >= otherFreeSlots + capacity - localActive) {
+            return capacity;
+        }
+
+        double clusterUtilization = (double) totalActive / totalCapacity;
+        double localUtilization = (double) localActive / capacity;
+        if (localUtilization <= clusterUtilization) {
+            return capacity;
+        }
+
+        double targetUtilization = Math.min(1d, clusterUtilization + slack);
+        return Math.clamp((long) Math.ceil(capacity * targetUtilization), 1, capacity);
+    }
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return "distributed-tasks-load";
+    }
+}
@@ -13,10 +13,14 @@ import sirius.kernel.di.std.Register;
 import sirius.web.health.CachingLoadInfoProvider;
 import sirius.web.health.LoadInfo;
 
+import java.util.List;
 import java.util.function.Consumer;
 
 /**
  * Provides {@link LoadInfo load infos} for all distributed task queues.
+ * <p>
+ * Next to the queue lengths, this reports the cluster-wide throughput (tasks per minute) and the average latency
+ * (time spent waiting in the queue) per queue, as collected by {@link ClusterWorkLoad}.
  */
 @Register
 public class DistributedQueueLoadInfo extends CachingLoadInfoProvider {
@@ -24,12 +28,42 @@ public class DistributedQueueLoadInfo extends CachingLoadInfoProvider {
     @Part
     private DistributedTasks tasks;
 
+    @Part
+    private ClusterWorkLoad clusterWorkLoad;
+
     @Override
     protected void computeLoadInfos(Consumer<LoadInfo> consumer) {
+        List<ClusterWorkLoad.NodeLoad> nodeLoads = clusterWorkLoad.getNodeLoads();
         for (DistributedQueueInfo queue : tasks.getQueues()) {
             consumer.accept(new LoadInfo("queue-" + queue.getName(),
                                          queue.getName(),
                                          tasks.getQueueLength(queue.getName())));
+            computeClusterStatistics(queue.getName(), nodeLoads, consumer);
+        }
+    }
+
+    private void computeClusterStatistics(String queue,
+                                          List<ClusterWorkLoad.NodeLoad> nodeLoads,
+                                          Consumer<LoadInfo> consumer) {
+        double tasksPerMinute = 0;
+        long executed = 0;
+        long waitTime = 0;
+        for (ClusterWorkLoad.NodeLoad nodeLoad : nodeLoads) {
+            ClusterWorkLoad.QueueLoad queueLoad = nodeLoad.queues().get(queue);
+            if (queueLoad != null && nodeLoad.intervalMillis() > 0) {
+                tasksPerMinute += queueLoad.executed() * 60_000d / nodeLoad.intervalMillis();
+                executed += queueLoad.executed();
+                waitTime += queueLoad.waitTimeMillis();
+            }
+        }
+
+        if (executed > 0) {
+            consumer.accept(new LoadInfo("queue-" + queue + "-throughput",
+                                         queue + " (Tasks per Minute)",
+                                         Math.round(tasksPerMinute)));
+            consumer.accept(new LoadInfo("queue-" + queue + "-latency",
+                                         queue + " (Avg. Latency in ms)",
+                                         waitTime / executed));
         }
     }
 
@@ -29,10 +29,14 @@ import sirius.kernel.settings.Extension;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
@@ -57,7 +61,13 @@ import java.util.stream.Collectors;
  * penalty time applied will still be immediately executed. However, as soon as other tasks are scheduled
  * a task might be delayed up until its penalty time is over. Currently, the penalty time is a static
  * value set in the system configuration and multiplied by the number of already queued tasks. Therefore, this
- * should be roughly equal to the estimated execution time.
+ * should be roughly equal to the estimated execution time. The penalty is applied relative to the head of the queue
+ * (rather than the current time) if a backlog has built up, so that tenants with few tasks aren't starved by tenants
+ * with many tasks.
+ * <p>
+ * Concurrency tokens limit the parallelism of one or more queues per node. Additionally, a cluster-wide limit can be
+ * specified in <tt>async.distributed.clusterConcurrency</tt>, which provides a fixed throughput cap for expensive
+ * tasks, independently of the number of nodes.
  * <p>
  * Use this helper via an {@link Part} annotation.
  * <p>
@@ -67,8 +77,14 @@ import java.util.stream.Collectors;
 @Register(classes = {DistributedTasks.class, MetricProvider.class})
 public class DistributedTasks implements MetricProvider {
 
+    /**
+     * Contains the name of the executor which runs the distributed tasks on this node.
+     */
+    public static final String EXECUTOR_DISTRIBUTED_TASKS = "distributed-tasks";
+
     private static final String KEY_EXECUTOR = "_executor";
     private static final String KEY_PENALTY_TOKEN = "_penalty_token";
+    private static final String KEY_SUBMITTED = "_submitted";
     private static final String CONFIG_KEY_PRIORITIZED = "prioritized";
     private static final String CONFIG_KEY_PENALTY_TIME = "penaltyTime";
     private static final String CONFIG_KEY_CONCURRENCY_TOKEN = "concurrencyToken";
@@ -89,6 +105,9 @@ public class DistributedTasks implements MetricProvider {
     @Part
     private Tasks tasks;
 
+    @Part
+    private ClusterWorkLoad clusterWorkLoad;
+
     @Part
     private static GlobalContext ctx;
 
@@ -112,6 +131,24 @@ public class DistributedTasks implements MetricProvider {
      */
     private final Map<String, Semaphore> concurrencyTokens = new ConcurrentHashMap<>();
 
+    /**
+     * Contains the cluster-wide limits per concurrency token (or <tt>0</tt> if no such limit is present).
+     */
+    private final Map<String, Integer> clusterConcurrencyLimits = new ConcurrentHashMap<>();
+
+    /**
+     * Contains the semaphores which enforce the cluster-wide limits of concurrency tokens.
+     */
+    private ClusterSemaphores clusterSemaphores;
+
+    /**
+     * Contains the number of cluster-wide permits per concurrency token which are actually held by this node.
+     * <p>
+     * This is regularly reported to the {@link #clusterSemaphores}, so that permits which leaked due to a failed
+     * release (or an acquisition which succeeded but whose result was lost) are reclaimed.
+     */
+    private final Map<String, AtomicInteger> heldClusterPermits = new ConcurrentHashMap<>();
+
     /**
      * Contains the index of the queue in {@link #sortedTaskQueues} to pull work from.
      * <p>
@@ -138,8 +175,13 @@ public class DistributedTasks implements MetricProvider {
         return getLocalExecutor().getActiveCount();
     }
 
-    protected AsyncExecutor getLocalExecutor() {
-        return tasks.executorService("distributed-tasks");
+    /**
+     * Returns the executor which runs the distributed tasks on this node.
+     *
+     * @return the executor for distributed tasks
+     */
+    public AsyncExecutor getLocalExecutor() {
+        return tasks.executorService(EXECUTOR_DISTRIBUTED_TASKS);
     }
 
     /**
@@ -172,6 +214,7 @@ public class DistributedTasks implements MetricProvider {
         }
 
         private void tryExecute(DistributedTaskExecutor exec) {
+            long startedAt = System.currentTimeMillis();
             try {
                 exec.executeWork(task);
             } catch (Exception exception) {
@@ -185,10 +228,23 @@ public class DistributedTasks implements MetricProvider {
                           .handle();
             } finally {
                 releasePenaltyToken(queue.getName(), task.path(KEY_PENALTY_TOKEN).asString(null));
-                releaseConcurrencyToken(queue.getConcurrencyToken());
+                releaseConcurrencyTokens(queue.getConcurrencyToken(), 1);
+                recordExecution(startedAt);
             }
         }
 
+        /**
+         * Reports the time spent waiting in the queue and the execution time to the {@link ClusterWorkLoad}.
+         *
+         * @param startedAt the timestamp when the execution started
+         */
+        private void recordExecution(long startedAt) {
+            long submittedAt = task.path(KEY_SUBMITTED).asLong(startedAt);
+            clusterWorkLoad.recordExecution(queue.getName(),
+                                            startedAt - submittedAt,
+                                            System.currentTimeMillis() - startedAt);
+        }
+
         /**
          * Releases the penalty token if one was acquired.
          *
@@ -277,10 +333,38 @@ public class DistributedTasks implements MetricProvider {
         }
 
         data.put(KEY_EXECUTOR, executor.getName());
+        data.put(KEY_SUBMITTED, System.currentTimeMillis());
 
         getFifo(queueName).offer(data);
     }
 
+    /**
+     * Submits several tasks for the given executor at once by expecting the associated queue to be a FIFO queue.
+     * <p>
+     * This behaves just like calling {@link #submitFIFOTask(Class, ObjectNode)} for each task, but only requires a
+     * single round-trip to the underlying queue.
+     *
+     * @param executor the executor which will eventually execute the work items.
+     * @param tasks    the data to supply to the executor (one entry per task)
+     */
+    public void submitFIFOTasks(Class<? extends DistributedTaskExecutor> executor, List<ObjectNode> tasks) {
+        String queueName = getQueueName(executor);
+
+        DistributedQueueInfo info = getQueueInfo(queueName);
+
+        if (info.isPrioritized()) {
+            throw Exceptions.handle()
+                            .to(Log.BACKGROUND)
+                            .withSystemErrorMessage("The queue '%s' is prioritized and not a FIFO queue!", queueName)
+                            .handle();
+        }
+
+        long now = System.currentTimeMillis();
+        tasks.forEach(data -> data.put(KEY_EXECUTOR, executor.getName()).put(KEY_SUBMITTED, now));
+
+        getFifo(queueName).offerAll(tasks);
+    }
+
     private FifoQueue getFifo(String queueName) {
         return fifos.computeIfAbsent(queueName, this::createFifo);
     }
@@ -379,17 +463,44 @@ public class DistributedTasks implements MetricProvider {
                             .handle();
         }
 
-        long priority = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+        long priority = computeVirtualTime(queueName);
         long penalty = acquirePenaltyToken(queueName, penaltyToken);
 
         priority += penalty * info.getPenaltyTimeSeconds();
 
         data.put(KEY_EXECUTOR, executor.getName());
         data.put(KEY_PENALTY_TOKEN, penaltyToken);
+        data.put(KEY_SUBMITTED, System.currentTimeMillis());
 
         getPrioritizedQueue(queueName).offer(priority, data);
     }
 
+    /**
+     * Computes the base priority for a task which is added to the given prioritized queue.
+     * <p>
+     * Using the current timestamp as base priority works fine as long as the queue keeps up. However, if a backlog
+     * has built up, the head of the queue has a priority in the past. A tenant which submits new work would then
+     * be placed behind all waiting tasks (of heavily penalized tenants) even if it had no tasks queued at all.
+     * Therefore, we use the priority of the head of the queue as "virtual time" in this case (as done by fair queuing
+     * algorithms), so that the penalty is always relative to the tasks which are currently waiting.
+     *
+     * @param queueName the name of the queue to compute the base priority for
+     * @return the base priority to use for a newly submitted task
+     */
+    private long computeVirtualTime(String queueName) {
+        long now = TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+        try {
+            Long headPriority = getPrioritizedQueue(queueName).peekPriority();
+            if (headPriority != null) {
+                return Math.min(now, headPriority);
+            }
+        } catch (Exception exception) {
+            Exceptions.handle(LOG, exception);
+        }
+
+        return now;
+    }
+
     private PrioritizedQueue getPrioritizedQueue(String queueName) {
         return prioritizedQueues.computeIfAbsent(queueName, this::createPrioritizedQueue);
     }
@@ -449,35 +560,50 @@ public class DistributedTasks implements MetricProvider {
      * found.
      */
     protected Optional<DistributedTask> fetchWork() {
-        List<DistributedQueueInfo> queues = getQueues();
+        return fetchWork(1).stream().findFirst();
+    }
 
-        if (queues.isEmpty()) {
-            return Optional.empty();
+    /**
+     * Fetches up to the given number of work items from the available queues.
+     * <p>
+     * Just like {@link #fetchWork()}, this iterates over all queues in a round-robin manner. To ensure that a single
+     * busy queue doesn't occupy all free slots, each queue only receives a fair share of the requested tasks per
+     * round. Slots which are left over (as some queues have less work available) are distributed in further rounds
+     * among the queues which still provided as much work as requested.
+     *
+     * @param maxTasks the maximal number of work items to fetch
+     * @return the work items which were found. This will be an empty list if currently no executable work was found.
+     */
+    protected List<DistributedTask> fetchWork(int maxTasks) {
+        List<DistributedQueueInfo> queues = getQueues();
+        List<DistributedTask> result = new ArrayList<>(maxTasks);
+        if (queues.isEmpty() || maxTasks <= 0) {
+            return result;
         }
 
-        int initialIndex = fetchNextQueueIndex();
-        while (true) {
-            DistributedQueueInfo queue = queues.get(fetchAndMoveNextQueueIndex());
-            if (orchestration.isDistributedTaskQueueEnabled(queue.getName())) {
-                DistributedTask task = tryToPullWork(queue);
-                if (task != null) {
-                    return Optional.of(task);
+        Set<String> exhaustedQueues = new HashSet<>();
+        while (result.size() < maxTasks && exhaustedQueues.size() < queues.size()) {
+            int activeQueues = queues.size() - exhaustedQueues.size();
+            int fairShare = Math.max(1, (maxTasks - result.size()) / activeQueues);
+            for (int i = 0; i < queues.size() && result.size() < maxTasks; i++) {
+                DistributedQueueInfo queue = queues.get(fetchAndMoveNextQueueIndex());
+                if (exhaustedQueues.contains(queue.getName())) {
+                    continue;
                 }
-            }
 
-            if (initialIndex == fetchNextQueueIndex()) {
-                return Optional.empty();
+                int tasksToPull = Math.min(fairShare, maxTasks - result.size());
+                List<DistributedTask> tasks = orchestration.isDistributedTaskQueueEnabled(queue.getName()) ?
+                                              tryToPullWork(queue, tasksToPull) :
+                                              Collections.emptyList();
+                if (tasks.size() < tasksToPull) {
+                    // The queue is either empty or has exhausted its concurrency token - don't ask again...
+                    exhaustedQueues.add(queue.getName());
+                }
+                result.addAll(tasks);
             }
         }
-    }
 
-    /**
-     * Reads the round-robin index for pulling work from {@link #sortedTaskQueues}.
-     *
-     * @return the current index to poll for work
-     */
-    private int fetchNextQueueIndex() {
-        return nextQueueToFetchWorkFrom.get();
+        return result;
     }
 
     /**
@@ -497,60 +623,156 @@ public class DistributedTasks implements MetricProvider {
     }
 
     /**
-     * Tries to pull a work item from the given queue.
+     * Tries to pull up to the given number of work items from the given queue.
      *
-     * @param queue the queue to pull a work item from
-     * @return a work item or <tt>null</tt> to indicate that either there is no work, or that the required
-     * <tt>concurrencyToken</tt> is exhausted on this machine.
+     * @param queue    the queue to pull the work items from
+     * @param maxTasks the maximal number of work items to pull
+     * @return the work items which were pulled. Note that this will contain fewer items than requested if the queue
+     * doesn't provide enough work or if the required <tt>concurrencyToken</tt> is exhausted on this machine.
      */
-    @Nullable
-    private DistributedTask tryToPullWork(DistributedQueueInfo queue) {
-        if (!acquireConcurrencyToken(queue.getConcurrencyToken())) {
-            return null;
+    private List<DistributedTask> tryToPullWork(DistributedQueueInfo queue, int maxTasks) {
+        int acquiredTokens = acquireConcurrencyTokens(queue.getConcurrencyToken(), maxTasks);
+        if (acquiredTokens == 0) {
+            return Collections.emptyList();
         }
 
+        List<DistributedTask> result = new ArrayList<>(acquiredTokens);
         try {
-            ObjectNode task = fetchTask(queue);
-
-            if (task != null) {
-                return new DistributedTask(queue, task);
+            for (ObjectNode task : fetchTasks(queue, acquiredTokens)) {
+                result.add(new DistributedTask(queue, task));
             }
         } catch (Exception exception) {
             Exceptions.handle(LOG, exception);
         }
 
-        // Release the concurrency token acquired above, as we didn't yield any task...
-        releaseConcurrencyToken(queue.getConcurrencyToken());
-        return null;
+        // Release the concurrency tokens acquired above which didn't yield any task...
+        releaseConcurrencyTokens(queue.getConcurrencyToken(), acquiredTokens - result.size());
+
+        return result;
     }
 
     /**
-     * Acquires a slot for the given concurrency token.
+     * Acquires up to the given number of slots for the given concurrency token.
      * <p>
-     * This limits local concurrency for one or more queues to a certain value.
+     * This limits local concurrency for one or more queues to a certain value. If a cluster-wide limit is configured
+     * for the token (in <tt>async.distributed.clusterConcurrency</tt>), the slots also have to be acquired from the
+     * appropriate {@link ClusterSemaphores cluster semaphore}.
      *
      * @param concurrencyToken the concurrency token to acquire
-     * @return <tt>true</tt> if the token has been acquired, <tt>false</tt> otherwise
+     * @param maxSlots         the maximal number of slots to acquire
+     * @return the number of slots which have been acquired
      */
-    private boolean acquireConcurrencyToken(@Nullable String concurrencyToken) {
+    private int acquireConcurrencyTokens(@Nullable String concurrencyToken, int maxSlots) {
         if (Strings.isEmpty(concurrencyToken)) {
-            return true;
+            return maxSlots;
+        }
+
+        Semaphore semaphore = getSemaphore(concurrencyToken);
+        int acquiredSlots = 0;
+        while (acquiredSlots < maxSlots && semaphore.tryAcquire()) {
+            acquiredSlots++;
+        }
+
+        int clusterLimit = getClusterConcurrencyLimit(concurrencyToken);
+        if (acquiredSlots == 0 || clusterLimit <= 0) {
+            return acquiredSlots;
+        }
+
+        // The permits are recorded before they are acquired, so that a concurrent reconciliation (see
+        // keepClusterConcurrencyTokensAlive) might over-report these for a moment, but never under-reports them...
+        AtomicInteger heldPermits = getHeldClusterPermits(concurrencyToken);
+        heldPermits.addAndGet(acquiredSlots);
+        int clusterSlots = 0;
+        try {
+            clusterSlots = getClusterSemaphores().tryAcquire(concurrencyToken, clusterLimit, acquiredSlots);
+        } catch (Exception exception) {
+            Exceptions.handle(LOG, exception);
         }
 
-        return getSemaphore(concurrencyToken).tryAcquire();
+        heldPermits.addAndGet(clusterSlots - acquiredSlots);
+        semaphore.release(acquiredSlots - clusterSlots);
+        return clusterSlots;
     }
 
     /**
-     * Releases a slot for the given concurrency token.
+     * Releases the given number of slots for the given concurrency token.
+     * <p>
+     * Note that if releasing the cluster-wide permits fails, these are reclaimed by the next invocation of
+     * {@link #keepClusterConcurrencyTokensAlive()}.
      *
      * @param concurrencyToken the concurrency token to release
+     * @param slots            the number of slots to release
      */
-    private void releaseConcurrencyToken(@Nullable String concurrencyToken) {
-        if (Strings.isEmpty(concurrencyToken)) {
+    private void releaseConcurrencyTokens(@Nullable String concurrencyToken, int slots) {
+        if (Strings.isEmpty(concurrencyToken) || slots <= 0) {
             return;
         }
 
-        getSemaphore(concurrencyToken).release();
+        if (getClusterConcurrencyLimit(concurrencyToken) > 0) {
+            try {
+                getClusterSemaphores().release(concurrencyToken, slots);
+            } catch (Exception exception) {
+                Exceptions.handle(LOG, exception);
+            }
+
+            // The permits are only forgotten after they have been released, for the same reasons as given in
+            // acquireConcurrencyTokens...
+            getHeldClusterPermits(concurrencyToken).addAndGet(-slots);
+        }
+
+        getSemaphore(concurrencyToken).release(slots);
+    }
+
+    private int getClusterConcurrencyLimit(String concurrencyToken) {
+        return clusterConcurrencyLimits.computeIfAbsent(concurrencyToken,
+                                                        token -> Sirius.getSettings()
+                                                                       .get("async.distributed.clusterConcurrency."
+                                                                            + token)
+                                                                       .asInt(0));
+    }
+
+    private ClusterSemaphores getClusterSemaphores() {
+        if (clusterSemaphores == null) {
+            initializeClusterSemaphores();
+        }
+
+        return clusterSemaphores;
+    }
+
+    private synchronized void initializeClusterSemaphores() {
+        if (clusterSemaphores != null) {
+            return;
+        }
+
+        ClusterSemaphores semaphores;
+        if (redis.isConfigured()) {
+            semaphores = new RedisClusterSemaphores(redis);
+        } else {
+            semaphores = new LocalClusterSemaphores();
+        }
+
+        // Announce ourselves before acquiring any permits, so that other nodes don't discard them...
+        semaphores.keepAlive(Collections.emptyMap());
+        clusterSemaphores = semaphores;
+    }
+
+    private AtomicInteger getHeldClusterPermits(String concurrencyToken) {
+        return heldClusterPermits.computeIfAbsent(concurrencyToken, ignored -> new AtomicInteger());
+    }
+
+    /**
+     * Signals other nodes that this node is alive so that the cluster-wide concurrency tokens held by it are retained.
+     * <p>
+     * Also, the number of permits actually held by this node is reported, so that leaked permits are reclaimed.
+     * This is invoked regularly by the {@link WorkLoaderLoop}.
+     */
+    protected void keepClusterConcurrencyTokensAlive() {
+        if (clusterSemaphores != null) {
+            Map<String, Integer> heldPermits = new HashMap<>();
+            heldClusterPermits.forEach((concurrencyToken, permits) -> heldPermits.put(concurrencyToken,
+                                                                                     Math.max(0, permits.get())));
+            clusterSemaphores.keepAlive(heldPermits);
+        }
     }
 
     /**
@@ -575,29 +797,28 @@ public class DistributedTasks implements MetricProvider {
     }
 
     /**
-     * Tries to fetch a description of a work item from the given queue.
+     * Tries to fetch up to the given number of work item descriptions from the given queue.
      * <p>
-     * This method assumes that a <tt>concurrencyToken</tt> (if required by the queue) has already been acquired.
+     * This method assumes that the <tt>concurrencyTokens</tt> (if required by the queue) have already been acquired.
      *
-     * @param queue the queue to fetch a task description from
-     * @return a JSON object representing a description of an executable task or <tt>null</tt> to indicate that there
-     * is no work available
+     * @param queue    the queue to fetch the task descriptions from
+     * @param maxTasks the maximal number of task descriptions to fetch
+     * @return a list of JSON objects representing descriptions of executable tasks
      */
-    @Nullable
-    private ObjectNode fetchTask(DistributedQueueInfo queue) {
+    private List<ObjectNode> fetchTasks(DistributedQueueInfo queue, int maxTasks) {
         if (queue.isPrioritized()) {
             PrioritizedQueue prioritizedQueue = prioritizedQueues.get(queue.getName());
             if (prioritizedQueue == null) {
-                return null;
+                return Collections.emptyList();
             } else {
-                return prioritizedQueue.poll();
+                return prioritizedQueue.poll(maxTasks);
             }
         } else {
             FifoQueue fifoQueue = fifos.get(queue.getName());
             if (fifoQueue == null) {
-                return null;
+                return Collections.emptyList();
             } else {
-                return fifoQueue.poll();
+                return fifoQueue.poll(maxTasks);
             }
         }
     }
@@ -12,6 +12,7 @@ import tools.jackson.databind.node.ObjectNode;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.List;
 
 /**
  * Represents a FIFO (first in first out) queue for work items
@@ -25,6 +26,13 @@ interface FifoQueue {
      */
     void offer(@Nonnull ObjectNode task);
 
+    /**
+     * Adds all the given work items to the queue in a single operation.
+     *
+     * @param tasks the task descriptions to add to the queue (in the order they are to be processed)
+     */
+    void offerAll(@Nonnull List<ObjectNode> tasks);
+
     /**
      * Polls the "oldest" work item from the queue.
      *
@@ -33,6 +41,18 @@ interface FifoQueue {
     @Nullable
     ObjectNode poll();
 
+    /**
+     * Polls up to the given number of work items from the queue.
+     * <p>
+     * The items are returned in the order in which they would have been returned by consecutive calls to
+     * {@link #poll()}. However, this is performed in a single operation (e.g. a single round-trip to Redis).
+     *
+     * @param maxTasks the maximal number of work items to poll
+     * @return the work items to process which might be an empty list to indicate that the queue is empty
+     */
+    @Nonnull
+    List<ObjectNode> poll(int maxTasks);
+
     /**
      * Returns the number of elements in the queue.
      *
@@ -0,0 +1,52 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.cluster.work;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Provides a local (single machine) implementation for a set of cluster semaphores.
+ * <p>
+ * As there is only a single node, this simply keeps track of the acquired permits per semaphore.
+ */
+class LocalClusterSemaphores implements ClusterSemaphores {
+
+    private final Map<String, Integer> acquiredPermits = new ConcurrentHashMap<>();
+
+    @Override
+    public int tryAcquire(String semaphore, int limit, int permits) {
+        AtomicInteger granted = new AtomicInteger();
+        acquiredPermits.compute(semaphore, (ignored, value) -> {
+            int currentPermits = value == null ? 0 : value;
+            granted.set(Math.clamp((long) limit - currentPermits, 0, permits));
+            return currentPermits + granted.get();
+        });
+
+        return granted.get();
+    }
+
+    @Override
+    public void release(String semaphore, int permits) {
+        acquiredPermits.computeIfPresent(semaphore, (ignored, value) -> value <= permits ? null : value - permits);
+    }
+
+    @Override
+    public void keepAlive(Map<String, Integer> heldPermits) {
+        // There are no other nodes which might miss us, but we still take the actually held permits into account...
+        heldPermits.forEach((semaphore, permits) -> {
+            if (permits > 0) {
+                acquiredPermits.put(semaphore, permits);
+            } else {
+                acquiredPermits.remove(semaphore);
+            }
+        });
+    }
+}
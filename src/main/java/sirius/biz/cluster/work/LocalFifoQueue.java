@@ -13,6 +13,8 @@ import sirius.kernel.commons.Explain;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
@@ -27,12 +29,32 @@ class LocalFifoQueue implements FifoQueue {
         queue.offer(task);
     }
 
+    @Override
+    public void offerAll(@Nonnull List<ObjectNode> tasks) {
+        queue.addAll(tasks);
+    }
+
     @Nullable
     @Override
     public ObjectNode poll() {
         return queue.poll();
     }
 
+    @Nonnull
+    @Override
+    public List<ObjectNode> poll(int maxTasks) {
+        List<ObjectNode> result = new ArrayList<>(maxTasks);
+        while (result.size() < maxTasks) {
+            ObjectNode task = queue.poll();
+            if (task == null) {
+                return result;
+            }
+            result.add(task);
+        }
+
+        return result;
+    }
+
     @Override
     @SuppressWarnings("squid:S2250")
     @Explain("This performance hotspot is acceptable as this is only a monitoring API")
@@ -8,47 +8,32 @@
 
 package sirius.biz.cluster.work;
 
-import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Provides local (single machine) implementation for a set of counters.
+ * <p>
+ * The counters are updated atomically per counter, therefore updates of different counters don't block each other.
+ * Counters which drop to zero are removed, so that the map doesn't grow without bounds.
  */
 class LocalNamedCounters implements NamedCounters {
 
-    private final Map<String, AtomicInteger> counters = new HashMap<>();
+    private final Map<String, Long> counters = new ConcurrentHashMap<>();
 
     @Override
     public long incrementAndGet(String counter) {
-        synchronized (counters) {
-            return counters.computeIfAbsent(counter, ignored -> new AtomicInteger(0)).incrementAndGet();
-        }
+        return counters.merge(counter, 1L, Long::sum);
     }
 
     @Override
     public long get(String counter) {
-        synchronized (counters) {
-            AtomicInteger value = counters.get(counter);
-            return value == null ? 0 : value.get();
-        }
+        return counters.getOrDefault(counter, 0L);
     }
 
     @Override
     public long decrementAndGet(String counter) {
-        synchronized (counters) {
-            AtomicInteger value = counters.get(counter);
-            if (value == null) {
-                return 0;
-            }
-
-            int decrementedValue = value.decrementAndGet();
-            if (decrementedValue <= 0) {
-                counters.remove(counter);
-                return 0;
-            }
-
-            return decrementedValue;
-        }
+        Long decrementedValue = counters.computeIfPresent(counter, (ignored, value) -> value <= 1 ? null : value - 1);
+        return decrementedValue == null ? 0 : decrementedValue;
     }
 }
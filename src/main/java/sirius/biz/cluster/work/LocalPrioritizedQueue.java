@@ -9,21 +9,42 @@
 package sirius.biz.cluster.work;
 
 import tools.jackson.databind.node.ObjectNode;
-import sirius.kernel.commons.ComparableTuple;
-import sirius.kernel.health.Exceptions;
-import sirius.kernel.health.Log;
+import sirius.kernel.commons.Explain;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.util.concurrent.PriorityBlockingQueue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Provides a local (single machine) implementation for a prioritized queue.
+ * <p>
+ * This uses a lock-free skip list so that many producers and consumers can access the queue concurrently. Tasks
+ * with the same priority are returned in the order in which they were added.
  */
 class LocalPrioritizedQueue implements PrioritizedQueue {
 
     private final String queueName;
-    private final PriorityBlockingQueue<ComparableTuple<Long, ObjectNode>> queue = new PriorityBlockingQueue<>();
+    private final ConcurrentSkipListMap<Entry, ObjectNode> queue = new ConcurrentSkipListMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * Represents the sort key of a task.
+     *
+     * @param priority the priority of the task
+     * @param sequence a unique sequence number which keeps tasks with the same priority apart
+     */
+    private record Entry(long priority, long sequence) implements Comparable<Entry> {
+
+        @Override
+        public int compareTo(Entry other) {
+            int result = Long.compare(priority, other.priority);
+            return result != 0 ? result : Long.compare(sequence, other.sequence);
+        }
+    }
 
     LocalPrioritizedQueue(String queueName) {
         this.queueName = queueName;
@@ -31,27 +52,55 @@ class LocalPrioritizedQueue implements PrioritizedQueue {
 
     @Override
     public void offer(long priority, @Nonnull ObjectNode task) {
-        if (!queue.offer(ComparableTuple.create(priority, task))) {
-            throw Exceptions.handle()
-                            .to(Log.BACKGROUND)
-                            .withSystemErrorMessage("The queue '%s' refused to accept '%s' as task", queueName, task)
-                            .handle();
-        }
+        queue.put(new Entry(priority, sequence.incrementAndGet()), task);
     }
 
     @Nullable
     @Override
     public ObjectNode poll() {
-        ComparableTuple<Long, ObjectNode> head = queue.poll();
+        Map.Entry<Entry, ObjectNode> head = queue.pollFirstEntry();
         if (head != null) {
-            return head.getSecond();
+            return head.getValue();
         } else {
             return null;
         }
     }
 
+    @Nonnull
+    @Override
+    public List<ObjectNode> poll(int maxTasks) {
+        List<ObjectNode> result = new ArrayList<>(maxTasks);
+        while (result.size() < maxTasks) {
+            Map.Entry<Entry, ObjectNode> head = queue.pollFirstEntry();
+            if (head == null) {
+                return result;
+            }
+            result.add(head.getValue());
+        }
+
+        return result;
+    }
+
+    @Nullable
     @Override
+    public Long peekPriority() {
+        Map.Entry<Entry, ObjectNode> head = queue.firstEntry();
+        if (head != null) {
+            return head.getKey().priority();
+        } else {
+            return null;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("squid:S2250")
+    @Explain("This performance hotspot is acceptable as this is only a monitoring API")
     public int size() {
         return queue.size();
     }
+
+    @Override
+    public String toString() {
+        return "LocalPrioritizedQueue: " + queueName;
+    }
 }
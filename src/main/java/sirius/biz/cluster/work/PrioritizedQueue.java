@@ -12,6 +12,7 @@ import tools.jackson.databind.node.ObjectNode;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.List;
 
 /**
  * Represents a prioritized queue for work items.
@@ -37,6 +38,26 @@ interface PrioritizedQueue {
     @Nullable
     ObjectNode poll();
 
+    /**
+     * Pulls up to the given number of work items, starting with the one with the lowest priority.
+     * <p>
+     * The items are returned in the order in which they would have been returned by consecutive calls to
+     * {@link #poll()}. However, this is performed in a single operation (e.g. a single round-trip to Redis).
+     *
+     * @param maxTasks the maximal number of work items to pull
+     * @return the work items to process which might be an empty list to indicate that the queue is empty
+     */
+    @Nonnull
+    List<ObjectNode> poll(int maxTasks);
+
+    /**
+     * Returns the priority of the work item which would be returned next by {@link #poll()}.
+     *
+     * @return the priority of the next work item or <tt>null</tt> if the queue is empty
+     */
+    @Nullable
+    Long peekPriority();
+
     /**
      * Returns the number of elements in the queue.
      *
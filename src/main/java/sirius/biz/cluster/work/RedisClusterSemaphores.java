@@ -0,0 +1,142 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.cluster.work;
+
+import sirius.db.redis.Redis;
+import sirius.kernel.async.CallContext;
+import sirius.kernel.commons.Strings;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Provides a set of cluster semaphores which are shared by all nodes using Redis.
+ * <p>
+ * For each semaphore, a hash is maintained which stores the number of permits held per node. To detect crashed nodes,
+ * each node regularly refreshes its heartbeat (see {@link #keepAlive()}), which is stored as expiry timestamp in a
+ * sorted set. Permits held by nodes without a valid heartbeat are discarded when acquiring permits. As the node id
+ * contains a random part which is generated on startup, permits held before a restart are also reclaimed. Along with
+ * the heartbeat, each node reports the permits it actually holds, so that permits leaked by a failed release are
+ * reclaimed as well.
+ * <p>
+ * All keys share the same hash tag, so that they are stored in the same slot when using a Redis cluster. Therefore,
+ * the scripts can access all of them and all keys are passed in via <tt>KEYS</tt>. Expiry timestamps are determined
+ * using the clock of the Redis server, so that clock differences between the nodes don't matter.
+ */
+class RedisClusterSemaphores implements ClusterSemaphores {
+
+    private static final String HASH_TAG = "{distributed_tasks_cluster_semaphores}";
+    private static final String PREFIX_SEMAPHORE = HASH_TAG + "_semaphore_";
+    private static final String KEY_HEARTBEATS = HASH_TAG + "_heartbeats";
+    private static final Duration HEARTBEAT_TTL = Duration.ofSeconds(60);
+
+    /**
+     * Computes the permits held by all living nodes in the semaphore KEYS[1] and grants up to ARGV[3] permits to the
+     * node ARGV[1] without exceeding the limit given in ARGV[2]. Entries of nodes without a valid heartbeat in KEYS[2]
+     * are removed.
+     */
+    private static final String SCRIPT_ACQUIRE = """
+            local now = tonumber(redis.call('TIME')[1])
+            local total = 0
+            local entries = redis.call('HGETALL', KEYS[1])
+            for i = 1, #entries, 2 do
+                local heartbeat = redis.call('ZSCORE', KEYS[2], entries[i])
+                if entries[i] ~= ARGV[1] and (not heartbeat or tonumber(heartbeat) < now) then
+                    redis.call('HDEL', KEYS[1], entries[i])
+                else
+                    total = total + tonumber(entries[i + 1])
+                end
+            end
+            local granted = math.min(tonumber(ARGV[3]), tonumber(ARGV[2]) - total)
+            if granted <= 0 then
+                return 0
+            end
+            redis.call('HINCRBY', KEYS[1], ARGV[1], granted)
+            return granted
+            """;
+
+    /**
+     * Releases ARGV[2] permits held by node ARGV[1] in the semaphore KEYS[1].
+     */
+    private static final String SCRIPT_RELEASE = """
+            local remaining = redis.call('HINCRBY', KEYS[1], ARGV[1], -tonumber(ARGV[2]))
+            if remaining <= 0 then
+                redis.call('HDEL', KEYS[1], ARGV[1])
+            end
+            return remaining
+            """;
+
+    /**
+     * Marks the node ARGV[1] as alive for ARGV[2] seconds in KEYS[1] and removes all expired heartbeats. Also, the
+     * permits held by the node in the semaphores KEYS[2..n] are set to ARGV[3..n+1].
+     */
+    private static final String SCRIPT_KEEP_ALIVE = """
+            local now = tonumber(redis.call('TIME')[1])
+            redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', now - 1)
+            redis.call('ZADD', KEYS[1], now + tonumber(ARGV[2]), ARGV[1])
+            for i = 2, #KEYS do
+                local permits = tonumber(ARGV[i + 1])
+                if permits > 0 then
+                    redis.call('HSET', KEYS[i], ARGV[1], permits)
+                else
+                    redis.call('HDEL', KEYS[i], ARGV[1])
+                end
+            end
+            return 1
+            """;
+
+    private final Redis redis;
+    private final String nodeId;
+
+    RedisClusterSemaphores(Redis redis) {
+        this.redis = redis;
+        this.nodeId = CallContext.getNodeName() + "-" + Strings.generateCode(8);
+    }
+
+    @Override
+    public int tryAcquire(String semaphore, int limit, int permits) {
+        Object result = redis.query(() -> Strings.apply("Acquire %s permits for cluster semaphore %s",
+                                                        permits,
+                                                        semaphore),
+                                    db -> db.eval(SCRIPT_ACQUIRE,
+                                                  List.of(PREFIX_SEMAPHORE + semaphore, KEY_HEARTBEATS),
+                                                  List.of(nodeId, String.valueOf(limit), String.valueOf(permits))));
+        if (result instanceof Long granted) {
+            return granted.intValue();
+        }
+
+        return 0;
+    }
+
+    @Override
+    public void release(String semaphore, int permits) {
+        redis.exec(() -> Strings.apply("Release %s permits for cluster semaphore %s", permits, semaphore),
+                   db -> db.eval(SCRIPT_RELEASE,
+                                 List.of(PREFIX_SEMAPHORE + semaphore),
+                                 List.of(nodeId, String.valueOf(permits))));
+    }
+
+    @Override
+    public void keepAlive(Map<String, Integer> heldPermits) {
+        List<String> keys = new ArrayList<>();
+        List<String> arguments = new ArrayList<>();
+        keys.add(KEY_HEARTBEATS);
+        arguments.add(nodeId);
+        arguments.add(String.valueOf(HEARTBEAT_TTL.toSeconds()));
+        heldPermits.forEach((semaphore, permits) -> {
+            keys.add(PREFIX_SEMAPHORE + semaphore);
+            arguments.add(String.valueOf(permits));
+        });
+
+        redis.exec(() -> "Refresh heartbeat for cluster semaphores",
+                   db -> db.eval(SCRIPT_KEEP_ALIVE, keys, arguments));
+    }
+}
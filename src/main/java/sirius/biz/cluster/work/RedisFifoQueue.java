@@ -11,9 +11,12 @@ package sirius.biz.cluster.work;
 import tools.jackson.databind.node.ObjectNode;
 import sirius.db.redis.Redis;
 import sirius.kernel.commons.Json;
+import sirius.kernel.commons.Strings;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Provides a FIFO queue which supports distributed concurrent access using Redis.
@@ -37,6 +40,17 @@ class RedisFifoQueue implements FifoQueue {
         redis.pushToQueue(getRedisQueueName(), Json.write(task));
     }
 
+    @Override
+    public void offerAll(@Nonnull List<ObjectNode> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+
+        String[] data = tasks.stream().map(Json::write).toArray(String[]::new);
+        redis.exec(() -> Strings.apply("Push %s tasks to %s", data.length, queueName),
+                   db -> db.lpush(getRedisQueueName(), data));
+    }
+
     @Nullable
     @Override
     public ObjectNode poll() {
@@ -49,6 +63,19 @@ class RedisFifoQueue implements FifoQueue {
         return null;
     }
 
+    @Nonnull
+    @Override
+    public List<ObjectNode> poll(int maxTasks) {
+        // Note that RPOP with a count (Redis 6.2+) pops the elements in the same order as repeated calls to RPOP...
+        List<String> data = redis.query(() -> Strings.apply("Poll %s tasks from %s", maxTasks, queueName),
+                                        db -> db.rpop(getRedisQueueName(), maxTasks));
+        if (data == null) {
+            return Collections.emptyList();
+        }
+
+        return data.stream().map(Json::parseObject).toList();
+    }
+
     @Override
     public int size() {
         return redis.query(() -> "Determine length of " + queueName, db -> {
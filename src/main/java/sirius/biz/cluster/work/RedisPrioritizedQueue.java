@@ -10,8 +10,10 @@ package sirius.biz.cluster.work;
 
 import tools.jackson.databind.node.ObjectNode;
 import redis.clients.jedis.UnifiedJedis;
+import redis.clients.jedis.resps.Tuple;
 import sirius.db.KeyGenerator;
 import sirius.db.redis.Redis;
+import sirius.kernel.commons.Explain;
 import sirius.kernel.commons.Json;
 import sirius.kernel.commons.Strings;
 import sirius.kernel.di.std.Part;
@@ -20,7 +22,9 @@ import sirius.kernel.health.Log;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -32,6 +36,27 @@ class RedisPrioritizedQueue implements PrioritizedQueue {
     private static final int MAX_ATTEMPTS_TO_GENERATE_UNIQUE_TASK_ID = 3;
     private static final int MAX_ATTEMPTS_TO_POLL = 5;
 
+    /**
+     * Atomically pulls up to ARGV[1] tasks with the lowest priority from the queue (KEYS[1]) and removes their data
+     * from the task map (KEYS[2]). Tasks without any data (which should not happen) are skipped.
+     */
+    private static final String SCRIPT_POLL_TASKS = """
+            local ids = redis.call('ZRANGE', KEYS[1], 0, tonumber(ARGV[1]) - 1)
+            if #ids == 0 then
+                return {}
+            end
+            redis.call('ZREM', KEYS[1], unpack(ids))
+            local data = redis.call('HMGET', KEYS[2], unpack(ids))
+            redis.call('HDEL', KEYS[2], unpack(ids))
+            local result = {}
+            for _, taskData in ipairs(data) do
+                if taskData then
+                    table.insert(result, taskData)
+                end
+            end
+            return result
+            """;
+
     private final Redis redis;
     private final String queueName;
 
@@ -114,6 +139,35 @@ class RedisPrioritizedQueue implements PrioritizedQueue {
         });
     }
 
+    @Nonnull
+    @Override
+    public List<ObjectNode> poll(int maxTasks) {
+        return pollFromRedis(maxTasks).stream().map(Json::parseObject).toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    @Explain("The script always returns a list of strings.")
+    private List<String> pollFromRedis(int maxTasks) {
+        Object result = redis.query(() -> Strings.apply("Poll %s tasks from prioritized queue %s", maxTasks, queueName),
+                                    db -> db.eval(SCRIPT_POLL_TASKS,
+                                                  List.of(getRedisQueueName(), getRedisTaskMapKeyName()),
+                                                  List.of(String.valueOf(maxTasks))));
+        if (result instanceof List<?> taskData) {
+            return (List<String>) taskData;
+        }
+
+        return Collections.emptyList();
+    }
+
+    @Nullable
+    @Override
+    public Long peekPriority() {
+        return redis.query(() -> "Peek priority of " + queueName, db -> {
+            List<Tuple> head = db.zrangeWithScores(getRedisQueueName(), 0, 0);
+            return head.isEmpty() ? null : (long) head.getFirst().getScore();
+        });
+    }
+
     @Override
     public int size() {
         return redis.query(() -> "Determine length of " + queueName, db -> {
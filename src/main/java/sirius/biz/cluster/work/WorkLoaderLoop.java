@@ -18,7 +18,7 @@ import sirius.kernel.di.std.Part;
 import sirius.kernel.di.std.Register;
 
 import javax.annotation.Nonnull;
-import java.util.Optional;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
@@ -31,6 +31,11 @@ import java.util.concurrent.locks.ReentrantLock;
  * schedules tasks accordingly. Also note, that once a task is completed,
  * {@link #executeWork(DistributedTasks.DistributedTask)} immediately tries to find another task. Therefore, the
  * performance is not limited by the rather slow-running background loop.
+ * <p>
+ * Scheduling is load-aware: The number of tasks executed in parallel is determined via
+ * {@link ClusterWorkLoad#computeTargetParallelism(int)}, so that a busy node leaves some work for idle nodes. Also,
+ * the loop runs every second (instead of every five seconds) as long as there is a backlog or the last pass was able
+ * to schedule work, so that idle nodes quickly pick up waiting tasks.
  */
 @Register
 public class WorkLoaderLoop extends BackgroundLoop {
@@ -44,8 +49,17 @@ public class WorkLoaderLoop extends BackgroundLoop {
     @Part
     private DistributedTasks distributedTasks;
 
+    @Part
+    private ClusterWorkLoad clusterWorkLoad;
+
     private final Lock schedulerLock = new ReentrantLock();
 
+    /**
+     * Determines if the last pass scheduled any work. If so, we expect more work to be available and boost the
+     * call frequency.
+     */
+    private volatile boolean workScheduled;
+
     @Nonnull
     @Override
     public String getName() {
@@ -54,26 +68,40 @@ public class WorkLoaderLoop extends BackgroundLoop {
 
     @Override
     public double maxCallFrequency() {
-        return Sirius.isStartedAsTest() ? EVERY_SECOND : EVERY_FIVE_SECONDS;
+        if (Sirius.isStartedAsTest() || workScheduled || clusterWorkLoad.hasBacklog()) {
+            return EVERY_SECOND;
+        }
+
+        return EVERY_FIVE_SECONDS;
     }
 
     @Override
     protected String doWork() throws Exception {
+        clusterWorkLoad.publishLoadIfNecessary();
+        distributedTasks.keepClusterConcurrencyTokensAlive();
+
         AtomicInteger tasksScheduled = new AtomicInteger(0);
         locked(() -> tasksScheduled.set(scheduleAvailableWork()));
+        workScheduled = tasksScheduled.get() > 0;
         return tasksScheduled.get() == 0 ? null : Strings.apply("Scheduled %d tasks.", tasksScheduled.get());
     }
 
     private int scheduleAvailableWork() {
         AsyncExecutor executor = distributedTasks.getLocalExecutor();
+        int targetParallelism = clusterWorkLoad.computeTargetParallelism(executor.getMaximumPoolSize());
         int tasksScheduled = 0;
-        while (executor.getQueue().isEmpty() && executor.getActiveCount() < executor.getMaximumPoolSize()) {
-            Optional<DistributedTasks.DistributedTask> work = distributedTasks.fetchWork();
-            if (work.isPresent()) {
+        while (executor.getQueue().isEmpty() && executor.getActiveCount() < targetParallelism) {
+            // Fetch as many tasks as there are free slots in a single pass, so that we only need one round-trip
+            // per queue...
+            int freeSlots = targetParallelism - executor.getActiveCount();
+            List<DistributedTasks.DistributedTask> work = distributedTasks.fetchWork(freeSlots);
+            for (DistributedTasks.DistributedTask task : work) {
                 CallContext.initialize();
-                executor.submit(() -> executeWork(work.get()));
+                executor.submit(() -> executeWork(task));
                 tasksScheduled++;
-            } else {
+            }
+
+            if (work.size() < freeSlots) {
                 return tasksScheduled;
             }
         }
@@ -102,8 +130,13 @@ public class WorkLoaderLoop extends BackgroundLoop {
     }
 
     private void scheduleNextWork() {
-        locked(() -> distributedTasks.fetchWork()
-                                     .ifPresent(work -> distributedTasks.getLocalExecutor()
-                                                                        .submit(() -> executeWork(work))));
+        locked(() -> {
+            AsyncExecutor executor = distributedTasks.getLocalExecutor();
+            int targetParallelism = clusterWorkLoad.computeTargetParallelism(executor.getMaximumPoolSize());
+            // Note that the current thread is still counted as active, as it is the one which just completed a task...
+            if (executor.getActiveCount() - 1 < targetParallelism) {
+                distributedTasks.fetchWork().ifPresent(work -> executor.submit(() -> executeWork(work)));
+            }
+        });
     }
 }
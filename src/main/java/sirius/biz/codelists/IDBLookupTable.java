@@ -24,6 +24,10 @@ import sirius.web.security.UserContext;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.lang.reflect.Constructor;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -75,7 +79,8 @@ class IDBLookupTable extends LookupTable {
 
     IDBLookupTable(Extension extension, IDBTable table) {
         super(extension);
-        this.table = table;
+        // Exact lookups (e.g. when resolving entries which bypass the local caches) are kept in the near cache...
+        this.table = table.withNearCache();
         this.codeField = extension.get(CONFIG_CODE_FIELD).asString("code");
         this.nameField = extension.get(CONFIG_NAME_FIELD).asString("name");
         this.descriptionField = extension.get(CONFIG_DESCRIPTION_FIELD).asString("description");
@@ -185,6 +190,62 @@ class IDBLookupTable extends LookupTable {
         }
     }
 
+    @Override
+    protected Map<String, Optional<String>> performNormalizeAll(List<String> codes) {
+        try {
+            return jupiter.fetchAllFromSmallCache(codes,
+                                                  code -> CACHE_PREFIX_NORMALIZE + table.getName() + "-" + code,
+                                                  codesToLookup -> readFirstColumn(table.lookupAll(aliasCodeFields,
+                                                                                                   codesToLookup,
+                                                                                                   codeField)));
+        } catch (Exception exception) {
+            Exceptions.createHandled()
+                      .to(Jupiter.LOG)
+                      .error(exception)
+                      .withSystemErrorMessage("Error on normalizing %s codes in table '%s': %s (%s)",
+                                              codes.size(),
+                                              table.getName())
+                      .handle();
+            return Collections.emptyMap();
+        }
+    }
+
+    @Override
+    protected Map<String, Optional<String>> performResolveNames(List<String> codes, String language) {
+        try {
+            return jupiter.fetchAllFromSmallCache(codes,
+                                                  code -> CACHE_PREFIX_FETCH_TRANSLATED_FIELD
+                                                          + table.getName()
+                                                          + "-"
+                                                          + code
+                                                          + "-"
+                                                          + nameField
+                                                          + "-"
+                                                          + language,
+                                                  codesToLookup -> readFirstColumn(table.ilookupAll(language,
+                                                                                                    language,
+                                                                                                    codeField,
+                                                                                                    codesToLookup,
+                                                                                                    nameField)));
+        } catch (Exception exception) {
+            Exceptions.createHandled()
+                      .to(Jupiter.LOG)
+                      .error(exception)
+                      .withSystemErrorMessage("Error on resolving the names of %s codes in table '%s': %s (%s)",
+                                              codes.size(),
+                                              table.getName())
+                      .handle();
+            return Collections.emptyMap();
+        }
+    }
+
+    private Map<String, Optional<String>> readFirstColumn(Map<String, Optional<Values>> rows) {
+        Map<String, Optional<String>> result = new HashMap<>();
+        rows.forEach((code, row) -> result.put(code,
+                                               row.map(values -> values.at(0).asString()).filter(Strings::isFilled)));
+        return result;
+    }
+
     @Override
     protected Optional<String> performNormalizeWithMapping(String code, String mapping) {
         try {
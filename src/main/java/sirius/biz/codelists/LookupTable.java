@@ -24,9 +24,12 @@ import javax.annotation.Nullable;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -161,6 +164,64 @@ public abstract class LookupTable {
 
     protected abstract Optional<String> performResolveName(@Nonnull String code, String language);
 
+    /**
+     * Resolves the names for all given codes.
+     *
+     * @param codes the codes to resolve the names for
+     * @return the name in the currently active language (or an empty optional if the code is unknown) per given code
+     * @see #resolveNames(Collection, String)
+     */
+    public Map<String, Optional<String>> resolveNames(Collection<String> codes) {
+        return resolveNames(codes, NLS.getCurrentLanguage());
+    }
+
+    /**
+     * Resolves the names in the given language for all given codes.
+     * <p>
+     * This behaves just like {@link #resolveName(String, String)} but permits the table to resolve all codes using
+     * bulk operations. Therefore, this should be preferred when handling many codes at once.
+     *
+     * @param codes    the codes to resolve the names for
+     * @param language the language of the names to resolve
+     * @return the name (or an empty optional if the code is unknown) per given code
+     */
+    public Map<String, Optional<String>> resolveNames(Collection<String> codes, String language) {
+        return performForAll(codes, normalizedCodes -> performResolveNames(normalizedCodes, language));
+    }
+
+    /**
+     * Resolves the names for the given codes.
+     * <p>
+     * By default, each code is resolved individually. Subclasses can overwrite this to use bulk operations.
+     *
+     * @param codes    the distinct and normalized codes to resolve
+     * @param language the language of the names to resolve
+     * @return the name per code. Missing entries are treated as unknown codes
+     */
+    protected Map<String, Optional<String>> performResolveNames(List<String> codes, String language) {
+        Map<String, Optional<String>> result = new HashMap<>();
+        codes.forEach(code -> result.put(code, performResolveName(code, language)));
+        return result;
+    }
+
+    private Map<String, Optional<String>> performForAll(Collection<String> codes,
+                                                        Function<List<String>, Map<String, Optional<String>>> task) {
+        List<String> normalizedCodes =
+                codes.stream().map(this::normalizeCodeValue).filter(Objects::nonNull).distinct().toList();
+        Map<String, Optional<String>> results = normalizedCodes.isEmpty() ? Map.of() : task.apply(normalizedCodes);
+
+        Map<String, Optional<String>> result = new HashMap<>();
+        for (String code : codes) {
+            String normalizedCode = normalizeCodeValue(code);
+            result.put(code,
+                       normalizedCode == null ?
+                       Optional.empty() :
+                       results.getOrDefault(normalizedCode, Optional.empty()));
+        }
+
+        return result;
+    }
+
     /**
      * Determines if the table contains the given code.
      *
@@ -423,6 +484,33 @@ public abstract class LookupTable {
 
     protected abstract Optional<String> performNormalize(@Nonnull String code);
 
+    /**
+     * Normalizes all given codes into the main codes used by this table.
+     * <p>
+     * This behaves just like {@link #normalize(String)} but permits the table to resolve all codes using bulk
+     * operations. Therefore, this should be preferred when handling many codes at once (e.g. when importing data).
+     *
+     * @param codes the codes to normalize
+     * @return the normalized (leading) code (or an empty optional if the code or alias is unknown) per given code
+     */
+    public Map<String, Optional<String>> normalizeAll(Collection<String> codes) {
+        return performForAll(codes, this::performNormalizeAll);
+    }
+
+    /**
+     * Normalizes the given codes.
+     * <p>
+     * By default, each code is normalized individually. Subclasses can overwrite this to use bulk operations.
+     *
+     * @param codes the distinct codes to normalize (already adjusted via {@link #normalizeCodeValue(String)})
+     * @return the leading code per code. Missing entries are treated as unknown codes
+     */
+    protected Map<String, Optional<String>> performNormalizeAll(List<String> codes) {
+        Map<String, Optional<String>> result = new HashMap<>();
+        codes.forEach(code -> result.put(code, performNormalize(code)));
+        return result;
+    }
+
     /**
      * Attempts to normalize the given code or returns the input itself.
      *
@@ -569,6 +657,24 @@ public abstract class LookupTable {
         return reverseLookup(codeOrName);
     }
 
+    /**
+     * Normalizes all given user inputs.
+     * <p>
+     * This behaves just like {@link #normalizeInput(String)}, but uses {@link #normalizeAll(Collection)} to
+     * normalize all codes at once. Only the values which cannot be normalized are resolved individually using
+     * {@link #reverseLookup(String)}.
+     *
+     * @param codesOrNames the codes or names to resolve into leading codes
+     * @return the leading code (or an empty optional if the value is unknown) per given code or name
+     */
+    public Map<String, Optional<String>> normalizeInputAll(Collection<String> codesOrNames) {
+        Map<String, Optional<String>> result = normalizeAll(codesOrNames);
+        result.replaceAll((codeOrName, normalizedCode) -> normalizedCode.isPresent() ?
+                                                          normalizedCode :
+                                                          reverseLookup(codeOrName));
+        return result;
+    }
+
     /**
      * Fetches the given object based on the data in the lookup table.
      * <p>
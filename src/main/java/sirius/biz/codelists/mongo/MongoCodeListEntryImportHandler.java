@@ -18,6 +18,7 @@ import sirius.kernel.commons.Context;
 import sirius.kernel.commons.Strings;
 import sirius.kernel.di.std.Register;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.function.BiConsumer;
 
@@ -73,6 +74,15 @@ public class MongoCodeListEntryImportHandler extends MongoEntityImportHandler<Mo
         return Optional.empty();
     }
 
+    @Override
+    protected void tryFindAllByExample(List<MongoCodeListEntry> examples, List<Optional<MongoCodeListEntry>> results) {
+        findAllByMappings(examples,
+                          results,
+                          example -> example.getCodeList().isFilled(),
+                          List.of(MongoCodeListEntry.CODE_LIST_ENTRY_DATA.inner(CodeListEntryData.CODE),
+                                  MongoCodeListEntry.CODE_LIST));
+    }
+
     @Override
     protected void collectDefaultExportableMappings(BiConsumer<Integer, Mapping> collector) {
         collector.accept(100, MongoCodeListEntry.CODE_LIST_ENTRY_DATA.inner(CodeListEntryData.PRIORITY));
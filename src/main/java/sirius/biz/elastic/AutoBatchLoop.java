@@ -14,6 +14,7 @@ import sirius.db.es.ElasticEntity;
 import sirius.kernel.async.BackgroundLoop;
 import sirius.kernel.commons.Explain;
 import sirius.kernel.commons.Strings;
+import sirius.kernel.commons.Tuple;
 import sirius.kernel.di.std.Part;
 import sirius.kernel.di.std.Register;
 import sirius.kernel.health.Exceptions;
@@ -24,6 +25,10 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -40,10 +45,19 @@ import java.util.concurrent.locks.ReentrantLock;
 public class AutoBatchLoop extends BackgroundLoop {
 
     private static final int MAX_ENTITIES_PER_RUN = 5000;
+    private static final int MAX_BATCHES_PER_LOOP = 4;
     private static final int MAX_QUEUED_ENTITIES = 20000;
+
+    /**
+     * Limits the number of entities queued by a single group (e.g. a process), so that one excessive producer
+     * doesn't block all others.
+     */
+    private static final int MAX_QUEUED_ENTITIES_PER_GROUP = MAX_ENTITIES_PER_RUN;
+
     private LocalDateTime frozenUntil;
-    private final ConcurrentLinkedDeque<ElasticEntity> entities = new ConcurrentLinkedDeque<>();
+    private final ConcurrentLinkedDeque<Tuple<ElasticEntity, String>> entities = new ConcurrentLinkedDeque<>();
     private final AtomicInteger queuedEntities = new AtomicInteger();
+    private final Map<String, Integer> queuedEntitiesPerGroup = new ConcurrentHashMap<>();
     private final ReentrantLock signalLock = new ReentrantLock();
     private final Condition loopExecuted = signalLock.newCondition();
 
@@ -76,14 +90,89 @@ public class AutoBatchLoop extends BackgroundLoop {
             return true;
         }
         if (queuedEntities.get() < MAX_QUEUED_ENTITIES) {
-            entities.add(entity);
-            queuedEntities.incrementAndGet();
+            enqueue(entity, null);
             return true;
         }
 
         return false;
     }
 
+    private void enqueue(ElasticEntity entity, @Nullable String group) {
+        if (group != null) {
+            queuedEntitiesPerGroup.merge(group, 1, Integer::sum);
+        }
+        entities.add(Tuple.create(entity, group));
+        queuedEntities.incrementAndGet();
+    }
+
+    /**
+     * Collects and bulk-inserts the entity in a separate thread, while blocking the caller if its group has queued
+     * too many entities.
+     * <p>
+     * If the given group (e.g. a process) already has a full batch of entities queued or if the whole queue is full,
+     * the current thread waits until the loop has flushed entities (up to the given period). This applies
+     * backpressure to the producer which floods the queue, instead of forcing it to perform single inserts (which
+     * would only increase the load on Elasticsearch further) or blocking other producers.
+     *
+     * @param entity  the entity to bulk-insert into Elasticsearch
+     * @param group   the group of the entity, which is used to limit the number of queued entities per producer and
+     *                which can be awaited via {@link #awaitFlushed(String, Duration)}
+     * @param maxWait the maximal period to wait for free space in the queue
+     * @return <tt>true</tt> if the entity was successfully queued, <tt>false</tt> if the queue was still full after
+     * the given period
+     */
+    public boolean insertAsync(ElasticEntity entity, String group, Duration maxWait) {
+        return insertAsync(entity, group, MAX_QUEUED_ENTITIES_PER_GROUP, maxWait);
+    }
+
+    /**
+     * Collects and bulk-inserts the entity while permitting the given number of queued entities for its group.
+     *
+     * @param entity            the entity to bulk-insert into Elasticsearch
+     * @param group             the group of the entity
+     * @param maxQueuedForGroup the maximal number of queued entities of the group
+     * @param maxWait           the maximal period to wait for free space in the queue
+     * @return <tt>true</tt> if the entity was successfully queued, <tt>false</tt> otherwise
+     * @see #insertAsync(ElasticEntity, String, Duration)
+     */
+    @SuppressWarnings("java:S2274")
+    @Explain("We explicitly want to abort once the deadline is reached.")
+    boolean insertAsync(ElasticEntity entity, String group, int maxQueuedForGroup, Duration maxWait) {
+        if (entity == null) {
+            return true;
+        }
+
+        long deadline = System.nanoTime() + maxWait.toNanos();
+        signalLock.lock();
+        try {
+            while (queuedEntities.get() >= MAX_QUEUED_ENTITIES || countQueuedEntities(group) >= maxQueuedForGroup) {
+                long remainingNanos = deadline - System.nanoTime();
+                if (remainingNanos <= 0) {
+                    return false;
+                }
+                loopExecuted.awaitNanos(remainingNanos);
+            }
+        } catch (InterruptedException _) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            signalLock.unlock();
+        }
+
+        enqueue(entity, group);
+        return true;
+    }
+
+    /**
+     * Returns the number of entities of the given group which are queued but not yet flushed.
+     *
+     * @param group the group to check
+     * @return the number of queued entities of the group
+     */
+    public int countQueuedEntities(String group) {
+        return queuedEntitiesPerGroup.getOrDefault(group, 0);
+    }
+
     /**
      * Blocks the current thread until this loop ran.
      *
@@ -105,6 +194,40 @@ public class AutoBatchLoop extends BackgroundLoop {
         }
     }
 
+    /**
+     * Blocks the current thread until all entities of the given group have been flushed.
+     * <p>
+     * In contrast to {@link #awaitNextFlush(Duration)}, this returns immediately if no entities of the group are
+     * queued and it isn't affected by entities of other groups which are queued in the meantime.
+     *
+     * @param group   the group to await
+     * @param timeout maximal time to wait for the entities to be flushed
+     * @return <tt>true</tt> if all entities of the group have been flushed, <tt>false</tt> if the operation hit a
+     * timeout or if the current thread was interrupted.
+     */
+    @SuppressWarnings("java:S2274")
+    @Explain("We explicitly want to abort once the deadline is reached.")
+    public boolean awaitFlushed(String group, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        signalLock.lock();
+        try {
+            while (countQueuedEntities(group) > 0) {
+                long remainingNanos = deadline - System.nanoTime();
+                if (remainingNanos <= 0) {
+                    return false;
+                }
+                loopExecuted.awaitNanos(remainingNanos);
+            }
+
+            return true;
+        } catch (InterruptedException _) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            signalLock.unlock();
+        }
+    }
+
     @Nullable
     @Override
     protected String doWork() throws Exception {
@@ -121,34 +244,56 @@ public class AutoBatchLoop extends BackgroundLoop {
             }
         }
 
+        // If the queue is filling up, we perform several batches at once, so that callers which are blocked
+        // in insertAsync(entity, maxWait) can continue quickly...
         int entitiesProcessed = executeBatchInsert();
+        int batches = 1;
+        while (frozenUntil == null
+               && batches++ < MAX_BATCHES_PER_LOOP
+               && queuedEntities.get() >= MAX_ENTITIES_PER_RUN) {
+            entitiesProcessed += executeBatchInsert();
+        }
 
         return Strings.apply("Inserted %s entities...", entitiesProcessed);
     }
 
     private int executeBatchInsert() {
         int entitiesProcessed = 0;
+        List<String> groups = new ArrayList<>();
         try (BulkContext bulkContext = elastic.batch()) {
-            ElasticEntity entity = entities.poll();
-            while (entity != null) {
+            Tuple<ElasticEntity, String> entityAndGroup = entities.poll();
+            while (entityAndGroup != null) {
                 queuedEntities.decrementAndGet();
-                bulkContext.overwrite(entity);
+                bulkContext.overwrite(entityAndGroup.getFirst());
+                groups.add(entityAndGroup.getSecond());
 
-                if (entitiesProcessed++ >= MAX_ENTITIES_PER_RUN) {
-                    return entitiesProcessed;
+                if (++entitiesProcessed >= MAX_ENTITIES_PER_RUN) {
+                    break;
                 }
-                entity = entities.poll();
+                entityAndGroup = entities.poll();
             }
         } catch (Exception exception) {
             Exceptions.handle(Log.BACKGROUND, exception);
             frozenUntil = LocalDateTime.now().plusSeconds(10);
         }
 
+        // The groups are only updated once the bulk has been committed (the context is closed), so that a caller
+        // doesn't consider its entities as flushed while they are still pending. Note that if the bulk failed,
+        // the entities have been discarded and are therefore no longer queued either...
+        groups.forEach(this::markFlushed);
         signalBatchRun();
 
         return entitiesProcessed;
     }
 
+    private void markFlushed(@Nullable String group) {
+        if (group != null) {
+            // Once no more entities are queued for a group, its counter is removed, so that the map doesn't grow
+            // with each process...
+            queuedEntitiesPerGroup.computeIfPresent(group, (ignored, queued) -> queued <= 1 ? null : queued - 1);
+        }
+    }
+
     private void signalBatchRun() {
         // Signal all waiting threads, that all entities from within the queue have been flushed...
         signalLock.lock();
@@ -8,6 +8,8 @@
 
 package sirius.biz.importer;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import sirius.biz.codelists.LookupValueProperty;
 import sirius.biz.importer.format.FieldDefinition;
 import sirius.biz.importer.format.FieldDefinitionSupplier;
 import sirius.biz.importer.format.ImportDictionary;
@@ -50,11 +52,14 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 /**
  * Provides a base implementation for all import handlers which mainly takes care of the convenience methods.
@@ -76,11 +81,35 @@ public abstract class BaseImportHandler<E extends BaseEntity<?>> implements Impo
     @Parts(EntityImportHandlerExtender.class)
     protected static PartCollection<EntityImportHandlerExtender> extenders;
 
+    @Part
+    protected static ImporterMetrics importerMetrics;
+
+    /**
+     * Determines the maximal number of values to put into a single query when resolving a block of rows.
+     */
+    protected static final int MAX_VALUES_PER_BULK_QUERY = 256;
+
+    /**
+     * Defines the prefix of the context key which stores an entity resolved by {@link #prefetch(List)}.
+     */
+    private static final String PREFETCHED_ENTITY_PREFIX = "_PREFETCHED_";
+
+    /**
+     * Defines the prefix of the context key which stores the example prepared while resolving a block of rows.
+     */
+    private static final String PREPARED_EXAMPLE_PREFIX = "_PREPARED_EXAMPLE_";
+
+    /**
+     * Marks a row for which the find operation was aborted while preparing its example.
+     */
+    private static final Object ABORTED_EXAMPLE = new Object();
+
     protected EntityDescriptor descriptor;
     protected ImporterContext context;
     protected Mapping exportRepresentationMapping;
     protected Map<Mapping, BiConsumer<Context, Object>> loaders = new HashMap<>();
     private final Extension aliases;
+    private Cache<String, Object> localCache;
 
     /**
      * Defines a context key used to skip loading entities aborted via {@linkplain sirius.biz.scripting.ScriptableEvent script}
@@ -267,22 +296,249 @@ public abstract class BaseImportHandler<E extends BaseEntity<?>> implements Impo
     @SuppressWarnings("unchecked")
     @Override
     public Optional<E> tryFindInCache(Context data) {
-        Tuple<Class<?>, String> cacheKey = Tuple.create(descriptor.getType(), determineCacheKey(data));
-        if (Strings.isFilled(cacheKey.getSecond())) {
-            Object result = context.getLocalCache().getIfPresent(cacheKey);
+        Cache<String, Object> localCache = getLocalCache();
+        String cacheKey = determineCacheKey(data);
+        if (Strings.isFilled(cacheKey)) {
+            Object result = localCache.getIfPresent(cacheKey);
             if (result != null) {
+                importerMetrics.recordCacheHit();
                 return Optional.of((E) result);
             }
+            importerMetrics.recordCacheMiss();
         }
 
         Optional<E> result = tryFind(data);
         if (result.isPresent() && Strings.isFilled(cacheKey)) {
-            context.getLocalCache().put(cacheKey, result.get());
+            localCache.put(cacheKey, result.get());
         }
 
         return result;
     }
 
+    private Cache<String, Object> getLocalCache() {
+        if (localCache == null) {
+            localCache = context.getLocalCache(descriptor.getType(), getLocalCacheSize());
+        }
+
+        return localCache;
+    }
+
+    /**
+     * Determines the maximal number of entities kept in the local cache used by {@link #tryFindInCache(Context)}.
+     * <p>
+     * This is only invoked once per handler, when the cache is first used.
+     * <p>
+     * By default, this is read from <tt>importer.localCacheSize</tt> using the lowercase simple name of the entity
+     * type as key or <tt>default</tt> as fallback.
+     *
+     * @return the maximal number of entities to cache
+     */
+    protected int getLocalCacheSize() {
+        String typeName = descriptor.getType().getSimpleName().toLowerCase();
+        Value cacheSize = Sirius.getSettings().get("importer.localCacheSize." + typeName);
+        if (cacheSize.isFilled()) {
+            return cacheSize.asInt(256);
+        }
+
+        return Sirius.getSettings().get("importer.localCacheSize.default").asInt(256);
+    }
+
+    @Override
+    public List<Optional<E>> tryFindAll(List<Context> data) {
+        return data.stream().map(this::tryFind).toList();
+    }
+
+    @Override
+    public void prefetch(List<Context> data) {
+        prefetchLookupValues(data);
+
+        List<Optional<E>> results = tryFindAll(data);
+        Set<Object> prefetchedIds = new HashSet<>();
+        int numberOfPrefetchedEntities = 0;
+        for (int index = 0; index < data.size(); index++) {
+            E entity = results.get(index).orElse(null);
+            // If several rows resolve to the same entity, only the first one may use the prefetched instance, as
+            // the others have to observe the changes made by the previous rows...
+            if (entity != null && prefetchedIds.add(entity.getId())) {
+                data.get(index).put(PREFETCHED_ENTITY_PREFIX + descriptor.getType().getName(), entity);
+                numberOfPrefetchedEntities++;
+            }
+        }
+
+        importerMetrics.recordPrefetchedEntities(numberOfPrefetchedEntities);
+    }
+
+    /**
+     * Normalizes the values of all {@link LookupValueProperty lookup value properties} of the given rows at once.
+     * <p>
+     * This uses {@link sirius.biz.codelists.LookupTable#normalizeInputAll(java.util.Collection)}, so that the
+     * lookup tables can resolve all values using bulk operations and keep them in their caches. Therefore, the
+     * normalization performed when the rows are loaded one by one doesn't require any further round-trips.
+     *
+     * @param data the rows which are about to be imported
+     */
+    protected void prefetchLookupValues(List<Context> data) {
+        for (Property property : descriptor.getProperties()) {
+            if (property instanceof LookupValueProperty lookupValueProperty) {
+                List<String> values = data.stream()
+                                          .filter(row -> row.containsKey(property.getName()))
+                                          .map(row -> row.getValue(property.getName()).trim())
+                                          .filter(Strings::isFilled)
+                                          .toList();
+                if (!values.isEmpty()) {
+                    lookupValueProperty.getReferenceValue().getTable().normalizeInputAll(values);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns and removes the entity which was resolved for the given row by {@link #prefetch(List)}.
+     *
+     * @param data the row to check
+     * @return the prefetched entity or an empty optional if no entity was prefetched for the row
+     */
+    @SuppressWarnings("unchecked")
+    protected Optional<E> takePrefetchedEntity(Context data) {
+        return Optional.ofNullable((E) data.remove(PREFETCHED_ENTITY_PREFIX + descriptor.getType().getName()));
+    }
+
+    /**
+     * Remembers the example which has been prepared for the given row while resolving a block of rows.
+     * <p>
+     * Therefore, a subsequent {@link #tryFind(Context)} for this row (which is required if the block lookup didn't
+     * find an entity) neither fires the {@link BeforeFindEvent} again nor re-loads the example.
+     *
+     * @param data    the row for which the example was prepared
+     * @param example the prepared example or <tt>null</tt> if the find operation was aborted
+     */
+    protected void rememberPreparedExample(Context data, @Nullable E example) {
+        data.put(PREPARED_EXAMPLE_PREFIX + descriptor.getType().getName(), example == null ? ABORTED_EXAMPLE : example);
+    }
+
+    /**
+     * Determines if an example has been {@link #rememberPreparedExample(Context, BaseEntity) remembered} for the
+     * given row.
+     *
+     * @param data the row to check
+     * @return <tt>true</tt> if an example has been prepared, <tt>false</tt> otherwise
+     */
+    protected boolean hasPreparedExample(Context data) {
+        return data.containsKey(PREPARED_EXAMPLE_PREFIX + descriptor.getType().getName());
+    }
+
+    /**
+     * Returns and removes the example which has been prepared for the given row.
+     *
+     * @param data the row to check
+     * @return the prepared example or <tt>null</tt> if none was prepared or if the find operation was aborted
+     */
+    @SuppressWarnings("unchecked")
+    @Nullable
+    protected E takePreparedExample(Context data) {
+        Object example = data.remove(PREPARED_EXAMPLE_PREFIX + descriptor.getType().getName());
+        return example == ABORTED_EXAMPLE ? null : (E) example;
+    }
+
+    /**
+     * Resolves a block of examples using one query per combination of shared values.
+     * <p>
+     * All examples which pass the given filter and which aren't resolved yet, are grouped by their values of all
+     * but the first of the given mappings. For each group, the values of the first mapping are then queried using
+     * {@link #findAllByValues(Mapping, List, List)}. Finally, the entities are matched back to the examples using
+     * the value of the first mapping.
+     *
+     * @param examples the examples to resolve. Entries which are <tt>null</tt> are skipped
+     * @param results  the results so far. Unresolved entries (empty optionals) are replaced with the entity found
+     * @param filter   determines which examples can be resolved using the given mappings
+     * @param mappings the mappings which uniquely identify an entity. The first mapping has to be the most selective
+     *                 one, as it is used in the <tt>IN</tt> clause
+     */
+    protected void findAllByMappings(List<E> examples,
+                                     List<Optional<E>> results,
+                                     Predicate<E> filter,
+                                     List<Mapping> mappings) {
+        Mapping keyMapping = mappings.getFirst();
+        List<Mapping> sharedMappings = mappings.subList(1, mappings.size());
+
+        Map<List<Object>, Map<Object, List<Integer>>> groups = new HashMap<>();
+        for (int index = 0; index < examples.size(); index++) {
+            E example = examples.get(index);
+            if (example == null || results.get(index).isPresent() || !filter.test(example)) {
+                continue;
+            }
+
+            Object key = readMappingValue(example, keyMapping);
+            if (Strings.isFilled(key)) {
+                List<Object> sharedValues =
+                        sharedMappings.stream().map(mapping -> readMappingValue(example, mapping)).toList();
+                groups.computeIfAbsent(sharedValues, ignored -> new HashMap<>())
+                      .computeIfAbsent(key, ignored -> new ArrayList<>())
+                      .add(index);
+            }
+        }
+
+        groups.forEach((sharedValues, rowsPerKey) -> {
+            List<Tuple<Mapping, Object>> sharedFilters = new ArrayList<>();
+            for (int i = 0; i < sharedMappings.size(); i++) {
+                sharedFilters.add(Tuple.create(sharedMappings.get(i), sharedValues.get(i)));
+            }
+
+            List<Object> keys = new ArrayList<>(rowsPerKey.keySet());
+            for (int offset = 0; offset < keys.size(); offset += MAX_VALUES_PER_BULK_QUERY) {
+                List<Object> keysOfQuery =
+                        keys.subList(offset, Math.min(keys.size(), offset + MAX_VALUES_PER_BULK_QUERY));
+                importerMetrics.recordPrefetchQuery();
+                matchEntities(findAllByValues(keyMapping, keysOfQuery, sharedFilters), keyMapping, rowsPerKey, results);
+            }
+        });
+    }
+
+    private void matchEntities(List<E> entities,
+                               Mapping keyMapping,
+                               Map<Object, List<Integer>> rowsPerKey,
+                               List<Optional<E>> results) {
+        Map<String, E> entitiesByLowercaseKey = new HashMap<>();
+        for (E entity : entities) {
+            Object key = readMappingValue(entity, keyMapping);
+            List<Integer> rows = rowsPerKey.remove(key);
+            if (rows != null) {
+                rows.forEach(row -> results.set(row, Optional.of(entity)));
+            } else if (key instanceof String stringKey) {
+                entitiesByLowercaseKey.putIfAbsent(stringKey.toLowerCase(), entity);
+            }
+        }
+
+        // The database might compare strings case-insensitive. Therefore, we also accept matches which only differ
+        // in case, as long as there was no exact match...
+        if (!entitiesByLowercaseKey.isEmpty()) {
+            rowsPerKey.forEach((key, rows) -> {
+                E entity = key instanceof String stringKey ? entitiesByLowercaseKey.get(stringKey.toLowerCase()) : null;
+                if (entity != null) {
+                    rows.forEach(row -> results.set(row, Optional.of(entity)));
+                }
+            });
+        }
+    }
+
+    private Object readMappingValue(E entity, Mapping mapping) {
+        return descriptor.getProperty(mapping).getValue(entity);
+    }
+
+    /**
+     * Queries all entities which contain one of the given keys and match the given shared filters.
+     * <p>
+     * This is used by {@link #findAllByMappings(List, List, Predicate, List)}.
+     *
+     * @param keyMapping    the mapping to filter using an <tt>IN</tt> clause
+     * @param keys          the values to search for
+     * @param sharedFilters additional filters which have to match exactly
+     * @return all matching entities
+     */
+    protected abstract List<E> findAllByValues(Mapping keyMapping,
+                                               List<Object> keys,
+                                               List<Tuple<Mapping, Object>> sharedFilters);
+
     /**
      * Determines the cache key used by {@link #tryFindInCache(Context)} to find an instance in the cache.
      * <p>
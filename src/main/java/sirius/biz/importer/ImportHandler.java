@@ -61,14 +61,39 @@ public interface ImportHandler<E extends BaseEntity<?>> {
     Optional<E> tryFind(Context data);
 
     /**
-     * Tries to find an entity using the supplied <tt>data</tt> while utilizing the {@link ImporterContext#getLocalCache()
-     * local cache of the import}.
+     * Tries to find an entity using the supplied <tt>data</tt> while utilizing the
+     * {@link ImporterContext#getLocalCache(Class, int) local cache of the import}.
      *
      * @param data the data used to describe the entity to find
      * @return a matching entity wrapped as optional or an empty optional if there is no matching entity
      */
     Optional<E> tryFindInCache(Context data);
 
+    /**
+     * Tries to find the entities for a block of rows.
+     * <p>
+     * Handlers which support this, resolve the whole block using one query per lookup strategy (instead of one query
+     * per row). Otherwise, this falls back to calling {@link #tryFind(Context)} for each row.
+     *
+     * @param data the rows used to describe the entities to find
+     * @return the matching entities in the same order as the given rows. For each row an empty optional is returned
+     * if there is no matching entity
+     */
+    List<Optional<E>> tryFindAll(List<Context> data);
+
+    /**
+     * Resolves the entities for a block of rows in advance.
+     * <p>
+     * Uses {@link #tryFindAll(List)} and stores each resolved entity within its row, so that a subsequent call to
+     * {@link #tryFind(Context)} for this row can directly return it. Rows for which no entity was found are
+     * resolved regularly later on, so that entities which are created by a previous row of the same block are
+     * still found. Implementations may also resolve other values required to load the rows (e.g. lookup values) in
+     * advance.
+     *
+     * @param data the rows to resolve the entities for
+     */
+    void prefetch(List<Context> data);
+
     /**
      * Generates an appropriate message to signal that {@link #tryFind(Context)} was unable to resolve an entity
      * based on the given data.
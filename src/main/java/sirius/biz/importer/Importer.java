@@ -17,6 +17,7 @@ import sirius.kernel.health.Log;
 import java.io.Closeable;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -147,6 +148,35 @@ public class Importer implements Closeable {
         return context.findHandler(type).tryFind(data);
     }
 
+    /**
+     * Tries to find instances of the given type for a block of rows.
+     * <p>
+     * Depending on the {@link ImportHandler}, this resolves the whole block using a few bulk queries instead of
+     * one query per row.
+     *
+     * @param type the type of entities to find
+     * @param data the rows used to describe the entities to search
+     * @param <E>  the generic type of the entities to find
+     * @return the matching entities (or empty optionals) in the same order as the given rows
+     */
+    public <E extends BaseEntity<?>> List<Optional<E>> tryFindAll(Class<E> type, List<Context> data) {
+        return context.findHandler(type).tryFindAll(data);
+    }
+
+    /**
+     * Resolves the entities of the given type for a block of rows and stores them in the rows.
+     * <p>
+     * A subsequent {@link #tryFind(Class, Context)} or {@link #findAndLoad(Class, Context)} for one of these rows
+     * will use the prefetched entity instead of querying the database.
+     *
+     * @param type the type of entities to prefetch
+     * @param data the rows which are about to be imported
+     * @param <E>  the generic type of the entities to prefetch
+     */
+    public <E extends BaseEntity<?>> void prefetch(Class<E> type, List<Context> data) {
+        context.findHandler(type).prefetch(data);
+    }
+
     /**
      * Tries to find an instance of the given type just like {@link #tryFind(Class, Context)} while using a cache.
      * <p>
@@ -15,7 +15,6 @@ import sirius.biz.scripting.ScriptableEventHandler;
 import sirius.db.jdbc.batch.BatchContext;
 import sirius.db.mixing.BaseEntity;
 import sirius.kernel.commons.Context;
-import sirius.kernel.commons.Tuple;
 import sirius.kernel.di.std.PriorityParts;
 import sirius.kernel.health.Exceptions;
 
@@ -46,7 +45,7 @@ public class ImporterContext {
     private final Map<Class<?>, ImportHandler<?>> handlers = new HashMap<>();
     private final Map<Class<?>, ImportHelper> helpers = new HashMap<>();
 
-    private final Cache<Tuple<Class<?>, String>, Object> localCache = Caffeine.newBuilder().maximumSize(256).build();
+    private final Map<Class<?>, Cache<String, Object>> localCachesPerType = new HashMap<>();
 
     private final List<Runnable> postCommitCallbacks = new ArrayList<>();
 
@@ -161,12 +160,17 @@ public class ImporterContext {
     }
 
     /**
-     * Provides access to the local cache which can be utilized by {@link ImportHandler#tryFindInCache(Context)}.
+     * Provides access to the local cache for the given type of entities.
+     * <p>
+     * This cache is utilized by {@link ImportHandler#tryFindInCache(Context)}. As each type has its own cache, its
+     * size can be tuned per {@link ImportHandler}.
      *
-     * @return the local cache of this importer
+     * @param type    the type of entities to cache
+     * @param maxSize the maximal number of entries to keep. This is only used when the cache is created
+     * @return the local cache for the given type
      */
-    public Cache<Tuple<Class<?>, String>, Object> getLocalCache() {
-        return localCache;
+    public Cache<String, Object> getLocalCache(Class<?> type, int maxSize) {
+        return localCachesPerType.computeIfAbsent(type, ignored -> Caffeine.newBuilder().maximumSize(maxSize).build());
     }
 
     /**
@@ -0,0 +1,87 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.importer;
+
+import sirius.kernel.commons.Context;
+import sirius.kernel.di.std.Register;
+import sirius.kernel.health.Counter;
+import sirius.kernel.health.metrics.Metric;
+import sirius.kernel.health.metrics.MetricProvider;
+import sirius.kernel.health.metrics.MetricsCollector;
+
+import java.util.List;
+
+/**
+ * Collects metrics about the lookups performed by {@link ImportHandler import handlers}.
+ * <p>
+ * This reports the efficiency of the local caches (used by {@link ImportHandler#tryFindInCache(Context)}) and of
+ * the blockwise lookups (performed by {@link ImportHandler#prefetch(List)}).
+ */
+@Register(classes = {ImporterMetrics.class, MetricProvider.class})
+public class ImporterMetrics implements MetricProvider {
+
+    private final Counter cacheHits = new Counter();
+    private final Counter cacheMisses = new Counter();
+    private final Counter prefetchQueries = new Counter();
+    private final Counter prefetchedEntities = new Counter();
+
+    /**
+     * Records a lookup which was answered by the local cache.
+     */
+    protected void recordCacheHit() {
+        cacheHits.inc();
+    }
+
+    /**
+     * Records a lookup which wasn't answered by the local cache.
+     */
+    protected void recordCacheMiss() {
+        cacheMisses.inc();
+    }
+
+    /**
+     * Records a query which was executed to resolve a block of rows.
+     */
+    protected void recordPrefetchQuery() {
+        prefetchQueries.inc();
+    }
+
+    /**
+     * Records entities which have been resolved by a blockwise lookup.
+     *
+     * @param numberOfEntities the number of resolved entities
+     */
+    protected void recordPrefetchedEntities(int numberOfEntities) {
+        prefetchedEntities.add(numberOfEntities);
+    }
+
+    @Override
+    public void gather(MetricsCollector metricsCollector) {
+        metricsCollector.differentialMetric("importer_cache_hits",
+                                            "importer-cache-hits",
+                                            "Importer Cache Hits",
+                                            cacheHits.getCount(),
+                                            Metric.UNIT_PER_MIN);
+        metricsCollector.differentialMetric("importer_cache_misses",
+                                            "importer-cache-misses",
+                                            "Importer Cache Misses",
+                                            cacheMisses.getCount(),
+                                            Metric.UNIT_PER_MIN);
+        metricsCollector.differentialMetric("importer_prefetch_queries",
+                                            "importer-prefetch-queries",
+                                            "Importer Prefetch Queries",
+                                            prefetchQueries.getCount(),
+                                            Metric.UNIT_PER_MIN);
+        metricsCollector.differentialMetric("importer_prefetched_entities",
+                                            "importer-prefetched-entities",
+                                            "Importer Prefetched Entities",
+                                            prefetchedEntities.getCount(),
+                                            Metric.UNIT_PER_MIN);
+    }
+}
@@ -12,11 +12,16 @@ import sirius.biz.tenants.mongo.MongoTenantAware;
 import sirius.db.mixing.Mapping;
 import sirius.db.mongo.Mango;
 import sirius.db.mongo.MongoEntity;
+import sirius.db.mongo.MongoQuery;
+import sirius.db.mongo.QueryBuilder;
 import sirius.kernel.commons.Context;
+import sirius.kernel.commons.Tuple;
 import sirius.kernel.di.std.Part;
 import sirius.kernel.health.Exceptions;
 import sirius.kernel.health.HandledException;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.function.BiConsumer;
 
@@ -97,19 +102,66 @@ public abstract class MongoEntityImportHandler<E extends MongoEntity> extends Ba
         // via @Exportable
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public final Optional<E> tryFind(Context data) {
+        Optional<E> prefetchedEntity = takePrefetchedEntity(data);
+        if (prefetchedEntity.isPresent()) {
+            return prefetchedEntity;
+        }
+
+        if (hasPreparedExample(data)) {
+            // The BeforeFindEvent has already been fired when resolving the block of rows...
+            E example = takePreparedExample(data);
+            return example == null ? Optional.empty() : tryFindByExample(example);
+        }
+
+        if (!fireBeforeFindEvent(data)) {
+            return Optional.empty();
+        }
+
+        return findByExample(data);
+    }
+
+    /**
+     * Resolves a block of rows by loading an example for each and passing them to
+     * {@link #tryFindAllByExample(List, List)}.
+     *
+     * @param data the rows used to describe the entities to find
+     * @return the matching entities in the same order as the given rows
+     */
+    @Override
+    public List<Optional<E>> tryFindAll(List<Context> data) {
+        List<E> examples = new ArrayList<>(data.size());
+        List<Optional<E>> results = new ArrayList<>(data.size());
+        for (Context row : data) {
+            E example = fireBeforeFindEvent(row) ? loadForFind(row) : null;
+            rememberPreparedExample(row, example);
+            examples.add(example);
+            results.add(Optional.empty());
+        }
+
+        tryFindAllByExample(examples, results);
+        return results;
+    }
+
+    /**
+     * Fires the {@link BeforeFindEvent} for the given row.
+     *
+     * @param data the data used to describe the entity to find
+     * @return <tt>true</tt> if the find operation should be performed, <tt>false</tt> if it was aborted by an event
+     */
+    @SuppressWarnings("unchecked")
+    private boolean fireBeforeFindEvent(Context data) {
         if (context.getEventHandler().isActive()) {
             BeforeFindEvent<E> beforeFindEvent = new BeforeFindEvent<>((Class<E>) descriptor.getType(), data, context);
             context.getEventHandler().handleEvent(beforeFindEvent);
             if (beforeFindEvent.isAborted()) {
                 data.put(SCRIPT_ABORTED, true);
-                return Optional.empty();
+                return false;
             }
         }
 
-        return findByExample(data);
+        return true;
     }
 
     /**
@@ -149,6 +201,36 @@ public abstract class MongoEntityImportHandler<E extends MongoEntity> extends Ba
      */
     protected abstract Optional<E> tryFindByExample(E example);
 
+    /**
+     * Tries to find the persisted entities for a block of examples.
+     * <p>
+     * By default, this invokes {@link #tryFindByExample(MongoEntity)} for each example. Handlers which know the
+     * mappings which identify an entity should overwrite this and use
+     * {@link #findAllByMappings(List, List, java.util.function.Predicate, List)} to resolve the whole block with a
+     * few queries.
+     *
+     * @param examples the examples to search by. Entries which are <tt>null</tt> are skipped
+     * @param results  the list of results which has to be updated for each example which was found
+     */
+    protected void tryFindAllByExample(List<E> examples, List<Optional<E>> results) {
+        for (int index = 0; index < examples.size(); index++) {
+            if (examples.get(index) != null) {
+                results.set(index, tryFindByExample(examples.get(index)));
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected List<E> findAllByValues(Mapping keyMapping,
+                                      List<Object> keys,
+                                      List<Tuple<Mapping, Object>> sharedFilters) {
+        MongoQuery<E> query = mango.select((Class<E>) descriptor.getType())
+                                   .where(QueryBuilder.FILTERS.oneInField(keyMapping, keys).build());
+        sharedFilters.forEach(filter -> query.eq(filter.getFirst(), filter.getSecond()));
+        return query.queryList();
+    }
+
     @Override
     public E createOrUpdateNow(E entity) {
         if (entity == null) {
@@ -9,7 +9,9 @@
 package sirius.biz.importer;
 
 import sirius.biz.web.TenantAware;
+import sirius.db.jdbc.OMA;
 import sirius.db.jdbc.SQLEntity;
+import sirius.db.jdbc.SmartQuery;
 import sirius.db.jdbc.batch.DeleteQuery;
 import sirius.db.jdbc.batch.FindQuery;
 import sirius.db.jdbc.batch.InsertQuery;
@@ -20,9 +22,11 @@ import sirius.db.mixing.Property;
 import sirius.kernel.commons.Context;
 import sirius.kernel.commons.Tuple;
 import sirius.kernel.commons.ValueHolder;
+import sirius.kernel.di.std.Part;
 import sirius.kernel.health.Exceptions;
 import sirius.kernel.health.HandledException;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -42,6 +46,9 @@ public abstract class SQLEntityImportHandler<E extends SQLEntity> extends BaseIm
 
     protected static final Mapping[] MAPPING_ARRAY = new Mapping[0];
 
+    @Part
+    private static OMA oma;
+
     protected UpdateQuery<E> updateQuery;
     protected InsertQuery<E> insertQuery;
     protected DeleteQuery<E> deleteQuery;
@@ -179,20 +186,80 @@ public abstract class SQLEntityImportHandler<E extends SQLEntity> extends BaseIm
         return result;
     }
 
-    @SuppressWarnings("unchecked")
     @Override
     public Optional<E> tryFind(Context data) {
+        Optional<E> prefetchedEntity = takePrefetchedEntity(data);
+        if (prefetchedEntity.isPresent()) {
+            return prefetchedEntity;
+        }
+
+        E example = hasPreparedExample(data) ? takePreparedExample(data) : prepareFind(data);
+        if (example == null) {
+            return Optional.empty();
+        }
+
+        return tryFindByExample(example);
+    }
+
+    /**
+     * Resolves a block of rows using one query per {@link #collectFindQueries(BiConsumer) find query}.
+     * <p>
+     * Note that subclasses which override {@link #tryFindByExample(SQLEntity)} should also override this method, as
+     * only the find queries are considered here.
+     *
+     * @param data the rows used to describe the entities to find
+     * @return the matching entities in the same order as the given rows
+     */
+    @Override
+    public List<Optional<E>> tryFindAll(List<Context> data) {
+        List<E> examples = new ArrayList<>(data.size());
+        List<Optional<E>> results = new ArrayList<>(data.size());
+        for (Context row : data) {
+            E example = prepareFind(row);
+            rememberPreparedExample(row, example);
+            examples.add(example);
+            results.add(Optional.empty());
+        }
+
+        for (Tuple<Predicate<E>, Supplier<FindQuery<E>>> predicateAndQuery : findQueries) {
+            List<Mapping> mappings =
+                    predicateAndQuery.getSecond().get().getFilterMappings().stream().map(Mapping::named).toList();
+            findAllByMappings(examples, results, predicateAndQuery.getFirst(), mappings);
+        }
+
+        return results;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected List<E> findAllByValues(Mapping keyMapping,
+                                      List<Object> keys,
+                                      List<Tuple<Mapping, Object>> sharedFilters) {
+        SmartQuery<E> query = oma.select((Class<E>) descriptor.getType())
+                                 .where(OMA.FILTERS.oneInField(keyMapping, keys).build());
+        sharedFilters.forEach(filter -> query.eq(filter.getFirst(), filter.getSecond()));
+        return query.queryList();
+    }
+
+    /**
+     * Fires the {@link BeforeFindEvent} and loads the example used to find an entity.
+     *
+     * @param data the data used to describe the entity to find
+     * @return the example to find the entity by or <tt>null</tt> if the operation was aborted by an event
+     */
+    @SuppressWarnings("unchecked")
+    @Nullable
+    private E prepareFind(Context data) {
         if (context.getEventHandler().isActive()) {
             BeforeFindEvent<E> beforeFindEvent = new BeforeFindEvent<>((Class<E>) descriptor.getType(), data, context);
             context.getEventHandler().handleEvent(beforeFindEvent);
             if (beforeFindEvent.isAborted()) {
                 data.put(SCRIPT_ABORTED, true);
-                return Optional.empty();
+                return null;
             }
         }
 
-        E example = loadForFind(data);
-        return tryFindByExample(example);
+        return loadForFind(data);
     }
 
     /**
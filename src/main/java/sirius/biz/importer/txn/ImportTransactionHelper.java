@@ -86,6 +86,22 @@ public class ImportTransactionHelper extends ImportHelper {
         return this;
     }
 
+    /**
+     * Joins the transaction of the given helper.
+     * <p>
+     * This is used if several importers work on the same import in parallel, so that all of them mark the entities
+     * using the same transaction.
+     *
+     * @param other the helper which has started the transaction to join
+     * @return the helper itself for fluent method calls
+     */
+    public ImportTransactionHelper join(ImportTransactionHelper other) {
+        this.transactionId = other.transactionId;
+        this.source = other.source;
+        this.deleteMode = other.deleteMode;
+        return this;
+    }
+
     /**
      * Determines if a transaction has been {@link #start() started} and not {@link #finish() finished} yet.
      *
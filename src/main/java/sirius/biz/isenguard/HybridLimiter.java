@@ -0,0 +1,157 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.isenguard;
+
+import sirius.kernel.di.std.Part;
+import sirius.kernel.di.std.Register;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Provides a limiter which counts calls locally and synchronizes the counters with Redis in batches.
+ * <p>
+ * In contrast to the {@link RedisLimiter}, a call doesn't require a round-trip to Redis as long as the local budget
+ * of the realm (<tt>isenguard.limit.[realm].accuracyBudget</tt>) isn't used up. All counters are synchronized using a
+ * single pipeline by the {@link LimiterSynchronizationLoop} several times per second. Therefore, each node might
+ * permit a few more calls than the actual limit, but the hot path of each request remains free of network calls.
+ * <p>
+ * Note that the handler which is invoked once a limit is exceeded, is invoked once per node rather than once per
+ * cluster. Blocked IPs are directly managed by the {@link RedisLimiter}.
+ */
+@Register(classes = {Limiter.class, HybridLimiter.class})
+public class HybridLimiter extends LocalLimiter {
+
+    /**
+     * Limits the number of counters which are synchronized using a single pipeline.
+     */
+    private static final int MAX_COUNTERS_PER_PIPELINE = 1024;
+
+    @Part
+    private RedisLimiter redisLimiter;
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return "hybrid";
+    }
+
+    @Override
+    public boolean isIPBlacklisted(String ip) {
+        return redisLimiter.isIPBlacklisted(ip);
+    }
+
+    @Override
+    public void block(String ipAddress) {
+        redisLimiter.block(ipAddress);
+    }
+
+    @Override
+    public void unblock(String ipAddress) {
+        redisLimiter.unblock(ipAddress);
+    }
+
+    @Override
+    public Set<String> getBlockedIPs() {
+        return redisLimiter.getBlockedIPs();
+    }
+
+    @Override
+    protected void onCallRegistered(String key, LocalCounter counter, int localBudget) {
+        if (!counter.synchronizedOnce || counter.countUnsynchronizedCalls() >= localBudget) {
+            synchronizeCounters(List.of(Map.entry(key, counter)));
+        }
+    }
+
+    @Override
+    public int readCallCount(String key) {
+        LocalCounter counter = counters.get(key);
+        if (counter == null) {
+            return redisLimiter.readCallCount(key);
+        }
+
+        return (int) counter.count();
+    }
+
+    @Override
+    public int readCallCount(String key, int intervalInSeconds) {
+        LocalCounter counter = fetchCounter(key, intervalInSeconds);
+        if (!counter.synchronizedOnce) {
+            synchronizeCounters(List.of(Map.entry(key, counter)));
+        }
+
+        return (int) counter.count();
+    }
+
+    /**
+     * Transmits all locally counted calls to Redis and fetches the calls counted by the other nodes.
+     * <p>
+     * This also removes all outdated counters.
+     *
+     * @return the number of synchronized counters
+     */
+    protected int synchronizeCounters() {
+        removeOutdatedEntries();
+
+        List<Map.Entry<String, LocalCounter>> batch = new ArrayList<>(MAX_COUNTERS_PER_PIPELINE);
+        int synchronizedCounters = 0;
+        for (Map.Entry<String, LocalCounter> entry : counters.entrySet()) {
+            batch.add(entry);
+            if (batch.size() >= MAX_COUNTERS_PER_PIPELINE) {
+                synchronizedCounters += synchronizeCounters(batch);
+                batch.clear();
+            }
+        }
+
+        return synchronizedCounters + synchronizeCounters(batch);
+    }
+
+    private int synchronizeCounters(List<Map.Entry<String, LocalCounter>> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<RedisLimiter.CallCountUpdate> updates = new ArrayList<>(batch.size());
+        for (Map.Entry<String, LocalCounter> entry : batch) {
+            updates.add(new RedisLimiter.CallCountUpdate(entry.getKey(),
+                                                         entry.getValue().intervalInSeconds,
+                                                         claimUnsynchronizedCalls(entry.getValue())));
+        }
+
+        List<Long> globalCalls = redisLimiter.updateCallCounts(updates);
+        for (int index = 0; index < batch.size(); index++) {
+            LocalCounter counter = batch.get(index).getValue();
+            // The central counter is only ever incremented, so an older reply must not overwrite a newer one...
+            counter.globalCalls.accumulateAndGet(globalCalls.get(index), Math::max);
+            counter.synchronizedOnce = true;
+        }
+
+        return batch.size();
+    }
+
+    /**
+     * Marks all calls which haven't been synchronized yet as synchronized.
+     * <p>
+     * As this is performed via compare-and-set, each call is claimed by exactly one thread, even if several threads
+     * synchronize the same counter concurrently.
+     */
+    private long claimUnsynchronizedCalls(LocalCounter counter) {
+        while (true) {
+            long alreadySynchronized = counter.synchronizedCalls.get();
+            long delta = counter.calls.sum() - alreadySynchronized;
+            if (delta <= 0 || counter.synchronizedCalls.compareAndSet(alreadySynchronized,
+                                                                      alreadySynchronized + delta)) {
+                return Math.max(0, delta);
+            }
+        }
+    }
+}
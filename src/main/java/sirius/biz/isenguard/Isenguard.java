@@ -41,11 +41,18 @@ import java.util.function.Supplier;
  * ({@code epochSeconds / intervalSeconds}). Therefore, windows are globally aligned to wall clock time and not
  * "sliding" per caller.
  * <p>
+ * If <tt>isenguard.limit.[realm].slidingWindow</tt> is enabled, the calls of the previous bucket are also taken into
+ * account, weighted by the portion of the previous interval which still overlaps with a window ending now. This
+ * approximates a sliding window, without having to store a timestamp per call.
+ * <p>
  * A limit of {@code n} permits {@code n} calls within the interval; the {@code (n + 1)}-th call is rejected.
  * <p>
  * Caveats:
  * <ul>
- *     <li>Boundary bursts are possible: calls right before and right after a bucket switch are counted in separate windows.</li>
+ *     <li>Boundary bursts are possible for fixed windows: calls right before and right after a bucket switch are
+ *     counted in separate windows.</li>
+ *     <li>Limiters which count calls locally (e.g. the {@link HybridLimiter}) may permit up to
+ *     <tt>isenguard.limit.[realm].accuracyBudget</tt> (as fraction of the limit) additional calls per node.</li>
  *     <li>Intervals are loaded from milliseconds and converted to whole seconds (fractional seconds are truncated).</li>
  *     <li>Invalid limits ({@code limit <= 0} or {@code intervalSeconds <= 0}) disable limiting for the realm.</li>
  *     <li>The limiter is fail-open on backend errors (calls are permitted if the limiter cannot be queried).</li>
@@ -94,6 +101,15 @@ public class Isenguard {
 
     private final Map<String, Limit> limits = new ConcurrentHashMap<>();
 
+    /**
+     * Contains the keys of all sliding windows which have already been reported as exceeded along with the
+     * timestamp at which the entry can be discarded.
+     * <p>
+     * The effective limit of a sliding window changes with each call (and might even be 0). Therefore, the limiter
+     * cannot determine which call exceeds the limit first, so that we have to keep track of this ourselves.
+     */
+    private final Map<String, Long> reportedSlidingWindows = new ConcurrentHashMap<>();
+
     @Part(configPath = "isenguard.limiter")
     private Limiter limiter;
 
@@ -251,7 +267,7 @@ public class Isenguard {
                 return false;
             }
 
-            return registerCallAndCheckLimitExceeded(scope, realm, limit.intervalSeconds, limit.maxCalls, () -> {
+            return registerCallAndCheckLimitExceeded(scope, realm, limit, () -> {
                 handleLimitExceeded(scope, realm, limit, infoSupplier.get());
 
                 if (limitExceededOnce != null) {
@@ -299,7 +315,7 @@ public class Isenguard {
                 return false;
             }
 
-            return checkLimit(scope, realm, limit.intervalSeconds, limit.maxCalls);
+            return checkLimit(scope, realm, limit);
         } catch (Exception exception) {
             // In case of an error e.g. Redis might not be available,
             // we resort to ignoring any limits and let the application run.
@@ -314,12 +330,18 @@ public class Isenguard {
         Limit limitSetting = limits.computeIfAbsent(realm, this::loadLimit);
         return explicitLimit == USE_LIMIT_FROM_CONFIG ?
                limitSetting :
-               new Limit(explicitLimit, limitSetting.intervalSeconds);
+               new Limit(explicitLimit,
+                         limitSetting.intervalSeconds,
+                         limitSetting.accuracyBudget,
+                         limitSetting.slidingWindow);
     }
 
     private Limit loadLimit(String realm) {
         Extension setting = Sirius.getSettings().getExtension("isenguard.limit", realm);
-        return new Limit(setting.getInt("limit"), (int) (setting.getMilliseconds("interval") / 1000));
+        return new Limit(setting.getInt("limit"),
+                         (int) (setting.getMilliseconds("interval") / 1000),
+                         setting.get("accuracyBudget").asDouble(0),
+                         setting.get("slidingWindow").asBoolean());
     }
 
     private void handleLimitExceeded(String scope, String realm, Limit limit, RateLimitingInfo info) {
@@ -342,22 +364,82 @@ public class Isenguard {
                                                       .withLocation(Strings.limit(info.getLocation(), 255)));
     }
 
-    private boolean checkLimit(String scope, String realm, int intervalInSeconds, int limit) {
-        String key = computeRateLimitingKey(scope, realm, intervalInSeconds);
-        return limiter.readCallCount(key) > limit;
+    private boolean checkLimit(String scope, String realm, Limit limit) {
+        long now = System.currentTimeMillis();
+        String key = computeRateLimitingKey(scope, realm, limit.intervalSeconds, now);
+        return limiter.readCallCount(key, limit.intervalSeconds) + countWeightedPreviousCalls(scope, realm, limit, now)
+               > limit.maxCalls;
     }
 
     private boolean registerCallAndCheckLimitExceeded(String scope,
                                                       String realm,
-                                                      int intervalInSeconds,
-                                                      int limit,
+                                                      Limit limit,
                                                       Runnable limitExceededOnce) {
-        String key = computeRateLimitingKey(scope, realm, intervalInSeconds);
-        return limiter.registerCallAndCheckLimitExceeded(key, intervalInSeconds, limit, limitExceededOnce);
+        long now = System.currentTimeMillis();
+        String key = computeRateLimitingKey(scope, realm, limit.intervalSeconds, now);
+        if (!limit.slidingWindow) {
+            return limiter.registerCallAndCheckLimitExceeded(key,
+                                                             limit.intervalSeconds,
+                                                             limit.maxCalls,
+                                                             limit.computeLocalBudget(),
+                                                             limitExceededOnce);
+        }
+
+        int effectiveLimit = Math.max(0, limit.maxCalls - countWeightedPreviousCalls(scope, realm, limit, now));
+        boolean limitExceeded = limiter.registerCallAndCheckLimitExceeded(key,
+                                                                          limit.intervalSeconds,
+                                                                          effectiveLimit,
+                                                                          limit.computeLocalBudget(),
+                                                                          null);
+        if (limitExceeded && markSlidingWindowReported(key, limit, now)) {
+            limitExceededOnce.run();
+        }
+
+        return limitExceeded;
+    }
+
+    /**
+     * Records that the sliding window with the given key has been reported as exceeded.
+     * <p>
+     * Note that this is tracked per node. Therefore, a limit which is exceeded on several nodes is reported by each
+     * of them.
+     *
+     * @param key   the key of the current interval of the sliding window
+     * @param limit the limit which has been exceeded
+     * @param now   the current timestamp
+     * @return <tt>true</tt> if the sliding window hasn't been reported yet, <tt>false</tt> otherwise
+     */
+    private boolean markSlidingWindowReported(String key, Limit limit, long now) {
+        long expiresAt = now + limit.intervalSeconds * 1000L;
+        if (reportedSlidingWindows.putIfAbsent(key, expiresAt) != null) {
+            return false;
+        }
+
+        // As new entries are rare (one per scope, realm and interval) we can afford to clean up here...
+        reportedSlidingWindows.values().removeIf(expiry -> expiry < now);
+        return true;
+    }
+
+    /**
+     * Estimates the number of calls of the previous interval which still count towards a sliding window ending now.
+     *
+     * @return the calls of the previous interval, weighted by the portion of the previous interval which overlaps
+     * with the sliding window or 0, if no sliding window is used for the given limit
+     */
+    private int countWeightedPreviousCalls(String scope, String realm, Limit limit, long now) {
+        if (!limit.slidingWindow) {
+            return 0;
+        }
+
+        long intervalMillis = limit.intervalSeconds * 1000L;
+        double overlap = 1d - (double) (now % intervalMillis) / intervalMillis;
+        String previousKey = computeRateLimitingKey(scope, realm, limit.intervalSeconds, now - intervalMillis);
+
+        return (int) Math.round(limiter.readCallCount(previousKey, limit.intervalSeconds) * overlap);
     }
 
-    private String computeRateLimitingKey(String scope, String realm, int intervalInSeconds) {
-        long currentInterval = (System.currentTimeMillis() / 1000) / intervalInSeconds;
+    private String computeRateLimitingKey(String scope, String realm, int intervalInSeconds, long timestamp) {
+        long currentInterval = (timestamp / 1000) / intervalInSeconds;
         return scope + "-" + realm + "-" + currentInterval;
     }
 
@@ -380,9 +462,10 @@ public class Isenguard {
             return null;
         }
 
-        String key = computeRateLimitingKey(scope, realm, limit.intervalSeconds);
-        int currentValue = limiter.readCallCount(key);
-        return limit.format(currentValue);
+        long now = System.currentTimeMillis();
+        String key = computeRateLimitingKey(scope, realm, limit.intervalSeconds, now);
+        int currentValue = limiter.readCallCount(key, limit.intervalSeconds);
+        return limit.format(currentValue + countWeightedPreviousCalls(scope, realm, limit, now));
     }
 
     /**
@@ -426,12 +509,18 @@ public class Isenguard {
      *
      * @param maxCalls        the maximum number of calls within the interval period
      * @param intervalSeconds the check interval in seconds during which the max calls are counted
+     * @param accuracyBudget  the fraction of the limit which may be counted locally by each node
+     * @param slidingWindow   determines if the calls of the previous interval are taken into account
      */
-    private record Limit(int maxCalls, int intervalSeconds) {
+    private record Limit(int maxCalls, int intervalSeconds, double accuracyBudget, boolean slidingWindow) {
         private boolean isValid() {
             return maxCalls > 0 && intervalSeconds > 0;
         }
 
+        private int computeLocalBudget() {
+            return (int) (maxCalls * accuracyBudget);
+        }
+
         private String format() {
             return Strings.apply("%s calls within %ss", maxCalls, intervalSeconds);
         }
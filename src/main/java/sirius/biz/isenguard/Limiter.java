@@ -69,6 +69,29 @@ public interface Limiter extends Named {
         return registerCallAndCheckLimit(key, intervalInSeconds, limit + 1, limitExceededOnce);
     }
 
+    /**
+     * Increases the call counter for the current interval and determines if the given limit was exceeded, while
+     * permitting the limiter to count some calls locally.
+     * <p>
+     * Limiters which store their counters on a central server may count up to <tt>localBudget</tt> calls locally,
+     * before the counter has to be synchronized. Therefore, the limit might be exceeded by up to <tt>localBudget</tt>
+     * calls per node. By default, the budget is ignored and each call is counted immediately.
+     *
+     * @param key               the unique name of this counter which represents the scope, realm and check-interval
+     * @param intervalInSeconds the duration of this interval in seconds (used to remove outdated counters)
+     * @param limit             the limit i.e. the max number of permitted calls
+     * @param localBudget       the number of calls which may be counted locally before synchronizing the counter
+     * @param limitExceededOnce the handler to execute once if the limit for this interval is exceeded
+     * @return <tt>true</tt> if the limit was exceeded, <tt>false</tt> otherwise
+     */
+    default boolean registerCallAndCheckLimitExceeded(String key,
+                                                      int intervalInSeconds,
+                                                      int limit,
+                                                      int localBudget,
+                                                      Runnable limitExceededOnce) {
+        return registerCallAndCheckLimitExceeded(key, intervalInSeconds, limit, limitExceededOnce);
+    }
+
     /**
      * Reads the current call count for the given key.
      *
@@ -77,6 +100,20 @@ public interface Limiter extends Named {
      */
     int readCallCount(String key);
 
+    /**
+     * Reads the current call count for the given key.
+     * <p>
+     * In contrast to {@link #readCallCount(String)}, the interval of the counter is known, so that limiters which keep
+     * counters in memory can cache the value until the counter becomes outdated.
+     *
+     * @param key               the unique name of this counter which represents the scope, realm and check-interval
+     * @param intervalInSeconds the duration of this interval in seconds (used to remove outdated counters)
+     * @return the current call counter value for the given key
+     */
+    default int readCallCount(String key, int intervalInSeconds) {
+        return readCallCount(key);
+    }
+
     /**
      * Returns the set of currently blocked IPs.
      * <p>
@@ -0,0 +1,54 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.isenguard;
+
+import sirius.kernel.async.BackgroundLoop;
+import sirius.kernel.commons.Strings;
+import sirius.kernel.di.std.Part;
+import sirius.kernel.di.std.Register;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Synchronizes the counters of the {@link HybridLimiter} with Redis and removes outdated counters of the
+ * {@link LocalLimiter}.
+ */
+@Register(framework = Isenguard.FRAMEWORK_ISENGUARD)
+public class LimiterSynchronizationLoop extends BackgroundLoop {
+
+    @Part
+    private HybridLimiter hybridLimiter;
+
+    @Part
+    private LocalLimiter localLimiter;
+
+    @Override
+    public double maxCallFrequency() {
+        return 4;
+    }
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return "isenguard-limiter-synchronization";
+    }
+
+    @Nullable
+    @Override
+    protected String doWork() throws Exception {
+        int numRemoved = localLimiter.removeOutdatedEntries();
+        int numSynchronized = hybridLimiter.synchronizeCounters();
+        if (numSynchronized == 0 && numRemoved == 0) {
+            return null;
+        }
+
+        return Strings.apply("Synchronized %s counters, removed %s outdated entries", numSynchronized, numRemoved);
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.isenguard;
+
+import sirius.kernel.di.std.Register;
+
+import javax.annotation.Nonnull;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Provides a limiter which keeps all counters and blocked IPs in memory.
+ * <p>
+ * As no data is shared with other nodes, this is intended for tests and single node setups. However, it also
+ * provides the local counters used by the {@link HybridLimiter}.
+ */
+@Register(classes = {Limiter.class, LocalLimiter.class})
+public class LocalLimiter implements Limiter {
+
+    private static final long MAX_BLOCK_DURATION_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final int MAX_BLOCKED_IPS_TO_REPORT = 50;
+
+    protected final Map<String, LocalCounter> counters = new ConcurrentHashMap<>();
+    private final Map<String, Long> blockedIPs = new ConcurrentHashMap<>();
+
+    /**
+     * Represents the call counter of a single scope, realm and check-interval.
+     * <p>
+     * Calls are recorded using a {@link LongAdder} so that concurrent requests don't contend on a single memory
+     * location. The fields related to synchronization are only used by the {@link HybridLimiter}.
+     */
+    protected static class LocalCounter {
+
+        /**
+         * Contains all calls which have been registered by this node.
+         */
+        protected final LongAdder calls = new LongAdder();
+
+        /**
+         * Contains the number of calls of this node which have already been transmitted to the central counter.
+         */
+        protected final AtomicLong synchronizedCalls = new AtomicLong();
+
+        /**
+         * Contains the last known value of the central counter (including the synchronized calls of this node).
+         */
+        protected final AtomicLong globalCalls = new AtomicLong();
+
+        /**
+         * Determines if the central counter has been read at least once.
+         */
+        protected volatile boolean synchronizedOnce;
+
+        protected final int intervalInSeconds;
+        private final long expiresAt;
+        private final AtomicBoolean limitReported = new AtomicBoolean();
+
+        protected LocalCounter(int intervalInSeconds) {
+            this.intervalInSeconds = intervalInSeconds;
+            // Counters are kept for two intervals, so that sliding windows can still read the previous interval...
+            this.expiresAt = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(2L * intervalInSeconds);
+        }
+
+        /**
+         * Returns the number of calls which haven't been synchronized yet.
+         *
+         * @return the number of calls registered locally since the last synchronization
+         */
+        protected long countUnsynchronizedCalls() {
+            return calls.sum() - synchronizedCalls.get();
+        }
+
+        /**
+         * Estimates the total number of calls.
+         *
+         * @return the last known central value plus all calls which haven't been synchronized yet
+         */
+        protected long count() {
+            return globalCalls.get() + countUnsynchronizedCalls();
+        }
+
+        protected boolean isOutdated(long now) {
+            return now > expiresAt;
+        }
+
+        private boolean checkLimitReached(int limit, Runnable limitReachedOnce) {
+            if (count() < limit) {
+                return false;
+            }
+
+            if (limitReachedOnce != null && limitReported.compareAndSet(false, true)) {
+                limitReachedOnce.run();
+            }
+
+            return true;
+        }
+    }
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return "local";
+    }
+
+    @Override
+    public boolean isIPBlacklisted(String ip) {
+        Long blockedSince = blockedIPs.get(ip);
+        return blockedSince != null && System.currentTimeMillis() - blockedSince < MAX_BLOCK_DURATION_MILLIS;
+    }
+
+    @Override
+    public void block(String ipAddress) {
+        blockedIPs.put(ipAddress, System.currentTimeMillis());
+    }
+
+    @Override
+    public void unblock(String ipAddress) {
+        blockedIPs.remove(ipAddress);
+    }
+
+    @Override
+    public boolean registerCallAndCheckLimit(String key, int intervalInSeconds, int limit, Runnable limitReachedOnce) {
+        LocalCounter counter = fetchCounter(key, intervalInSeconds);
+        counter.calls.increment();
+        onCallRegistered(key, counter, 0);
+
+        return counter.checkLimitReached(limit, limitReachedOnce);
+    }
+
+    @Override
+    public boolean registerCallAndCheckLimitExceeded(String key,
+                                                     int intervalInSeconds,
+                                                     int limit,
+                                                     int localBudget,
+                                                     Runnable limitExceededOnce) {
+        LocalCounter counter = fetchCounter(key, intervalInSeconds);
+        counter.calls.increment();
+        onCallRegistered(key, counter, localBudget);
+
+        return counter.checkLimitReached(limit + 1, limitExceededOnce);
+    }
+
+    /**
+     * Invoked once a call has been added to the given counter.
+     *
+     * @param key         the key of the counter
+     * @param counter     the counter which has been incremented
+     * @param localBudget the number of calls which may be counted locally before synchronizing the counter
+     */
+    protected void onCallRegistered(String key, LocalCounter counter, int localBudget) {
+        // Nothing to synchronize by default...
+    }
+
+    protected LocalCounter fetchCounter(String key, int intervalInSeconds) {
+        return counters.computeIfAbsent(key, _ -> new LocalCounter(intervalInSeconds));
+    }
+
+    @Override
+    public int readCallCount(String key) {
+        LocalCounter counter = counters.get(key);
+        if (counter == null) {
+            return 0;
+        }
+
+        return (int) counter.count();
+    }
+
+    @Override
+    public Set<String> getBlockedIPs() {
+        return blockedIPs.entrySet()
+                         .stream()
+                         .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                         .limit(MAX_BLOCKED_IPS_TO_REPORT)
+                         .map(Map.Entry::getKey)
+                         .collect(Collectors.toSet());
+    }
+
+    /**
+     * Removes all counters and blocked IPs which are outdated.
+     *
+     * @return the number of removed entries
+     */
+    protected int removeOutdatedEntries() {
+        long now = System.currentTimeMillis();
+        int sizeBefore = counters.size() + blockedIPs.size();
+        counters.values().removeIf(counter -> counter.isOutdated(now));
+        blockedIPs.values().removeIf(blockedSince -> now - blockedSince >= MAX_BLOCK_DURATION_MILLIS);
+
+        return sizeBefore - counters.size() - blockedIPs.size();
+    }
+}
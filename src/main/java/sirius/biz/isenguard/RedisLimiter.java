@@ -8,6 +8,7 @@
 
 package sirius.biz.isenguard;
 
+import redis.clients.jedis.Response;
 import redis.clients.jedis.params.ZRangeParams;
 import sirius.db.redis.Redis;
 import sirius.db.redis.RedisDB;
@@ -17,7 +18,9 @@ import sirius.kernel.di.std.Part;
 import sirius.kernel.di.std.Register;
 
 import javax.annotation.Nonnull;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
@@ -77,8 +80,9 @@ public class RedisLimiter implements Limiter {
         return getDB().query(() -> "Update rate limiting call counter: " + effectiveKey, db -> {
             long value = db.incr(effectiveKey);
             if (value == 1) {
-                db.expire(effectiveKey, intervalInSeconds);
-            } else if (value == limit) {
+                db.expire(effectiveKey, computeTTL(intervalInSeconds));
+            }
+            if (value == limit && limitReachedOnce != null) {
                 limitReachedOnce.run();
             }
 
@@ -86,6 +90,62 @@ public class RedisLimiter implements Limiter {
         });
     }
 
+    /**
+     * Keeps each counter for two intervals, so that a sliding window can still read the previous interval.
+     */
+    private long computeTTL(int intervalInSeconds) {
+        return 2L * intervalInSeconds;
+    }
+
+    /**
+     * Represents an update of a call counter to be performed by {@link #updateCallCounts(List)}.
+     *
+     * @param key               the unique name of the counter
+     * @param intervalInSeconds the duration of the interval in seconds (used to remove outdated counters)
+     * @param delta             the number of calls to add. If 0 is given, the counter is only read
+     */
+    protected record CallCountUpdate(String key, int intervalInSeconds, long delta) {
+    }
+
+    /**
+     * Applies all given updates to their call counters and reads their current values.
+     * <p>
+     * All commands are sent using a single pipeline so that only one round-trip to Redis is required.
+     *
+     * @param updates the updates to perform
+     * @return the current values of the counters in the order of the given updates
+     */
+    protected List<Long> updateCallCounts(List<CallCountUpdate> updates) {
+        return getDB().query(() -> "Synchronize rate limiting call counters", db -> {
+            try (var pipeline = db.pipelined()) {
+                List<Response<?>> responses = new ArrayList<>(updates.size());
+                for (CallCountUpdate update : updates) {
+                    String effectiveKey = COUNTER_PREFIX + update.key();
+                    if (update.delta() > 0) {
+                        responses.add(pipeline.incrBy(effectiveKey, update.delta()));
+                        pipeline.expire(effectiveKey, computeTTL(update.intervalInSeconds()));
+                    } else {
+                        responses.add(pipeline.get(effectiveKey));
+                    }
+                }
+                pipeline.sync();
+
+                return responses.stream().map(response -> parseCallCount(response.get())).toList();
+            }
+        });
+    }
+
+    private Long parseCallCount(Object value) {
+        if (value instanceof Long count) {
+            return count;
+        }
+        if (value instanceof String string && Strings.isFilled(string)) {
+            return Long.parseLong(string);
+        }
+
+        return 0L;
+    }
+
     @Override
     public int readCallCount(String key) {
         String effectiveKey = COUNTER_PREFIX + key;
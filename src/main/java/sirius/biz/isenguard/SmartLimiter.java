@@ -66,11 +66,29 @@ public class SmartLimiter implements Limiter {
         return getLimiter().registerCallAndCheckLimit(key, intervalInSeconds, limit, limitReachedOnce);
     }
 
+    @Override
+    public boolean registerCallAndCheckLimitExceeded(String key,
+                                                     int intervalInSeconds,
+                                                     int limit,
+                                                     int localBudget,
+                                                     Runnable limitExceededOnce) {
+        return getLimiter().registerCallAndCheckLimitExceeded(key,
+                                                              intervalInSeconds,
+                                                              limit,
+                                                              localBudget,
+                                                              limitExceededOnce);
+    }
+
     @Override
     public int readCallCount(String key) {
         return getLimiter().readCallCount(key);
     }
 
+    @Override
+    public int readCallCount(String key, int intervalInSeconds) {
+        return getLimiter().readCallCount(key, intervalInSeconds);
+    }
+
     @Override
     public Set<String> getBlockedIPs() {
         return getLimiter().getBlockedIPs();
@@ -9,11 +9,14 @@
 package sirius.biz.jobs.batch;
 
 import sirius.biz.importer.Importer;
+import sirius.biz.importer.txn.ImportTransactionHelper;
 import sirius.biz.process.ProcessContext;
 import sirius.biz.process.logs.ProcessLog;
+import sirius.biz.scripting.ScriptableEventHandler;
 import sirius.biz.scripting.ScriptableEvents;
 import sirius.db.mixing.BaseEntity;
 import sirius.db.mixing.types.BaseEntityRef;
+import sirius.kernel.commons.UnitOfWork;
 import sirius.kernel.di.std.Part;
 import sirius.kernel.health.Exceptions;
 
@@ -31,6 +34,11 @@ public abstract class ImportJob extends BatchJob {
      */
     protected final Importer importer;
 
+    /**
+     * Contains the importer of the current thread if it is a worker of {@link ParallelImportWorkers}.
+     */
+    private final ThreadLocal<Importer> workerImporter = new ThreadLocal<>();
+
     @Part
     private static ScriptableEvents scriptableEvents;
 
@@ -91,11 +99,7 @@ public abstract class ImportJob extends BatchJob {
     @Override
     public void close() throws IOException {
         try {
-            if (importer.getContext().hasBatchContext()) {
-                process.log(ProcessLog.info()
-                                      .withMessage(importer.getContext().getBatchContext().toString())
-                                      .asSystemMessage());
-            }
+            logBatchContextUsage(importer);
             this.importer.close();
         } catch (IOException exception) {
             process.handle(exception);
@@ -103,7 +107,76 @@ public abstract class ImportJob extends BatchJob {
         super.close();
     }
 
+    /**
+     * Returns the importer to use for the current thread.
+     * <p>
+     * If the job processes its data using {@link ParallelImportWorkers}, each worker uses its own importer (as an
+     * {@link Importer} is not thread-safe). Therefore, code which might run within a worker must use this method
+     * instead of accessing {@link #importer} directly.
+     *
+     * @return the importer of the current worker or the importer of the job itself
+     */
     public Importer getImporter() {
-        return importer;
+        Importer currentWorkerImporter = workerImporter.get();
+        return currentWorkerImporter != null ? currentWorkerImporter : importer;
+    }
+
+    private void logBatchContextUsage(Importer importerToReport) {
+        if (importerToReport.getContext().hasBatchContext()) {
+            process.log(ProcessLog.info()
+                                  .withMessage(importerToReport.getContext().getBatchContext().toString())
+                                  .asSystemMessage());
+        }
+    }
+
+    /**
+     * Creates a new importer for a worker of {@link ParallelImportWorkers}.
+     * <p>
+     * The importer shares the settings and a potentially active {@link ImportTransactionHelper import transaction}
+     * of the main importer.
+     * <p>
+     * If scriptable events are enabled, the worker uses its own {@link ScriptableEventHandler}, as the dispatchers
+     * (and the scripts behind them) are not thread-safe. Its dispatchers also receive the
+     * {@link ImportJobStartedEvent}, so that each of them is initialized just like the one of the job itself.
+     *
+     * @return a new importer to be used by a worker
+     */
+    Importer createWorkerImporter() {
+        Importer result = new Importer(process.getTitle());
+        result.setFactoryName(importer.getFactoryName());
+
+        if (importer.getContext().getEventHandler().isActive()) {
+            ScriptableEventHandler workerEventHandler = new ScriptableEventHandler();
+            workerEventHandler.initializeEventDispatchers();
+            result.getContext().withScriptableEventHandler(workerEventHandler);
+            workerEventHandler.handleEvent(new ImportJobStartedEvent(this, process));
+        }
+
+        ImportTransactionHelper transactionHelper = importer.findHelper(ImportTransactionHelper.class);
+        if (transactionHelper.isActive()) {
+            result.findHelper(ImportTransactionHelper.class).join(transactionHelper);
+        }
+
+        return result;
+    }
+
+    /**
+     * Runs the given worker of {@link ParallelImportWorkers} using the given importer.
+     * <p>
+     * Once the worker has terminated, the usage of its batch context is reported and the importer is closed, so that
+     * all pending changes are committed.
+     *
+     * @param importerOfWorker the importer created via {@link #createWorkerImporter()}
+     * @param worker           the worker to run
+     * @throws Exception in case of an error while running the worker or closing its importer
+     */
+    void runAsWorker(Importer importerOfWorker, UnitOfWork worker) throws Exception {
+        workerImporter.set(importerOfWorker);
+        try (importerOfWorker) {
+            worker.execute();
+            logBatchContextUsage(importerOfWorker);
+        } finally {
+            workerImporter.remove();
+        }
     }
 }
@@ -0,0 +1,193 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.jobs.batch;
+
+import sirius.biz.importer.Importer;
+import sirius.biz.process.ProcessContext;
+import sirius.kernel.async.Future;
+import sirius.kernel.async.TaskContext;
+import sirius.kernel.commons.UnitOfWork;
+import sirius.kernel.health.Exceptions;
+
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Processes the records of an {@link ImportJob} in parallel using a fixed number of workers.
+ * <p>
+ * The records are still read and parsed by a single thread, which then {@link #dispatch(Object, UnitOfWork)
+ * dispatches} them to the workers. All records with the same partition key are processed by the same worker in the
+ * order in which they were dispatched. Therefore, a key which identifies the target entity ensures that all changes
+ * to an entity are applied in order.
+ * <p>
+ * Each worker runs as {@link ProcessContext#performInSideTask(UnitOfWork) side task} and uses its own
+ * {@link Importer} (and thus its own {@link sirius.biz.importer.ImporterContext}, batch context and scriptable event
+ * handler), which is provided via {@link ImportJob#getImporter()}. The queue of each worker is bounded, so that the
+ * reading thread is slowed down if the workers cannot keep up.
+ */
+public class ParallelImportWorkers {
+
+    /**
+     * Limits the number of workers, as these share the side task executor with all other processes.
+     */
+    private static final int MAX_PARALLELISM = 8;
+    private static final int MAX_QUEUED_RECORDS_PER_WORKER = 256;
+    private static final UnitOfWork END_OF_RECORDS = () -> {
+    };
+
+    private final Consumer<Exception> errorHandler;
+    private final List<BlockingQueue<UnitOfWork>> queues = new ArrayList<>();
+    private final List<Future> workers = new ArrayList<>();
+    private final AtomicInteger roundRobin = new AtomicInteger();
+
+    /**
+     * Starts a worker in parallel to the calling thread.
+     */
+    @FunctionalInterface
+    interface WorkerExecutor {
+
+        /**
+         * Starts the given worker.
+         *
+         * @param worker the worker which processes records until its queue is completed
+         * @return a future which is fulfilled once the worker has terminated
+         */
+        Future start(UnitOfWork worker);
+    }
+
+    /**
+     * Creates and starts the given number of workers for the given job.
+     *
+     * @param job         the job to process records for
+     * @param parallelism the number of workers to start (at most 8)
+     */
+    public ParallelImportWorkers(ImportJob job, int parallelism) {
+        this(worker -> {
+            // The importer is created by the calling thread, as its scriptable event handler is initialized for
+            // the current user...
+            Importer workerImporter = job.createWorkerImporter();
+            return job.process.performInSideTask(() -> job.runAsWorker(workerImporter, worker));
+        }, job.process::handle, parallelism);
+    }
+
+    /**
+     * Creates and starts the given number of workers using the given executor.
+     *
+     * @param workerExecutor starts a worker
+     * @param errorHandler   handles an error which occurred while processing a record
+     * @param parallelism    the number of workers to start (at most 8)
+     */
+    ParallelImportWorkers(WorkerExecutor workerExecutor, Consumer<Exception> errorHandler, int parallelism) {
+        this.errorHandler = errorHandler;
+        for (int i = 0; i < Math.clamp(parallelism, 1, MAX_PARALLELISM); i++) {
+            BlockingQueue<UnitOfWork> queue = new ArrayBlockingQueue<>(MAX_QUEUED_RECORDS_PER_WORKER);
+            queues.add(queue);
+            workers.add(workerExecutor.start(() -> work(queue)));
+        }
+    }
+
+    private void work(BlockingQueue<UnitOfWork> queue) throws InterruptedException {
+        UnitOfWork task = queue.take();
+        while (task != END_OF_RECORDS) {
+            // If the process has been cancelled, we still drain the queue so that the reading thread
+            // isn't blocked...
+            if (TaskContext.get().isActive()) {
+                execute(task);
+            }
+            task = queue.take();
+        }
+    }
+
+    private void execute(UnitOfWork task) {
+        try {
+            task.execute();
+        } catch (Exception exception) {
+            errorHandler.accept(exception);
+        }
+    }
+
+    /**
+     * Determines the worker which is responsible for the given partition key.
+     *
+     * @param partitionKey the key to route or <tt>null</tt> to distribute the records evenly
+     * @return the index of the worker to use
+     */
+    int determineWorker(@Nullable Object partitionKey) {
+        if (partitionKey == null) {
+            return Math.floorMod(roundRobin.getAndIncrement(), queues.size());
+        }
+
+        return Math.floorMod(partitionKey.hashCode(), queues.size());
+    }
+
+    /**
+     * Dispatches the given task to the worker which is responsible for the given partition key.
+     * <p>
+     * This will block if the queue of the worker is full.
+     *
+     * @param partitionKey the key which determines the worker to use. Tasks with the same key are executed in order.
+     *                     If <tt>null</tt> is given, the tasks are distributed evenly among all workers.
+     * @param task         the task which processes the record
+     */
+    public void dispatch(@Nullable Object partitionKey, UnitOfWork task) {
+        enqueue(determineWorker(partitionKey), task);
+    }
+
+    private void enqueue(int worker, UnitOfWork task) {
+        try {
+            while (!queues.get(worker).offer(task, 1, TimeUnit.SECONDS)) {
+                if (workers.get(worker).isCompleted()) {
+                    throw Exceptions.handle()
+                                    .withSystemErrorMessage("The import worker %s terminated unexpectedly.", worker)
+                                    .handle();
+                }
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw Exceptions.handle(exception);
+        }
+    }
+
+    /**
+     * Signals all workers that no more records will be dispatched and waits until all of them have terminated.
+     * <p>
+     * All importers of the workers are closed, so that their pending batches are committed. Note that this also
+     * waits for the workers if the process has been cancelled, as these might still be flushing their batches. The
+     * caller has to check the state of the process on its own before performing any final steps (e.g. deleting
+     * entities which haven't been touched by the import).
+     *
+     * @throws sirius.kernel.health.HandledException if a worker terminated unexpectedly
+     */
+    public void awaitCompletion() {
+        for (int worker = 0; worker < queues.size(); worker++) {
+            if (!workers.get(worker).isCompleted()) {
+                enqueue(worker, END_OF_RECORDS);
+            }
+        }
+
+        for (Future worker : workers) {
+            while (!worker.isCompleted()) {
+                worker.await(Duration.ofSeconds(1));
+            }
+        }
+
+        for (Future worker : workers) {
+            if (worker.isFailed()) {
+                throw Exceptions.handle(worker.getFailure());
+            }
+        }
+    }
+}
@@ -11,6 +11,7 @@ package sirius.biz.jobs.batch.file;
 import sirius.biz.importer.AfterLineLoadEvent;
 import sirius.biz.importer.format.FieldDefinition;
 import sirius.biz.importer.format.ImportDictionary;
+import sirius.biz.process.ErrorContext;
 import sirius.biz.process.ProcessContext;
 import sirius.biz.storage.layer3.VirtualFile;
 import sirius.kernel.commons.Context;
@@ -18,6 +19,9 @@ import sirius.kernel.commons.Tuple;
 import sirius.kernel.commons.Values;
 
 import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
 
 /**
  * Provides a job for importing line based files (CSV, Excel) which utilizes a {@link ImportDictionary} to map columns
@@ -27,6 +31,9 @@ public abstract class DictionaryBasedImportJob extends LineBasedImportJob {
 
     protected final ImportDictionary dictionary;
     protected DictionaryBasedImport dictionaryBasedImport;
+    private Function<Context, Object> partitionKeyExtractor;
+    private int prefetchBlockSize = 1;
+    private final List<Tuple<Integer, Context>> pendingRows = new ArrayList<>();
 
     /**
      * Creates a new job for the given factory, name and process.
@@ -49,12 +56,123 @@ public abstract class DictionaryBasedImportJob extends LineBasedImportJob {
         super.execute();
     }
 
+    /**
+     * Enables processing the rows using several workers in parallel.
+     *
+     * @param parallelism           the number of workers to use
+     * @param partitionKeyExtractor extracts the key from a row which determines the worker to use. All rows with the
+     *                              same key are processed by the same worker in their original order. Therefore, this
+     *                              should return a value which identifies the entity being imported.
+     * @see #enableParallelProcessing(int)
+     */
+    protected void enableParallelProcessing(int parallelism, Function<Context, Object> partitionKeyExtractor) {
+        enableParallelProcessing(parallelism);
+        this.partitionKeyExtractor = partitionKeyExtractor;
+    }
+
+    /**
+     * Enables resolving the rows blockwise before they are handled.
+     * <p>
+     * The rows are buffered until the given number of rows is available. Then {@link #prefetchRows(List)} is invoked
+     * for the whole block, before each row is handled as usual. This permits to resolve the existing entities using
+     * a few bulk queries (see {@link sirius.biz.importer.Importer#prefetch(Class, List)}) instead of one query per
+     * row.
+     * <p>
+     * Note that the prefetching happens before the {@link AfterLineLoadEvent} is fired. Therefore, an event handler
+     * which modifies the values used to find an entity shouldn't be combined with prefetching.
+     * <p>
+     * Also note that prefetching is ignored if {@link #enableParallelProcessing(int) parallel processing} is enabled.
+     * As the block would be resolved by the reading thread, it could be prefetched while the workers are still
+     * applying the previous blocks, which would result in stale entities, lost updates or duplicate entities.
+     *
+     * @param blockSize the number of rows to resolve at once
+     */
+    protected void enablePrefetching(int blockSize) {
+        this.prefetchBlockSize = blockSize;
+    }
+
+    /**
+     * Determines if rows are resolved blockwise.
+     *
+     * @return <tt>true</tt> if prefetching is enabled and rows aren't processed in parallel, <tt>false</tt> otherwise
+     * @see #enablePrefetching(int)
+     */
+    protected boolean isPrefetching() {
+        return prefetchBlockSize > 1 && !isProcessingInParallel();
+    }
+
+    /**
+     * Resolves the entities for a block of rows before these are handled.
+     * <p>
+     * By default, this does nothing. Subclasses which {@link #enablePrefetching(int) enable prefetching} should
+     * overwrite this method and use {@link sirius.biz.importer.Importer#prefetch(Class, List)}.
+     *
+     * @param rows the rows which are about to be handled
+     */
+    protected void prefetchRows(List<Context> rows) {
+        // Nothing to prefetch by default...
+    }
+
     private void handleRow(Tuple<Integer, Context> indexAndRow) {
-        if (importer.getContext().getEventHandler().isActive()) {
-            AfterLineLoadEvent event = new AfterLineLoadEvent(indexAndRow.getSecond(), importer.getContext());
-            importer.getContext().getEventHandler().handleEvent(event);
+        if (!isPrefetching()) {
+            processRow(indexAndRow);
+            return;
+        }
+
+        pendingRows.add(indexAndRow);
+        if (pendingRows.size() >= prefetchBlockSize) {
+            flushPendingRows();
+        }
+    }
+
+    private void flushPendingRows() {
+        if (pendingRows.isEmpty()) {
+            return;
+        }
+
+        List<Tuple<Integer, Context>> rows = new ArrayList<>(pendingRows);
+        pendingRows.clear();
+
+        try {
+            prefetchRows(rows.stream().map(Tuple::getSecond).toList());
+        } catch (Exception exception) {
+            // If the block cannot be resolved, each row will simply perform its own lookup...
+            process.handle(exception);
+        }
+
+        for (Tuple<Integer, Context> indexAndRow : rows) {
+            // As the rows are handled after they have been read, we have to provide the row number and handle errors
+            // on our own - otherwise a single erroneous row would abort the whole block...
+            ErrorContext.get().withContext(ERROR_CONTEXT_ROW, indexAndRow.getFirst());
+            try {
+                processRow(indexAndRow);
+            } catch (Exception exception) {
+                process.handle(exception);
+            } finally {
+                ErrorContext.get().removeContext(ERROR_CONTEXT_ROW);
+            }
         }
-        handleRow(indexAndRow.getFirst(), indexAndRow.getSecond());
+    }
+
+    @Override
+    protected void completeRowProcessing() {
+        try {
+            flushPendingRows();
+        } finally {
+            super.completeRowProcessing();
+        }
+    }
+
+    private void processRow(Tuple<Integer, Context> indexAndRow) {
+        Object partitionKey =
+                partitionKeyExtractor == null ? null : partitionKeyExtractor.apply(indexAndRow.getSecond());
+        dispatchRow(indexAndRow.getFirst(), partitionKey, () -> {
+            if (getImporter().getContext().getEventHandler().isActive()) {
+                AfterLineLoadEvent event = new AfterLineLoadEvent(indexAndRow.getSecond(), getImporter().getContext());
+                getImporter().getContext().getEventHandler().handleEvent(event);
+            }
+            handleRow(indexAndRow.getFirst(), indexAndRow.getSecond());
+        });
     }
 
     @Nullable
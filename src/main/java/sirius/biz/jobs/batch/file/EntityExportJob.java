@@ -29,6 +29,7 @@ import sirius.kernel.commons.Monoflop;
 import sirius.kernel.commons.Strings;
 import sirius.kernel.commons.Values;
 import sirius.kernel.commons.Watch;
+import sirius.kernel.di.std.ConfigValue;
 import sirius.kernel.di.std.Part;
 import sirius.web.data.LineBasedProcessor;
 
@@ -81,6 +82,9 @@ public class EntityExportJob<E extends BaseEntity<?>, Q extends Query<Q, E, ?>>
     @Nullable
     private static Tenants<?, ?, ?> tenants;
 
+    @ConfigValue("exporter.renderingParallelism")
+    private static int defaultRenderingParallelism;
+
     protected final VirtualFile templateFile;
     protected final ImportDictionary dictionary;
     protected final EntityDescriptor descriptor;
@@ -92,6 +96,7 @@ public class EntityExportJob<E extends BaseEntity<?>, Q extends Query<Q, E, ?>>
     protected Consumer<Context> contextExtender;
     protected String targetFileName;
     protected BiPredicate<E, ProcessContext> entityFilter;
+    protected int renderingParallelism = defaultRenderingParallelism;
 
     /**
      * Creates a new job for the given factory, name and process.
@@ -163,6 +168,24 @@ public class EntityExportJob<E extends BaseEntity<?>, Q extends Query<Q, E, ?>>
         return this;
     }
 
+    /**
+     * Specifies the number of side tasks which render the exported rows in parallel.
+     * <p>
+     * Note that the {@link #withEntityFilter(BiPredicate) entity filter} is still invoked by the job itself, but all
+     * extractors (including the ones provided by {@link #customFieldExtractor(String)}) and the
+     * {@link #withContextExtender(Consumer) context extender} have to be thread-safe, unless a parallelism of 1 is
+     * used. This is not the case for the built-in extractors which use {@link Importer#findHelper(Class) helpers} of
+     * the importer (e.g. for multi-language fields), as these are created lazily and not shared safely. Therefore,
+     * this defaults to <tt>exporter.renderingParallelism</tt>, which is 1 unless configured otherwise.
+     *
+     * @param renderingParallelism the number of side tasks to use or 1 to render all rows within the job itself
+     * @return the export job itself for fluent method calls
+     */
+    public EntityExportJob<E, Q> withRenderingParallelism(int renderingParallelism) {
+        this.renderingParallelism = renderingParallelism;
+        return this;
+    }
+
     /**
      * Resolves custom fields which are not known by the entity or its {@link sirius.biz.importer.ImportHandler}.
      *
@@ -350,14 +373,35 @@ public class EntityExportJob<E extends BaseEntity<?>, Q extends Query<Q, E, ?>>
      * The mapping was either determined by {@link #templateBasedExport()} or by using the default mapping in
      * {@link #fullExportWithoutTemplate()}. The result provided by the database is
      * {@linkplain #withEntityFilter(BiPredicate) filtered} when set up accordingly.
+     * <p>
+     * Unless a {@link #withRenderingParallelism(int) rendering parallelism} of 1 is used, the rows are rendered by
+     * side tasks while the next entities are being loaded. The rows are still written in the order provided by the
+     * database.
      */
     private void fullExportWithGivenMapping() {
         process.log(ProcessLog.info().withNLSKey("EntityExport.fullExport"));
         BiPredicate<E, ProcessContext> filter =
                 Optional.ofNullable(this.entityFilter).orElse((entity, ignored) -> true);
-        createFullExportQuery().streamBlockwise()
-                               .filter(entity -> filter.test(entity, process))
-                               .forEach(this::exportEntity);
+        if (renderingParallelism <= 1) {
+            createFullExportQuery().streamBlockwise()
+                                   .filter(entity -> filter.test(entity, process))
+                                   .forEach(this::exportEntity);
+            return;
+        }
+
+        ParallelRowRenderer<E> renderer =
+                new ParallelRowRenderer<>(process, renderingParallelism, this::renderEntity, export::addListRow);
+        createFullExportQuery().streamBlockwise().filter(entity -> filter.test(entity, process)).forEach(renderer::add);
+        renderer.finish();
+    }
+
+    private List<Object> renderEntity(E entity) {
+        Watch watch = Watch.start();
+        try {
+            return exportAsRow(null, entity);
+        } finally {
+            process.addTiming(descriptor.getPluralLabel(), watch.elapsedMillis());
+        }
     }
 
     protected void exportEntity(E entity) {
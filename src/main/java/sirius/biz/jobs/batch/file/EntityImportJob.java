@@ -24,7 +24,9 @@ import sirius.kernel.di.std.Part;
 import sirius.kernel.nls.NLS;
 
 import javax.annotation.Nullable;
+import java.util.List;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Provides a job for importing line based files (CSV, Excel) as entities.
@@ -88,6 +90,48 @@ public class EntityImportJob<E extends BaseEntity<?>> extends DictionaryBasedImp
         return this;
     }
 
+    /**
+     * Enables processing the rows using several workers in parallel.
+     * <p>
+     * Note that subclasses which override any of the row processing methods must use {@link #getImporter()} instead
+     * of {@link #importer}, as each worker uses its own importer.
+     *
+     * @param parallelism           the number of workers to use
+     * @param partitionKeyExtractor extracts a key from each row which identifies the entity being imported. All rows
+     *                              with the same key are processed in their original order
+     * @return the import job itself for fluent method calls
+     */
+    public EntityImportJob<E> withParallelProcessing(int parallelism, Function<Context, Object> partitionKeyExtractor) {
+        enableParallelProcessing(parallelism, partitionKeyExtractor);
+        return this;
+    }
+
+    /**
+     * Enables resolving the existing entities blockwise.
+     * <p>
+     * Instead of one lookup per row, the entities of the given number of rows are resolved using a few bulk queries
+     * (as far as supported by the {@link sirius.biz.importer.ImportHandler}). Note that a {@link #contextExtender}
+     * is applied to the whole block before the lookup is performed. Prefetching is ignored if
+     * {@link #withParallelProcessing(int, Function) parallel processing} is enabled, as the workers might still be
+     * updating the entities of the previous blocks.
+     *
+     * @param blockSize the number of rows to resolve at once
+     * @return the import job itself for fluent method calls
+     */
+    public EntityImportJob<E> withPrefetching(int blockSize) {
+        enablePrefetching(blockSize);
+        return this;
+    }
+
+    @Override
+    protected void prefetchRows(List<Context> rows) {
+        if (contextExtender != null) {
+            rows.forEach(contextExtender);
+        }
+
+        importer.prefetch(type, rows);
+    }
+
     @Override
     protected void backupInputFile(String name, FileHandle input) {
         // No need to create a backup copy if we only run a check...
@@ -100,7 +144,8 @@ public class EntityImportJob<E extends BaseEntity<?>> extends DictionaryBasedImp
     protected final void handleRow(int index, Context context) {
         Watch watch = Watch.start();
 
-        if (contextExtender != null) {
+        // If prefetching is enabled, the extender has already been applied to the whole block...
+        if (contextExtender != null && !isPrefetching()) {
             contextExtender.accept(context);
         }
 
@@ -135,7 +180,7 @@ public class EntityImportJob<E extends BaseEntity<?>> extends DictionaryBasedImp
      * @param context the row represented as context
      */
     protected void enforceSaveConstraints(E entity, Context context) {
-        importer.findHandler(type).enforcePreSaveConstraints(entity);
+        getImporter().findHandler(type).enforcePreSaveConstraints(entity);
         entity.getDescriptor().beforeSave(entity);
     }
 
@@ -148,7 +193,7 @@ public class EntityImportJob<E extends BaseEntity<?>> extends DictionaryBasedImp
      * @return the entity which was either found in the database or create using the given data
      */
     protected E findAndLoad(Context context) {
-        return importer.findAndLoad(type, context);
+        return getImporter().findAndLoad(type, context);
     }
 
     protected boolean shouldSkip(E entity) {
@@ -192,6 +237,6 @@ public class EntityImportJob<E extends BaseEntity<?>> extends DictionaryBasedImp
      * @see sirius.biz.importer.Importer#createOrUpdateNow(BaseEntity)
      */
     protected void createOrUpdate(E entity, Context context) {
-        importer.createOrUpdateNow(entity);
+        getImporter().createOrUpdateNow(entity);
     }
 }
@@ -8,6 +8,7 @@
 
 package sirius.biz.jobs.batch.file;
 
+import sirius.biz.jobs.batch.ParallelImportWorkers;
 import sirius.biz.jobs.params.BooleanParameter;
 import sirius.biz.jobs.params.Parameter;
 import sirius.biz.process.ErrorContext;
@@ -19,6 +20,7 @@ import sirius.kernel.commons.Value;
 import sirius.web.data.LineBasedProcessor;
 import sirius.web.data.RowProcessor;
 
+import javax.annotation.Nullable;
 import java.io.InputStream;
 import java.util.Set;
 
@@ -48,7 +50,10 @@ public abstract class LineBasedImportJob extends FileImportJob implements RowPro
         IMPORT_ALL_SHEETS_PARAMETER = parameter.build();
     }
 
-    private static final String ERROR_CONTEXT_ROW = "$LineBasedJob.row";
+    protected static final String ERROR_CONTEXT_ROW = "$LineBasedJob.row";
+
+    private int parallelism = 1;
+    private ParallelImportWorkers parallelImportWorkers;
 
     /**
      * Creates a new job for the given factory, name and process.
@@ -59,8 +64,78 @@ public abstract class LineBasedImportJob extends FileImportJob implements RowPro
         super(process);
     }
 
+    /**
+     * Enables processing the rows using several workers in parallel.
+     * <p>
+     * Note that the rows are still read and parsed by a single thread. Each worker uses its own importer, therefore
+     * subclasses must use {@link #getImporter()} instead of {@link #importer} when processing a row. Rows are
+     * {@link #dispatchRow(int, Object, Runnable) dispatched} using a partition key, so that all rows which affect
+     * the same entity are processed by the same worker in their original order.
+     *
+     * @param parallelism the number of workers to use. A value of 1 disables parallel processing
+     * @see ParallelImportWorkers
+     */
+    protected void enableParallelProcessing(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Determines if the rows are processed by several workers in parallel.
+     *
+     * @return <tt>true</tt> if parallel processing is enabled, <tt>false</tt> otherwise
+     * @see #enableParallelProcessing(int)
+     */
+    protected boolean isProcessingInParallel() {
+        return parallelism > 1;
+    }
+
+    /**
+     * Starts the workers if parallel processing is enabled.
+     * <p>
+     * This must be called before the first row is dispatched.
+     */
+    protected void startRowProcessing() {
+        if (parallelism > 1) {
+            parallelImportWorkers = new ParallelImportWorkers(this, parallelism);
+        }
+    }
+
+    /**
+     * Waits until all dispatched rows have been processed and all workers have committed their changes.
+     */
+    protected void completeRowProcessing() {
+        if (parallelImportWorkers != null) {
+            parallelImportWorkers.awaitCompletion();
+            parallelImportWorkers = null;
+        }
+    }
+
+    /**
+     * Processes the given row either directly or by handing it to the appropriate worker.
+     *
+     * @param rowNumber    the number of the row being processed
+     * @param partitionKey the key which determines the worker to use. Rows with the same key are processed in order
+     * @param rowHandler   the handler which actually processes the row
+     */
+    protected void dispatchRow(int rowNumber, @Nullable Object partitionKey, Runnable rowHandler) {
+        if (parallelImportWorkers == null) {
+            rowHandler.run();
+            return;
+        }
+
+        parallelImportWorkers.dispatch(partitionKey, () -> {
+            ErrorContext.get().withContext(ERROR_CONTEXT_ROW, rowNumber);
+            try {
+                rowHandler.run();
+            } finally {
+                ErrorContext.get().removeContext(ERROR_CONTEXT_ROW);
+            }
+        });
+    }
+
     @Override
     protected void executeForStream(String filename, Producer<InputStream> inputSupplier) throws Exception {
+        startRowProcessing();
         try (InputStream in = inputSupplier.create()) {
             LineBasedProcessor.create(filename, in, process.getParameter(IMPORT_ALL_SHEETS_PARAMETER).orElse(false))
                               .run((rowNumber, row) -> {
@@ -73,6 +148,8 @@ public abstract class LineBasedImportJob extends FileImportJob implements RowPro
 
                                   return true;
                               });
+        } finally {
+            completeRowProcessing();
         }
     }
 
@@ -0,0 +1,187 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.jobs.batch.file;
+
+import sirius.biz.process.ProcessContext;
+import sirius.kernel.async.Promise;
+import sirius.kernel.commons.Callback;
+import sirius.kernel.commons.Producer;
+import sirius.kernel.health.Exceptions;
+import sirius.kernel.health.HandledException;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Renders the rows of an export in parallel while still writing them in their original order.
+ * <p>
+ * The entities are collected into blocks by the calling thread. Each block is then rendered as
+ * {@link ProcessContext#computeInSideTask(sirius.kernel.commons.Producer) side task}. Completed blocks are handed
+ * to the writer in the order in which the entities were {@link #add(Object) added}. As only a limited number of
+ * blocks may be pending, the calling thread (which usually loads the entities from the database) is slowed down if
+ * rendering or writing cannot keep up. Therefore, the memory consumption remains bounded, independently of the size
+ * of the export.
+ *
+ * @param <E> the type of entities being rendered
+ */
+class ParallelRowRenderer<E> {
+
+    /**
+     * Ensures that a single export cannot occupy the whole side task executor.
+     */
+    private static final int MAX_PARALLELISM = 8;
+    private static final int BLOCK_SIZE = 256;
+
+    private final SideTaskExecutor sideTaskExecutor;
+    private final Function<Exception, HandledException> errorHandler;
+    private final Function<E, List<Object>> renderer;
+    private final Callback<List<Object>> writer;
+    private final int maxPendingBlocks;
+    private final Deque<Promise<List<List<Object>>>> pendingBlocks = new ArrayDeque<>();
+    private List<E> currentBlock = new ArrayList<>(BLOCK_SIZE);
+
+    /**
+     * Executes the rendering of a block in parallel to the calling thread.
+     */
+    @FunctionalInterface
+    interface SideTaskExecutor {
+
+        /**
+         * Computes the given task in parallel.
+         *
+         * @param task the task to compute
+         * @param <P>  the type of the computed result
+         * @return a promise which is fulfilled with the result of the task
+         */
+        <P> Promise<P> compute(Producer<P> task);
+    }
+
+    /**
+     * Creates a new renderer.
+     *
+     * @param process     the process which is used to execute the side tasks
+     * @param parallelism the number of blocks to render in parallel (at most 8)
+     * @param renderer    transforms an entity into a row. This is invoked by several threads in parallel
+     * @param writer      writes a rendered row. This is only invoked by the thread which adds the entities
+     */
+    ParallelRowRenderer(ProcessContext process,
+                        int parallelism,
+                        Function<E, List<Object>> renderer,
+                        Callback<List<Object>> writer) {
+        this(process::computeInSideTask, process::handle, parallelism, renderer, writer);
+    }
+
+    /**
+     * Creates a new renderer which uses the given executor to render blocks.
+     *
+     * @param sideTaskExecutor the executor which renders a block in parallel
+     * @param errorHandler     handles an error which occurred while writing a row
+     * @param parallelism      the number of blocks to render in parallel (at most 8)
+     * @param renderer         transforms an entity into a row. This is invoked by several threads in parallel
+     * @param writer           writes a rendered row. This is only invoked by the thread which adds the entities
+     */
+    ParallelRowRenderer(SideTaskExecutor sideTaskExecutor,
+                        Function<Exception, HandledException> errorHandler,
+                        int parallelism,
+                        Function<E, List<Object>> renderer,
+                        Callback<List<Object>> writer) {
+        this.sideTaskExecutor = sideTaskExecutor;
+        this.errorHandler = errorHandler;
+        this.renderer = renderer;
+        this.writer = writer;
+        this.maxPendingBlocks = Math.clamp(parallelism, 1, MAX_PARALLELISM);
+    }
+
+    /**
+     * Adds an entity to be rendered and written.
+     * <p>
+     * This will block if too many blocks are pending.
+     *
+     * @param entity the entity to export
+     */
+    void add(E entity) {
+        currentBlock.add(entity);
+        if (currentBlock.size() >= BLOCK_SIZE) {
+            submitCurrentBlock();
+        }
+    }
+
+    private void submitCurrentBlock() {
+        if (currentBlock.isEmpty()) {
+            return;
+        }
+
+        List<E> block = currentBlock;
+        currentBlock = new ArrayList<>(BLOCK_SIZE);
+
+        while (pendingBlocks.size() >= maxPendingBlocks) {
+            writeBlock(pendingBlocks.removeFirst());
+        }
+
+        pendingBlocks.addLast(sideTaskExecutor.compute(() -> render(block)));
+
+        // Write all blocks which are already completed, so that the rendered rows don't pile up in memory...
+        while (!pendingBlocks.isEmpty() && pendingBlocks.getFirst().isCompleted()) {
+            writeBlock(pendingBlocks.removeFirst());
+        }
+    }
+
+    private List<List<Object>> render(List<E> block) {
+        List<List<Object>> rows = new ArrayList<>(block.size());
+        for (E entity : block) {
+            rows.add(renderer.apply(entity));
+        }
+
+        return rows;
+    }
+
+    private void writeBlock(Promise<List<List<Object>>> renderedBlock) {
+        // We have to wait for the block in any case, as the rows have to be written in order...
+        while (!renderedBlock.isCompleted()) {
+            renderedBlock.await(Duration.ofSeconds(1));
+        }
+
+        if (renderedBlock.isFailed()) {
+            throw Exceptions.handle(renderedBlock.getFailure());
+        }
+
+        try {
+            for (List<Object> row : renderedBlock.get()) {
+                writer.invoke(row);
+            }
+        } catch (Exception exception) {
+            throw errorHandler.apply(exception);
+        }
+    }
+
+    /**
+     * Returns the number of blocks which have been submitted for rendering but not written yet.
+     *
+     * @return the number of pending blocks
+     */
+    int getPendingBlocks() {
+        return pendingBlocks.size();
+    }
+
+    /**
+     * Renders and writes all remaining entities.
+     * <p>
+     * This blocks until all rows have been written.
+     */
+    void finish() {
+        submitCurrentBlock();
+        while (!pendingBlocks.isEmpty()) {
+            writeBlock(pendingBlocks.removeFirst());
+        }
+    }
+}
@@ -15,11 +15,13 @@ import sirius.biz.jobs.params.EnumParameter;
 import sirius.biz.jobs.params.Parameter;
 import sirius.biz.process.ErrorContext;
 import sirius.biz.process.ProcessContext;
+import sirius.biz.process.logs.ProcessLog;
 import sirius.biz.tenants.Tenants;
 import sirius.db.mixing.BaseEntity;
 import sirius.db.mixing.EntityDescriptor;
 import sirius.db.mixing.Mixing;
 import sirius.db.mixing.query.Query;
+import sirius.kernel.async.TaskContext;
 import sirius.kernel.commons.Context;
 import sirius.kernel.commons.Producer;
 import sirius.kernel.commons.Watch;
@@ -31,9 +33,11 @@ import sirius.web.data.LineBasedProcessor;
 
 import javax.annotation.Nullable;
 import java.io.InputStream;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Provides a job for importing line based files (CSV, Excel) as relational entities.
@@ -112,6 +116,50 @@ public class RelationalEntityImportJob<E extends BaseEntity<?> & ImportTransacti
         return this;
     }
 
+    /**
+     * Enables processing the rows using several workers in parallel.
+     * <p>
+     * Note that subclasses which override any of the row processing methods must use {@link #getImporter()} instead
+     * of {@link #importer}, as each worker uses its own importer. All workers join the import transaction, so that
+     * {@link SyncMode#SYNC} works as expected.
+     *
+     * @param parallelism           the number of workers to use
+     * @param partitionKeyExtractor extracts a key from each row which identifies the entity being imported. All rows
+     *                              with the same key are processed in their original order
+     * @return the import job itself for fluent method calls
+     */
+    public RelationalEntityImportJob<E, Q> withParallelProcessing(int parallelism,
+                                                                  Function<Context, Object> partitionKeyExtractor) {
+        enableParallelProcessing(parallelism, partitionKeyExtractor);
+        return this;
+    }
+
+    /**
+     * Enables resolving the existing entities blockwise.
+     * <p>
+     * Instead of one lookup per row, the entities of the given number of rows are resolved using a few bulk queries
+     * (as far as supported by the {@link sirius.biz.importer.ImportHandler}). Note that a {@link #contextExtender}
+     * is applied to the whole block before the lookup is performed. Prefetching is ignored if
+     * {@link #withParallelProcessing(int, Function) parallel processing} is enabled, as the workers might still be
+     * updating the entities of the previous blocks.
+     *
+     * @param blockSize the number of rows to resolve at once
+     * @return the import job itself for fluent method calls
+     */
+    public RelationalEntityImportJob<E, Q> withPrefetching(int blockSize) {
+        enablePrefetching(blockSize);
+        return this;
+    }
+
+    @Override
+    protected void prefetchRows(List<Context> rows) {
+        if (contextExtender != null) {
+            rows.forEach(contextExtender);
+        }
+
+        importer.prefetch(type, rows);
+    }
+
     /**
      * Specifies the deletion query tuner to use.
      * <p>
@@ -143,6 +191,7 @@ public class RelationalEntityImportJob<E extends BaseEntity<?> & ImportTransacti
     @Override
     protected void executeForStream(String filename, Producer<InputStream> inputSupplier) throws Exception {
         importTransactionHelper.start(syncSource, syncSourceDeleteMode);
+        startRowProcessing();
         try (InputStream in = inputSupplier.create()) {
             LineBasedProcessor.create(filename,
                                       in,
@@ -157,8 +206,18 @@ public class RelationalEntityImportJob<E extends BaseEntity<?> & ImportTransacti
 
                 return true;
             });
+        } finally {
+            // All workers have to commit their changes before unmarked entities can be deleted...
+            completeRowProcessing();
+        }
+
+        // If the import has been cancelled, not all rows have been processed (and thus marked). Therefore, we must
+        // not delete any entities...
+        if (TaskContext.get().isActive()) {
+            commitImportTransaction();
+        } else {
+            process.log(ProcessLog.warn().withNLSKey("RelationalEntityImportJob.deletionSkipped"));
         }
-        commitImportTransaction();
     }
 
     /**
@@ -189,7 +248,8 @@ public class RelationalEntityImportJob<E extends BaseEntity<?> & ImportTransacti
     protected final void handleRow(int index, Context context) {
         Watch watch = Watch.start();
 
-        if (contextExtender != null) {
+        // If prefetching is enabled, the extender has already been applied to the whole block...
+        if (contextExtender != null && !isPrefetching()) {
             contextExtender.accept(context);
         }
 
@@ -201,7 +261,7 @@ public class RelationalEntityImportJob<E extends BaseEntity<?> & ImportTransacti
 
         if (mode == SyncMode.DELETE_EXISTING) {
             if (!entity.isNew()) {
-                importer.deleteNow(entity);
+                getImporter().deleteNow(entity);
                 process.addTiming(NLS.get("EntityImportJob.entityDeleted"), watch.elapsedMillis());
             }
         } else {
@@ -239,7 +299,7 @@ public class RelationalEntityImportJob<E extends BaseEntity<?> & ImportTransacti
      * @return the entity which was either found in the database or create using the given data
      */
     protected E findAndLoad(Context context) {
-        return importer.findAndLoad(type, context);
+        return getImporter().findAndLoad(type, context);
     }
 
     /**
@@ -287,6 +347,6 @@ public class RelationalEntityImportJob<E extends BaseEntity<?> & ImportTransacti
      * @see sirius.biz.importer.Importer#createOrUpdateNow(BaseEntity)
      */
     protected void createOrUpdate(E entity, Context context) {
-        importer.createOrUpdateNow(entity);
+        getImporter().createOrUpdateNow(entity);
     }
 }
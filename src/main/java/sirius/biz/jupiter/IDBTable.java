@@ -16,11 +16,15 @@ import sirius.kernel.commons.Values;
 import sirius.kernel.nls.NLS;
 
 import javax.annotation.Nullable;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Spliterator;
+import java.util.function.Function;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -41,8 +45,15 @@ public class IDBTable {
 
     private static final int FETCH_PAGE_SIZE = 250;
 
+    /**
+     * Limits the number of lookups which are sent within a single pipeline.
+     */
+    private static final int MAX_PIPELINED_LOOKUPS = 1000;
+    private static final String NEAR_CACHE_NAMESPACE_PREFIX = "idb-";
+
     private final JupiterConnector jupiter;
     private final String name;
+    private final boolean nearCache;
 
     /**
      * Creates a new wrapper for a given Jupiter instance and table name.
@@ -51,8 +62,28 @@ public class IDBTable {
      * @param name    the name of the table to wrap
      */
     public IDBTable(JupiterConnector jupiter, String name) {
+        this(jupiter, name, false);
+    }
+
+    private IDBTable(JupiterConnector jupiter, String name, boolean nearCache) {
         this.jupiter = jupiter;
         this.name = name;
+        this.nearCache = nearCache;
+    }
+
+    /**
+     * Returns a wrapper for the same table which keeps the results of lookups in a local near cache.
+     * <p>
+     * This affects {@link #lookup(String, String, String...)} and
+     * {@link #ilookup(String, String, String, String, String...)} and therefore also
+     * {@link QueryBuilder#singleRow(String...)} when performing an exact lookup. As the contents of a table only
+     * change when the repository is synced, the near cache is flushed by {@link JupiterSync} once the repository
+     * is in sync again.
+     *
+     * @return a wrapper for this table which uses a local near cache for lookups
+     */
+    public IDBTable withNearCache() {
+        return new IDBTable(jupiter, name, true);
     }
 
     /**
@@ -334,6 +365,18 @@ public class IDBTable {
      * @return the first row which matched the given query
      */
     public Optional<Values> lookup(String lookupPath, String filterValue, String... pathsToQuery) {
+        if (nearCache) {
+            return jupiter.fetchFromNearCache(NEAR_CACHE_NAMESPACE_PREFIX + name,
+                                              String.join("|", "lookup", lookupPath, filterValue)
+                                              + "|"
+                                              + String.join(",", pathsToQuery),
+                                              () -> performLookup(lookupPath, filterValue, pathsToQuery));
+        }
+
+        return performLookup(lookupPath, filterValue, pathsToQuery);
+    }
+
+    private Optional<Values> performLookup(String lookupPath, String filterValue, String... pathsToQuery) {
         return jupiter.query(() -> CMD_LOOKUP + " " + name, redis -> {
             String[] args = new String[pathsToQuery.length + 3];
             args[0] = name;
@@ -372,6 +415,31 @@ public class IDBTable {
                                     String lookupPath,
                                     String filterValue,
                                     String... pathsToQuery) {
+        if (nearCache) {
+            return jupiter.fetchFromNearCache(NEAR_CACHE_NAMESPACE_PREFIX + name,
+                                              String.join("|",
+                                                          "ilookup",
+                                                          mainLanguage,
+                                                          fallbackLanguage,
+                                                          lookupPath,
+                                                          filterValue)
+                                              + "|"
+                                              + String.join(",", pathsToQuery),
+                                              () -> performILookup(mainLanguage,
+                                                                   fallbackLanguage,
+                                                                   lookupPath,
+                                                                   filterValue,
+                                                                   pathsToQuery));
+        }
+
+        return performILookup(mainLanguage, fallbackLanguage, lookupPath, filterValue, pathsToQuery);
+    }
+
+    private Optional<Values> performILookup(String mainLanguage,
+                                            String fallbackLanguage,
+                                            String lookupPath,
+                                            String filterValue,
+                                            String... pathsToQuery) {
         return jupiter.query(() -> CMD_ILOOKUP + " " + name, redis -> {
             String[] args = new String[pathsToQuery.length + 5];
             args[0] = name;
@@ -386,6 +454,89 @@ public class IDBTable {
         });
     }
 
+    /**
+     * Issues an <tt>IDB.LOOKUP</tt> command for each of the given values.
+     * <p>
+     * The commands are sent using pipelining, so that only one network round-trip per 1000 values is required
+     * instead of one per value. Note that the
+     * {@link #withNearCache() near cache} isn't used by this method.
+     *
+     * @param lookupPath   the field(s) to search in
+     * @param filterValues the values to search for
+     * @param pathsToQuery the paths to return
+     * @return the first matching row per given value. Each distinct value is contained as key in the map
+     */
+    public Map<String, Optional<Values>> lookupAll(String lookupPath,
+                                                   Collection<String> filterValues,
+                                                   String... pathsToQuery) {
+        return pipelineLookups(CMD_LOOKUP, filterValues, filterValue -> {
+            String[] args = new String[pathsToQuery.length + 3];
+            args[0] = name;
+            args[1] = lookupPath;
+            args[2] = filterValue;
+            System.arraycopy(pathsToQuery, 0, args, 3, pathsToQuery.length);
+            return args;
+        });
+    }
+
+    /**
+     * Issues an <tt>IDB.ILOOKUP</tt> command for each of the given values.
+     * <p>
+     * Just like {@link #lookupAll(String, Collection, String...)}, this uses pipelining to send the commands.
+     *
+     * @param mainLanguage     the main language used for translations
+     * @param fallbackLanguage the fallback language used for translations
+     * @param lookupPath       the field(s) to search in
+     * @param filterValues     the values to search for
+     * @param pathsToQuery     the paths to return
+     * @return the first matching row per given value. Each distinct value is contained as key in the map
+     */
+    public Map<String, Optional<Values>> ilookupAll(String mainLanguage,
+                                                    String fallbackLanguage,
+                                                    String lookupPath,
+                                                    Collection<String> filterValues,
+                                                    String... pathsToQuery) {
+        return pipelineLookups(CMD_ILOOKUP, filterValues, filterValue -> {
+            String[] args = new String[pathsToQuery.length + 5];
+            args[0] = name;
+            args[1] = mainLanguage;
+            args[2] = fallbackLanguage;
+            args[3] = lookupPath;
+            args[4] = filterValue;
+            System.arraycopy(pathsToQuery, 0, args, 5, pathsToQuery.length);
+            return args;
+        });
+    }
+
+    private Map<String, Optional<Values>> pipelineLookups(JupiterCommand command,
+                                                          Collection<String> filterValues,
+                                                          Function<String, String[]> argumentsComputer) {
+        List<String> distinctValues = filterValues.stream().distinct().toList();
+        Map<String, Optional<Values>> result = LinkedHashMap.newLinkedHashMap(distinctValues.size());
+        for (int offset = 0; offset < distinctValues.size(); offset += MAX_PIPELINED_LOOKUPS) {
+            List<String> values =
+                    distinctValues.subList(offset, Math.min(distinctValues.size(), offset + MAX_PIPELINED_LOOKUPS));
+            List<Object> replies = jupiter.query(() -> command + " (pipelined) " + name,
+                                                 redis -> redis.sendPipelined(command,
+                                                                              values.stream()
+                                                                                    .map(argumentsComputer)
+                                                                                    .toList()));
+            for (int index = 0; index < values.size(); index++) {
+                result.put(values.get(index), parseFirstRow(replies.get(index)));
+            }
+        }
+
+        return result;
+    }
+
+    private Optional<Values> parseFirstRow(Object reply) {
+        if (reply instanceof List<?> rows && !rows.isEmpty()) {
+            return Optional.of(parseRow(rows.getFirst()));
+        }
+
+        return Optional.empty();
+    }
+
     /**
      * Issues an <tt>IDB.QUERY</tt> command.
      * <p>
@@ -15,12 +15,14 @@ import sirius.kernel.Sirius;
 import sirius.kernel.cache.Cache;
 import sirius.kernel.cache.CacheManager;
 import sirius.kernel.commons.Explain;
+import sirius.kernel.commons.Monoflop;
 import sirius.kernel.commons.Strings;
 import sirius.kernel.commons.Value;
 import sirius.kernel.commons.Values;
 import sirius.kernel.di.std.Part;
 import sirius.kernel.di.std.Register;
 import sirius.kernel.health.Average;
+import sirius.kernel.health.Counter;
 import sirius.kernel.health.Log;
 import sirius.kernel.health.metrics.Metric;
 import sirius.kernel.health.metrics.MetricProvider;
@@ -32,10 +34,15 @@ import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 /**
@@ -80,11 +87,37 @@ public class Jupiter implements MetricProvider {
     private static final Cache<String, Object> LOCAL_LARGE_CACHE =
             CacheManager.createCoherentCache("jupiter-local-large");
 
+    private static final String REMOVE_BY_NAMESPACE = "namespace_remover";
+
+    /**
+     * Keeps the results of IDB lookups and LRU cache reads which opted in via {@link IDBTable#withNearCache()} or
+     * {@link LRUCache#withNearCache()}.
+     */
+    private static final Cache<String, NearCacheEntry> NEAR_CACHE =
+            CacheManager.<NearCacheEntry>createCoherentCache("jupiter-near-cache")
+                        .addValueBasedRemover(REMOVE_BY_NAMESPACE)
+                        .removeIf((namespace, entry) -> entry == null
+                                                        || Strings.areEqual(entry.namespace(), namespace));
+
+    /**
+     * Represents a value in the near cache along with the namespace (e.g. the LRU cache or IDB table) it belongs to.
+     *
+     * @param namespace the namespace of the entry
+     * @param value     the cached value
+     */
+    private record NearCacheEntry(String namespace, Object value) {
+    }
+
     @Part
     private Redis redis;
 
     protected Average callDuration = new Average();
 
+    private final Counter localCacheHits = new Counter();
+    private final Counter localCacheMisses = new Counter();
+    private long lastLocalCacheHits;
+    private long lastLocalCacheMisses;
+
     private JupiterConnector defaultConnection;
     private final Map<String, RedisDB> fallbackPools = new ConcurrentHashMap<>();
 
@@ -206,6 +239,26 @@ public class Jupiter implements MetricProvider {
                                 "Jupiter Call Duration",
                                 callDuration.getAndClear(),
                                 Metric.UNIT_MS);
+
+        gatherLocalCacheMetrics(metricsCollector);
+    }
+
+    private void gatherLocalCacheMetrics(MetricsCollector metricsCollector) {
+        long hits = localCacheHits.getCount();
+        long misses = localCacheMisses.getCount();
+        long lookups = (hits - lastLocalCacheHits) + (misses - lastLocalCacheMisses);
+        metricsCollector.metric("jupiter_local_cache_hit_ratio",
+                                "jupiter-local-cache-hit-ratio",
+                                "Jupiter Local Cache Hit Ratio",
+                                lookups == 0 ? 0 : 100d * (hits - lastLocalCacheHits) / lookups,
+                                Metric.UNIT_PERCENT);
+        metricsCollector.differentialMetric("jupiter_local_cache_misses",
+                                            "jupiter-local-cache-misses",
+                                            "Jupiter Local Cache Misses",
+                                            misses,
+                                            Metric.UNIT_PER_MIN);
+        lastLocalCacheHits = hits;
+        lastLocalCacheMisses = misses;
     }
 
     /**
@@ -223,7 +276,7 @@ public class Jupiter implements MetricProvider {
      */
     @SuppressWarnings("unchecked")
     public <V> V fetchFromSmallCache(String key, Supplier<V> valueComputer) {
-        return (V) LOCAL_SMALL_CACHE.get(key, ignored -> valueComputer.get());
+        return (V) fetchFromCache(LOCAL_SMALL_CACHE, key, valueComputer);
     }
 
     /**
@@ -241,7 +294,143 @@ public class Jupiter implements MetricProvider {
      */
     @SuppressWarnings("unchecked")
     public <V> V fetchFromLargeCache(String key, Supplier<V> valueComputer) {
-        return (V) LOCAL_LARGE_CACHE.get(key, ignored -> valueComputer.get());
+        return (V) fetchFromCache(LOCAL_LARGE_CACHE, key, valueComputer);
+    }
+
+    /**
+     * Fetches several locally cached objects based on Jupiter data which are relatively small.
+     * <p>
+     * This behaves just like {@link #fetchFromSmallCache(String, Supplier)}, but computes all missing values at once.
+     * Therefore, the values computer can use bulk operations like {@link IDBTable#lookupAll(String, Collection,
+     * String...)}.
+     *
+     * @param ids            the ids of the values to fetch
+     * @param keyComputer    computes the globally unique key used to locally lookup the value for an id
+     * @param valuesComputer computes the values for all ids which are not cached. Note that a value has to be
+     *                       provided for each of the given ids
+     * @param <V>            the type of the cached values
+     * @return the values per id which were either cached or computed
+     */
+    @SuppressWarnings("unchecked")
+    public <V> Map<String, V> fetchAllFromSmallCache(Collection<String> ids,
+                                                     Function<String, String> keyComputer,
+                                                     Function<List<String>, Map<String, V>> valuesComputer) {
+        Map<String, V> result = new HashMap<>();
+        List<String> missingIds = new ArrayList<>();
+        for (String id : ids) {
+            V value = (V) LOCAL_SMALL_CACHE.get(keyComputer.apply(id));
+            if (value != null) {
+                result.put(id, value);
+            } else {
+                missingIds.add(id);
+            }
+        }
+
+        localCacheHits.add(result.size());
+        if (missingIds.isEmpty()) {
+            return result;
+        }
+
+        List<String> idsToCompute = missingIds.stream().distinct().toList();
+        localCacheMisses.add(idsToCompute.size());
+        valuesComputer.apply(idsToCompute).forEach((id, value) -> {
+            LOCAL_SMALL_CACHE.put(keyComputer.apply(id), value);
+            result.put(id, value);
+        });
+
+        return result;
+    }
+
+    private Object fetchFromCache(Cache<String, Object> cache, String key, Supplier<?> valueComputer) {
+        Monoflop computed = Monoflop.create();
+        Object value = cache.get(key, ignored -> {
+            computed.toggle();
+            return valueComputer.get();
+        });
+        recordLocalCacheAccess(computed.isToggled());
+
+        return value;
+    }
+
+    private void recordLocalCacheAccess(boolean computed) {
+        if (computed) {
+            localCacheMisses.inc();
+        } else {
+            localCacheHits.inc();
+        }
+    }
+
+    /**
+     * Fetches a value from the near cache or computes it using the given computer.
+     * <p>
+     * The near cache is used to prevent round-trips to Jupiter for values which are read over and over again (e.g.
+     * IDB lookups performed when normalizing codes during an import). Its size and TTL are controlled via
+     * <tt>cache.jupiter-near-cache</tt>. As IDB contents only change when the repository is synced, the whole cache
+     * is flushed once the repository of the Jupiter instance is in sync again (see {@link #flushCaches()}).
+     *
+     * @param namespace     the namespace of the value, e.g. the name of the LRU cache or IDB table. This can be used
+     *                      to flush all values of the namespace via {@link #flushNearCache(String)}
+     * @param key           the key of the value within the namespace
+     * @param valueComputer the computer which actually uses Jupiter to fetch the value
+     * @param <V>           the type of the cached value
+     * @return the value which was either cached or computed
+     */
+    protected <V> V fetchFromNearCache(String namespace, String key, Supplier<V> valueComputer) {
+        return fetchFromNearCache(namespace, key, valueComputer, ignored -> true);
+    }
+
+    /**
+     * Fetches a value from the near cache or computes it using the given computer.
+     * <p>
+     * In contrast to {@link #fetchFromNearCache(String, String, Supplier)}, a computed value is only put into the
+     * near cache if it is accepted by the given predicate. This can be used to skip values which must not be kept
+     * locally (e.g. a missing value of an LRU cache, which might be put by another node at any time).
+     *
+     * @param namespace     the namespace of the value, e.g. the name of the LRU cache or IDB table
+     * @param key           the key of the value within the namespace
+     * @param valueComputer the computer which actually uses Jupiter to fetch the value
+     * @param cacheable     determines if a computed value may be put into the near cache
+     * @param <V>           the type of the cached value
+     * @return the value which was either cached or computed
+     */
+    @SuppressWarnings("unchecked")
+    protected <V> V fetchFromNearCache(String namespace,
+                                       String key,
+                                       Supplier<V> valueComputer,
+                                       Predicate<V> cacheable) {
+        String cacheKey = namespace + "-" + key;
+        NearCacheEntry entry = NEAR_CACHE.get(cacheKey);
+        if (entry != null) {
+            recordLocalCacheAccess(false);
+            return (V) entry.value();
+        }
+
+        recordLocalCacheAccess(true);
+        V value = valueComputer.get();
+        if (cacheable.test(value)) {
+            NEAR_CACHE.put(cacheKey, new NearCacheEntry(namespace, value));
+        }
+
+        return value;
+    }
+
+    /**
+     * Removes the value with the given key from the near cache of all nodes.
+     *
+     * @param namespace the namespace of the value
+     * @param key       the key of the value within the namespace
+     */
+    protected void removeFromNearCache(String namespace, String key) {
+        NEAR_CACHE.remove(namespace + "-" + key);
+    }
+
+    /**
+     * Removes all values of the given namespace from the near cache of all nodes.
+     *
+     * @param namespace the namespace to flush
+     */
+    protected void flushNearCache(String namespace) {
+        NEAR_CACHE.removeAll(REMOVE_BY_NAMESPACE, namespace);
     }
 
     /**
@@ -250,5 +439,6 @@ public class Jupiter implements MetricProvider {
     public void flushCaches() {
         LOCAL_SMALL_CACHE.clear();
         LOCAL_LARGE_CACHE.clear();
+        NEAR_CACHE.clear();
     }
 }
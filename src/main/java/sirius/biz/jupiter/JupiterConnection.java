@@ -9,10 +9,12 @@
 package sirius.biz.jupiter;
 
 import redis.clients.jedis.CommandArguments;
+import redis.clients.jedis.Response;
 import redis.clients.jedis.UnifiedJedis;
 import redis.clients.jedis.commands.ProtocolCommand;
 import redis.clients.jedis.util.SafeEncoder;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -52,6 +54,28 @@ public class JupiterConnection {
         this.lastReply = jedis.executeCommand(new CommandArguments(command).addObjects((Object[]) args));
     }
 
+    /**
+     * Executes the given command once per given argument list using a single pipeline.
+     * <p>
+     * In contrast to calling {@link #sendCommand(ProtocolCommand, String...)} repeatedly, all commands are sent at
+     * once and all replies are read afterwards. Therefore, only a single network round-trip is required.
+     *
+     * @param command             the command to execute
+     * @param argumentsPerCommand the arguments to pass to each invocation of the command
+     * @return the raw replies in the order of the given arguments. See {@link #getOne()} for the possible types
+     */
+    public List<Object> sendPipelined(ProtocolCommand command, List<String[]> argumentsPerCommand) {
+        try (var pipeline = jedis.pipelined()) {
+            List<Response<Object>> responses = new ArrayList<>(argumentsPerCommand.size());
+            for (String[] args : argumentsPerCommand) {
+                responses.add(pipeline.sendCommand(command, args));
+            }
+            pipeline.sync();
+
+            return responses.stream().map(Response::get).toList();
+        }
+    }
+
     /**
      * Returns the buffered reply of the last command interpreted as a status code (simple string).
      *
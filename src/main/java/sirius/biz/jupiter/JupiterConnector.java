@@ -23,6 +23,7 @@ import java.time.Duration;
 import java.util.List;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 /**
@@ -295,6 +296,57 @@ public class JupiterConnector {
         return new InfoGraphDB(this);
     }
 
+    /**
+     * Fetches a value from the near cache of this instance or computes it using the given computer.
+     *
+     * @param namespace     the namespace of the value (e.g. the name of an LRU cache)
+     * @param key           the key of the value within the namespace
+     * @param valueComputer the computer which actually uses Jupiter to fetch the value
+     * @param <V>           the type of the cached value
+     * @return the value which was either cached or computed
+     * @see Jupiter#fetchFromNearCache(String, String, Supplier)
+     */
+    protected <V> V fetchFromNearCache(String namespace, String key, Supplier<V> valueComputer) {
+        return jupiter.fetchFromNearCache(instanceName + "-" + namespace, key, valueComputer);
+    }
+
+    /**
+     * Fetches a value from the near cache of this instance or computes it using the given computer.
+     *
+     * @param namespace     the namespace of the value (e.g. the name of an LRU cache)
+     * @param key           the key of the value within the namespace
+     * @param valueComputer the computer which actually uses Jupiter to fetch the value
+     * @param cacheable     determines if a computed value may be put into the near cache
+     * @param <V>           the type of the cached value
+     * @return the value which was either cached or computed
+     * @see Jupiter#fetchFromNearCache(String, String, Supplier, Predicate)
+     */
+    protected <V> V fetchFromNearCache(String namespace,
+                                       String key,
+                                       Supplier<V> valueComputer,
+                                       Predicate<V> cacheable) {
+        return jupiter.fetchFromNearCache(instanceName + "-" + namespace, key, valueComputer, cacheable);
+    }
+
+    /**
+     * Removes the given value from the near cache of this instance.
+     *
+     * @param namespace the namespace of the value
+     * @param key       the key of the value within the namespace
+     */
+    protected void removeFromNearCache(String namespace, String key) {
+        jupiter.removeFromNearCache(instanceName + "-" + namespace, key);
+    }
+
+    /**
+     * Removes all values of the given namespace from the near cache of this instance.
+     *
+     * @param namespace the namespace to flush
+     */
+    protected void flushNearCache(String namespace) {
+        jupiter.flushNearCache(instanceName + "-" + namespace);
+    }
+
     protected boolean isFallbackActive() {
         return fallbackActiveUntil > System.currentTimeMillis();
     }
@@ -29,8 +29,11 @@ public class LRUCache {
     private static final JupiterCommand CMD_REMOVES = new JupiterCommand("LRU.REMOVES");
     private static final JupiterCommand CMD_FLUSH = new JupiterCommand("LRU.FLUSH");
 
+    private static final String NEAR_CACHE_NAMESPACE_PREFIX = "lru-";
+
     private final JupiterConnector connection;
     private final String cache;
+    private final boolean nearCache;
 
     @Part
     private static Tasks tasks;
@@ -60,8 +63,32 @@ public class LRUCache {
     }
 
     protected LRUCache(JupiterConnector connection, String cache) {
+        this(connection, cache, false);
+    }
+
+    private LRUCache(JupiterConnector connection, String cache, boolean nearCache) {
         this.connection = connection;
         this.cache = cache;
+        this.nearCache = nearCache;
+    }
+
+    /**
+     * Returns a wrapper for the same cache which keeps the values read from Jupiter in a local near cache.
+     * <p>
+     * This prevents round-trips to Jupiter for keys which are read over and over again. Values which are written or
+     * removed using the returned wrapper are evicted from the near cache of all nodes. Therefore, all accesses to a
+     * cache which uses a near cache should be performed via such a wrapper. Values which are removed from Jupiter
+     * otherwise (e.g. as their TTL was reached) remain in the near cache until it expires them on its own (see
+     * <tt>cache.jupiter-near-cache</tt>).
+     * <p>
+     * Only values found by {@link #get(String)} are kept locally, missing values are always looked up again. Also note
+     * that {@link #extendedGet(String, Supplier, String...)} always consults Jupiter, so that the <tt>softTTL</tt>
+     * and <tt>hardTTL</tt> of its values are respected.
+     *
+     * @return a wrapper for this cache which uses a local near cache
+     */
+    public LRUCache withNearCache() {
+        return new LRUCache(connection, cache, true);
     }
 
     /**
@@ -71,6 +98,18 @@ public class LRUCache {
      * @return the value or an empty optional if no value is present
      */
     public Optional<String> get(String key) {
+        if (nearCache) {
+            // A missing value is not kept locally, as it might be put by another node at any time...
+            return connection.fetchFromNearCache(NEAR_CACHE_NAMESPACE_PREFIX + cache,
+                                                 key,
+                                                 () -> fetch(key),
+                                                 Optional::isPresent);
+        }
+
+        return fetch(key);
+    }
+
+    private Optional<String> fetch(String key) {
         return connection.query(() -> Strings.apply("LRU.GET %s", cache), jupiter -> {
             jupiter.sendCommand(CMD_GET, cache, key);
             String result = jupiter.getBulkReply();
@@ -117,6 +156,8 @@ public class LRUCache {
      * be stale if its <tt>softTTL</tt> has been reached but not its <tt>hardTTL</tt>
      */
     public String extendedGet(String key, Supplier<String> valueComputer, String... secondaryKeys) {
+        // Note that the near cache is bypassed here, as only Jupiter knows when the softTTL of a value is reached
+        // and it has to be re-computed...
         CacheResult cacheResult = connection.query(() -> Strings.apply("LRU.XGET %s", cache), jupiter -> {
             jupiter.sendCommand(CMD_EXTENDED_GET, cache, key);
             Values reply = Values.of(jupiter.getObjectMultiBulkReply());
@@ -190,6 +231,7 @@ public class LRUCache {
      * @param value the value to store
      */
     public void put(String key, String value) {
+        evictFromNearCache(key);
         connection.exec(() -> Strings.apply("LRU.PUT %s", cache), jupiter -> {
             jupiter.sendCommand(CMD_PUT, cache, key, value);
             jupiter.getStatusCodeReply();
@@ -205,6 +247,7 @@ public class LRUCache {
      *                      {@link #removeBySecondary}.
      */
     public void put(String key, String value, String... secondaryKeys) {
+        evictFromNearCache(key);
         connection.exec(() -> Strings.apply("LRU.PUTS %s", cache), jupiter -> {
             String[] args = new String[secondaryKeys.length + 3];
             args[0] = cache;
@@ -222,6 +265,7 @@ public class LRUCache {
      * @param key the key of the value to remove
      */
     public void remove(String key) {
+        evictFromNearCache(key);
         connection.exec(() -> Strings.apply("LRU.REMOVE %s", cache), jupiter -> {
             jupiter.sendCommand(CMD_REMOVE, cache, key);
             jupiter.getStatusCodeReply();
@@ -235,6 +279,8 @@ public class LRUCache {
      *                     {@link #put(String, String, String...)}
      */
     public void removeBySecondary(String secondaryKey) {
+        // We don't know which keys belong to the secondary key, therefore we have to flush all locally cached values...
+        flushNearCache();
         connection.exec(() -> Strings.apply("LRU.REMOVES %s", cache), jupiter -> {
             jupiter.sendCommand(CMD_REMOVES, cache, secondaryKey);
             jupiter.getStatusCodeReply();
@@ -245,9 +291,22 @@ public class LRUCache {
      * Removes all values from the cache.
      */
     public void flush() {
+        flushNearCache();
         connection.exec(() -> Strings.apply("LRU.FLUSH %s", cache), jupiter -> {
             jupiter.sendCommand(CMD_FLUSH, cache);
             jupiter.getStatusCodeReply();
         });
     }
+
+    private void evictFromNearCache(String key) {
+        if (nearCache) {
+            connection.removeFromNearCache(NEAR_CACHE_NAMESPACE_PREFIX + cache, key);
+        }
+    }
+
+    private void flushNearCache() {
+        if (nearCache) {
+            connection.flushNearCache(NEAR_CACHE_NAMESPACE_PREFIX + cache);
+        }
+    }
 }
@@ -8,7 +8,7 @@
 
 package sirius.biz.locks;
 
-import sirius.kernel.commons.Wait;
+import sirius.kernel.di.std.Part;
 import sirius.kernel.health.Exceptions;
 
 import javax.annotation.Nonnull;
@@ -18,21 +18,45 @@ import java.time.Instant;
 
 /**
  * Provides a basic implementation which tries to obtain a lock in increasing intervals.
+ * <p>
+ * While waiting, the {@link LockReleaseNotifier} is used to immediately retry once the lock has been released on any
+ * node. Therefore, the wait intervals only serve as fallback (e.g. for locks which expire) and can be chosen rather
+ * generously.
  */
 public abstract class BasicLockManager implements LockManager {
 
+    @Part
+    private LockReleaseNotifier releaseNotifier;
+
     @Override
     public boolean tryLock(@Nonnull String lockName, @Nullable Duration acquireTimeout) {
+        return performTryLock(lockName, acquireTimeout, null);
+    }
+
+    @Override
+    public boolean tryLock(@Nonnull String lockName, @Nullable Duration acquireTimeout, @Nonnull Duration lockTimeout) {
+        return performTryLock(lockName, acquireTimeout, lockTimeout);
+    }
+
+    private boolean performTryLock(String lockName, @Nullable Duration acquireTimeout, @Nullable Duration lockTimeout) {
         try {
-            long timeout = acquireTimeout == null ? 0 : Instant.now().plus(acquireTimeout).toEpochMilli();
+            if (acquireTimeout == null) {
+                return acquireLock(lockName, lockTimeout);
+            }
+
+            long timeout = Instant.now().plus(acquireTimeout).toEpochMilli();
             int waitInMillis = getInitialWait();
-            do {
-                if (acquireLock(lockName)) {
-                    return true;
-                }
-                Wait.millis(waitInMillis);
-                waitInMillis = Math.min(getMaxWait(), waitInMillis + getWaitIncrement());
-            } while (System.currentTimeMillis() < timeout);
+            try (LockReleaseNotifier.Listener listener = releaseNotifier.listen(lockName)) {
+                do {
+                    long observedReleases = listener.getReleases();
+                    if (acquireLock(lockName, lockTimeout)) {
+                        return true;
+                    }
+                    listener.awaitRelease(observedReleases,
+                                          Math.min(waitInMillis, Math.max(1, timeout - System.currentTimeMillis())));
+                    waitInMillis = Math.min(getMaxWait(), waitInMillis + getWaitIncrement());
+                } while (System.currentTimeMillis() < timeout);
+            }
             return false;
         } catch (Exception exception) {
             Exceptions.handle(Locks.LOG, exception);
@@ -40,14 +64,10 @@ public abstract class BasicLockManager implements LockManager {
         }
     }
 
-    @Override
-    public boolean tryLock(@Nonnull String lockName, @Nullable Duration acquireTimeout, @Nonnull Duration lockTimeout) {
-        // Ignore lock timeout as its not supported here
-        return tryLock(lockName, acquireTimeout);
-    }
-
     /**
      * If the lock is already acquired, this returns the initial amount of milliseconds to wait.
+     * <p>
+     * Note that waiting is aborted as soon as the lock is released.
      *
      * @return the duration of the first interval until a new attempt is made to acquire a lock
      */
@@ -75,4 +95,18 @@ public abstract class BasicLockManager implements LockManager {
      * @return <tt>true</tt> if the lock was obtained, <tt>false</tt> otherwise
      */
     protected abstract boolean acquireLock(String lockName);
+
+    /**
+     * Actually obtains a lock which is automatically released after the given timeout and returns immediately.
+     * <p>
+     * By default, the lock timeout is ignored, as not all implementations support this.
+     *
+     * @param lockName    the name of the lock to acquire.
+     * @param lockTimeout the max duration for which the lock will be kept or <tt>null</tt> to use the default of
+     *                    the implementation
+     * @return <tt>true</tt> if the lock was obtained, <tt>false</tt> otherwise
+     */
+    protected boolean acquireLock(String lockName, @Nullable Duration lockTimeout) {
+        return acquireLock(lockName);
+    }
 }
@@ -57,6 +57,22 @@ public interface LockManager extends Named {
      */
     void unlock(String lock, boolean force);
 
+    /**
+     * Returns the fencing token of the given lock, if it is held by this node.
+     * <p>
+     * A fencing token is a number which increases with each acquisition of a lock. It can be passed along with
+     * write operations which are guarded by the lock, so that the target system can reject writes of a holder whose
+     * lock has expired in the meantime (e.g. due to a long GC pause) and which has therefore been acquired by someone
+     * else.
+     *
+     * @param lock the name of the lock
+     * @return the fencing token of the lock or 0 if the lock isn't held by this node or if the implementation doesn't
+     * support fencing tokens
+     */
+    default long getFencingToken(String lock) {
+        return 0;
+    }
+
     /**
      * Returns the list of known locks.
      *
@@ -0,0 +1,152 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.locks;
+
+import tools.jackson.databind.node.ObjectNode;
+import sirius.biz.cluster.Interconnect;
+import sirius.biz.cluster.InterconnectHandler;
+import sirius.kernel.async.CallContext;
+import sirius.kernel.commons.Json;
+import sirius.kernel.commons.Strings;
+import sirius.kernel.di.std.Part;
+import sirius.kernel.di.std.Register;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Notifies threads waiting for a lock as soon as it is released on any node.
+ * <p>
+ * Instead of blindly polling the lock manager in fixed intervals, a {@link BasicLockManager} registers a
+ * {@link Listener} for the lock it is waiting for. Once the lock is released via {@link Locks#unlock(String)}, all
+ * nodes are notified via the {@link Interconnect}, so that waiting threads immediately retry to acquire the lock.
+ * Polling is still performed as fallback (e.g. if a lock expires), but way less frequently.
+ */
+@Register(classes = {LockReleaseNotifier.class, InterconnectHandler.class}, framework = Locks.FRAMEWORK_LOCKS)
+public class LockReleaseNotifier implements InterconnectHandler {
+
+    private static final String MESSAGE_LOCK = "lock";
+    private static final String MESSAGE_NODE = "node";
+
+    private final Map<String, Set<Listener>> listeners = new ConcurrentHashMap<>();
+
+    @Part
+    private Interconnect interconnect;
+
+    /**
+     * Permits to wait until a lock has been released.
+     * <p>
+     * As the number of releases is recorded, no notification is lost, even if the lock is released while the owner
+     * of this listener tries to acquire it.
+     */
+    public class Listener implements AutoCloseable {
+
+        private final String lock;
+        private long releases;
+
+        private Listener(String lock) {
+            this.lock = lock;
+        }
+
+        /**
+         * Returns the number of releases observed so far.
+         *
+         * @return the number of times the lock was released since this listener was created
+         */
+        public synchronized long getReleases() {
+            return releases;
+        }
+
+        /**
+         * Blocks until the lock has been released or the given timeout has elapsed.
+         *
+         * @param observedReleases the number of releases as determined by {@link #getReleases()} before the last
+         *                         attempt to acquire the lock was made
+         * @param timeoutMillis    the max number of milliseconds to wait
+         */
+        public synchronized void awaitRelease(long observedReleases, long timeoutMillis) {
+            long deadline = System.currentTimeMillis() + timeoutMillis;
+            try {
+                long remainingMillis = timeoutMillis;
+                while (releases == observedReleases && remainingMillis > 0) {
+                    wait(remainingMillis);
+                    remainingMillis = deadline - System.currentTimeMillis();
+                }
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private synchronized void signal() {
+            releases++;
+            notifyAll();
+        }
+
+        @Override
+        public void close() {
+            listeners.computeIfPresent(lock, (_, listenersOfLock) -> {
+                listenersOfLock.remove(this);
+                return listenersOfLock.isEmpty() ? null : listenersOfLock;
+            });
+        }
+    }
+
+    /**
+     * Starts listening for releases of the given lock.
+     *
+     * @param lock the name of the lock to observe
+     * @return a listener which has to be closed once the lock was acquired or the caller gave up
+     */
+    public Listener listen(String lock) {
+        Listener listener = new Listener(lock);
+        listeners.compute(lock, (_, listenersOfLock) -> {
+            Set<Listener> result = listenersOfLock == null ? ConcurrentHashMap.newKeySet() : listenersOfLock;
+            result.add(listener);
+            return result;
+        });
+
+        return listener;
+    }
+
+    /**
+     * Notifies all nodes that the given lock has been released.
+     *
+     * @param lock the name of the released lock
+     */
+    public void signalRelease(String lock) {
+        signalReleaseLocally(lock);
+        interconnect.dispatch(getName(),
+                              Json.createObject().put(MESSAGE_LOCK, lock).put(MESSAGE_NODE, CallContext.getNodeName()));
+    }
+
+    private void signalReleaseLocally(String lock) {
+        Set<Listener> listenersOfLock = listeners.get(lock);
+        if (listenersOfLock != null) {
+            listenersOfLock.forEach(Listener::signal);
+        }
+    }
+
+    @Override
+    public void handleEvent(ObjectNode event) {
+        // Our own listeners have already been notified...
+        if (Strings.areEqual(CallContext.getNodeName(), Json.tryValueString(event, MESSAGE_NODE).orElse(null))) {
+            return;
+        }
+
+        Json.tryValueString(event, MESSAGE_LOCK).ifPresent(this::signalReleaseLocally);
+    }
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return "LockRelease";
+    }
+}
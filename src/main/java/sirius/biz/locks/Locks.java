@@ -53,6 +53,9 @@ public class Locks implements MetricProvider {
     @Part(configPath = "locks.manager")
     private LockManager manager;
 
+    @Part
+    private LockReleaseNotifier releaseNotifier;
+
     /**
      * Contains a map of locally held locks (name to thread id).
      */
@@ -236,6 +239,24 @@ public class Locks implements MetricProvider {
         return localLockInfo != null && Objects.equals(currentThreadId, localLockInfo.getFirst());
     }
 
+    /**
+     * Returns the fencing token of the given lock, which has to be held by the current thread.
+     * <p>
+     * The token increases with each acquisition of the lock. Therefore, it can be passed along with writes guarded by
+     * the lock, so that the receiver can reject writes of an outdated holder.
+     *
+     * @param lock the lock to fetch the token for
+     * @return the fencing token of the lock or 0 if the lock isn't held by the current thread or if the
+     * {@link LockManager} doesn't support fencing tokens
+     */
+    public long getFencingToken(@Nonnull String lock) {
+        if (!isLockedByCurrentThread(lock)) {
+            return 0;
+        }
+
+        return manager.getFencingToken(lock);
+    }
+
     /**
      * Releases the lock.
      *
@@ -259,6 +280,7 @@ public class Locks implements MetricProvider {
 
         localLocks.remove(lock);
         manager.unlock(lock, force);
+        releaseNotifier.signalRelease(lock);
     }
 
     /**
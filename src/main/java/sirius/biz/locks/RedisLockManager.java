@@ -19,15 +19,20 @@ import java.util.List;
 
 /**
  * Provides a fast multi node implementation which is based on Redis.
+ * <p>
+ * Each acquisition is only a single attempt in Redis. Waiting is performed by the {@link BasicLockManager}, so that
+ * waiting threads are notified once the lock is released.
  */
-@Register(framework = Locks.FRAMEWORK_LOCKS)
-public class RedisLockManager implements LockManager {
+@Register(classes = LockManager.class, framework = Locks.FRAMEWORK_LOCKS)
+public class RedisLockManager extends BasicLockManager {
 
     /**
      * Contains the name of this lock manager
      */
     public static final String NAME = "redis";
 
+    private static final Duration DEFAULT_LOCK_TIMEOUT = Duration.ofMinutes(30);
+
     @Part
     private Redis redis;
 
@@ -38,13 +43,28 @@ public class RedisLockManager implements LockManager {
     }
 
     @Override
-    public boolean tryLock(@Nonnull String lockName, @Nullable Duration acquireTimeout) {
-        return tryLock(lockName, acquireTimeout, Duration.ofMinutes(30));
+    protected int getInitialWait() {
+        return 50;
+    }
+
+    @Override
+    protected int getWaitIncrement() {
+        return 50;
+    }
+
+    @Override
+    protected int getMaxWait() {
+        return 1000;
+    }
+
+    @Override
+    protected boolean acquireLock(String lockName) {
+        return acquireLock(lockName, null);
     }
 
     @Override
-    public boolean tryLock(@Nonnull String lockName, @Nullable Duration acquireTimeout, @Nonnull Duration lockTimeout) {
-        return redis.tryLock(lockName, acquireTimeout, lockTimeout);
+    protected boolean acquireLock(String lockName, @Nullable Duration lockTimeout) {
+        return redis.tryLock(lockName, null, lockTimeout == null ? DEFAULT_LOCK_TIMEOUT : lockTimeout);
     }
 
     @Override
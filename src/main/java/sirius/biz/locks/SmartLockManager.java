@@ -79,6 +79,11 @@ public class SmartLockManager implements LockManager {
         getDelegate().unlock(lock, force);
     }
 
+    @Override
+    public long getFencingToken(String lock) {
+        return getDelegate().getFencingToken(lock);
+    }
+
     @Override
     public List<LockInfo> getLocks() {
         return getDelegate().getLocks();
@@ -20,6 +20,8 @@ import java.time.LocalDateTime;
 
 /**
  * Represents a lock in the database which is used to implement object based locking via a optimistic strategy.
+ * <p>
+ * The generated id of each row is used as fencing token, as it increases with each acquisition.
  *
  * @see Locks
  */
@@ -55,6 +57,15 @@ public class ManagedLock extends SQLEntity {
     public static final Mapping ACQUIRED = Mapping.named("acquired");
     private LocalDateTime acquired;
 
+    /**
+     * Contains the timestamp (in epoch millis) when the lease of the lock ends.
+     * <p>
+     * Unless the lease is renewed by its owner, the lock can be acquired by others once the lease has ended. A value
+     * of 0 indicates that the lock never expires.
+     */
+    public static final Mapping EXPIRES = Mapping.named("expires");
+    private long expires;
+
     public String getName() {
         return name;
     }
@@ -86,4 +97,12 @@ public class ManagedLock extends SQLEntity {
     public void setAcquired(LocalDateTime acquired) {
         this.acquired = acquired;
     }
+
+    public long getExpires() {
+        return expires;
+    }
+
+    public void setExpires(long expires) {
+        this.expires = expires;
+    }
 }
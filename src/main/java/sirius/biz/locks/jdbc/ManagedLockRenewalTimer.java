@@ -0,0 +1,36 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.locks.jdbc;
+
+import sirius.biz.locks.Locks;
+import sirius.kernel.di.std.Part;
+import sirius.kernel.di.std.Register;
+import sirius.kernel.timer.EveryMinute;
+
+/**
+ * Renews the leases of all {@link ManagedLock locks} held by this node once per minute.
+ * <p>
+ * As the lease duration is way longer than the interval of this timer, a lock is only lost if its owner crashed or
+ * couldn't reach the database for several minutes.
+ * <p>
+ * Note that this is intentionally a timer and not a {@link sirius.kernel.async.BackgroundLoop}, as background loops
+ * can be disabled via the orchestration (e.g. the NeighborhoodWatch) which would render all locks held by this node
+ * stealable once their lease has ended.
+ */
+@Register(framework = Locks.FRAMEWORK_LOCKS)
+public class ManagedLockRenewalTimer implements EveryMinute {
+
+    @Part
+    private SQLLockManager lockManager;
+
+    @Override
+    public void runTimer() throws Exception {
+        lockManager.renewLeases();
+    }
+}
@@ -14,24 +14,39 @@ import sirius.biz.locks.LockManager;
 import sirius.biz.locks.Locks;
 import sirius.db.jdbc.DeleteStatement;
 import sirius.db.jdbc.OMA;
+import sirius.db.jdbc.Operator;
+import sirius.db.jdbc.Row;
 import sirius.db.mixing.Mixing;
 import sirius.kernel.async.CallContext;
 import sirius.kernel.commons.Context;
+import sirius.kernel.commons.Value;
+import sirius.kernel.di.std.ConfigValue;
 import sirius.kernel.di.std.Part;
 import sirius.kernel.di.std.Register;
 import sirius.kernel.health.Exceptions;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.sql.SQLException;
 import java.sql.SQLIntegrityConstraintViolationException;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Provides distributed locks based on SQL.
+ * <p>
+ * Each lock is a lease which expires after <tt>locks.sql.leaseDuration</tt> unless it is renewed by the
+ * {@link ManagedLockRenewalTimer}. Therefore, a lock held by a crashed node is eventually released, whereas long
+ * running holders keep their lock as long as they need it. The generated id of the lock row serves as fencing token.
+ * <p>
+ * Note that the expiry of a lease is computed using the clock of its holder, but checked using the clock of the node
+ * which tries to acquire the lock. Therefore, an expired lease is only taken over once it has ended for more than
+ * <tt>locks.sql.maxClockSkew</tt>, so that a node with a clock running ahead cannot steal a valid lock.
  */
-@Register(classes = LockManager.class, framework = Locks.FRAMEWORK_LOCKS)
+@Register(classes = {LockManager.class, SQLLockManager.class}, framework = Locks.FRAMEWORK_LOCKS)
 public class SQLLockManager extends BasicLockManager {
 
     @Part
@@ -40,6 +55,24 @@ public class SQLLockManager extends BasicLockManager {
     @Part
     private Mixing mixing;
 
+    @ConfigValue("locks.sql.leaseDuration")
+    private Duration leaseDuration;
+
+    @ConfigValue("locks.sql.maxClockSkew")
+    private Duration maxClockSkew;
+
+    /**
+     * Represents a lock held by this node.
+     *
+     * @param fencingToken the id of the lock row
+     * @param renewable    <tt>true</tt> if the lease is automatically renewed, <tt>false</tt> if an explicit lock
+     *                     timeout was given
+     */
+    private record HeldLock(long fencingToken, boolean renewable) {
+    }
+
+    private final Map<String, HeldLock> heldLocks = new ConcurrentHashMap<>();
+
     @Nonnull
     @Override
     public String getName() {
@@ -48,17 +81,17 @@ public class SQLLockManager extends BasicLockManager {
 
     @Override
     protected int getMaxWait() {
-        return 1500;
+        return 5000;
     }
 
     @Override
     protected int getWaitIncrement() {
-        return 500;
+        return 1000;
     }
 
     @Override
     protected int getInitialWait() {
-        return 500;
+        return 1000;
     }
 
     private void awaitReadiness() {
@@ -69,16 +102,36 @@ public class SQLLockManager extends BasicLockManager {
 
     @Override
     protected boolean acquireLock(@Nonnull String lockName) {
+        return acquireLock(lockName, null);
+    }
+
+    @Override
+    protected boolean acquireLock(String lockName, @Nullable Duration lockTimeout) {
+        awaitReadiness();
+
+        if (insertLock(lockName, lockTimeout)) {
+            return true;
+        }
+
+        // If the lease of the current holder has ended, we remove its lock and retry once...
+        return removeExpiredLock(lockName) && insertLock(lockName, lockTimeout);
+    }
+
+    private boolean insertLock(String lockName, @Nullable Duration lockTimeout) {
         try {
-            awaitReadiness();
-
-            oma.getDatabase(Mixing.DEFAULT_REALM)
-               .insertRow(mixing.getDescriptor(ManagedLock.class).getRelationName(),
-                          Context.create()
-                                 .set(ManagedLock.NAME.getName(), lockName)
-                                 .set(ManagedLock.OWNER.getName(), CallContext.getNodeName())
-                                 .set(ManagedLock.THREAD.getName(), Thread.currentThread().getName())
-                                 .set(ManagedLock.ACQUIRED.getName(), Instant.now().toEpochMilli()));
+            long now = Instant.now().toEpochMilli();
+            boolean renewable = lockTimeout == null;
+            long expires = now + (renewable ? leaseDuration.toMillis() : lockTimeout.toMillis());
+            Row generatedKeys = oma.getDatabase(Mixing.DEFAULT_REALM)
+                                   .insertRow(mixing.getDescriptor(ManagedLock.class).getRelationName(),
+                                              Context.create()
+                                                     .set(ManagedLock.NAME.getName(), lockName)
+                                                     .set(ManagedLock.OWNER.getName(), CallContext.getNodeName())
+                                                     .set(ManagedLock.THREAD.getName(),
+                                                          Thread.currentThread().getName())
+                                                     .set(ManagedLock.ACQUIRED.getName(), now)
+                                                     .set(ManagedLock.EXPIRES.getName(), expires));
+            heldLocks.put(lockName, new HeldLock(extractFencingToken(generatedKeys), renewable));
             return true;
         } catch (SQLIntegrityConstraintViolationException exception) {
             // Lock is locked - retry if possible :-(
@@ -89,6 +142,78 @@ public class SQLLockManager extends BasicLockManager {
         }
     }
 
+    private long extractFencingToken(Row generatedKeys) {
+        return generatedKeys.getFieldsList()
+                            .stream()
+                            .findFirst()
+                            .map(field -> Value.of(field.getSecond()).asLong(0))
+                            .orElse(0L);
+    }
+
+    private boolean removeExpiredLock(String lockName) {
+        try {
+            boolean removed = oma.deleteStatement(ManagedLock.class)
+                                 .where(ManagedLock.NAME, lockName)
+                                 .where(ManagedLock.EXPIRES, Operator.GT, 0)
+                                 .where(ManagedLock.EXPIRES,
+                                        Operator.LT,
+                                        Instant.now().toEpochMilli() - maxClockSkew.toMillis())
+                                 .executeUpdate() > 0;
+            if (removed) {
+                Locks.LOG.WARN("The lease of the lock '%s' has expired. Removed the lock so that it can be acquired.",
+                               lockName);
+            }
+
+            return removed;
+        } catch (SQLException exception) {
+            throw Exceptions.handle(Locks.LOG, exception);
+        }
+    }
+
+    /**
+     * Extends the lease of all locks held by this node which have been acquired without an explicit lock timeout.
+     *
+     * @return the number of renewed locks
+     */
+    protected int renewLeases() {
+        long expires = Instant.now().toEpochMilli() + leaseDuration.toMillis();
+        int renewedLocks = 0;
+        for (Map.Entry<String, HeldLock> entry : heldLocks.entrySet()) {
+            if (entry.getValue().renewable() && renewLease(entry.getKey(), entry.getValue(), expires)) {
+                renewedLocks++;
+            }
+        }
+
+        return renewedLocks;
+    }
+
+    private boolean renewLease(String lockName, HeldLock lock, long expires) {
+        try {
+            int updatedRows = oma.updateStatement(ManagedLock.class)
+                                 .set(ManagedLock.EXPIRES, expires)
+                                 .where(ManagedLock.ID, lock.fencingToken())
+                                 .where(ManagedLock.OWNER, CallContext.getNodeName())
+                                 .executeUpdate();
+            if (updatedRows == 0) {
+                Locks.LOG.WARN("The lock '%s' was lost, as it has been removed before its lease could be renewed.",
+                               lockName);
+                heldLocks.remove(lockName, lock);
+                return false;
+            }
+
+            return true;
+        } catch (SQLException exception) {
+            Exceptions.handle(Locks.LOG, exception);
+            return false;
+        }
+    }
+
+    @Override
+    public long getFencingToken(String lock) {
+        HeldLock heldLock = heldLocks.get(lock);
+        return heldLock == null ? 0 : heldLock.fencingToken();
+    }
+
     @Override
     public boolean isLocked(@Nonnull String lock) {
         awaitReadiness();
@@ -106,6 +231,7 @@ public class SQLLockManager extends BasicLockManager {
             }
 
             deleteStatement.executeUpdate();
+            heldLocks.remove(lock);
         } catch (SQLException _) {
             throw Exceptions.handle()
                             .to(OMA.LOG)
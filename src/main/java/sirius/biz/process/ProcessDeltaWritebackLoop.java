@@ -0,0 +1,288 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.process;
+
+import sirius.kernel.async.BackgroundLoop;
+import sirius.kernel.commons.Strings;
+import sirius.kernel.commons.Watch;
+import sirius.kernel.di.std.Part;
+import sirius.kernel.di.std.Register;
+import sirius.kernel.health.Average;
+import sirius.kernel.health.Counter;
+import sirius.kernel.health.Exceptions;
+import sirius.kernel.health.Log;
+import sirius.kernel.health.metrics.Metric;
+import sirius.kernel.health.metrics.MetricProvider;
+import sirius.kernel.health.metrics.MetricsCollector;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Aggregates changes of {@link Process processes} in memory and writes them in regular intervals.
+ * <p>
+ * Updating a process is an optimistic read-modify-write of the whole process document in Elasticsearch. Performing
+ * this for each counter, timing or state change of a busy process wastes lots of time in version conflicts and
+ * retries. Therefore, {@link ProcessEnvironment} records these changes as deltas here. All deltas of a process are
+ * merged and then written using a single update - either by this loop or when the process (or a partial execution
+ * of it) completes.
+ */
+@Register(classes = {ProcessDeltaWritebackLoop.class, BackgroundLoop.class, MetricProvider.class},
+        framework = Processes.FRAMEWORK_PROCESSES)
+public class ProcessDeltaWritebackLoop extends BackgroundLoop implements MetricProvider {
+
+    /**
+     * Contains the number of attempts to write the changes of a process before these are discarded.
+     */
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+
+    private final Map<String, ProcessDelta> pendingDeltas = new ConcurrentHashMap<>();
+    private final Counter recordedDeltas = new Counter();
+    private final Counter writtenUpdates = new Counter();
+    private final Counter updateMillis = new Counter();
+
+    @Part
+    private Processes processes;
+
+    /**
+     * Contains all changes of a process which haven't been written yet.
+     * <p>
+     * Note that instances are only modified within {@link ConcurrentHashMap#compute} and only read once they have
+     * been removed from the map. Therefore, no additional synchronization is required.
+     */
+    protected static class ProcessDelta {
+        private final Map<String, Average> timings = new HashMap<>();
+        private final Map<String, Average> adminTimings = new HashMap<>();
+        private String stateMessage;
+        private boolean erroneous;
+        private boolean warnings;
+        private int failedAttempts;
+
+        /**
+         * Merges the given changes, which have been recorded earlier, into this delta.
+         *
+         * @param previousDelta the changes which were recorded before the ones in this delta
+         */
+        private void mergePrevious(ProcessDelta previousDelta) {
+            mergeTimings(previousDelta.timings, timings);
+            mergeTimings(previousDelta.adminTimings, adminTimings);
+            if (stateMessage == null) {
+                stateMessage = previousDelta.stateMessage;
+            }
+            erroneous |= previousDelta.erroneous;
+            warnings |= previousDelta.warnings;
+            failedAttempts = Math.max(failedAttempts, previousDelta.failedAttempts);
+        }
+
+        private void mergeTimings(Map<String, Average> source, Map<String, Average> target) {
+            source.forEach((name, delta) -> target.computeIfAbsent(name, ignored -> new Average())
+                                                  .addValues(delta.getCount(), delta.getCount() * delta.getAvg()));
+        }
+
+        /**
+         * Applies all recorded changes to the given process.
+         *
+         * @param process the process to update
+         */
+        protected void applyTo(Process process) {
+            timings.forEach((name, delta) -> {
+                int storedCount = process.getPerformanceCounters().get(name).orElse(0);
+                int storedAverage = process.getTimings().get(name).orElse(0);
+                process.addTiming(name, merge(storedCount, storedAverage, delta));
+            });
+            adminTimings.forEach((name, delta) -> {
+                int storedCount = process.getAdminPerformanceCounters().get(name).orElse(0);
+                int storedAverage = process.getAdminTimings().get(name).orElse(0);
+                process.addAdminTiming(name, merge(storedCount, storedAverage, delta));
+            });
+            if (stateMessage != null) {
+                process.setStateMessage(stateMessage);
+            }
+
+            if (process.getState() == ProcessState.RUNNING) {
+                if (erroneous && !process.isErrorneous()) {
+                    process.setErrorneous(true);
+                    process.setWarnings(false);
+                } else if (warnings && !process.isErrorneous()) {
+                    process.setWarnings(true);
+                }
+            }
+        }
+
+        private Average merge(int storedCount, int storedAverage, Average delta) {
+            Average result = new Average();
+            result.addValues(storedCount, (double) storedCount * storedAverage);
+            result.addValues(delta.getCount(), delta.getCount() * delta.getAvg());
+            return result;
+        }
+    }
+
+    /**
+     * Records a timing or counter for the given process.
+     *
+     * @param processId the process to update
+     * @param counter   the name of the counter
+     * @param millis    the duration to record or <tt>-1</tt> to only increment the counter
+     * @param adminOnly <tt>true</tt> if the counter is only visible to administrators
+     */
+    protected void addTiming(String processId, String counter, long millis, boolean adminOnly) {
+        modifyDelta(processId, delta -> {
+            Map<String, Average> target = adminOnly ? delta.adminTimings : delta.timings;
+            target.computeIfAbsent(counter, ignored -> new Average()).addValue(millis);
+        });
+    }
+
+    /**
+     * Records a new state message for the given process.
+     * <p>
+     * Note that only the last message is written, as it would be overwritten immediately anyway.
+     *
+     * @param processId    the process to update
+     * @param stateMessage the state message to set
+     */
+    protected void updateStateMessage(String processId, String stateMessage) {
+        modifyDelta(processId, delta -> delta.stateMessage = stateMessage);
+    }
+
+    /**
+     * Records that the given process is erroneous.
+     *
+     * @param processId the process to update
+     */
+    protected void markErroneous(String processId) {
+        modifyDelta(processId, delta -> delta.erroneous = true);
+    }
+
+    /**
+     * Records that the given process has warnings.
+     *
+     * @param processId the process to update
+     */
+    protected void markWarnings(String processId) {
+        modifyDelta(processId, delta -> delta.warnings = true);
+    }
+
+    /**
+     * Determines if the given process has been marked as erroneous, but this hasn't been written yet.
+     *
+     * @param processId the process to check
+     * @return <tt>true</tt> if a pending delta marks the process as erroneous, <tt>false</tt> otherwise
+     */
+    protected boolean isPendingErroneous(String processId) {
+        ProcessDelta delta = pendingDeltas.get(processId);
+        return delta != null && delta.erroneous;
+    }
+
+    private void modifyDelta(String processId, Consumer<ProcessDelta> modifier) {
+        recordedDeltas.inc();
+        pendingDeltas.compute(processId, (ignored, delta) -> {
+            ProcessDelta effectiveDelta = delta == null ? new ProcessDelta() : delta;
+            modifier.accept(effectiveDelta);
+            return effectiveDelta;
+        });
+    }
+
+    /**
+     * Immediately writes all pending changes of the given process.
+     *
+     * @param processId the process to flush
+     */
+    protected void flush(String processId) {
+        ProcessDelta delta = pendingDeltas.remove(processId);
+        if (delta == null) {
+            return;
+        }
+
+        Watch watch = Watch.start();
+        try {
+            processes.applyDelta(processId, delta);
+            writtenUpdates.inc();
+        } catch (Exception exception) {
+            Exceptions.handle(Log.BACKGROUND, exception);
+            requeue(processId, delta);
+        } finally {
+            updateMillis.add(watch.elapsedMillis());
+        }
+    }
+
+    /**
+     * Puts the changes which couldn't be written back into the queue, so that they are merged with all changes
+     * recorded in the meantime and written by the next flush.
+     * <p>
+     * Note that the changes are discarded once they failed {@link #MAX_WRITE_ATTEMPTS} times, so that a process
+     * which cannot be updated at all doesn't keep its changes around forever.
+     *
+     * @param processId the process which couldn't be updated
+     * @param delta     the changes which couldn't be written
+     */
+    private void requeue(String processId, ProcessDelta delta) {
+        delta.failedAttempts++;
+        if (delta.failedAttempts >= MAX_WRITE_ATTEMPTS) {
+            Log.BACKGROUND.WARN("Discarding the pending changes of process %s as these couldn't be written after %s"
+                                + " attempts.", processId, MAX_WRITE_ATTEMPTS);
+            return;
+        }
+
+        pendingDeltas.compute(processId, (ignored, currentDelta) -> {
+            if (currentDelta == null) {
+                return delta;
+            }
+
+            currentDelta.mergePrevious(delta);
+            return currentDelta;
+        });
+    }
+
+    @Nonnull
+    @Override
+    public String getName() {
+        return "process-delta-writeback";
+    }
+
+    @Override
+    public double maxCallFrequency() {
+        return 1d / 5;
+    }
+
+    @Nullable
+    @Override
+    protected String doWork() throws Exception {
+        int numberOfProcesses = 0;
+        for (String processId : new ArrayList<>(pendingDeltas.keySet())) {
+            flush(processId);
+            numberOfProcesses++;
+        }
+
+        return numberOfProcesses == 0 ? null : Strings.apply("Updated %s processes", numberOfProcesses);
+    }
+
+    @Override
+    public void gather(MetricsCollector metricsCollector) {
+        metricsCollector.differentialMetric("process_deltas_recorded",
+                                            "process-deltas-recorded",
+                                            "Recorded Process Deltas",
+                                            recordedDeltas.getCount(),
+                                            Metric.UNIT_PER_MIN);
+        metricsCollector.differentialMetric("process_updates_written",
+                                            "process-updates-written",
+                                            "Written Process Updates",
+                                            writtenUpdates.getCount(),
+                                            Metric.UNIT_PER_MIN);
+        metricsCollector.differentialMetric("process_update_time",
+                                            "process-update-time",
+                                            "Process Update Time",
+                                            updateMillis.getCount(),
+                                            "ms/min");
+    }
+}
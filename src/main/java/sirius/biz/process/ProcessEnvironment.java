@@ -33,8 +33,8 @@ import sirius.kernel.commons.Tuple;
 import sirius.kernel.commons.UncloseableOutputStream;
 import sirius.kernel.commons.UnitOfWork;
 import sirius.kernel.commons.Value;
+import sirius.kernel.di.std.ConfigValue;
 import sirius.kernel.di.std.Part;
-import sirius.kernel.health.Average;
 import sirius.kernel.health.Exceptions;
 import sirius.kernel.health.HandledException;
 import sirius.kernel.health.Log;
@@ -48,6 +48,9 @@ import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.time.Duration;
 import java.time.LocalDateTime;
@@ -65,6 +68,7 @@ import java.util.function.BiPredicate;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -76,12 +80,9 @@ class ProcessEnvironment implements ProcessContext {
     private final String processId;
 
     private final RateLimit logLimiter = RateLimit.timeInterval(10, TimeUnit.SECONDS);
-    private final RateLimit timingLimiter = RateLimit.timeInterval(10, TimeUnit.SECONDS);
     private final RateLimit stateUpdate = RateLimit.timeInterval(5, TimeUnit.SECONDS);
 
     private CombinedFuture barrier = new CombinedFuture();
-    private Map<String, Average> timings;
-    private Map<String, Average> adminTimings;
     private final Map<String, Integer> limitsPerType = new ConcurrentHashMap<>();
     private final Map<String, AtomicInteger> messageCountsPerType = new ConcurrentHashMap<>();
 
@@ -89,6 +90,7 @@ class ProcessEnvironment implements ProcessContext {
     private final ProgressTracker progressTracker = new ProgressTracker(this);
 
     private final List<LogFileCollector> logFileCollectors = new CopyOnWriteArrayList<>();
+    private DebugLogCollector debugLogCollector;
 
     @Part
     @Nullable
@@ -97,6 +99,18 @@ class ProcessEnvironment implements ProcessContext {
     @Part
     private static Tasks tasks;
 
+    @Part
+    private static ProcessDeltaWritebackLoop deltaWriteback;
+
+    @ConfigValue("processes.defaultMessageTypeLimit")
+    private static int defaultMessageTypeLimit;
+
+    @ConfigValue("processes.debugLogsAsFiles")
+    private static boolean debugLogsAsFiles;
+
+    @ConfigValue("processes.debugLogLinesPerFile")
+    private static int debugLogLinesPerFile;
+
     protected ProcessEnvironment(String processId) {
         this.processId = processId;
     }
@@ -127,15 +141,7 @@ class ProcessEnvironment implements ProcessContext {
             counter = counter.substring(1);
         }
 
-        if (adminOnly) {
-            getAdminTimings().computeIfAbsent(counter, ignored -> new Average()).addValue(millis);
-        } else {
-            getTimings().computeIfAbsent(counter, ignored -> new Average()).addValue(millis);
-        }
-
-        if (timingLimiter.check()) {
-            processes.addTimings(processId, getTimings(), getAdminTimings());
-        }
+        deltaWriteback.addTiming(processId, counter, millis, adminOnly);
     }
 
     @Override
@@ -160,50 +166,6 @@ class ProcessEnvironment implements ProcessContext {
         logFileCollectors.add(new LogFileCollector(fileName, logFileFilter));
     }
 
-    private Map<String, Average> getTimings() {
-        if (timings == null) {
-            initializeTimings();
-        }
-
-        return timings;
-    }
-
-    private Map<String, Average> getAdminTimings() {
-        if (adminTimings == null) {
-            initializeTimings();
-        }
-
-        return adminTimings;
-    }
-
-    private synchronized void initializeTimings() {
-        if (timings != null) {
-            return;
-        }
-
-        timings = new ConcurrentHashMap<>();
-        adminTimings = new ConcurrentHashMap<>();
-        processes.fetchProcess(processId).ifPresent(process -> {
-            process.getPerformanceCounters().data().keySet().forEach(key -> {
-                int counter = process.getPerformanceCounters().get(key).orElse(0);
-                int timing = process.getTimings().get(key).orElse(0);
-
-                Average average = new Average();
-                average.addValues(counter, (double) counter * timing);
-                timings.put(key, average);
-            });
-
-            process.getAdminPerformanceCounters().data().keySet().forEach(key -> {
-                int counter = process.getAdminPerformanceCounters().get(key).orElse(0);
-                int timing = process.getAdminTimings().get(key).orElse(0);
-
-                Average average = new Average();
-                average.addValues(counter, (double) counter * timing);
-                adminTimings.put(key, average);
-            });
-        });
-    }
-
     @Override
     public String getProcessId() {
         return processId;
@@ -226,13 +188,12 @@ class ProcessEnvironment implements ProcessContext {
     }
 
     private void logEntryToProcess(ProcessLog logEntry) {
-        if (Strings.isFilled(logEntry.getMessageType())
-            && logEntry.getMaxMessagesToLog() > 0
-            && shouldLimitLogMessages()) {
+        int maxMessagesToLog = determineMaxMessagesToLog(logEntry);
+        if (Strings.isFilled(logEntry.getMessageType()) && maxMessagesToLog > 0 && shouldLimitLogMessages()) {
             AtomicInteger messagesSoFar =
                     messageCountsPerType.computeIfAbsent(logEntry.getMessageType(), this::countMessagesForType);
-            limitsPerType.putIfAbsent(logEntry.getMessageType(), logEntry.getMaxMessagesToLog());
-            if (messagesSoFar.incrementAndGet() > logEntry.getMaxMessagesToLog()) {
+            limitsPerType.putIfAbsent(logEntry.getMessageType(), maxMessagesToLog);
+            if (messagesSoFar.incrementAndGet() > maxMessagesToLog) {
                 return;
             }
         }
@@ -240,6 +201,21 @@ class ProcessEnvironment implements ProcessContext {
         processes.log(processId, logEntry);
     }
 
+    /**
+     * Determines how many messages of the type of the given entry are stored.
+     * <p>
+     * Entries which have a message type but no explicit limit are coalesced using
+     * {@code processes.defaultMessageTypeLimit}. Surplus entries are only counted and
+     * {@link Processes#reportLimitedMessages(String, Map, Map) reported} once the process completes.
+     */
+    private int determineMaxMessagesToLog(ProcessLog logEntry) {
+        if (logEntry.getMaxMessagesToLog() > 0) {
+            return logEntry.getMaxMessagesToLog();
+        }
+
+        return defaultMessageTypeLimit;
+    }
+
     private void logEntryToFiles(ProcessLog logEntry) {
         logFileCollectors.forEach(collector -> collector.logEntry(logEntry));
     }
@@ -257,11 +233,35 @@ class ProcessEnvironment implements ProcessContext {
 
     @Override
     public void debug(ProcessLog logEntry) {
-        if (isDebugging()) {
+        if (!isDebugging()) {
+            return;
+        }
+
+        if (debugLogsAsFiles) {
+            // Debug output can be extremely verbose. Therefore, we write it into compressed files instead of
+            // storing each line as separate document in Elasticsearch...
+            getDebugLogCollector().logEntry(logEntry);
+            logEntryToFiles(logEntry);
+        } else {
             log(logEntry);
         }
     }
 
+    private synchronized DebugLogCollector getDebugLogCollector() {
+        if (debugLogCollector == null) {
+            debugLogCollector = new DebugLogCollector();
+        }
+
+        return debugLogCollector;
+    }
+
+    private synchronized void closeDebugLogCollector() {
+        if (debugLogCollector != null) {
+            debugLogCollector.close();
+            debugLogCollector = null;
+        }
+    }
+
     @Override
     public HandledException handle(Exception exception) {
         HandledException handledException = Exceptions.handle(Log.BACKGROUND, exception);
@@ -276,6 +276,10 @@ class ProcessEnvironment implements ProcessContext {
 
     @Override
     public boolean isErroneous() {
+        if (deltaWriteback.isPendingErroneous(processId)) {
+            return true;
+        }
+
         return processes.fetchProcess(processId).map(Process::isErrorneous).orElse(true);
     }
 
@@ -287,18 +291,19 @@ class ProcessEnvironment implements ProcessContext {
     @Override
     public void markCompleted(int computationTimeInSeconds) {
         logFileCollectors.forEach(LogFileCollector::closeAndUpload);
+        closeDebugLogCollector();
         processes.reportLimitedMessages(processId, messageCountsPerType, limitsPerType);
-        processes.markCompleted(processId, timings, adminTimings, computationTimeInSeconds);
+        deltaWriteback.flush(processId);
+        processes.markCompleted(processId, computationTimeInSeconds);
     }
 
     /**
      * Flushes all timings for a partial execution.
      */
     protected void flushTimings() {
-        if (timings != null) {
-            processes.addTimings(processId, getTimings(), getAdminTimings());
-        }
+        closeDebugLogCollector();
         processes.reportLimitedMessages(processId, messageCountsPerType, limitsPerType);
+        deltaWriteback.flush(processId);
     }
 
     @Override
@@ -319,18 +324,22 @@ class ProcessEnvironment implements ProcessContext {
     @Override
     public void tryUpdateState(String message) {
         if (shouldUpdateState().check()) {
-            forceUpdateState(message);
+            // As these updates are rate limited anyway, they can safely be written along with all other changes...
+            deltaWriteback.updateStateMessage(processId, message);
         }
     }
 
     @Override
     public void forceUpdateState(String message) {
-        processes.setStateMessage(processId, message);
+        // A forced update is expected to be visible immediately, therefore we write all pending changes of this
+        // process along with the new message...
+        deltaWriteback.updateStateMessage(processId, message);
+        deltaWriteback.flush(processId);
     }
 
     @Override
     public void markErroneous() {
-        processes.markErroneous(processId);
+        deltaWriteback.markErroneous(processId);
     }
 
     @Override
@@ -613,4 +622,71 @@ class ProcessEnvironment implements ProcessContext {
             }
         }
     }
+
+    /**
+     * Writes debug logs into gzip compressed CSV files which are attached to the process.
+     * <p>
+     * Once a file reaches {@code processes.debugLogLinesPerFile} lines, it is uploaded and a new one is started.
+     * Therefore, the debug output of long-running processes becomes available while they are still running.
+     */
+    private class DebugLogCollector {
+        private static final DateTimeFormatter FILE_NAME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+        private final String fileNamePrefix =
+                "debug-log-" + LocalDateTime.now().format(FILE_NAME_FORMATTER) + "-";
+        private Writer fileWriter;
+        private CSVWriter csvWriter;
+        private int fileNumber = 0;
+        private int linesInFile = 0;
+        private boolean failed = false;
+
+        protected synchronized void logEntry(ProcessLog logEntry) {
+            if (failed) {
+                return;
+            }
+
+            try {
+                if (csvWriter == null) {
+                    startFile();
+                }
+
+                csvWriter.writeArray(LocalDateTime.now().format(LogFileCollector.formatter),
+                                     logEntry.getType().name(),
+                                     NLS.smartGet(logEntry.getMessageType()),
+                                     logEntry.getMessage());
+                if (++linesInFile >= debugLogLinesPerFile) {
+                    close();
+                }
+            } catch (IOException exception) {
+                // Failure to write debug logs is not critical, but we don't want to fail for each line...
+                failed = true;
+                Exceptions.handle(Log.BACKGROUND, exception);
+            }
+        }
+
+        private void startFile() throws IOException {
+            fileNumber++;
+            linesInFile = 0;
+            String fileName = Strings.apply("%s%03d.csv.gz", fileNamePrefix, fileNumber);
+            fileWriter = new OutputStreamWriter(new GZIPOutputStream(addFile(fileName)), StandardCharsets.UTF_8);
+            csvWriter = new CSVWriter(fileWriter);
+            csvWriter.writeArray("timestamp", "level", "messageType", "message");
+        }
+
+        protected synchronized void close() {
+            if (csvWriter == null) {
+                return;
+            }
+
+            try {
+                csvWriter.close();
+                fileWriter.close();
+            } catch (IOException exception) {
+                Exceptions.handle(Log.BACKGROUND, exception);
+            } finally {
+                csvWriter = null;
+                fileWriter = null;
+            }
+        }
+    }
 }
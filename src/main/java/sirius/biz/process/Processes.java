@@ -38,9 +38,9 @@ import sirius.kernel.commons.Strings;
 import sirius.kernel.commons.Tuple;
 import sirius.kernel.commons.Wait;
 import sirius.kernel.commons.Watch;
+import sirius.kernel.di.std.ConfigValue;
 import sirius.kernel.di.std.Part;
 import sirius.kernel.di.std.Register;
-import sirius.kernel.health.Average;
 import sirius.kernel.health.Exceptions;
 import sirius.kernel.health.Log;
 import sirius.kernel.nls.NLS;
@@ -106,6 +106,9 @@ public class Processes {
     @Part
     private AutoBatchLoop autoBatch;
 
+    @ConfigValue("processes.logBackpressureTimeout")
+    private Duration logBackpressureTimeout;
+
     @Part
     private Locks locks;
 
@@ -115,6 +118,9 @@ public class Processes {
     @Part
     private TableProcessOutputType tableProcessOutputType;
 
+    @Part
+    private ProcessDeltaWritebackLoop deltaWriteback;
+
     /**
      * Due to some shortcomings in Elasticsearch (1-second delay until writes are visible), we need a layered cache
      * architecture here.
@@ -537,35 +543,6 @@ public class Processes {
         });
     }
 
-    /**
-     * Marks a process as erroneous.
-     *
-     * @param processId the process to update
-     * @return <tt>true</tt> if the process was successfully modified, <tt>false</tt> otherwise
-     */
-    protected boolean markErroneous(String processId) {
-        return modify(processId,
-                      process -> !process.isErrorneous() && process.getState() == ProcessState.RUNNING,
-                      process -> {
-                          process.setErrorneous(true);
-                          process.setWarnings(false);
-                      });
-    }
-
-    /**
-     * Records, that a process has warnings.
-     *
-     * @param processId the process to update
-     * @return <tt>true</tt> if the process was successfully modified, <tt>false</tt> otherwise
-     */
-    protected boolean markWarnings(String processId) {
-        return modify(processId,
-                      process -> !process.isErrorneous()
-                                 && !process.isWarnings()
-                                 && process.getState() == ProcessState.RUNNING,
-                      process -> process.setWarnings(true));
-    }
-
     /**
      * Marks a process as erroneous.
      *
@@ -606,15 +583,10 @@ public class Processes {
      * Marks a process as completed.
      *
      * @param processId                the process to update
-     * @param timings                  timings which have been collected and not yet committed
-     * @param adminTimings             timings which have been collected and not yet committed and only administrators should see
      * @param computationTimeInSeconds the computation time of the last step being recorded for this process
      * @return <tt>true</tt> if the process was successfully modified, <tt>false</tt> otherwise
      */
-    protected boolean markCompleted(String processId,
-                                    @Nullable Map<String, Average> timings,
-                                    @Nullable Map<String, Average> adminTimings,
-                                    int computationTimeInSeconds) {
+    protected boolean markCompleted(String processId, int computationTimeInSeconds) {
         return modify(processId, process -> process.getState() != ProcessState.TERMINATED, process -> {
             if (process.getState() != ProcessState.STANDBY) {
                 process.setErrorneous(process.isErrorneous() || !TaskContext.get().isActive());
@@ -626,43 +598,18 @@ public class Processes {
                 process.setComputationTime(process.getComputationTime() + computationTimeInSeconds);
                 process.setExpires(process.getPersistencePeriod().plus(LocalDate.now()));
             }
-
-            if (timings != null) {
-                timings.forEach(process::addTiming);
-            }
-
-            if (adminTimings != null) {
-                adminTimings.forEach(process::addAdminTiming);
-            }
         });
     }
 
     /**
-     * Updates the performance counters of the given process.
-     *
-     * @param processId    the process to update
-     * @param timings      the timings (label, value) to store
-     * @param adminTimings the set of timings that should only be visible to system tenant users
-     * @return <tt>true</tt> if the process was successfully modified, <tt>false</tt> otherwise
-     */
-    protected boolean addTimings(String processId, Map<String, Average> timings, Map<String, Average> adminTimings) {
-        return modify(processId, process -> process.getState() != ProcessState.TERMINATED, process -> {
-            timings.forEach(process::addTiming);
-            adminTimings.forEach(process::addAdminTiming);
-        });
-    }
-
-    /**
-     * Specifies the state message of the given process.
+     * Applies the changes which have been aggregated by the {@link ProcessDeltaWritebackLoop}.
      *
      * @param processId the process to update
-     * @param state     the state message to set
+     * @param delta     the changes to apply
      * @return <tt>true</tt> if the process was successfully modified, <tt>false</tt> otherwise
      */
-    protected boolean setStateMessage(String processId, String state) {
-        return modify(processId,
-                      process -> process.getState() != ProcessState.TERMINATED,
-                      process -> process.setStateMessage(state));
+    protected boolean applyDelta(String processId, ProcessDeltaWritebackLoop.ProcessDelta delta) {
+        return modify(processId, process -> process.getState() != ProcessState.TERMINATED, delta::applyTo);
     }
 
     /**
@@ -833,10 +780,12 @@ public class Processes {
      */
     public void log(String processId, ProcessLog logEntry) {
         try {
+            // The flags are aggregated and written along with other changes of the process, so that logging many
+            // errors or warnings doesn't result in an update of the process each time...
             if (logEntry.getType() == ProcessLogType.ERROR) {
-                markErroneous(processId);
+                deltaWriteback.markErroneous(processId);
             } else if (logEntry.getType() == ProcessLogType.WARNING) {
-                markWarnings(processId);
+                deltaWriteback.markWarnings(processId);
             }
 
             logEntry.setNode(CallContext.getNodeName());
@@ -845,11 +794,12 @@ public class Processes {
             logEntry.getProcess().setId(processId);
             logEntry.getDescriptor().beforeSave(logEntry);
 
-            // Use the auto batch to perform bulk inserts if possible
-            if (!autoBatch.insertAsync(logEntry)) {
-                // but fallback to regular inserts if the auto batch loop is overloaded due to peak
-                // conditions This should automatically slow down the caller and let the auto batch loop
-                // recover in parallel...
+            // Use the auto batch to perform bulk inserts. If this process has queued too many entries, we block the
+            // caller until these are flushed, so that a process which logs excessively is slowed down instead of
+            // exhausting the heap or overwhelming Elasticsearch with single inserts...
+            if (!autoBatch.insertAsync(logEntry, processId, logBackpressureTimeout)) {
+                // but fallback to regular inserts if the auto batch loop didn't recover in time (e.g. because
+                // Elasticsearch is temporarily unavailable)...
                 elastic.override(logEntry);
             }
         } catch (Exception exception) {
@@ -913,7 +863,7 @@ public class Processes {
     }
 
     protected boolean awaitFlushedLogs(String processId) {
-        if (!autoBatch.awaitNextFlush(Duration.ofSeconds(10))) {
+        if (!autoBatch.awaitFlushed(processId, Duration.ofSeconds(10))) {
             log(processId,
                 ProcessLog.error()
                           .withMessage("Failed to wait for logs to be flushed. Some reports might be incomplete!"));
@@ -27,6 +27,21 @@ public interface SequenceStrategy extends Named {
      */
     Long tryGenerateId(String sequence) throws Exception;
 
+    /**
+     * Tries to reserve a consecutive block of ids in the given sequence.
+     * <p>
+     * This is used by {@link Sequences} if block allocation is enabled for a sequence. Instead of performing a
+     * database roundtrip for each id, the counter is incremented by the size of the block at once and the ids are
+     * then handed out locally.
+     *
+     * @param sequence    the sequence to reserve the ids in
+     * @param numberOfIds the number of ids to reserve
+     * @return either the first id of the reserved block or <tt>null</tt> if a race condition or conflict occurred.
+     * This will instruct the framework to perform a retry
+     * @throws Exception in case of a severe error
+     */
+    Long tryReserveIds(String sequence, int numberOfIds) throws Exception;
+
     /**
      * Peeks at the next value in the sequence without using it.
      *
@@ -8,19 +8,29 @@
 
 package sirius.biz.sequences;
 
+import com.typesafe.config.ConfigValue;
 import sirius.biz.locks.Locks;
 import sirius.db.jdbc.schema.Schema;
 import sirius.db.mongo.Mongo;
+import sirius.kernel.Sirius;
+import sirius.kernel.commons.Value;
 import sirius.kernel.commons.Wait;
 import sirius.kernel.di.std.Part;
 import sirius.kernel.di.std.Register;
+import sirius.kernel.health.Counter;
 import sirius.kernel.health.Exceptions;
 import sirius.kernel.health.HandledException;
 import sirius.kernel.health.Log;
+import sirius.kernel.health.metrics.Metric;
+import sirius.kernel.health.metrics.MetricProvider;
+import sirius.kernel.health.metrics.MetricsCollector;
 
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Provides a facility to generate unique consecutive numbers.
@@ -31,9 +41,15 @@ import java.util.List;
  * Note that these sequences are global and not tenant aware. Therefore care must be taken to generate unique names for
  * sequences. A viable option is to use {@link sirius.db.mixing.BaseEntity#getUniqueName()} of the entity which utilizes
  * this generator.
+ * <p>
+ * Sequences which are used to generate lots of numbers (e.g. by bulk imports) can use block allocation. Each node
+ * then reserves a block of ids using a single database update and hands them out locally. This can be enabled
+ * per sequence in <tt>sequences.blockAllocation</tt> or via {@link #enableBlockAllocation(String, int)}. Note
+ * that in this mode, the ids are only unique but neither strictly consecutive nor ordered across nodes. Also,
+ * unused ids of a block are lost once the node is restarted.
  */
-@Register(classes = Sequences.class, framework = Sequences.FRAMEWORK_SEQUENCES)
-public class Sequences {
+@Register(classes = {Sequences.class, MetricProvider.class}, framework = Sequences.FRAMEWORK_SEQUENCES)
+public class Sequences implements MetricProvider {
 
     /**
      * Names the framework which must be enabled to activate the sequences feature.
@@ -54,6 +70,66 @@ public class Sequences {
     @Part(configPath = "sequences.strategy")
     private SequenceStrategy sequenceStrategy;
 
+    /**
+     * Contains the block size per sequence. A value of 1 indicates that block allocation isn't used.
+     * <p>
+     * Entries are either put by {@link #enableBlockAllocation(String, int)} or loaded from the config when a sequence
+     * is used for the first time.
+     */
+    private final Map<String, Integer> blockSizes = new ConcurrentHashMap<>();
+
+    /**
+     * Contains the locally reserved ids per sequence for which block allocation is enabled.
+     */
+    private final Map<String, BlockAllocator> blockAllocators = new ConcurrentHashMap<>();
+
+    private final Counter reservedIds = new Counter();
+    private final Counter usedIds = new Counter();
+
+    /**
+     * Represents a block of reserved ids.
+     *
+     * @param nextId the next id to hand out
+     * @param limit  the first id which is no longer part of the block
+     */
+    private record IdBlock(AtomicLong nextId, long limit) {
+    }
+
+    /**
+     * Hands out the ids of the locally reserved block of a sequence and reserves a new block once it is exhausted.
+     */
+    private class BlockAllocator {
+        private final String sequence;
+        private volatile IdBlock block = new IdBlock(new AtomicLong(), 0);
+
+        private BlockAllocator(String sequence) {
+            this.sequence = sequence;
+        }
+
+        private long nextId(int blockSize) throws Exception {
+            IdBlock currentBlock = block;
+            long id = currentBlock.nextId().getAndIncrement();
+            if (id < currentBlock.limit()) {
+                return id;
+            }
+
+            synchronized (this) {
+                // Another thread might have already reserved a new block while we were waiting for the lock...
+                currentBlock = block;
+                id = currentBlock.nextId().getAndIncrement();
+                if (id < currentBlock.limit()) {
+                    return id;
+                }
+
+                long firstId = reserveIds(sequence, blockSize);
+                reservedIds.add(blockSize);
+                block = new IdBlock(new AtomicLong(firstId + 1), firstId + blockSize);
+
+                return firstId;
+            }
+        }
+    }
+
     /**
      * Returns the next value in the given sequence.
      * <p>
@@ -68,18 +144,14 @@ public class Sequences {
      */
     public long generateId(String sequence) {
         try {
-            int retries = 2;
-            while (retries-- > 0) {
-                Long id = sequenceStrategy.tryGenerateId(sequence);
-                if (id != null) {
-                    return id;
-                }
-
-                // Block a short random amount of time to resolve conflicts with other waiting threads
-                Wait.randomMillis(50, 100);
+            int blockSize = getBlockSize(sequence);
+            if (blockSize > 1) {
+                long id = blockAllocators.computeIfAbsent(sequence, BlockAllocator::new).nextId(blockSize);
+                usedIds.inc();
+                return id;
             }
 
-            return generateInLock(sequence);
+            return reserveIds(sequence, 1);
         } catch (Exception exception) {
             throw Exceptions.handle()
                             .to(LOG)
@@ -89,10 +161,33 @@ public class Sequences {
         }
     }
 
-    private long generateInLock(String sequence) throws Exception {
+    private long reserveIds(String sequence, int numberOfIds) throws Exception {
+        int retries = 2;
+        while (retries-- > 0) {
+            Long id = tryReserveIds(sequence, numberOfIds);
+            if (id != null) {
+                return id;
+            }
+
+            // Block a short random amount of time to resolve conflicts with other waiting threads
+            Wait.randomMillis(50, 100);
+        }
+
+        return generateInLock(sequence, numberOfIds);
+    }
+
+    private Long tryReserveIds(String sequence, int numberOfIds) throws Exception {
+        if (numberOfIds == 1) {
+            return sequenceStrategy.tryGenerateId(sequence);
+        } else {
+            return sequenceStrategy.tryReserveIds(sequence, numberOfIds);
+        }
+    }
+
+    private long generateInLock(String sequence, int numberOfIds) throws Exception {
         if (locks.tryLock("sequence-" + sequence, Duration.ofSeconds(5))) {
             try {
-                Long id = sequenceStrategy.tryGenerateId(sequence);
+                Long id = tryReserveIds(sequence, numberOfIds);
                 if (id == null) {
                     throw Exceptions.handle()
                                     .to(LOG)
@@ -115,6 +210,31 @@ public class Sequences {
         }
     }
 
+    private int getBlockSize(String sequence) {
+        return blockSizes.computeIfAbsent(sequence, this::loadConfiguredBlockSize);
+    }
+
+    private int loadConfiguredBlockSize(String sequence) {
+        ConfigValue configuredBlockSize =
+                Sirius.getSettings().getConfig("sequences.blockAllocation").root().get(sequence);
+        return configuredBlockSize == null ? 1 : Value.of(configuredBlockSize.unwrapped()).asInt(1);
+    }
+
+    /**
+     * Enables block allocation for the given sequence.
+     * <p>
+     * Instead of performing a database roundtrip for each call to {@link #generateId(String)}, a block of the given
+     * size is reserved at once and the ids are then handed out locally. This is intended for sequences which are
+     * used to generate lots of numbers, e.g. during a bulk import. Note that the generated ids are unique, but
+     * neither strictly consecutive nor ordered across nodes.
+     *
+     * @param sequence  the sequence to enable block allocation for
+     * @param blockSize the number of ids to reserve at once. A value of 1 disables block allocation.
+     */
+    public void enableBlockAllocation(String sequence, int blockSize) {
+        blockSizes.put(sequence, Math.max(1, blockSize));
+    }
+
     /**
      * Sets the initial or next value of the given sequence.
      * <p>
@@ -128,10 +248,14 @@ public class Sequences {
      *                  value. This is rather dangerous, as it might lead to the generation of duplicate ids. If
      *                  set to <tt>false</tt>, the given <tt>nextValue</tt> has to be higher than the current sequence
      *                  value.
+     *                  <p>
+     *                  Note that if block allocation is used, only the ids reserved by this node are discarded.
+     *                  Other nodes will continue to hand out the ids of their current block.
      */
     public void setNextValue(String sequence, long nextValue, boolean force) {
         try {
             sequenceStrategy.setNextValue(sequence, nextValue, force);
+            blockAllocators.remove(sequence);
         } catch (Exception exception) {
             throw Exceptions.handle()
                             .to(LOG)
@@ -148,7 +272,8 @@ public class Sequences {
      * <p>
      * Note that this method is only used for reporting and statistics and must never be called by production code,
      * as there is no guarantee that there isn't a parallel thread which currently acquires the returned value while
-     * this method is running.
+     * this method is running. Also note that for sequences which use block allocation, the value after the last
+     * reserved block is returned.
      *
      * @param sequence the sequence to peek the next value for
      * @return the next value for the sequence (unless already acquired by another thread)
@@ -188,4 +313,18 @@ public class Sequences {
                             .handle();
         }
     }
+
+    @Override
+    public void gather(MetricsCollector metricsCollector) {
+        metricsCollector.differentialMetric("sequences_reserved_ids",
+                                            "sequences-reserved-ids",
+                                            "Sequences - Reserved IDs",
+                                            reservedIds.getCount(),
+                                            Metric.UNIT_PER_MIN);
+        metricsCollector.differentialMetric("sequences_used_ids",
+                                            "sequences-used-ids",
+                                            "Sequences - Used IDs",
+                                            usedIds.getCount(),
+                                            Metric.UNIT_PER_MIN);
+    }
 }
@@ -69,6 +69,11 @@ public class SmartSequenceStrategy implements SequenceStrategy {
         return getDelegate().tryGenerateId(sequence);
     }
 
+    @Override
+    public Long tryReserveIds(String sequence, int numberOfIds) throws Exception {
+        return getDelegate().tryReserveIds(sequence, numberOfIds);
+    }
+
     @Override
     public long peekNextValue(String sequence) throws Exception {
         return getDelegate().peekNextValue(sequence);
@@ -46,16 +46,21 @@ public class SQLSequenceStrategy implements SequenceStrategy {
 
     @Override
     public Long tryGenerateId(String sequence) throws Exception {
+        return tryReserveIds(sequence, 1);
+    }
+
+    @Override
+    public Long tryReserveIds(String sequence, int numberOfIds) throws Exception {
         awaitReadiness();
 
         // Select the current value which will be returned if all goes well....
         SequenceCounter result = oma.select(SequenceCounter.class).eq(SequenceCounter.NAME, sequence).queryFirst();
         if (result == null) {
-            return createSequence(sequence);
+            return createSequence(sequence, numberOfIds);
         }
 
         int numRowsChanged = oma.updateStatement(SequenceCounter.class)
-                                .inc(SequenceCounter.NEXT_VALUE)
+                                .set(SequenceCounter.NEXT_VALUE, result.getNextValue() + numberOfIds)
                                 .where(SequenceCounter.NAME, sequence)
                                 .where(SequenceCounter.NEXT_VALUE, result.getNextValue())
                                 .executeUpdate();
@@ -73,12 +78,12 @@ public class SQLSequenceStrategy implements SequenceStrategy {
         }
     }
 
-    private Long createSequence(String sequence) {
+    private Long createSequence(String sequence, int numberOfIds) {
         try {
             // Try to create a new record, as no counter is yet present...
             SequenceCounter result = new SequenceCounter();
             result.setName(sequence);
-            result.setNextValue(2);
+            result.setNextValue(1L + numberOfIds);
             oma.update(result);
             return 1L;
         } catch (HandledException exception) {
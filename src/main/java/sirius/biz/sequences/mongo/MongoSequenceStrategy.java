@@ -51,13 +51,18 @@ public class MongoSequenceStrategy implements SequenceStrategy {
 
     @Override
     public Long tryGenerateId(String sequence) throws Exception {
+        return tryReserveIds(sequence, 1);
+    }
+
+    @Override
+    public Long tryReserveIds(String sequence, int numberOfIds) throws Exception {
         Doc counter = mongo.find()
                            .where(MongoSequenceCounter.NAME, sequence)
                            .singleIn(MongoSequenceCounter.class)
                            .orElse(null);
 
         if (counter == null) {
-            return createSequence(sequence);
+            return createSequence(sequence, numberOfIds);
         }
 
         long result = counter.get(MongoSequenceCounter.NEXT_VALUE).asLong(-1);
@@ -65,7 +70,7 @@ public class MongoSequenceStrategy implements SequenceStrategy {
         long numRowsChanged = mongo.update()
                                    .where(MongoSequenceCounter.NAME, sequence)
                                    .where(MongoSequenceCounter.NEXT_VALUE, result)
-                                   .set(MongoSequenceCounter.NEXT_VALUE, result + 1)
+                                   .set(MongoSequenceCounter.NEXT_VALUE, result + numberOfIds)
                                    .executeForOne(MongoSequenceCounter.class)
                                    .getModifiedCount();
 
@@ -77,12 +82,12 @@ public class MongoSequenceStrategy implements SequenceStrategy {
         return null;
     }
 
-    private Long createSequence(String sequence) {
+    private Long createSequence(String sequence, int numberOfIds) {
         try {
             mongo.insert()
                  .set(MongoSequenceCounter.ID, keyGen.generateId())
                  .set(MongoSequenceCounter.NAME, sequence)
-                 .set(MongoSequenceCounter.NEXT_VALUE, 2)
+                 .set(MongoSequenceCounter.NEXT_VALUE, 1L + numberOfIds)
                  .into(MongoSequenceCounter.class);
 
             return 1L;
@@ -0,0 +1,135 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.storage.layer1;
+
+import sirius.kernel.commons.Strings;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Provides read-only random access to an object stored in a space which uses a transformer (compression and / or
+ * encryption).
+ * <p>
+ * Such objects can only be decoded from their start. Therefore, instead of decoding the object up to the requested
+ * position for each seek (as {@link ObjectChannel} would), the object is downloaded and decoded once, when it is
+ * first read. All reads are then served by the local copy, which is deleted once the channel is closed.
+ * <p>
+ * Use {@link ObjectStorageSpace#openChannel(String, long)} to obtain an instance.
+ */
+class DownloadedObjectChannel implements SeekableByteChannel {
+
+    private final ObjectStorageSpace space;
+    private final String objectId;
+    private final long size;
+    private long position;
+    private FileHandle fileHandle;
+    private FileChannel channel;
+    private boolean open = true;
+
+    DownloadedObjectChannel(ObjectStorageSpace space, String objectId, long size) {
+        this.space = space;
+        this.objectId = objectId;
+        this.size = size;
+    }
+
+    @Override
+    public int read(ByteBuffer destination) throws IOException {
+        ensureOpen();
+        if (position >= size) {
+            return -1;
+        }
+
+        int bytesRead = obtainChannel().read(destination, position);
+        if (bytesRead > 0) {
+            position += bytesRead;
+        }
+
+        return bytesRead;
+    }
+
+    private FileChannel obtainChannel() throws IOException {
+        if (channel == null) {
+            fileHandle = space.download(objectId)
+                              .orElseThrow(() -> new FileNotFoundException(Strings.apply(
+                                      "Layer 1: No object found for key '%s' in space '%s'",
+                                      objectId,
+                                      space.getName())));
+            channel = FileChannel.open(fileHandle.getFile().toPath(), StandardOpenOption.READ);
+        }
+
+        return channel;
+    }
+
+    @Override
+    public int write(ByteBuffer source) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public SeekableByteChannel position(long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition < 0) {
+            throw new IllegalArgumentException("The position must not be negative");
+        }
+
+        this.position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        return size;
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long size) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() throws IOException {
+        open = false;
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } finally {
+            channel = null;
+            if (fileHandle != null) {
+                fileHandle.close();
+                fileHandle = null;
+            }
+        }
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+    }
+}
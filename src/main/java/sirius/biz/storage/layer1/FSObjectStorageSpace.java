@@ -8,6 +8,7 @@
 
 package sirius.biz.storage.layer1;
 
+import com.google.common.io.ByteStreams;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import sirius.biz.storage.layer1.transformer.ByteBlockTransformer;
 import sirius.biz.storage.layer1.transformer.TransformingInputStream;
@@ -26,13 +27,21 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.time.Instant;
 import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.function.IntConsumer;
 import java.util.function.Predicate;
 
@@ -51,6 +60,12 @@ public class FSObjectStorageSpace extends ObjectStorageSpace {
      */
     public static final String CONFIG_KEY_LAYER1_BASE_DIR = "baseDir";
 
+    /**
+     * Contains the size of the blocks which are written in parallel by
+     * {@link #storePhysicalObjectParallel(String, InputStream, ByteBlockTransformer, int)}.
+     */
+    private static final int PARALLEL_WRITE_BLOCK_SIZE = 1024 * 1024;
+
     private final File baseDir;
 
     /**
@@ -155,6 +170,84 @@ public class FSObjectStorageSpace extends ObjectStorageSpace {
         }
     }
 
+    @Override
+    protected void storePhysicalObjectParallel(String objectKey,
+                                               InputStream data,
+                                               @Nullable ByteBlockTransformer transformer,
+                                               int maxBlocksInFlight) throws IOException {
+        File file = getFile(objectKey);
+        if (transformer == null) {
+            writeParallel(file, data, maxBlocksInFlight);
+            return;
+        }
+
+        try (InputStream in = new TransformingInputStream(data, transformer)) {
+            writeParallel(file, in, maxBlocksInFlight);
+        }
+    }
+
+    private void writeParallel(File file, InputStream in, int maxBlocksInFlight) throws IOException {
+        try (AsynchronousFileChannel channel = AsynchronousFileChannel.open(file.toPath(),
+                                                                            StandardOpenOption.WRITE,
+                                                                            StandardOpenOption.CREATE,
+                                                                            StandardOpenOption.TRUNCATE_EXISTING)) {
+            Deque<PendingWrite> pendingWrites = new ArrayDeque<>();
+            long position = 0;
+            byte[] block = new byte[PARALLEL_WRITE_BLOCK_SIZE];
+            int bytesRead = in.readNBytes(block, 0, block.length);
+            while (bytesRead > 0) {
+                if (pendingWrites.size() >= maxBlocksInFlight) {
+                    pendingWrites.removeFirst().await(channel);
+                }
+
+                ByteBuffer buffer = ByteBuffer.wrap(block, 0, bytesRead);
+                pendingWrites.addLast(new PendingWrite(buffer, position, channel.write(buffer, position)));
+                position += bytesRead;
+
+                block = new byte[PARALLEL_WRITE_BLOCK_SIZE];
+                bytesRead = in.readNBytes(block, 0, block.length);
+            }
+
+            while (!pendingWrites.isEmpty()) {
+                pendingWrites.removeFirst().await(channel);
+            }
+        }
+    }
+
+    /**
+     * Represents a block which is being written asynchronously by
+     * {@link #storePhysicalObjectParallel(String, InputStream, ByteBlockTransformer, int)}.
+     *
+     * @param buffer   the data being written
+     * @param position the position in the file where the block starts
+     * @param result   the future which is completed with the number of bytes written
+     */
+    private record PendingWrite(ByteBuffer buffer, long position, Future<Integer> result) {
+
+        /**
+         * Waits until the block has been written completely.
+         * <p>
+         * An asynchronous write might only write a part of the block, therefore we write the remaining bytes (if any)
+         * here.
+         *
+         * @param channel the channel to write the remaining bytes to
+         * @throws IOException in case of an IO error
+         */
+        private void await(AsynchronousFileChannel channel) throws IOException {
+            try {
+                long nextPosition = position + result.get();
+                while (buffer.hasRemaining()) {
+                    nextPosition += channel.write(buffer, nextPosition).get();
+                }
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a block to be written");
+            } catch (ExecutionException exception) {
+                throw new IOException(exception.getCause());
+            }
+        }
+    }
+
     @Override
     protected void deletePhysicalObject(String objectKey) throws IOException {
         if (Strings.isEmpty(objectKey)) {
@@ -286,6 +379,23 @@ public class FSObjectStorageSpace extends ObjectStorageSpace {
         return null;
     }
 
+    @Nullable
+    @Override
+    protected InputStream getAsStream(String objectKey, long offset, long length) throws IOException {
+        if (Strings.isEmpty(objectKey)) {
+            return null;
+        }
+
+        File file = getFile(objectKey);
+        if (!file.exists()) {
+            return null;
+        }
+
+        FileInputStream input = new FileInputStream(file);
+        input.getChannel().position(offset);
+        return length < 0 ? input : ByteStreams.limit(input, length);
+    }
+
     @Override
     public void iterateObjects(Predicate<ObjectMetadata> objectHandler) throws IOException {
         java.nio.file.Files.walkFileTree(baseDir.toPath(), new SimpleFileVisitor<Path>() {
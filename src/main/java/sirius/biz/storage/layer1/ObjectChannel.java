@@ -0,0 +1,177 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.storage.layer1;
+
+import sirius.kernel.commons.Strings;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * Provides read-only random access to an object stored in an {@link ObjectStorageSpace}.
+ * <p>
+ * The data is read using {@link ObjectStorageSpace#getInputStream(String, long, long) ranged streams}. As long as the
+ * data is read sequentially, a single stream is kept open. If the position is moved, the stream is re-opened at the
+ * new position, unless the target is only a bit ahead of the current stream. In this case, the data in between is
+ * simply skipped.
+ * <p>
+ * Note that this is only used for spaces without a transformer, as transformed objects would have to be decoded from
+ * their start for each seek. {@link DownloadedObjectChannel} is used for these instead.
+ * <p>
+ * Use {@link ObjectStorageSpace#openChannel(String, long)} to obtain an instance.
+ */
+public class ObjectChannel implements SeekableByteChannel {
+
+    /**
+     * Contains the maximal distance which is skipped within the current stream instead of re-opening it.
+     */
+    private static final long MAX_SKIP_DISTANCE = 256 * 1024;
+
+    /**
+     * Contains the maximal number of bytes transferred per read call if the target buffer has no backing array.
+     */
+    private static final int MAX_TRANSFER_SIZE = 8192;
+
+    private final ObjectStorageSpace space;
+    private final String objectId;
+    private final long size;
+    private long position;
+    private InputStream stream;
+    private long streamPosition;
+    private boolean open = true;
+
+    protected ObjectChannel(ObjectStorageSpace space, String objectId, long size) {
+        this.space = space;
+        this.objectId = objectId;
+        this.size = size;
+    }
+
+    @Override
+    public int read(ByteBuffer destination) throws IOException {
+        ensureOpen();
+        if (position >= size) {
+            return -1;
+        }
+        if (!destination.hasRemaining()) {
+            return 0;
+        }
+
+        InputStream input = seekStream();
+        int bytesRead;
+        if (destination.hasArray()) {
+            int bytesToRead = (int) Math.min(destination.remaining(), size - position);
+            bytesRead = input.read(destination.array(), destination.arrayOffset() + destination.position(), bytesToRead);
+            if (bytesRead > 0) {
+                destination.position(destination.position() + bytesRead);
+            }
+        } else {
+            int bytesToRead = (int) Math.min(Math.min(destination.remaining(), size - position), MAX_TRANSFER_SIZE);
+            byte[] buffer = new byte[bytesToRead];
+            bytesRead = input.read(buffer, 0, bytesToRead);
+            if (bytesRead > 0) {
+                destination.put(buffer, 0, bytesRead);
+            }
+        }
+
+        if (bytesRead < 0) {
+            // The object is shorter than expected...
+            return -1;
+        }
+
+        position += bytesRead;
+        streamPosition += bytesRead;
+        return bytesRead;
+    }
+
+    private InputStream seekStream() throws IOException {
+        if (stream != null && streamPosition != position) {
+            long distance = position - streamPosition;
+            if (distance > 0 && distance <= MAX_SKIP_DISTANCE) {
+                stream.skipNBytes(distance);
+                streamPosition = position;
+            } else {
+                closeStream();
+            }
+        }
+
+        if (stream == null) {
+            stream = space.getInputStream(objectId, position, -1)
+                          .orElseThrow(() -> new FileNotFoundException(Strings.apply(
+                                  "Layer 1: No object found for key '%s' in space '%s'",
+                                  objectId,
+                                  space.getName())));
+            streamPosition = position;
+        }
+
+        return stream;
+    }
+
+    @Override
+    public int write(ByteBuffer source) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public SeekableByteChannel position(long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition < 0) {
+            throw new IllegalArgumentException("The position must not be negative");
+        }
+
+        this.position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        ensureOpen();
+        return size;
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long size) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() throws IOException {
+        open = false;
+        closeStream();
+    }
+
+    private void closeStream() throws IOException {
+        if (stream != null) {
+            InputStream streamToClose = stream;
+            stream = null;
+            streamToClose.close();
+        }
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+    }
+}
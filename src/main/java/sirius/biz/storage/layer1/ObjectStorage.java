@@ -52,6 +52,11 @@ public class ObjectStorage {
      * to use for a space.
      */
     public static final String CONFIG_KEY_LAYER1_CIPHER = "cipher";
+    /**
+     * Contains the config attribute which determines how many blocks of data may be buffered or written in parallel
+     * when uploading a stream into a space.
+     */
+    public static final String CONFIG_KEY_LAYER1_UPLOAD_PARALLELISM = "uploadParallelism";
 
     @Part
     private StorageUtils utils;
@@ -8,6 +8,7 @@
 
 package sirius.biz.storage.layer1;
 
+import com.google.common.io.ByteStreams;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import org.apache.http.ConnectionClosedException;
@@ -35,12 +36,15 @@ import sirius.web.http.ChunkedOutputStream;
 import sirius.web.http.Response;
 
 import javax.annotation.Nullable;
+import java.io.EOFException;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.SocketException;
 import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SeekableByteChannel;
 import java.util.Optional;
 import java.util.function.BiConsumer;
 import java.util.function.IntConsumer;
@@ -60,6 +64,8 @@ public abstract class ObjectStorageSpace {
     private CipherProvider cipherProvider;
     private boolean useEncryption;
 
+    private int uploadParallelism;
+
     private ObjectStorageSpace replicationSpace;
 
     @Part
@@ -78,6 +84,7 @@ public abstract class ObjectStorageSpace {
     private static final Counter UPLOADS = new Counter();
     private static final Counter DOWNLOADS = new Counter();
     private static final Counter STREAMS = new Counter();
+    private static final Counter RANGED_STREAMS = new Counter();
     private static final Counter DELIVERIES = new Counter();
     private static final Counter FALLBACKS = new Counter();
     private static final Counter DELIVERY_CLIENT_FAILURES = new Counter();
@@ -96,6 +103,7 @@ public abstract class ObjectStorageSpace {
 
         setupCompression();
         setupEncryption();
+        this.uploadParallelism = settings.get(ObjectStorage.CONFIG_KEY_LAYER1_UPLOAD_PARALLELISM).asInt(1);
     }
 
     /**
@@ -211,6 +219,13 @@ public abstract class ObjectStorageSpace {
      * @param file     the data to store
      */
     public void upload(String objectId, File file) {
+        // Plain files can already be uploaded efficiently by the storage engine. Therefore, we only pipeline the upload
+        // if the data has to be transformed, as this is a CPU intensive task which would otherwise block the upload...
+        if (uploadParallelism > 1 && hasTransformer()) {
+            uploadFileParallel(objectId, file);
+            return;
+        }
+
         try {
             UPLOADS.inc();
             if (hasTransformer()) {
@@ -232,6 +247,21 @@ public abstract class ObjectStorageSpace {
         }
     }
 
+    private void uploadFileParallel(String objectId, File file) {
+        try (InputStream inputStream = new FileInputStream(file)) {
+            uploadParallel(objectId, inputStream, file.length(), uploadParallelism);
+        } catch (IOException exception) {
+            throw Exceptions.handle()
+                            .error(exception)
+                            .to(StorageUtils.LOG)
+                            .withSystemErrorMessage("Layer 1: An error occurred when uploading %s to %s (%s): %s (%s)",
+                                                    file.getAbsolutePath(),
+                                                    objectId,
+                                                    name)
+                            .handle();
+        }
+    }
+
     /**
      * Stores the given data for the given key in the given bucket.
      *
@@ -285,6 +315,11 @@ public abstract class ObjectStorageSpace {
      * @param contentLength the byte length of the data or 0 to indicate that the length is unknown
      */
     public void upload(String objectId, InputStream inputStream, long contentLength) {
+        if (uploadParallelism > 1) {
+            uploadParallel(objectId, inputStream, contentLength, uploadParallelism);
+            return;
+        }
+
         try {
             UPLOADS.inc();
             if (hasTransformer()) {
@@ -326,6 +361,57 @@ public abstract class ObjectStorageSpace {
     protected abstract void storePhysicalObject(String objectKey, InputStream data, ByteBlockTransformer transformer)
             throws IOException;
 
+    /**
+     * Stores the given data for the given object key using a pipelined upload.
+     * <p>
+     * The data is read and transformed (compressed and / or encrypted) by the calling thread, while the resulting
+     * blocks are written to the underlying storage in parallel. At most <tt>maxBlocksInFlight</tt> blocks are kept in
+     * memory, therefore the calling thread is blocked if the storage cannot keep up.
+     * <p>
+     * Note that {@link #upload(String, InputStream, long)} automatically uses this approach if
+     * {@link ObjectStorage#CONFIG_KEY_LAYER1_UPLOAD_PARALLELISM} is set to a value greater than 1 for this space.
+     *
+     * @param objectId          the physical storage key (a key is always only used once)
+     * @param inputStream       the data to store
+     * @param contentLength     the byte length of the data or 0 to indicate that the length is unknown
+     * @param maxBlocksInFlight the maximal number of blocks being buffered or written in parallel
+     */
+    public void uploadParallel(String objectId, InputStream inputStream, long contentLength, int maxBlocksInFlight) {
+        try {
+            UPLOADS.inc();
+            if (hasTransformer()) {
+                storePhysicalObjectParallel(objectId, inputStream, createWriteTransformer(), maxBlocksInFlight);
+                replicationManager.notifyAboutUpdate(this, objectId, 0);
+            } else {
+                storePhysicalObjectParallel(objectId, inputStream, null, maxBlocksInFlight);
+                replicationManager.notifyAboutUpdate(this, objectId, contentLength);
+            }
+        } catch (IOException exception) {
+            throw Exceptions.handle()
+                            .error(exception)
+                            .to(StorageUtils.LOG)
+                            .withSystemErrorMessage(
+                                    "Layer 1: An error occurred when uploading data in parallel to %s (%s): %s (%s)",
+                                    objectId,
+                                    name)
+                            .handle();
+        }
+    }
+
+    /**
+     * Stores the given data for the given key while writing blocks of data in parallel.
+     *
+     * @param objectKey         the physical storage key (a key is always only used once)
+     * @param data              the data to store
+     * @param transformer       the transformer to apply when storing data or <tt>null</tt> to store the data as is
+     * @param maxBlocksInFlight the maximal number of blocks being buffered or written in parallel
+     * @throws IOException in case of an IO error
+     */
+    protected abstract void storePhysicalObjectParallel(String objectKey,
+                                                        InputStream data,
+                                                        @Nullable ByteBlockTransformer transformer,
+                                                        int maxBlocksInFlight) throws IOException;
+
     /**
      * Downloads and provides the contents of the requested object.
      * <p>
@@ -481,6 +567,98 @@ public abstract class ObjectStorageSpace {
         }
     }
 
+    /**
+     * Provides direct access to a part of the contents of the requested object.
+     * <p>
+     * For spaces without a transformer, this uses a ranged read of the underlying storage, so that only the requested
+     * bytes are transferred. Note that compressed and / or encrypted objects have to be decoded from their start,
+     * therefore the data up to the given offset is read and discarded in this case.
+     *
+     * @param objectId the physical storage key
+     * @param offset   the position of the first byte to read
+     * @param length   the maximal number of bytes to read or a negative value to read up to the end of the object
+     * @return the requested part of the contents as input stream
+     */
+    public Optional<InputStream> getInputStream(String objectId, long offset, long length) {
+        try {
+            if (Strings.isEmpty(objectId)) {
+                return Optional.empty();
+            }
+
+            STREAMS.inc();
+            RANGED_STREAMS.inc();
+            return Optional.ofNullable(getAsRangedStream(objectId, offset, length));
+        } catch (FileNotFoundException exception) {
+            StorageUtils.LOG.WARN(exception.getMessage());
+            return Optional.empty();
+        } catch (IOException exception) {
+            throw Exceptions.handle()
+                            .error(exception)
+                            .to(StorageUtils.LOG)
+                            .withSystemErrorMessage(
+                                    "Layer 1: An error occurred when obtaining an input stream for %s (%s) "
+                                    + "starting at %s: %s (%s)",
+                                    objectId,
+                                    name,
+                                    offset)
+                            .handle();
+        }
+    }
+
+    @Nullable
+    private InputStream getAsRangedStream(String objectId, long offset, long length) throws IOException {
+        if (length == 0) {
+            return InputStream.nullInputStream();
+        }
+
+        if (!hasTransformer()) {
+            return getAsStream(objectId, offset, length);
+        }
+
+        InputStream input = getAsStream(objectId, createReadTransformer());
+        if (input == null) {
+            return null;
+        }
+
+        try {
+            input.skipNBytes(offset);
+        } catch (EOFException exception) {
+            // The offset is beyond the end of the object, therefore there is no data to read...
+            Exceptions.ignore(exception);
+            input.close();
+            return InputStream.nullInputStream();
+        } catch (IOException exception) {
+            input.close();
+            throw exception;
+        }
+
+        return length < 0 ? input : ByteStreams.limit(input, length);
+    }
+
+    /**
+     * Opens a read-only channel which permits random access to the contents of the given object.
+     * <p>
+     * The channel uses {@link #getInputStream(String, long, long) ranged reads}, therefore only the data actually
+     * being read has to be transferred. This is e.g. useful to read the central directory of a ZIP archive without
+     * downloading the whole archive.
+     * <p>
+     * Note that objects in spaces with a transformer can only be decoded from their start. Therefore, these are
+     * downloaded once when first being read and all reads are served by the local copy.
+     *
+     * @param objectId the physical storage key
+     * @param size     the size of the (decoded) object in bytes. This is known by the layer 2, as it keeps track of
+     *                 the size of each blob or variant
+     * @return a channel which can be used to read the contents of the object. Note that the channel has to be closed
+     * once it is no longer used
+     */
+    public SeekableByteChannel openChannel(String objectId, long size) {
+        if (hasTransformer()) {
+            return new DownloadedObjectChannel(this, objectId, size);
+        }
+
+        return new ObjectChannel(this, objectId, size);
+    }
+
     /**
      * Determines if the requested object exists.
      *
@@ -510,6 +688,21 @@ public abstract class ObjectStorageSpace {
     @Nullable
     protected abstract InputStream getAsStream(String objectKey, ByteBlockTransformer transformer) throws IOException;
 
+    /**
+     * Provides a part of the contents of the request object as input stream.
+     * <p>
+     * Note that this is only invoked for spaces without a transformer, as transformed objects cannot be decoded
+     * starting at an arbitrary position.
+     *
+     * @param objectKey the id of the object
+     * @param offset    the position of the first byte to read
+     * @param length    the maximal number of bytes to read or a negative value to read up to the end of the object
+     * @return an input stream which provides the requested part of the contents of the object
+     * @throws IOException in case of an IO error
+     */
+    @Nullable
+    protected abstract InputStream getAsStream(String objectKey, long offset, long length) throws IOException;
+
     /**
      * Delivers the requested object to the given HTTP response.
      * <p>
@@ -525,6 +718,9 @@ public abstract class ObjectStorageSpace {
             DELIVERIES.inc();
 
             if (hasTransformer()) {
+                // Note that we don't support ranges for transformed objects, as these would have to be decoded from
+                // their start for each request. A client reading an object in chunks would therefore cause quadratic
+                // work. Hence, we always deliver the whole object...
                 deliverPhysicalObject(response,
                                       objectId,
                                       createReadTransformer(),
@@ -772,6 +968,17 @@ public abstract class ObjectStorageSpace {
         return STREAMS.getCount();
     }
 
+    /**
+     * Counts the number of ranged stream fetches performed on this node.
+     * <p>
+     * This is mainly exposed by the used by {@link sirius.biz.storage.util.StorageMetrics}.
+     *
+     * @return the number of ranged stream fetches on this node
+     */
+    public static long getRangedStreams() {
+        return RANGED_STREAMS.getCount();
+    }
+
     /**
      * Counts the number of deliveries performed on this node.
      * <p>
@@ -134,6 +134,21 @@ public class S3ObjectStorageSpace extends ObjectStorageSpace {
         }
     }
 
+    @Override
+    protected void storePhysicalObjectParallel(String objectKey,
+                                               InputStream data,
+                                               @Nullable ByteBlockTransformer transformer,
+                                               int maxBlocksInFlight) throws IOException {
+        if (transformer == null) {
+            store.uploadParallel(bucketName(), objectKey, data, maxBlocksInFlight);
+            return;
+        }
+
+        try (InputStream effectiveStream = new TransformingInputStream(data, transformer)) {
+            store.uploadParallel(bucketName(), objectKey, effectiveStream, maxBlocksInFlight);
+        }
+    }
+
     @Override
     protected void storePhysicalObject(String objectKey, File file) throws IOException {
         store.upload(bucketName(), objectKey, file);
@@ -252,6 +267,17 @@ public class S3ObjectStorageSpace extends ObjectStorageSpace {
         return new TransformingInputStream(rawStream, transformer);
     }
 
+    @Nullable
+    @Override
+    protected InputStream getAsStream(String objectKey, long offset, long length) throws IOException {
+        String range = length < 0 ? "bytes=" + offset + "-" : "bytes=" + offset + "-" + (offset + length - 1);
+        ResponseInputStream<GetObjectResponse> result = getS3Object(objectKey, range);
+
+        // S3 rejects a range which starts at or beyond the end of an (existing) object. This simply means that there
+        // is no data to read...
+        return result == null ? InputStream.nullInputStream() : result;
+    }
+
     @Override
     public void iterateObjects(Predicate<ObjectMetadata> objectHandler) throws IOException {
         store.listObjects(bucketName(), null, s3Object -> {
@@ -303,9 +329,28 @@ public class S3ObjectStorageSpace extends ObjectStorageSpace {
     }
 
     private ResponseInputStream<GetObjectResponse> getS3Object(String objectKey) throws IOException {
+        return getS3Object(objectKey, null);
+    }
+
+    /**
+     * Fetches the given object or the given range of it.
+     *
+     * @param objectKey the key of the object to fetch
+     * @param range     the HTTP range to fetch or <tt>null</tt> to fetch the whole object
+     * @return the contents of the object or <tt>null</tt> if the requested range is not satisfiable as it starts
+     * beyond the end of the object
+     * @throws IOException in case the object doesn't exist or cannot be fetched
+     */
+    @Nullable
+    private ResponseInputStream<GetObjectResponse> getS3Object(String objectKey, @Nullable String range)
+            throws IOException {
         try {
-            return store.getClient().getObject(GetObjectRequest.builder().bucket(bucketName().getName()).key(objectKey)
-                            .build());
+            return store.getClient()
+                        .getObject(GetObjectRequest.builder()
+                                                   .bucket(bucketName().getName())
+                                                   .key(objectKey)
+                                                   .range(range)
+                                                   .build());
         } catch (SdkException exception) {
             if (exception instanceof S3Exception s3Exception
                 && s3Exception.statusCode() == HttpResponseStatus.NOT_FOUND.code()) {
@@ -313,6 +358,11 @@ public class S3ObjectStorageSpace extends ObjectStorageSpace {
                                                               objectKey,
                                                               bucketName()));
             }
+            if (range != null
+                && exception instanceof S3Exception s3Exception
+                && s3Exception.statusCode() == HttpResponseStatus.REQUESTED_RANGE_NOT_SATISFIABLE.code()) {
+                return null;
+            }
             throw new IOException(exception);
         }
     }
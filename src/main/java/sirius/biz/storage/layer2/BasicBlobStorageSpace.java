@@ -8,6 +8,7 @@
 
 package sirius.biz.storage.layer2;
 
+import com.google.common.hash.Hashing;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import sirius.biz.analytics.events.EventRecorder;
 import sirius.biz.locks.Locks;
@@ -17,6 +18,7 @@ import sirius.biz.storage.layer1.ObjectStorageSpace;
 import sirius.biz.storage.layer2.variants.BlobConversionEvent;
 import sirius.biz.storage.layer2.variants.BlobVariant;
 import sirius.biz.storage.layer2.variants.ConversionEngine;
+import sirius.biz.storage.layer2.variants.ConversionPriority;
 import sirius.biz.storage.layer2.variants.ConversionProcess;
 import sirius.biz.storage.util.StorageUtils;
 import sirius.db.KeyGenerator;
@@ -57,17 +59,20 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
 import java.text.Normalizer;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 /**
  * Represents a base implementation for a layer 2 storage space which manages {@link Blob blobs} and
@@ -178,6 +183,11 @@ public abstract class BasicBlobStorageSpace<B extends Blob & OptimisticCreate, D
      */
     private static final String CONFIG_KEY_CHECKSUM_ALGORITHM = "checksumAlgorithm";
 
+    /**
+     * Contains the name of the config key which lists the variants to generate as soon as a blob is created.
+     */
+    private static final String CONFIG_KEY_PREGENERATED_VARIANTS = "pregeneratedVariants";
+
     /**
      * Contains the name of the executor in which requests are moved which might be blocked while waiting for
      * a conversion to happen. We do not want to jam our main executor of the web server for this, therefore
@@ -212,14 +222,6 @@ public abstract class BasicBlobStorageSpace<B extends Blob & OptimisticCreate, D
      */
     private static final int MAX_CONVERSION_DELEGATE_ATTEMPTS = 3;
 
-    /**
-     * Determines how many times we try to pick a random host for delegation.
-     * <p>
-     * Essentially, we pick a random delegate host and check if we have connectivity issues.
-     * If we picked this many times, and every host has connectivity issues, we give up and just try this host anyway.
-     */
-    private static final int MAX_CONVERSION_DELEGATE_HOST_PICK_ATTEMPTS = 3;
-
     @Part
     protected static ObjectStorage objectStorage;
 
@@ -305,6 +307,7 @@ public abstract class BasicBlobStorageSpace<B extends Blob & OptimisticCreate, D
     protected boolean touchTracking;
     protected boolean sortByLastModified;
     protected String checksumAlgorithm;
+    protected List<String> pregeneratedVariants;
     protected ObjectStorageSpace objectStorageSpace;
 
     /**
@@ -326,6 +329,7 @@ public abstract class BasicBlobStorageSpace<B extends Blob & OptimisticCreate, D
         this.touchTracking = config.get(CONFIG_KEY_TOUCH_TRACKING).asBoolean();
         this.sortByLastModified = config.get(CONFIG_KEY_SORT_BY_LAST_MODIFIED).asBoolean();
         this.checksumAlgorithm = config.get(CONFIG_KEY_CHECKSUM_ALGORITHM).asString();
+        this.pregeneratedVariants = config.getStringList(CONFIG_KEY_PREGENERATED_VARIANTS);
     }
 
     @Override
@@ -1562,6 +1566,12 @@ public abstract class BasicBlobStorageSpace<B extends Blob & OptimisticCreate, D
     protected V findOrCreateVariant(B blob, String variantName, boolean waitLonger) {
         try {
             int retries = waitLonger ? maxLongConversionAttempts : maxConversionAttempts;
+            if (conversionEngine.joinConversionInFlight(blob.getBlobKey(), variantName, ConversionPriority.INTERACTIVE)
+                != null) {
+                // This node is already converting the variant. Rather than racing the converting thread through the
+                // database, we simply await its result...
+                return awaitConversionResultAndRetryToFindVariant(blob, variantName, retries);
+            }
             return attemptToFindOrCreateVariant(blob, variantName, retries);
         } catch (Exception exception) {
             throw Exceptions.handle()
@@ -1662,7 +1672,7 @@ public abstract class BasicBlobStorageSpace<B extends Blob & OptimisticCreate, D
             // A variant exists, and we should re-try to create it...
             if (markConversionAttempt(variant)) {
                 // We successfully marked this as "in conversion" -> fork a conversion task in parallel
-                invokeConversionPipelineAsync(blob, null, variant);
+                invokeConversionPipelineAsync(blob, null, variant, ConversionPriority.INTERACTIVE);
                 return awaitConversionResultAndRetryToFindVariant(blob, variantName, retries);
             } else {
                 // An optimistic lock error occurred (another thread or node attempted the same). So we back up,
@@ -1713,7 +1723,13 @@ public abstract class BasicBlobStorageSpace<B extends Blob & OptimisticCreate, D
 
         // Give the conversion pipeline some time to perform the conversion. Note that we fix the number of retries
         // here as no more optimistic lock problems can occur - we simply have to wait for the conversion to finish...
-        Wait.millis((int) conversionRetryDelay.toMillis());
+        Future conversionInFlight = conversionEngine.findConversionInFlight(blob.getBlobKey(), variantName);
+        if (conversionInFlight != null) {
+            // If the conversion is performed on this node, we can stop waiting as soon as it is completed...
+            conversionInFlight.await(conversionRetryDelay);
+        } else {
+            Wait.millis((int) conversionRetryDelay.toMillis());
+        }
         return attemptToFindOrCreateVariant(blob, variantName, Math.min(retries - 1, retries));
     }
 
@@ -1755,14 +1771,21 @@ public abstract class BasicBlobStorageSpace<B extends Blob & OptimisticCreate, D
      * @param blob      the blob for which the variant is to be created
      * @param inputFile the file handle holding the file to use as input for the conversion
      * @param variant   the variant to generate
-     * @return a future holding the conversion process
+     * @param priority  the priority of the conversion
+     * @return a future which is completed once the conversion result has been stored or the conversion failed
      */
-    private Future invokeConversionPipelineAsync(B blob, FileHandle inputFile, V variant) {
-        ConversionProcess conversionProcess = new ConversionProcess(blob, variant.getVariantName());
+    private Future invokeConversionPipelineAsync(B blob, FileHandle inputFile, V variant, ConversionPriority priority) {
+        ConversionProcess conversionProcess =
+                new ConversionProcess(blob, variant.getVariantName()).withPriority(priority);
         if (inputFile != null) {
             conversionProcess.withInputFile(inputFile.getFile());
         }
 
+        // The pipeline is only completed once the result has been uploaded and recorded, so that all requests which
+        // await the conversion in flight find the completed variant...
+        Future pipelineCompleted = new Future();
+        pipelineCompleted.doNotLogErrors();
+
         Future future = new Future();
         future.onSuccess(ignored -> {
             try (FileHandle automaticHandle = conversionProcess.getResultFileHandle()) {
@@ -1772,19 +1795,28 @@ public abstract class BasicBlobStorageSpace<B extends Blob & OptimisticCreate, D
                 markConversionSuccess(variant, physicalKey, conversionProcess);
                 eventRecorder.record(new BlobConversionEvent().withConversionProcess(conversionProcess)
                                                               .withOutputFile(automaticHandle));
+                pipelineCompleted.success();
+            } catch (Exception exception) {
+                pipelineCompleted.fail(exception);
+                throw Exceptions.handle(StorageUtils.LOG, exception);
             }
         }).onFailure(conversionException -> {
-            V updatedVariant = markConversionFailure(variant, conversionProcess);
-            if (updatedVariant.isFailed()) {
-                failedVariantHandlers.forEach(handler -> handler.handle(conversionException,
-                                                                        blob.getBlobKey(),
-                                                                        variant.getVariantName()));
+            try {
+                V updatedVariant = markConversionFailure(variant, conversionProcess);
+                if (updatedVariant.isFailed()) {
+                    failedVariantHandlers.forEach(handler -> handler.handle(conversionException,
+                                                                            blob.getBlobKey(),
+                                                                            variant.getVariantName()));
+                }
+                eventRecorder.record(new BlobConversionEvent().withConversionProcess(conversionProcess)
+                                                              .withConversionError(conversionException));
+            } finally {
+                pipelineCompleted.fail(conversionException);
             }
-            eventRecorder.record(new BlobConversionEvent().withConversionProcess(conversionProcess)
-                                                          .withConversionError(conversionException));
         });
+        conversionEngine.trackConversionInFlight(blob.getBlobKey(), variant.getVariantName(), pipelineCompleted);
         conversionEngine.performConversion(future, conversionProcess);
-        return future;
+        return pipelineCompleted;
     }
 
     /**
@@ -1848,7 +1880,7 @@ public abstract class BasicBlobStorageSpace<B extends Blob & OptimisticCreate, D
         if (detectAndRemoveDuplicateVariant(variant, blob, variantName)) {
             return false;
         } else {
-            invokeConversionPipelineAsync(blob, null, variant);
+            invokeConversionPipelineAsync(blob, null, variant, ConversionPriority.INTERACTIVE);
             return true;
         }
     }
@@ -1859,10 +1891,15 @@ public abstract class BasicBlobStorageSpace<B extends Blob & OptimisticCreate, D
      * @param blob        the blob for which the variant is to be created
      * @param inputFile   the file handle holding the file to use as input for the conversion
      * @param variantName the variant to generate
+     * @param priority    the priority of the conversion
      * @param retries     the number of retries left
      * @return a future holding the conversion process
      */
-    private Future tryCreateVariant(B blob, FileHandle inputFile, String variantName, int retries) {
+    private Future tryCreateVariant(B blob,
+                                    FileHandle inputFile,
+                                    String variantName,
+                                    ConversionPriority priority,
+                                    int retries) {
         if (retries == 0) {
             Future future = new Future();
             future.fail(new IllegalStateException(Strings.apply(
@@ -1888,15 +1925,15 @@ public abstract class BasicBlobStorageSpace<B extends Blob & OptimisticCreate, D
                     // wait a short and random amount of time and retry...
                     Wait.randomMillis(0, 150);
                     // A collision was detected and the given variant was removed, therefore we need to create the variant again.
-                    return tryCreateVariant(blob, inputFile, variantName, retries - 1);
+                    return tryCreateVariant(blob, inputFile, variantName, priority, retries - 1);
                 }
 
                 if (markConversionAttempt(variant)) {
                     // We successfully marked this as "in conversion" -> fork a conversion task in parallel
-                    return invokeConversionPipelineAsync(blob, inputFile, variant);
+                    return invokeConversionPipelineAsync(blob, inputFile, variant, priority);
                 } else {
                     Wait.randomMillis(0, 150);
-                    return tryCreateVariant(blob, inputFile, variantName, retries - 1);
+                    return tryCreateVariant(blob, inputFile, variantName, priority, retries - 1);
                 }
             } else {
                 // No variant is present, and no conversion is possible -> give up
@@ -1922,7 +1959,7 @@ public abstract class BasicBlobStorageSpace<B extends Blob & OptimisticCreate, D
      * @return a future holding the conversion process
      */
     public Future tryCreateVariant(B blob, String variantName) {
-        return tryCreateVariant(blob, null, variantName, maxOptimisticLockAttempts);
+        return tryCreateVariant(blob, null, variantName, ConversionPriority.INTERACTIVE);
     }
 
     /**
@@ -1934,7 +1971,37 @@ public abstract class BasicBlobStorageSpace<B extends Blob & OptimisticCreate, D
      * @return a future holding the conversion process
      */
     public Future tryCreateVariant(B blob, FileHandle inputFile, String variantName) {
-        return tryCreateVariant(blob, inputFile, variantName, maxOptimisticLockAttempts);
+        return tryCreateVariant(blob, inputFile, variantName, ConversionPriority.INTERACTIVE);
+    }
+
+    /**
+     * Tries to create the requested variant with the given priority if the variant does not exist already.
+     * <p>
+     * If this node is already converting the variant, the conversion in flight is returned instead of starting
+     * another one.
+     *
+     * @param blob        the blob for which the variant is to be created
+     * @param inputFile   the file handle holding the file to use as input for the conversion or <tt>null</tt> to
+     *                    download the blob
+     * @param variantName the variant to generate
+     * @param priority    the priority of the conversion
+     * @return a future holding the conversion process
+     */
+    public Future tryCreateVariant(B blob,
+                                   @Nullable FileHandle inputFile,
+                                   String variantName,
+                                   ConversionPriority priority) {
+        Future conversionInFlight = conversionEngine.joinConversionInFlight(blob.getBlobKey(), variantName, priority);
+        if (conversionInFlight != null) {
+            return conversionInFlight;
+        }
+
+        return tryCreateVariant(blob, inputFile, variantName, priority, maxOptimisticLockAttempts);
+    }
+
+    @Override
+    public List<String> getPregeneratedVariants() {
+        return Collections.unmodifiableList(pregeneratedVariants);
     }
 
     /**
@@ -2071,10 +2138,10 @@ public abstract class BasicBlobStorageSpace<B extends Blob & OptimisticCreate, D
             return Optional.empty();
         }
 
-        String randomHost = pickRandomConversionHost(MAX_CONVERSION_DELEGATE_HOST_PICK_ATTEMPTS);
+        String conversionHost = pickConversionHost(conversionHosts, blobKey, this::hasRecentConnectivityIssue);
 
         String conversionUrl = "http://"
-                               + randomHost
+                               + conversionHost
                                + BlobDispatcher.URI_PREFIX_TRAILED
                                + BlobDispatcher.FLAG_VIRTUAL
                                + "/"
@@ -2097,28 +2164,56 @@ public abstract class BasicBlobStorageSpace<B extends Blob & OptimisticCreate, D
         }
     }
 
-    private String pickRandomConversionHost(int remainingAttempts) {
-        String host = conversionHosts.get(ThreadLocalRandom.current().nextInt(conversionHosts.size()));
-        if (remainingAttempts <= 0) {
-            return host;
-        }
-        if (conversionHosts.size() == 1) {
-            return host;
+    /**
+     * Picks the conversion host to delegate a conversion of the given blob to.
+     * <p>
+     * We use rendezvous hashing here: Each host is scored by hashing its name along with the blob key and the host
+     * with the highest score is picked. Therefore, all variants of a blob are converted by the same host, which can
+     * then re-use its locally cached copy of the source file (see
+     * {@link sirius.biz.storage.layer2.variants.SourceFileCache}). Adding or removing a host only moves the blobs
+     * which are (or will be) assigned to this host.
+     * <p>
+     * Hosts with a recent connectivity issue are skipped, so that their blobs are distributed among the next best
+     * hosts. If all hosts had connectivity issues, we try the best host anyway.
+     *
+     * @param hosts                the conversion hosts to pick from
+     * @param blobKey              the blob to convert
+     * @param hasConnectivityIssue determines if a host had a recent connectivity issue
+     * @return the host to delegate the conversion to
+     */
+    static String pickConversionHost(List<String> hosts, String blobKey, Predicate<String> hasConnectivityIssue) {
+        if (hosts.size() == 1) {
+            return hosts.getFirst();
         }
 
+        Comparator<String> byScore = Comparator.comparingLong(host -> computeRendezvousScore(host, blobKey));
+        List<String> rankedHosts = hosts.stream().sorted(byScore.reversed()).toList();
+
+        return rankedHosts.stream()
+                          .filter(host -> !hasConnectivityIssue.test(host))
+                          .findFirst()
+                          .orElse(rankedHosts.getFirst());
+    }
+
+    private static long computeRendezvousScore(String host, String blobKey) {
+        return Hashing.murmur3_128().hashString(host + "-" + blobKey, StandardCharsets.UTF_8).asLong();
+    }
+
+    private boolean hasRecentConnectivityIssue(String host) {
         LocalDateTime lastConnectivityError = conversionHostLastConnectivityIssue.get(host);
         if (lastConnectivityError == null) {
-            return host;
+            return false;
         }
+
         Duration durationSinceLastConnectivityIssue = Duration.between(lastConnectivityError, LocalDateTime.now());
         if (durationSinceLastConnectivityIssue.compareTo(MAX_CONVERSION_HOST_BLACKLISTING) > 0) {
             conversionHostLastConnectivityIssue.remove(host);
             StorageUtils.LOG.INFO("Layer 2: Connectivity issue for conversion host %s expired", host);
 
-            return host;
+            return false;
         }
 
-        return pickRandomConversionHost(remainingAttempts - 1);
+        return true;
     }
 
     /**
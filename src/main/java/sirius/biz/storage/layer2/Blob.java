@@ -10,6 +10,7 @@ package sirius.biz.storage.layer2;
 
 import sirius.biz.storage.layer1.FileHandle;
 import sirius.biz.storage.layer2.variants.BlobVariant;
+import sirius.biz.storage.layer2.variants.ConversionPriority;
 import sirius.kernel.async.Future;
 import sirius.kernel.health.HandledException;
 import sirius.pasta.noodle.sandbox.NoodleSandbox;
@@ -166,6 +167,19 @@ public interface Blob {
      */
     Future tryCreateVariant(FileHandle inputFile, String variantName);
 
+    /**
+     * Tries to create the desired variant using the given priority.
+     * <p>
+     * By default, the priority is ignored and the variant is created like in {@link #tryCreateVariant(String)}.
+     *
+     * @param variantName the name of the desired variant
+     * @param priority    the priority of the conversion
+     * @return a future holding the conversion process
+     */
+    default Future tryCreateVariant(String variantName, ConversionPriority priority) {
+        return tryCreateVariant(variantName);
+    }
+
     /**
      * Determines if this blob is still marked as temporary.
      *
@@ -359,11 +359,22 @@ public interface BlobStorageSpace {
      */
     boolean isTouchTracking();
 
+    /**
+     * Lists the variants which are generated in the background as soon as a blob is created in this space.
+     *
+     * @return the names of the variants to pre-generate. By default, no variants are pre-generated
+     * @see PregenerateVariantsHandler
+     */
+    default List<String> getPregeneratedVariants() {
+        return List.of();
+    }
+
     /**
      * Stores that the given blob keys have been accessed.
      * <p>
      * This is used by {@link TouchWritebackLoop} to actually update the blobs. This method should not be
-     * invoked externally.
+     * invoked externally. Implementations should update all given blobs using a single statement, as the loop
+     * already splits the touched blobs into reasonably sized batches.
      *
      * @param blobKeys the set of keys to mark as accessed
      */
@@ -155,6 +155,44 @@ public interface Directory {
                         int maxResults,
                         Predicate<? super Blob> childProcessor);
 
+    /**
+     * Lists the child directories which are sorted after the given name and id.
+     * <p>
+     * In contrast to {@link #listChildDirectories(String, int, Predicate)}, this uses the (effective) name along with
+     * the id as cursor (keyset pagination). Therefore, very large directories can be enumerated block by block,
+     * without the database having to skip over all previously seen entries. As the id is used as tie-breaker,
+     * directories which share the same (effective) name are never skipped at the boundary of two blocks.
+     *
+     * @param lastName       the name of the last directory of the previous block or <tt>null</tt> to start with the
+     *                       first directory
+     * @param lastId         the id of the last directory of the previous block or <tt>null</tt> to start with the
+     *                       first directory
+     * @param maxResults     the maximal number of results to return or 0 to indicate that there is no upper limit
+     * @param childProcessor the processor which is used to iterate over the result
+     */
+    void listChildDirectoriesAfter(@Nullable String lastName,
+                                   @Nullable String lastId,
+                                   int maxResults,
+                                   Predicate<? super Directory> childProcessor);
+
+    /**
+     * Lists the child blobs which are sorted after the given filename and blob key.
+     * <p>
+     * Just like {@link #listChildDirectoriesAfter(String, String, int, Predicate)}, this uses the (effective)
+     * filename along with the blob key as cursor and always sorts by name.
+     *
+     * @param lastFilename   the filename of the last blob of the previous block or <tt>null</tt> to start with the
+     *                       first blob
+     * @param lastBlobKey    the blob key of the last blob of the previous block or <tt>null</tt> to start with the
+     *                       first blob
+     * @param maxResults     the maximal number of results to return or 0 to indicate that there is no upper limit
+     * @param childProcessor the processor which is used to iterate over the result
+     */
+    void listChildBlobsAfter(@Nullable String lastFilename,
+                             @Nullable String lastBlobKey,
+                             int maxResults,
+                             Predicate<? super Blob> childProcessor);
+
     /**
      * Executes a query for child blobs based on the filter settings given in the web context.
      * <p>
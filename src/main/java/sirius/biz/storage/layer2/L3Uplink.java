@@ -23,6 +23,7 @@ import sirius.kernel.commons.Files;
 import sirius.kernel.commons.Limit;
 import sirius.kernel.commons.Strings;
 import sirius.kernel.commons.Tuple;
+import sirius.kernel.di.std.ConfigValue;
 import sirius.kernel.di.std.Part;
 import sirius.kernel.di.std.Register;
 import sirius.web.controller.Page;
@@ -40,6 +41,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 /**
@@ -58,6 +60,9 @@ public class L3Uplink implements VFSRoot {
     @Part
     private VirtualFileSystem vfs;
 
+    @ConfigValue("storage.layer3.traversalParallelism")
+    private int traversalParallelism;
+
     /**
      * As the child provider is stateless, we can use a shared instance.
      */
@@ -130,6 +135,10 @@ public class L3Uplink implements VFSRoot {
      */
     protected class DirectoryChildProvider implements ChildProvider {
 
+        private static final String CURSOR_DIRECTORIES = "D";
+        private static final String CURSOR_BLOBS = "B";
+        private static final String CURSOR_SEPARATOR = ":";
+
         /**
          * Creates a placeholder for the given parent and name.
          *
@@ -231,6 +240,71 @@ public class L3Uplink implements VFSRoot {
                 }
             }
         }
+
+        @Override
+        @Nullable
+        public String enumerateBlock(VirtualFile parent,
+                                     @Nullable String cursor,
+                                     int blockSize,
+                                     Consumer<VirtualFile> consumer) {
+            Optional<Directory> parentDirectory = parent.tryAs(Directory.class);
+            if (parentDirectory.isEmpty()) {
+                return null;
+            }
+
+            // The cursor is either "D" or "B" (for directories or blobs) followed by the id (or blob key) and the name
+            // of the last child seen. As the id never contains the separator, the name may contain any character.
+            // Directories are enumerated first, followed by all blobs...
+            int remaining = blockSize;
+            if (cursor == null || cursor.startsWith(CURSOR_DIRECTORIES)) {
+                Tuple<String, String> lastDirectory = parseCursor(cursor);
+                List<Directory> directories = new ArrayList<>();
+                parentDirectory.get()
+                               .listChildDirectoriesAfter(lastDirectory.getSecond(),
+                                                          lastDirectory.getFirst(),
+                                                          blockSize,
+                                                          directories::add);
+                directories.forEach(directory -> consumer.accept(wrapDirectory(parent, directory, false)));
+                if (directories.size() == blockSize) {
+                    Directory last = directories.getLast();
+                    return CURSOR_DIRECTORIES + last.getIdAsString() + CURSOR_SEPARATOR + last.getName();
+                }
+
+                remaining -= directories.size();
+                cursor = null;
+            }
+
+            Tuple<String, String> lastBlob = parseCursor(cursor);
+            List<Blob> blobs = new ArrayList<>();
+            parentDirectory.get()
+                           .listChildBlobsAfter(lastBlob.getSecond(), lastBlob.getFirst(), remaining, blobs::add);
+            blobs.forEach(blob -> consumer.accept(wrapBlob(parent, blob, false)));
+            if (blobs.size() < remaining) {
+                return null;
+            }
+
+            Blob last = blobs.getLast();
+            return CURSOR_BLOBS + last.getBlobKey() + CURSOR_SEPARATOR + last.getFilename();
+        }
+
+        /**
+         * Splits the given cursor into the id (or blob key) and the name of the last child seen.
+         *
+         * @param cursor the cursor to parse
+         * @return a tuple containing the id and the name or a tuple of two <tt>null</tt> values if no cursor is given
+         */
+        private Tuple<String, String> parseCursor(@Nullable String cursor) {
+            if (cursor == null) {
+                return Tuple.create(null, null);
+            }
+
+            return Strings.split(cursor.substring(1), CURSOR_SEPARATOR);
+        }
+
+        @Override
+        public int getMaxTraversalParallelism() {
+            return traversalParallelism;
+        }
     }
 
     protected class DirectoryChildPageProvider implements ChildPageProvider {
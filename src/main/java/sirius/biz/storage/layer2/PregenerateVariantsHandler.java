@@ -0,0 +1,59 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.storage.layer2;
+
+import sirius.biz.storage.layer2.variants.ConversionEngine;
+import sirius.biz.storage.layer2.variants.ConversionPriority;
+import sirius.biz.storage.util.StorageUtils;
+import sirius.kernel.commons.Strings;
+import sirius.kernel.di.std.ConfigValue;
+import sirius.kernel.di.std.Part;
+import sirius.kernel.di.std.Register;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Starts the conversion of all {@link BlobStorageSpace#getPregeneratedVariants() pre-generated variants} once a blob
+ * has been created.
+ * <p>
+ * These conversions are performed with {@link ConversionPriority#BACKGROUND background priority}, so that the
+ * variants are most probably present once they are requested for the first time, without delaying any conversion
+ * a user is waiting for.
+ */
+@Register
+public class PregenerateVariantsHandler implements BlobCreatedHandler {
+
+    @ConfigValue("storage.layer2.conversion.enabled")
+    private boolean conversionEnabled;
+
+    @Part
+    private ConversionEngine conversionEngine;
+
+    @Override
+    public void execute(@Nonnull Blob blob) {
+        if (!conversionEnabled || blob.isTemporary() || Strings.isEmpty(blob.getPhysicalObjectKey())) {
+            return;
+        }
+
+        for (String variant : blob.getStorageSpace().getPregeneratedVariants()) {
+            if (conversionEngine.isKnownVariant(variant)) {
+                blob.tryCreateVariant(variant, ConversionPriority.BACKGROUND);
+            } else {
+                StorageUtils.LOG.WARN("Layer 2: Cannot pre-generate the unknown variant '%s' in space '%s'.",
+                                      variant,
+                                      blob.getSpaceName());
+            }
+        }
+    }
+
+    @Override
+    public int getPriority() {
+        return DEFAULT_PRIORITY;
+    }
+}
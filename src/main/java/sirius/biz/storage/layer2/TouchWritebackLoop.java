@@ -12,34 +12,57 @@ import sirius.biz.storage.util.StorageUtils;
 import sirius.kernel.async.BackgroundLoop;
 import sirius.kernel.commons.RateLimit;
 import sirius.kernel.commons.Strings;
-import sirius.kernel.commons.Tuple;
 import sirius.kernel.commons.Watch;
+import sirius.kernel.di.std.ConfigValue;
 import sirius.kernel.di.std.Part;
 import sirius.kernel.di.std.Register;
+import sirius.kernel.health.Counter;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.ArrayList;
-import java.util.List;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Aggregates to block-commits touch events.
  * <p>
+ * Touch events are de-duplicated per space as soon as they are recorded. Therefore, frequently accessed blobs only
+ * occupy a single entry, no matter how often they are touched. The buffered blobs are then written in batches
+ * (one statement per {@link #MAX_BLOBS_PER_UPDATE} blobs) for each space.
+ * <p>
  * This way we limit the max number of events being recorded, as in an overload condition, we rather want to simply
- * interrupt tracking instead of taking the whole system down.
+ * interrupt tracking instead of taking the whole system down. Also, each space is limited to a maximal number
+ * of blobs being written per run, so that a single busy space cannot monopolize the database. Any remaining blobs
+ * are kept and written in the next run.
  */
 @Register(classes = {TouchWritebackLoop.class, BackgroundLoop.class}, framework = StorageUtils.FRAMEWORK_STORAGE)
 public class TouchWritebackLoop extends BackgroundLoop {
 
-    private final BlockingQueue<Tuple<String, String>> touchedBlobs = new LinkedBlockingQueue<>(32768);
+    /**
+     * Contains the maximal number of blobs being marked as touched in a single statement.
+     */
+    private static final int MAX_BLOBS_PER_UPDATE = 500;
+
+    private final Map<String, Set<String>> touchedBlobsPerSpace = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingTouches = new AtomicInteger();
+    private final Counter recordedTouches = new Counter();
+    private final Counter mergedTouches = new Counter();
+    private final Counter droppedTouches = new Counter();
+    private final Counter writtenTouches = new Counter();
     private final RateLimit logLimit = RateLimit.timeInterval(10, TimeUnit.MINUTES);
 
+    @ConfigValue("storage.layer2.touchWriteback.maxPendingTouches")
+    private int maxPendingTouches;
+
+    @ConfigValue("storage.layer2.touchWriteback.maxTouchesPerSpace")
+    private int maxTouchesPerSpace;
+
     @Part
     private BlobStorage blobStorage;
 
@@ -58,10 +81,25 @@ public class TouchWritebackLoop extends BackgroundLoop {
             return;
         }
 
-        boolean added = touchedBlobs.offer(Tuple.create(space, blobKey));
-        if (!added && logLimit.check()) {
-            StorageUtils.LOG.WARN("Layer2: Dropping touch events as the internal queue is full!");
-        }
+        recordedTouches.inc();
+
+        // Note that compute is atomic per space, therefore no touch can get lost while doWork removes the set...
+        touchedBlobsPerSpace.compute(space, (ignored, blobKeys) -> {
+            Set<String> effectiveBlobKeys = blobKeys == null ? new HashSet<>() : blobKeys;
+            if (effectiveBlobKeys.contains(blobKey)) {
+                mergedTouches.inc();
+            } else if (pendingTouches.get() >= maxPendingTouches) {
+                droppedTouches.inc();
+                if (logLimit.check()) {
+                    StorageUtils.LOG.WARN("Layer2: Dropping touch events as the internal buffer is full!");
+                }
+            } else {
+                effectiveBlobKeys.add(blobKey);
+                pendingTouches.incrementAndGet();
+            }
+
+            return effectiveBlobKeys.isEmpty() ? null : effectiveBlobKeys;
+        });
     }
 
     @Nonnull
@@ -83,30 +121,123 @@ public class TouchWritebackLoop extends BackgroundLoop {
     @Nullable
     @Override
     protected String doWork() throws Exception {
-        Watch w = Watch.start();
-        List<Tuple<String, String>> unitOfWork = new ArrayList<>();
-        touchedBlobs.drainTo(unitOfWork);
-
         if (blobStorage == null) {
             return null;
         }
 
-        Map<String, Set<String>> blobsPerSpace = unitOfWork.stream()
-                                                           .collect(Collectors.groupingBy(Tuple::getFirst,
-                                                                                          Collectors.mapping(Tuple::getSecond,
-                                                                                                             Collectors.toSet())));
-
-        blobsPerSpace.forEach((space, keys) -> {
-            blobStorage.getSpace(space).markTouched(keys);
-        });
+        Watch watch = Watch.start();
+        int numberOfTouchedBlobs = 0;
+        int numberOfTouchedSpaces = 0;
+        for (String space : new ArrayList<>(touchedBlobsPerSpace.keySet())) {
+            Set<String> blobKeys = touchedBlobsPerSpace.remove(space);
+            if (blobKeys != null) {
+                pendingTouches.addAndGet(-blobKeys.size());
+                numberOfTouchedBlobs += writeTouches(space, blobKeys);
+                numberOfTouchedSpaces++;
+            }
+        }
 
-        if (blobsPerSpace.isEmpty()) {
+        if (numberOfTouchedSpaces == 0) {
             return null;
         } else {
             return Strings.apply("Touched %s blobs in %s spaces within %s",
-                                 unitOfWork.size(),
-                                 blobsPerSpace.entrySet().size(),
-                                 w.duration());
+                                 numberOfTouchedBlobs,
+                                 numberOfTouchedSpaces,
+                                 watch.duration());
         }
     }
+
+    private int writeTouches(String space, Set<String> blobKeys) {
+        BlobStorageSpace storageSpace = blobStorage.getSpace(space);
+        Iterator<String> iterator = blobKeys.iterator();
+        int numberOfTouchedBlobs = 0;
+        while (iterator.hasNext() && numberOfTouchedBlobs < maxTouchesPerSpace) {
+            Set<String> batch = new HashSet<>();
+            while (iterator.hasNext() && batch.size() < MAX_BLOBS_PER_UPDATE) {
+                batch.add(iterator.next());
+            }
+
+            storageSpace.markTouched(batch);
+            numberOfTouchedBlobs += batch.size();
+        }
+
+        writtenTouches.add(numberOfTouchedBlobs);
+
+        if (iterator.hasNext()) {
+            Set<String> remainingBlobKeys = new HashSet<>();
+            iterator.forEachRemaining(remainingBlobKeys::add);
+            requeueTouches(space, remainingBlobKeys);
+        }
+
+        return numberOfTouchedBlobs;
+    }
+
+    /**
+     * Puts the blobs which exceeded the write budget of a space back into the buffer, so that they are written in
+     * the next run.
+     *
+     * @param space    the space which contains the blobs
+     * @param blobKeys the keys of the blobs to mark as touched
+     */
+    private void requeueTouches(String space, Set<String> blobKeys) {
+        touchedBlobsPerSpace.compute(space, (ignored, pendingBlobKeys) -> {
+            if (pendingBlobKeys == null) {
+                pendingTouches.addAndGet(blobKeys.size());
+                return blobKeys;
+            }
+
+            for (String blobKey : blobKeys) {
+                if (pendingBlobKeys.add(blobKey)) {
+                    pendingTouches.incrementAndGet();
+                }
+            }
+
+            return pendingBlobKeys;
+        });
+    }
+
+    /**
+     * Returns the number of touch events which have been recorded.
+     *
+     * @return the number of recorded touch events
+     */
+    public long getRecordedTouches() {
+        return recordedTouches.getCount();
+    }
+
+    /**
+     * Returns the number of touch events which have been merged into an already buffered touch of the same blob.
+     *
+     * @return the number of merged touch events
+     */
+    public long getMergedTouches() {
+        return mergedTouches.getCount();
+    }
+
+    /**
+     * Returns the number of touch events which have been dropped as the buffer was full.
+     *
+     * @return the number of dropped touch events
+     */
+    public long getDroppedTouches() {
+        return droppedTouches.getCount();
+    }
+
+    /**
+     * Returns the number of blobs which have been marked as touched in the database.
+     *
+     * @return the number of written touches
+     */
+    public long getWrittenTouches() {
+        return writtenTouches.getCount();
+    }
+
+    /**
+     * Returns the number of distinct blobs which are currently buffered and waiting to be written.
+     *
+     * @return the number of pending touches
+     */
+    public int getPendingTouches() {
+        return pendingTouches.get();
+    }
 }
@@ -20,8 +20,7 @@ import sirius.db.jdbc.OMA;
 import sirius.db.jdbc.Operator;
 import sirius.db.jdbc.SmartQuery;
 import sirius.db.jdbc.UpdateStatement;
-import sirius.db.jdbc.batch.BatchContext;
-import sirius.db.jdbc.batch.UpdateQuery;
+import sirius.db.jdbc.constraints.SQLConstraint;
 import sirius.db.mixing.DateRange;
 import sirius.db.mixing.Mapping;
 import sirius.db.mixing.Mixing;
@@ -41,7 +40,6 @@ import sirius.web.http.WebContext;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.sql.SQLException;
-import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
@@ -657,6 +655,30 @@ public class SQLBlobStorageSpace extends BasicBlobStorageSpace<SQLBlob, SQLDirec
            .iterate(childProcessor::test);
     }
 
+    protected void listChildDirectoriesAfter(SQLDirectory parent,
+                                             @Nullable String lastName,
+                                             @Nullable String lastId,
+                                             int maxResults,
+                                             Predicate<? super Directory> childProcessor) {
+        SmartQuery<SQLDirectory> query = oma.select(SQLDirectory.class)
+                                            .eq(SQLDirectory.SPACE_NAME, spaceName)
+                                            .eq(SQLDirectory.PARENT, parent)
+                                            .eq(SQLDirectory.COMMITTED, true)
+                                            .eq(SQLDirectory.DELETED, false);
+        if (lastName != null && lastId != null) {
+            // As several directories might share the same effective name, the id is used as tie-breaker...
+            query.where(sortedAfter(effectiveDirectoryNameMapping(),
+                                    effectiveFilename(lastName),
+                                    SQLDirectory.ID,
+                                    Long.parseLong(lastId)));
+        }
+
+        query.limit(maxResults)
+             .orderAsc(effectiveDirectoryNameMapping())
+             .orderAsc(SQLDirectory.ID)
+             .iterate(childProcessor::test);
+    }
+
     protected Optional<SQLBlob> findExistingChildBlob(SQLDirectory parent, String childName) {
         return childBlobQuery(parent, childName).first();
     }
@@ -773,6 +795,47 @@ public class SQLBlobStorageSpace extends BasicBlobStorageSpace<SQLBlob, SQLDirec
         query.iterate(childProcessor::test);
     }
 
+    protected void listChildBlobsAfter(SQLDirectory parent,
+                                       @Nullable String lastFilename,
+                                       @Nullable String lastBlobKey,
+                                       int maxResults,
+                                       Predicate<? super Blob> childProcessor) {
+        SmartQuery<SQLBlob> query = oma.select(SQLBlob.class)
+                                       .eq(SQLBlob.SPACE_NAME, spaceName)
+                                       .eq(SQLBlob.PARENT, parent)
+                                       .eq(SQLBlob.COMMITTED, true)
+                                       .eq(SQLBlob.DELETED, false);
+        if (lastFilename != null && lastBlobKey != null) {
+            // As several blobs might share the same effective filename, the blob key is used as tie-breaker...
+            query.where(sortedAfter(effectiveFilenameMapping(),
+                                    effectiveFilename(lastFilename),
+                                    SQLBlob.BLOB_KEY,
+                                    lastBlobKey));
+        }
+
+        query.limit(maxResults)
+             .orderAsc(effectiveFilenameMapping())
+             .orderAsc(SQLBlob.BLOB_KEY)
+             .iterate(childProcessor::test);
+    }
+
+    /**
+     * Creates a constraint which matches all entities sorted after the given cursor.
+     * <p>
+     * The entities are expected to be sorted by the given name and then by the given tie-breaker field.
+     *
+     * @param nameField      the field containing the name
+     * @param lastName       the name of the last entity seen
+     * @param tieBreaker     the unique field which is used to sort entities sharing the same name
+     * @param lastTieBreaker the value of the tie-breaker field of the last entity seen
+     * @return a constraint which only matches entities sorted after the given cursor
+     */
+    private SQLConstraint sortedAfter(Mapping nameField, String lastName, Mapping tieBreaker, Object lastTieBreaker) {
+        return OMA.FILTERS.or(OMA.FILTERS.gt(nameField, lastName),
+                              OMA.FILTERS.and(OMA.FILTERS.eq(nameField, lastName),
+                                              OMA.FILTERS.gt(tieBreaker, lastTieBreaker)));
+    }
+
     protected BasePageHelper<? extends Blob, ?, ?, ?> queryChildBlobsAsPage(SQLDirectory parent,
                                                                             WebContext webContext) {
         SmartQuery<SQLBlob> blobsQuery = oma.select(SQLBlob.class)
@@ -1013,15 +1076,16 @@ public class SQLBlobStorageSpace extends BasicBlobStorageSpace<SQLBlob, SQLDirec
 
     @Override
     public void markTouched(Set<String> blobKeys) {
-        try (BatchContext batchContext = new BatchContext(() -> "Mark SQLBlobs as touched", Duration.ofMinutes(1))) {
-            UpdateQuery<SQLBlob> markTouchedQuery =
-                    batchContext.updateQuery(SQLBlob.class, SQLBlob.BLOB_KEY).withUpdatedMappings(SQLBlob.LAST_TOUCHED);
-            SQLBlob template = new SQLBlob();
-            template.setLastTouched(LocalDateTime.now());
-            for (String blobKey : blobKeys) {
-                template.setBlobKey(blobKey);
-                markTouchedQuery.update(template, false, false);
-            }
+        if (blobKeys.isEmpty()) {
+            return;
+        }
+
+        try {
+            oma.updateStatement(SQLBlob.class)
+               .set(SQLBlob.LAST_TOUCHED, LocalDateTime.now())
+               .where(SQLBlob.SPACE_NAME, spaceName)
+               .whereIn(SQLBlob.BLOB_KEY, blobKeys)
+               .executeUpdate();
         } catch (Exception exception) {
             Exceptions.handle()
                       .to(StorageUtils.LOG)
@@ -15,6 +15,7 @@ import sirius.biz.storage.layer2.Directory;
 import sirius.biz.storage.layer2.OptimisticCreate;
 import sirius.biz.storage.layer2.URLBuilder;
 import sirius.biz.storage.layer2.variants.BlobVariant;
+import sirius.biz.storage.layer2.variants.ConversionPriority;
 import sirius.biz.storage.util.StorageUtils;
 import sirius.db.KeyGenerator;
 import sirius.db.mixing.Mapping;
@@ -343,6 +344,11 @@ public class MongoBlob extends MongoEntity implements Blob, OptimisticCreate {
         return getStorageSpace().tryCreateVariant(this, inputFile, variantName);
     }
 
+    @Override
+    public Future tryCreateVariant(String variantName, ConversionPriority priority) {
+        return getStorageSpace().tryCreateVariant(this, null, variantName, priority);
+    }
+
     @Override
     public void delete() {
         getStorageSpace().delete(this);
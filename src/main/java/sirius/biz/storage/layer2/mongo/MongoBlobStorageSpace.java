@@ -25,6 +25,7 @@ import sirius.db.mongo.Mongo;
 import sirius.db.mongo.MongoQuery;
 import sirius.db.mongo.QueryBuilder;
 import sirius.db.mongo.Updater;
+import sirius.db.mongo.constraints.MongoConstraint;
 import sirius.kernel.async.CallContext;
 import sirius.kernel.commons.Explain;
 import sirius.kernel.commons.Files;
@@ -38,6 +39,7 @@ import sirius.web.http.WebContext;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
@@ -569,6 +571,30 @@ public class MongoBlobStorageSpace extends BasicBlobStorageSpace<MongoBlob, Mong
              .iterate(childProcessor::test);
     }
 
+    protected void listChildDirectoriesAfter(MongoDirectory parent,
+                                             @Nullable String lastName,
+                                             @Nullable String lastId,
+                                             int maxResults,
+                                             Predicate<? super Directory> childProcessor) {
+        MongoQuery<MongoDirectory> query = mango.select(MongoDirectory.class)
+                                                .eq(MongoDirectory.SPACE_NAME, spaceName)
+                                                .eq(MongoDirectory.PARENT, parent)
+                                                .eq(MongoDirectory.COMMITTED, true)
+                                                .eq(MongoDirectory.DELETED, false);
+        if (lastName != null && lastId != null) {
+            // As several directories might share the same effective name, the id is used as tie-breaker...
+            query.where(sortedAfter(effectiveDirectoryNameMapping(),
+                                    effectiveFilename(lastName),
+                                    MongoDirectory.ID,
+                                    lastId));
+        }
+
+        query.limit(maxResults)
+             .orderAsc(effectiveDirectoryNameMapping())
+             .orderAsc(MongoDirectory.ID)
+             .iterate(childProcessor::test);
+    }
+
     protected Optional<MongoBlob> findExistingChildBlob(MongoDirectory parent, String childName) {
         return childBlobQuery(parent, childName).first();
     }
@@ -683,6 +709,47 @@ public class MongoBlobStorageSpace extends BasicBlobStorageSpace<MongoBlob, Mong
         blobsQuery.iterate(childProcessor::test);
     }
 
+    protected void listChildBlobsAfter(MongoDirectory parent,
+                                       @Nullable String lastFilename,
+                                       @Nullable String lastBlobKey,
+                                       int maxResults,
+                                       Predicate<? super Blob> childProcessor) {
+        MongoQuery<MongoBlob> query = mango.select(MongoBlob.class)
+                                           .eq(MongoBlob.SPACE_NAME, spaceName)
+                                           .eq(MongoBlob.PARENT, parent)
+                                           .eq(MongoBlob.COMMITTED, true)
+                                           .eq(MongoBlob.DELETED, false);
+        if (lastFilename != null && lastBlobKey != null) {
+            // As several blobs might share the same effective filename, the blob key is used as tie-breaker...
+            query.where(sortedAfter(effectiveFilenameMapping(),
+                                    effectiveFilename(lastFilename),
+                                    MongoBlob.BLOB_KEY,
+                                    lastBlobKey));
+        }
+
+        query.limit(maxResults)
+             .orderAsc(effectiveFilenameMapping())
+             .orderAsc(MongoBlob.BLOB_KEY)
+             .iterate(childProcessor::test);
+    }
+
+    /**
+     * Creates a constraint which matches all entities sorted after the given cursor.
+     * <p>
+     * The entities are expected to be sorted by the given name and then by the given tie-breaker field.
+     *
+     * @param nameField      the field containing the name
+     * @param lastName       the name of the last entity seen
+     * @param tieBreaker     the unique field which is used to sort entities sharing the same name
+     * @param lastTieBreaker the value of the tie-breaker field of the last entity seen
+     * @return a constraint which only matches entities sorted after the given cursor
+     */
+    private MongoConstraint sortedAfter(Mapping nameField, String lastName, Mapping tieBreaker, String lastTieBreaker) {
+        return QueryBuilder.FILTERS.or(QueryBuilder.FILTERS.gt(nameField, lastName),
+                                       QueryBuilder.FILTERS.and(QueryBuilder.FILTERS.eq(nameField, lastName),
+                                                                QueryBuilder.FILTERS.gt(tieBreaker, lastTieBreaker)));
+    }
+
     protected BasePageHelper<? extends Blob, ?, ?, ?> queryChildBlobsAsPage(MongoDirectory parent,
                                                                             WebContext webContext) {
         MongoQuery<MongoBlob> blobsQuery = mango.select(MongoBlob.class)
@@ -911,10 +978,14 @@ public class MongoBlobStorageSpace extends BasicBlobStorageSpace<MongoBlob, Mong
 
     @Override
     public void markTouched(Set<String> blobKeys) {
-        blobKeys.forEach(blobKey -> mongo.update()
-                                         .set(MongoBlob.LAST_TOUCHED, LocalDateTime.now())
-                                         .where(MongoBlob.BLOB_KEY, blobKey)
-                                         .executeForOne(MongoBlob.class));
+        if (blobKeys.isEmpty()) {
+            return;
+        }
+
+        mongo.update()
+             .set(MongoBlob.LAST_TOUCHED, LocalDateTime.now())
+             .where(QueryBuilder.FILTERS.oneInField(MongoBlob.BLOB_KEY, new ArrayList<>(blobKeys)).build())
+             .executeForMany(MongoBlob.class);
     }
 
     @Override
@@ -211,6 +211,22 @@ public class MongoDirectory extends MongoEntity implements Directory, Optimistic
         getStorageSpace().listChildDirectories(this, prefixFilter, maxResults, childProcessor);
     }
 
+    @Override
+    public void listChildDirectoriesAfter(@Nullable String lastName,
+                                          @Nullable String lastId,
+                                          int maxResults,
+                                          Predicate<? super Directory> childProcessor) {
+        getStorageSpace().listChildDirectoriesAfter(this, lastName, lastId, maxResults, childProcessor);
+    }
+
+    @Override
+    public void listChildBlobsAfter(@Nullable String lastFilename,
+                                    @Nullable String lastBlobKey,
+                                    int maxResults,
+                                    Predicate<? super Blob> childProcessor) {
+        getStorageSpace().listChildBlobsAfter(this, lastFilename, lastBlobKey, maxResults, childProcessor);
+    }
+
     @Override
     public void listChildBlobs(@Nullable String prefixFilter,
                                @Nullable Set<String> fileTypes,
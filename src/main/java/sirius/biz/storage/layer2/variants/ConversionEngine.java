@@ -24,6 +24,7 @@ import sirius.kernel.di.GlobalContext;
 import sirius.kernel.di.std.Part;
 import sirius.kernel.di.std.Register;
 import sirius.kernel.health.Average;
+import sirius.kernel.health.Counter;
 import sirius.kernel.health.Exceptions;
 import sirius.kernel.nls.NLS;
 import sirius.kernel.settings.Extension;
@@ -48,6 +49,13 @@ import java.util.stream.Stream;
  * <p>
  * Using this approach, we can provide some standard converters and standard variants which can be fully customized
  * in applications by either overwriting the variants or the converters.
+ * <p>
+ * Conversions are scheduled by the {@link ConversionScheduler} based on their {@link ConversionPriority} into separate
+ * bounded executors. Additionally, the number of parallel conversions per converter can be limited via
+ * <tt>maxParallelConversions</tt> in its config, so that expensive converters cannot occupy all workers. Finally, the
+ * engine keeps track of all conversions running on this node, so that concurrent requests for the same variant can
+ * simply await the result of the conversion in flight instead of starting another one. If such a request is more
+ * urgent than the conversion in flight, the latter is promoted.
  */
 @Register(classes = ConversionEngine.class)
 public class ConversionEngine {
@@ -56,10 +64,23 @@ public class ConversionEngine {
     private static final String CONFIG_KEY_FILE_EXTENSION = "fileExtension";
     private static final String CONFIG_KEY_CONVERTER = "converter";
     private static final String CONFIG_KEY_CONVERTERS = "storage.layer2.conversion.converters";
-    private static final String EXECUTOR_STORAGE_CONVERSION = "storage-conversion";
     private static final String CONFIG_KEY_TYPE = "type";
+    private static final String CONFIG_KEY_MAX_PARALLEL_CONVERSIONS = "maxParallelConversions";
 
     private final Average conversionDuration = new Average();
+    private final Counter coalescedConversions = new Counter();
+    private final ConversionScheduler scheduler =
+            new ConversionScheduler(this::executeConversion, this::determineMaxParallelConversions);
+
+    /**
+     * Contains the conversions currently performed by this node, keyed by blob key and variant name.
+     */
+    private final Map<String, Future> conversionsInFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Contains the name of the converter used by each variant.
+     */
+    private final Map<String, String> converterNamePerVariant = new ConcurrentHashMap<>();
 
     @Part
     private Tasks tasks;
@@ -184,15 +205,41 @@ public class ConversionEngine {
 
     /**
      * Invokes the {@link Converter} which has been configured for the given variant to perform the actual conversion.
+     * <p>
+     * The conversion is executed in the executor of its {@link ConversionProcess#getPriority() priority} as soon as
+     * its converter has a free slot.
      *
      * @param result            a future which is fulfilled once the conversion is completed
      * @param conversionProcess the conversion to perform
      */
     public void performConversion(Future result, ConversionProcess conversionProcess) {
         Watch queueWatch = Watch.start();
-        tasks.executor(EXECUTOR_STORAGE_CONVERSION)
-             .dropOnOverload(() -> result.fail(new IllegalStateException("Conversion subsystem overloaded!")))
-             .fork(() -> doConversion(conversionProcess, result, queueWatch));
+        scheduler.schedule(computeConversionKey(conversionProcess.getBlobToConvert().getBlobKey(),
+                                                conversionProcess.getVariantName()),
+                           determineConverterName(conversionProcess.getVariantName()),
+                           conversionProcess.getPriority(),
+                           () -> doConversion(conversionProcess, result, queueWatch),
+                           result::fail);
+    }
+
+    private void executeConversion(ConversionPriority priority, Runnable conversion, Runnable dropHandler) {
+        tasks.executor(priority.getExecutor()).dropOnOverload(dropHandler).fork(conversion);
+    }
+
+    private String determineConverterName(String variant) {
+        return converterNamePerVariant.computeIfAbsent(variant, ignored -> {
+            Extension variantConfig = Sirius.getSettings().getExtension(CONFIG_KEY_VARIANTS, variant);
+            return variantConfig == null ? "" : variantConfig.get(CONFIG_KEY_CONVERTER).asString();
+        });
+    }
+
+    private int determineMaxParallelConversions(String converter) {
+        Extension converterConfig = Sirius.getSettings().getExtension(CONFIG_KEY_CONVERTERS, converter);
+        if (converterConfig == null) {
+            return 0;
+        }
+
+        return converterConfig.get(CONFIG_KEY_MAX_PARALLEL_CONVERSIONS).asInt(0);
     }
 
     private void doConversion(ConversionProcess conversionProcess, Future result, Watch queueWatch) {
@@ -270,6 +317,89 @@ public class ConversionEngine {
         return conversionDuration;
     }
 
+    /**
+     * Returns the number of conversions which are waiting to be executed.
+     *
+     * @param priority the priority of the conversions to count
+     * @return the number of conversions of the given priority which are queued or parked
+     */
+    public int getQueuedConversions(ConversionPriority priority) {
+        return scheduler.getQueuedConversions(priority);
+    }
+
+    /**
+     * Returns the number of requests which joined a conversion already in flight instead of starting a new one.
+     *
+     * @return the counter of coalesced conversion requests
+     */
+    public Counter getCoalescedConversions() {
+        return coalescedConversions;
+    }
+
+    /**
+     * Records that the given conversion is being performed on this node.
+     * <p>
+     * The conversion is automatically removed once the given future is completed.
+     *
+     * @param blobKey     the key of the blob being converted
+     * @param variantName the name of the variant being generated
+     * @param conversion  the future which is completed once the variant has been stored
+     */
+    public void trackConversionInFlight(String blobKey, String variantName, Future conversion) {
+        String key = computeConversionKey(blobKey, variantName);
+        conversionsInFlight.put(key, conversion);
+        conversion.onSuccess(ignored -> conversionsInFlight.remove(key, conversion))
+                  .onFailure(ignored -> conversionsInFlight.remove(key, conversion));
+    }
+
+    /**
+     * Returns the conversion of the given variant which is currently performed on this node.
+     *
+     * @param blobKey     the key of the blob being converted
+     * @param variantName the name of the variant being generated
+     * @return the future which is completed once the variant has been stored or <tt>null</tt> if no such conversion
+     * is in flight
+     */
+    @Nullable
+    public Future findConversionInFlight(String blobKey, String variantName) {
+        Future conversion = conversionsInFlight.get(computeConversionKey(blobKey, variantName));
+        if (conversion == null || conversion.isCompleted()) {
+            return null;
+        }
+
+        return conversion;
+    }
+
+    /**
+     * Returns the conversion of the given variant which is currently performed on this node and records that another
+     * request awaits its result.
+     *
+     * <p>
+     * If the conversion hasn't been started yet and has a less urgent priority than the given one, it is promoted.
+     * Otherwise, a user would have to wait for a variant which is pre-generated in the background until all
+     * background conversions ahead of it have been completed.
+     *
+     * @param blobKey     the key of the blob being converted
+     * @param variantName the name of the variant being generated
+     * @param priority    the priority of the request which awaits the result
+     * @return the future which is completed once the variant has been stored or <tt>null</tt> if no such conversion
+     * is in flight
+     */
+    @Nullable
+    public Future joinConversionInFlight(String blobKey, String variantName, ConversionPriority priority) {
+        Future conversion = findConversionInFlight(blobKey, variantName);
+        if (conversion != null) {
+            coalescedConversions.inc();
+            scheduler.promote(computeConversionKey(blobKey, variantName), priority);
+        }
+
+        return conversion;
+    }
+
+    private String computeConversionKey(String blobKey, String variantName) {
+        return blobKey + "-" + variantName;
+    }
+
     /**
      * Creates a config supplier for a variant which combines its config with the converter config.
      *
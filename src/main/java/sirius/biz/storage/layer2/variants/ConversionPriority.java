@@ -0,0 +1,43 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.storage.layer2.variants;
+
+/**
+ * Determines how urgent a {@link ConversionProcess} is.
+ * <p>
+ * Each priority is executed by its own executor, so that pre-generating variants in the background never delays
+ * conversions for which a user is actively waiting.
+ */
+public enum ConversionPriority {
+
+    /**
+     * Marks conversions which are requested by a user (e.g. a preview image to be shown in the browser).
+     */
+    INTERACTIVE("storage-conversion"),
+
+    /**
+     * Marks conversions which are performed in advance, e.g. when pre-generating variants for a new blob.
+     */
+    BACKGROUND("storage-conversion-background");
+
+    private final String executor;
+
+    ConversionPriority(String executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the name of the executor which performs conversions of this priority.
+     *
+     * @return the name of the executor to use
+     */
+    public String getExecutor() {
+        return executor;
+    }
+}
@@ -12,6 +12,7 @@ import sirius.biz.storage.layer1.FileHandle;
 import sirius.biz.storage.layer2.Blob;
 import sirius.kernel.commons.Producer;
 import sirius.kernel.commons.Watch;
+import sirius.kernel.di.std.Part;
 
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -24,9 +25,13 @@ import java.io.FileNotFoundException;
  */
 public class ConversionProcess {
 
+    @Part
+    private static SourceFileCache sourceFileCache;
+
     private final Blob blobToConvert;
     private File fileToConvert;
     private final String variantName;
+    private ConversionPriority priority = ConversionPriority.INTERACTIVE;
     private FileHandle fileHandle;
     private long queueDuration;
     private long transferDuration;
@@ -51,6 +56,23 @@ public class ConversionProcess {
         return variantName;
     }
 
+    /**
+     * Specifies the priority of this conversion.
+     * <p>
+     * By default, all conversions are considered {@link ConversionPriority#INTERACTIVE interactive}.
+     *
+     * @param priority the priority to use
+     * @return the object itself for fluent method calls
+     */
+    public ConversionProcess withPriority(ConversionPriority priority) {
+        this.priority = priority;
+        return this;
+    }
+
+    public ConversionPriority getPriority() {
+        return priority;
+    }
+
     /**
      * Records time the task spent in a queue waited to be executed.
      *
@@ -139,7 +161,8 @@ public class ConversionProcess {
      * Returns a file handle to an input file for conversion.
      * <p>
      * This can either be a permanent file handle pointing to a previously supplied file, or a temporary one
-     * pointing to a file freshly downloaded from the {@linkplain #blobToConvert blob}.
+     * pointing to a file freshly downloaded from the {@linkplain #blobToConvert blob}. Downloads are served via the
+     * {@link SourceFileCache}, so that converting several variants of the same blob only downloads it once.
      *
      * @return a {@link FileHandle} to the file to use for conversion
      * @throws Exception if a file cannot be obtained
@@ -147,10 +170,7 @@ public class ConversionProcess {
     public FileHandle obtainInputFile() throws Exception {
         FileHandle inputFile = obtainFileToConvert();
         if (inputFile == null) {
-            inputFile = download(() -> blobToConvert.download()
-                                                    .orElseThrow(() -> new FileNotFoundException(
-                                                            "Cannot obtain the file from blob key "
-                                                            + blobToConvert.getBlobKey())));
+            inputFile = download(() -> sourceFileCache.download(blobToConvert));
         }
         return inputFile;
     }
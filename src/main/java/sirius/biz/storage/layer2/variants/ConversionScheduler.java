@@ -0,0 +1,316 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.storage.layer2.variants;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+/**
+ * Schedules the conversions of the {@link ConversionEngine} based on their {@link ConversionPriority} and the limits
+ * of their converters.
+ * <p>
+ * Each converter can limit the number of its parallel conversions. Conversions which exceed this limit are parked and
+ * started as soon as a running conversion of the same converter completes (interactive ones first).
+ * <p>
+ * A conversion which hasn't started yet can be {@link #promote(String, ConversionPriority) promoted} to a more urgent
+ * priority. This is used if a user requests a variant which is already being pre-generated in the background, as the
+ * user would otherwise have to wait until all background conversions ahead have been completed.
+ */
+class ConversionScheduler {
+
+    /**
+     * Limits the number of conversions which are parked per converter as its limit of parallel conversions is reached.
+     */
+    static final int MAX_PENDING_CONVERSIONS_PER_CONVERTER = 1024;
+
+    private final PriorityExecutor executor;
+    private final ToIntFunction<String> maxParallelConversionsProvider;
+    private final Map<ConversionPriority, AtomicInteger> queuedConversions = new EnumMap<>(ConversionPriority.class);
+    private final Map<String, ConverterSlots> slotsPerConverter = new ConcurrentHashMap<>();
+
+    /**
+     * Contains all conversions which have been scheduled but not started yet, keyed by their conversion key.
+     */
+    private final Map<String, ScheduledConversion> scheduledConversions = new ConcurrentHashMap<>();
+
+    /**
+     * Executes a conversion in the executor of the given priority.
+     */
+    @FunctionalInterface
+    interface PriorityExecutor {
+
+        /**
+         * Executes the given task.
+         *
+         * @param priority    the priority which determines the executor to use
+         * @param task        the task to execute
+         * @param dropHandler invoked instead of the task if the executor is overloaded
+         */
+        void execute(ConversionPriority priority, Runnable task, Runnable dropHandler);
+    }
+
+    /**
+     * Represents a conversion which has been scheduled but not completed yet.
+     */
+    private static class ScheduledConversion {
+
+        private final String conversionKey;
+        private final ConverterSlots slots;
+        private final Runnable conversion;
+        private final Consumer<Exception> failureHandler;
+        private ConversionPriority priority;
+        private boolean started;
+
+        ScheduledConversion(String conversionKey,
+                            ConverterSlots slots,
+                            ConversionPriority priority,
+                            Runnable conversion,
+                            Consumer<Exception> failureHandler) {
+            this.conversionKey = conversionKey;
+            this.slots = slots;
+            this.priority = priority;
+            this.conversion = conversion;
+            this.failureHandler = failureHandler;
+        }
+
+        synchronized ConversionPriority getPriority() {
+            return priority;
+        }
+    }
+
+    /**
+     * Limits the number of parallel conversions of a single converter.
+     */
+    private static class ConverterSlots {
+
+        private final int maxParallelConversions;
+        private final Map<ConversionPriority, Deque<ScheduledConversion>> pendingConversions =
+                new EnumMap<>(ConversionPriority.class);
+        private int activeConversions;
+        private int numPendingConversions;
+
+        ConverterSlots(int maxParallelConversions) {
+            this.maxParallelConversions = maxParallelConversions;
+            for (ConversionPriority priority : ConversionPriority.values()) {
+                pendingConversions.put(priority, new ArrayDeque<>());
+            }
+        }
+
+        /**
+         * Tries to acquire a slot for the given conversion or parks it otherwise.
+         *
+         * @param conversion the conversion to start
+         * @return <tt>true</tt> if a slot was acquired and the conversion can be started, <tt>false</tt> if the
+         * conversion has been parked until a slot is released
+         * @throws IllegalStateException if too many conversions are already parked
+         */
+        synchronized boolean tryAcquire(ScheduledConversion conversion) {
+            if (maxParallelConversions <= 0 || activeConversions < maxParallelConversions) {
+                activeConversions++;
+                return true;
+            }
+
+            if (numPendingConversions >= MAX_PENDING_CONVERSIONS_PER_CONVERTER) {
+                throw new IllegalStateException("Conversion subsystem overloaded!");
+            }
+
+            pendingConversions.get(conversion.getPriority()).addLast(conversion);
+            numPendingConversions++;
+            return false;
+        }
+
+        /**
+         * Moves a parked conversion into the queue of its current priority.
+         *
+         * @param conversion the conversion which has been promoted
+         * @return <tt>true</tt> if the conversion was parked and has been moved, <tt>false</tt> if it isn't parked
+         * (anymore)
+         */
+        synchronized boolean repark(ScheduledConversion conversion) {
+            for (Deque<ScheduledConversion> pending : pendingConversions.values()) {
+                if (pending.remove(conversion)) {
+                    pendingConversions.get(conversion.getPriority()).addLast(conversion);
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        /**
+         * Releases a slot.
+         *
+         * @return the parked conversion which takes over the released slot or <tt>null</tt> if none is pending
+         */
+        @Nullable
+        synchronized ScheduledConversion release() {
+            // Priorities are declared in descending order of urgency...
+            for (ConversionPriority priority : ConversionPriority.values()) {
+                ScheduledConversion next = pendingConversions.get(priority).pollFirst();
+                if (next != null) {
+                    numPendingConversions--;
+                    return next;
+                }
+            }
+
+            activeConversions--;
+            return null;
+        }
+    }
+
+    /**
+     * Creates a new scheduler.
+     *
+     * @param executor                       executes the conversions based on their priority
+     * @param maxParallelConversionsProvider determines the maximal number of parallel conversions of a converter.
+     *                                       A value of 0 or less disables the limit
+     */
+    ConversionScheduler(PriorityExecutor executor, ToIntFunction<String> maxParallelConversionsProvider) {
+        this.executor = executor;
+        this.maxParallelConversionsProvider = maxParallelConversionsProvider;
+        for (ConversionPriority priority : ConversionPriority.values()) {
+            queuedConversions.put(priority, new AtomicInteger());
+        }
+    }
+
+    /**
+     * Schedules the given conversion.
+     * <p>
+     * The conversion is executed in the executor of the given priority as soon as its converter has a free slot.
+     *
+     * @param conversionKey  the key which identifies the variant being generated
+     * @param converter      the name of the converter which performs the conversion
+     * @param priority       the priority of the conversion
+     * @param conversion     the conversion to perform
+     * @param failureHandler invoked instead of the conversion if it cannot be scheduled due to overload
+     */
+    void schedule(String conversionKey,
+                  String converter,
+                  ConversionPriority priority,
+                  Runnable conversion,
+                  Consumer<Exception> failureHandler) {
+        ConverterSlots slots = slotsPerConverter.computeIfAbsent(converter, this::createConverterSlots);
+        ScheduledConversion scheduledConversion =
+                new ScheduledConversion(conversionKey, slots, priority, conversion, failureHandler);
+        queuedConversions.get(priority).incrementAndGet();
+        scheduledConversions.put(conversionKey, scheduledConversion);
+        try {
+            if (slots.tryAcquire(scheduledConversion)) {
+                fork(scheduledConversion, false);
+            }
+        } catch (IllegalStateException exception) {
+            claim(scheduledConversion);
+            failureHandler.accept(exception);
+        }
+    }
+
+    private ConverterSlots createConverterSlots(String converter) {
+        return new ConverterSlots(maxParallelConversionsProvider.applyAsInt(converter));
+    }
+
+    /**
+     * Promotes the conversion with the given key to the given priority, unless it has already been started.
+     * <p>
+     * A parked conversion is moved into the queue of the new priority. A conversion which is already waiting in the
+     * executor of its former priority is additionally handed to the executor of the new priority. Whichever starts
+     * first performs the conversion, the other one is skipped.
+     *
+     * @param conversionKey the key which identifies the variant being generated
+     * @param priority      the new priority of the conversion
+     * @return <tt>true</tt> if the conversion has been promoted, <tt>false</tt> if it is unknown, has already been
+     * started or already has the same or a more urgent priority
+     */
+    boolean promote(String conversionKey, ConversionPriority priority) {
+        ScheduledConversion scheduledConversion = scheduledConversions.get(conversionKey);
+        if (scheduledConversion == null) {
+            return false;
+        }
+
+        synchronized (scheduledConversion) {
+            // Priorities are declared in descending order of urgency...
+            if (scheduledConversion.started || scheduledConversion.priority.compareTo(priority) <= 0) {
+                return false;
+            }
+
+            queuedConversions.get(scheduledConversion.priority).decrementAndGet();
+            queuedConversions.get(priority).incrementAndGet();
+            scheduledConversion.priority = priority;
+        }
+
+        if (!scheduledConversion.slots.repark(scheduledConversion)) {
+            fork(scheduledConversion, true);
+        }
+
+        return true;
+    }
+
+    /**
+     * Marks the given conversion as started.
+     *
+     * @param scheduledConversion the conversion to start
+     * @return <tt>true</tt> if the conversion has been claimed by the caller, <tt>false</tt> if it has already been
+     * started (or dropped) by another executor
+     */
+    private boolean claim(ScheduledConversion scheduledConversion) {
+        synchronized (scheduledConversion) {
+            if (scheduledConversion.started) {
+                return false;
+            }
+
+            scheduledConversion.started = true;
+            queuedConversions.get(scheduledConversion.priority).decrementAndGet();
+        }
+
+        scheduledConversions.remove(scheduledConversion.conversionKey, scheduledConversion);
+        return true;
+    }
+
+    private void fork(ScheduledConversion scheduledConversion, boolean promoted) {
+        executor.execute(scheduledConversion.getPriority(), () -> {
+            if (claim(scheduledConversion)) {
+                try {
+                    scheduledConversion.conversion.run();
+                } finally {
+                    releaseSlot(scheduledConversion);
+                }
+            }
+        }, () -> {
+            // If a promoted conversion is dropped, it is still waiting in the executor of its former priority...
+            if (!promoted && claim(scheduledConversion)) {
+                scheduledConversion.failureHandler.accept(new IllegalStateException(
+                        "Conversion subsystem overloaded!"));
+                releaseSlot(scheduledConversion);
+            }
+        });
+    }
+
+    private void releaseSlot(ScheduledConversion scheduledConversion) {
+        ScheduledConversion next = scheduledConversion.slots.release();
+        if (next != null) {
+            fork(next, false);
+        }
+    }
+
+    /**
+     * Returns the number of conversions which are waiting to be executed.
+     *
+     * @param priority the priority of the conversions to count
+     * @return the number of conversions of the given priority which are queued or parked
+     */
+    int getQueuedConversions(ConversionPriority priority) {
+        return queuedConversions.get(priority).get();
+    }
+}
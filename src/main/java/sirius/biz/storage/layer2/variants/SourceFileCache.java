@@ -0,0 +1,291 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.storage.layer2.variants;
+
+import sirius.biz.storage.layer1.FileHandle;
+import sirius.biz.storage.layer2.Blob;
+import sirius.biz.storage.util.StorageUtils;
+import sirius.kernel.Stoppable;
+import sirius.kernel.async.CallContext;
+import sirius.kernel.commons.Strings;
+import sirius.kernel.di.std.ConfigValue;
+import sirius.kernel.di.std.Register;
+import sirius.kernel.health.Counter;
+import sirius.kernel.health.Exceptions;
+import sirius.kernel.timer.EveryMinute;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Keeps recently downloaded source files of conversions on the local disk.
+ * <p>
+ * As delegated conversions are routed to conversion hosts by their blob key (see
+ * <tt>BasicBlobStorageSpace.pickConversionHost</tt>), all variants of a blob are most probably generated by the same
+ * host. Keeping the source file around therefore saves the repeated download from the layer 1 for each variant.
+ * <p>
+ * Entries are keyed by the physical object key of the blob, which is never re-used for other contents. Therefore, no
+ * invalidation is required. The cache is limited by its total size and entries are evicted once they haven't been
+ * used for a while.
+ * <p>
+ * The files are stored in a fixed directory per node, which is wiped when it is first used and deleted on shutdown.
+ * Therefore, neither a restart nor a crash leaves orphaned files behind.
+ */
+@Register(classes = {SourceFileCache.class, EveryMinute.class, Stoppable.class})
+public class SourceFileCache implements EveryMinute, Stoppable {
+
+    @ConfigValue("storage.layer2.conversion.sourceCache.maxSize")
+    private long maxSize;
+
+    @ConfigValue("storage.layer2.conversion.sourceCache.maxIdle")
+    private Duration maxIdle;
+
+    private final Counter hits = new Counter();
+    private final Counter misses = new Counter();
+
+    /**
+     * Contains all cached files in access order, so that the least recently used one is evicted first.
+     */
+    private final LinkedHashMap<String, CachedFile> files = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Object> downloadLocks = new ConcurrentHashMap<>();
+    private long totalSize;
+    private Path cacheDirectory;
+
+    private static class CachedFile {
+        private final File file;
+        private final long size;
+        private long lastAccess;
+
+        CachedFile(File file) {
+            this.file = file;
+            this.size = file.length();
+            this.lastAccess = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Provides a local copy of the data of the given blob.
+     * <p>
+     * If the file is present in the cache, a copy (actually a hard link where possible) is returned. Otherwise, the
+     * blob is downloaded and put into the cache. Concurrent requests for the same blob only download it once.
+     *
+     * @param blob the blob to download
+     * @return a temporary file handle which has to be closed by the caller
+     * @throws IOException in case the file cannot be downloaded or copied
+     */
+    public FileHandle download(Blob blob) throws IOException {
+        if (maxSize <= 0 || Strings.isEmpty(blob.getPhysicalObjectKey())) {
+            return downloadBlob(blob);
+        }
+
+        String key = blob.getSpaceName() + "-" + blob.getPhysicalObjectKey();
+        Optional<FileHandle> cachedCopy = tryCopyCachedFile(key);
+        if (cachedCopy.isPresent()) {
+            hits.inc();
+            return cachedCopy.get();
+        }
+
+        Object lock = downloadLocks.computeIfAbsent(key, ignored -> new Object());
+        try {
+            synchronized (lock) {
+                // Another thread might have downloaded the file while we were waiting for the lock...
+                cachedCopy = tryCopyCachedFile(key);
+                if (cachedCopy.isPresent()) {
+                    hits.inc();
+                    return cachedCopy.get();
+                }
+
+                misses.inc();
+                FileHandle downloadedFile = downloadBlob(blob);
+                if (downloadedFile.getFile().length() <= maxSize) {
+                    put(key, downloadedFile.getFile());
+                }
+                return downloadedFile;
+            }
+        } finally {
+            downloadLocks.remove(key, lock);
+        }
+    }
+
+    private FileHandle downloadBlob(Blob blob) throws FileNotFoundException {
+        return blob.download()
+                   .orElseThrow(() -> new FileNotFoundException("Cannot obtain the file from blob key "
+                                                                + blob.getBlobKey()));
+    }
+
+    private Optional<FileHandle> tryCopyCachedFile(String key) throws IOException {
+        CachedFile cachedFile;
+        synchronized (files) {
+            cachedFile = files.get(key);
+            if (cachedFile == null) {
+                return Optional.empty();
+            }
+            cachedFile.lastAccess = System.currentTimeMillis();
+        }
+
+        File copy = File.createTempFile("conversion-source-", null);
+        try {
+            linkOrCopy(cachedFile.file.toPath(), copy.toPath());
+            return Optional.of(FileHandle.temporaryFileHandle(copy));
+        } catch (IOException exception) {
+            // The cached file might have been evicted concurrently...
+            Exceptions.ignore(exception);
+            Files.deleteIfExists(copy.toPath());
+            return Optional.empty();
+        }
+    }
+
+    private void put(String key, File downloadedFile) {
+        try {
+            File cachedFile = getCacheDirectory().resolve(key).toFile();
+            linkOrCopy(downloadedFile.toPath(), cachedFile.toPath());
+
+            synchronized (files) {
+                CachedFile previous = files.put(key, new CachedFile(cachedFile));
+                if (previous != null) {
+                    totalSize -= previous.size;
+                }
+                totalSize += cachedFile.length();
+                evict(System.currentTimeMillis());
+            }
+        } catch (IOException exception) {
+            Exceptions.handle()
+                      .to(StorageUtils.LOG)
+                      .error(exception)
+                      .withSystemErrorMessage("Layer 2: Failed to put a source file into the conversion cache: %s (%s)")
+                      .handle();
+        }
+    }
+
+    /**
+     * Links the given file into the target location and copies it if this is not possible (e.g. as a different file
+     * system is used).
+     * <p>
+     * A hard link is preferred, as it doesn't copy any data and the cached file can safely be evicted while the link
+     * is still in use.
+     */
+    private void linkOrCopy(Path source, Path target) throws IOException {
+        Files.deleteIfExists(target);
+        try {
+            Files.createLink(target, source);
+        } catch (IOException | UnsupportedOperationException exception) {
+            Exceptions.ignore(exception);
+            Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private synchronized Path getCacheDirectory() throws IOException {
+        if (cacheDirectory == null) {
+            // A previous run of this node might have crashed before cleaning up, therefore we start with a clean
+            // directory...
+            Path directory = Path.of(System.getProperty("java.io.tmpdir"),
+                                     "conversion-sources-" + CallContext.getNodeName());
+            deleteDirectory(directory);
+            cacheDirectory = Files.createDirectories(directory);
+        }
+
+        return cacheDirectory;
+    }
+
+    private void deleteDirectory(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+
+        try (Stream<Path> cachedFiles = Files.list(directory)) {
+            cachedFiles.forEach(cachedFile -> deleteFile(cachedFile.toFile()));
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    /**
+     * Removes all entries which haven't been used recently or which exceed the max size of the cache.
+     * <p>
+     * Note that this must be called while holding the lock on {@link #files}.
+     */
+    private void evict(long now) {
+        Iterator<CachedFile> iterator = files.values().iterator();
+        while (iterator.hasNext()) {
+            CachedFile cachedFile = iterator.next();
+            if (totalSize <= maxSize && now - cachedFile.lastAccess < maxIdle.toMillis()) {
+                // As the map is in access order, all remaining entries have been used more recently...
+                return;
+            }
+
+            iterator.remove();
+            totalSize -= cachedFile.size;
+            deleteFile(cachedFile.file);
+        }
+    }
+
+    private void deleteFile(File file) {
+        try {
+            Files.deleteIfExists(file.toPath());
+        } catch (IOException exception) {
+            Exceptions.handle(StorageUtils.LOG, exception);
+        }
+    }
+
+    @Override
+    public void runTimer() throws Exception {
+        synchronized (files) {
+            evict(System.currentTimeMillis());
+        }
+    }
+
+    @Override
+    public void stopped() {
+        synchronized (files) {
+            files.clear();
+            totalSize = 0;
+        }
+
+        synchronized (this) {
+            if (cacheDirectory == null) {
+                return;
+            }
+
+            try {
+                deleteDirectory(cacheDirectory);
+                cacheDirectory = null;
+            } catch (IOException exception) {
+                Exceptions.handle(StorageUtils.LOG, exception);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of conversions which found their source file in the cache.
+     *
+     * @return the counter of cache hits
+     */
+    public Counter getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of conversions which had to download their source file.
+     *
+     * @return the counter of cache misses
+     */
+    public Counter getMisses() {
+        return misses;
+    }
+}
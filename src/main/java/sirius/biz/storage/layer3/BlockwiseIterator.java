@@ -8,50 +8,134 @@
 
 package sirius.biz.storage.layer3;
 
-import sirius.kernel.commons.Limit;
+import sirius.biz.storage.util.StorageUtils;
+import sirius.kernel.async.Tasks;
+import sirius.kernel.di.std.Part;
+import sirius.kernel.health.Exceptions;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Iterates over the children of a <tt>VirtualFile</tt> in a blockwise manner.
  * <p>
  * This permits to safely process even very large directories with the downside that a file might
  * be skipped or processed twice if a concurrent iteration happens (which should almost never be the case).
+ * <p>
+ * The blocks are fetched via {@link ChildProvider#enumerateBlock(VirtualFile, String, int, java.util.function.Consumer)}
+ * which permits providers to use a cursor (keyset) based enumeration. Also, the next block is fetched in the
+ * background while the current block is being processed. If the executor used for this is overloaded, the next block
+ * is fetched synchronously by the iterating thread right away, before the current block is processed.
  */
 class BlockwiseIterator implements Iterator<VirtualFile> {
 
     private static final int BLOCK_SIZE = 1000;
 
+    /**
+     * Contains the name of the executor used to fetch the next block in the background.
+     */
+    private static final String EXECUTOR_PREFETCH = "storage-layer3-prefetch";
+
+    @Part
+    private static Tasks tasks;
+
     private final VirtualFile virtualFile;
-    private int nextStart;
     private Iterator<VirtualFile> currentBlock;
+    private CompletableFuture<Block> nextBlock;
+
+    /**
+     * Represents a block of children along with the cursor used to fetch the next block.
+     *
+     * @param children the children in this block
+     * @param cursor   the cursor of the next block or <tt>null</tt> if this is the last block
+     */
+    private record Block(List<VirtualFile> children, @Nullable String cursor) {
+    }
 
     protected BlockwiseIterator(VirtualFile virtualFile) {
         this.virtualFile = virtualFile;
-        this.currentBlock = fetchNextBlock();
+        useBlock(fetchBlock(null));
     }
 
-    private Iterator<VirtualFile> fetchNextBlock() {
+    private Block fetchBlock(@Nullable String cursor) {
         List<VirtualFile> buffer = new ArrayList<>();
-        virtualFile.children(new FileSearch(buffer::add).withLimit(new Limit(nextStart, BLOCK_SIZE)));
-        if (buffer.isEmpty()) {
-            return null;
+        String nextCursor = virtualFile.childrenBlock(cursor, BLOCK_SIZE, buffer::add);
+        return new Block(buffer, nextCursor);
+    }
+
+    private void useBlock(Block block) {
+        this.currentBlock = block.children().iterator();
+        if (block.cursor() == null) {
+            this.nextBlock = null;
+        } else {
+            this.nextBlock = prefetchBlock(block.cursor());
         }
+    }
+
+    private CompletableFuture<Block> prefetchBlock(String cursor) {
+        CompletableFuture<Block> result = new CompletableFuture<>();
+        tasks.executor(EXECUTOR_PREFETCH).dropOnOverload(() -> result.complete(null)).fork(() -> {
+            try {
+                result.complete(fetchBlock(cursor));
+            } catch (Exception exception) {
+                result.completeExceptionally(exception);
+            }
+        });
+
+        // If the prefetch has been dropped due to an overload, the result has already been completed with null within
+        // fork. Therefore, the block is fetched synchronously by the calling thread here...
+        return result.thenApply(block -> block != null ? block : fetchBlock(cursor));
+    }
+
+    private Block awaitNextBlock() {
+        try {
+            return nextBlock.join();
+        } catch (CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+
+            throw Exceptions.handle()
+                            .to(StorageUtils.LOG)
+                            .error(exception.getCause())
+                            .withSystemErrorMessage("Layer 3: Failed to fetch the children of %s: %s (%s)",
+                                                    virtualFile.path())
+                            .handle();
+        }
+    }
+
+    /**
+     * Determines if the next child is already present in the current block, so that it can be obtained without
+     * waiting for any I/O.
+     *
+     * @return <tt>true</tt> if {@link #next()} returns a child of the current block, <tt>false</tt> otherwise
+     */
+    boolean hasBufferedNext() {
+        return currentBlock.hasNext();
+    }
 
-        nextStart += buffer.size();
-        return buffer.iterator();
+    /**
+     * Determines if there might be more children without actually fetching the next block.
+     *
+     * @return <tt>true</tt> if there are buffered children or if there are more blocks to fetch, <tt>false</tt> if
+     * the iterator is exhausted
+     */
+    boolean mightHaveNext() {
+        return currentBlock.hasNext() || nextBlock != null;
     }
 
     @Override
     public boolean hasNext() {
-        if (currentBlock != null && !currentBlock.hasNext()) {
-            currentBlock = fetchNextBlock();
+        while (!currentBlock.hasNext() && nextBlock != null) {
+            useBlock(awaitNextBlock());
         }
 
-        return currentBlock != null && currentBlock.hasNext();
+        return currentBlock.hasNext();
     }
 
     @Override
@@ -8,7 +8,13 @@
 
 package sirius.biz.storage.layer3;
 
+import sirius.kernel.commons.Limit;
+import sirius.kernel.commons.Value;
+
 import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Enumerates and resolves children for a {@link VirtualFile}.
@@ -33,4 +39,47 @@ public interface ChildProvider {
      * @param search the search criteria and result collector to use
      */
     void enumerate(VirtualFile parent, FileSearch search);
+
+    /**
+     * Enumerates a block of children, continuing after the given cursor.
+     * <p>
+     * This is used to iterate over (potentially very large) directories in blocks. The default implementation
+     * uses the position within the enumeration as cursor, therefore each block has to skip over all previous children.
+     * Providers which can efficiently continue after a known child (e.g. by using a keyset based query) should
+     * override this method.
+     *
+     * @param parent    the directory to enumerate
+     * @param cursor    the cursor returned by the previous call or <tt>null</tt> to start with the first child
+     * @param blockSize the maximal number of children to emit
+     * @param consumer  the consumer which is supplied with the children of the block
+     * @return the cursor used to fetch the next block or <tt>null</tt> if all children have been enumerated
+     */
+    @Nullable
+    default String enumerateBlock(VirtualFile parent,
+                                  @Nullable String cursor,
+                                  int blockSize,
+                                  Consumer<VirtualFile> consumer) {
+        int start = Value.of(cursor).asInt(0);
+        List<VirtualFile> children = new ArrayList<>();
+        enumerate(parent, FileSearch.iterateAll(children::add).withLimit(new Limit(start, blockSize)));
+        children.forEach(consumer);
+
+        if (children.size() < blockSize) {
+            return null;
+        }
+
+        return String.valueOf(start + children.size());
+    }
+
+    /**
+     * Determines how many threads may concurrently traverse a tree of files provided by this provider.
+     * <p>
+     * This is used by {@link TreeVisitorBuilder#parallel()} and should be kept low for uplinks which are slow or
+     * only permit a limited number of connections.
+     *
+     * @return the maximal number of threads which may traverse a tree concurrently
+     */
+    default int getMaxTraversalParallelism() {
+        return 1;
+    }
 }
@@ -13,7 +13,6 @@ import sirius.biz.process.ProcessContext;
 import sirius.biz.storage.layer2.Blob;
 import sirius.biz.storage.util.Attempt;
 import sirius.biz.storage.util.StorageUtils;
-import sirius.kernel.commons.Monoflop;
 import sirius.kernel.commons.Value;
 import sirius.kernel.di.std.Part;
 import sirius.kernel.health.Exceptions;
@@ -21,6 +20,7 @@ import sirius.kernel.health.Exceptions;
 import javax.annotation.CheckReturnValue;
 import java.io.InputStream;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 
@@ -47,6 +47,7 @@ public class Transfer {
     private ProcessContext processContext;
     private boolean autobatch = false;
     private boolean continueOnError = false;
+    private boolean parallel = false;
 
     @Part
     private static Jobs jobs;
@@ -144,6 +145,21 @@ public class Transfer {
         return this;
     }
 
+    /**
+     * Permits to transfer the children of the source directory using several threads.
+     * <p>
+     * This is mostly useful when transferring between uplinks which are bound by the latency of listing and copying
+     * files. The effective parallelism is limited by the uplink of the source directory
+     * (see {@link ChildProvider#getMaxTraversalParallelism()}), which is 1 unless configured otherwise.
+     *
+     * @return the transfer helper itself for fluent method calls
+     */
+    @CheckReturnValue
+    public Transfer parallel() {
+        this.parallel = true;
+        return this;
+    }
+
     /**
      * Enables smart transfers for copy operations.
      * <p>
@@ -358,13 +374,28 @@ public class Transfer {
                                    VirtualFile destinationDirectory,
                                    boolean deleteContent,
                                    boolean deleteSourceDirectory) {
+        transferDirectory(sourceDirectory, destinationDirectory, deleteContent, deleteSourceDirectory, parallel);
+    }
+
+    private void transferDirectory(VirtualFile sourceDirectory,
+                                   VirtualFile destinationDirectory,
+                                   boolean deleteContent,
+                                   boolean deleteSourceDirectory,
+                                   boolean parallel) {
         if (!destinationDirectory.isDirectory()) {
             destinationDirectory.createAsDirectory();
         }
 
-        Monoflop errorWasIgnored = Monoflop.create();
+        // As the children might be transferred by several threads, we need a thread-safe flag here...
+        AtomicBoolean errorWasIgnored = new AtomicBoolean();
 
-        sourceDirectory.allChildren().stream().forEach(child -> {
+        // If requested, the children of the top-level directory are handled in parallel (as far as permitted by the
+        // uplink). Subdirectories are then handled sequentially by the thread which picked them up...
+        TreeVisitorBuilder children = sourceDirectory.allChildren();
+        if (parallel) {
+            children.parallel();
+        }
+        children.iterate(child -> {
             try {
                 if (child.isFile()) {
                     transferFileTo(child, destinationDirectory.findChild(child.name()), deleteContent);
@@ -373,7 +404,8 @@ public class Transfer {
                     transferDirectory(child,
                                       destinationDirectory.findChild(child.name()),
                                       deleteContent,
-                                      deleteContent);
+                                      deleteContent,
+                                      false);
                 }
                 if (deleteContent) {
                     child.delete();
@@ -381,13 +413,15 @@ public class Transfer {
             } catch (Exception exception) {
                 if (continueOnError && processContext != null) {
                     processContext.handle(exception);
-                    errorWasIgnored.toggle();
+                    errorWasIgnored.set(true);
                 } else {
                     throw exception;
                 }
             }
+
+            return true;
         });
-        if (deleteSourceDirectory && !errorWasIgnored.isToggled()) {
+        if (deleteSourceDirectory && !errorWasIgnored.get()) {
             sourceDirectory.delete();
         }
     }
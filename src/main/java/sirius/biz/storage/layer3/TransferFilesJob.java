@@ -125,7 +125,8 @@ public class TransferFilesJob extends SimpleBatchProcessJobFactory {
             }
         }
 
-        Transfer transfer = source.transferTo(destination).batch(process);
+        // As this runs in the background, we permit to use several threads, as far as the source uplink permits it...
+        Transfer transfer = source.transferTo(destination).batch(process).parallel();
 
         if (Boolean.TRUE.equals(process.require(smartTransferParameter))) {
             transfer.smartTransfer();
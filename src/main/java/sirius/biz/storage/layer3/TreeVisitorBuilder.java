@@ -26,6 +26,7 @@ public class TreeVisitorBuilder {
     protected int maxDepth = -1;
     protected boolean excludeDirectories = false;
     protected boolean excludeFiles = false;
+    protected boolean parallel = false;
     protected Predicate<VirtualFile> directoryFilter;
     private final VirtualFile file;
 
@@ -112,10 +113,26 @@ public class TreeVisitorBuilder {
         return this;
     }
 
+    /**
+     * Permits to traverse the tree using several threads.
+     * <p>
+     * The effective parallelism is limited by the uplink of the root file
+     * (see {@link ChildProvider#getMaxTraversalParallelism()}), so that slow uplinks are not overloaded. Note that
+     * the files will no longer be reported in a DFS order and that the acceptance function passed into
+     * {@link #iterate(Predicate)} will be invoked concurrently and therefore has to be thread-safe. This only affects
+     * {@link #iterate(Predicate)}, as {@link #stream()} is always sequential.
+     *
+     * @return the builder itself for fluent method calls
+     */
+    public TreeVisitorBuilder parallel() {
+        this.parallel = true;
+        return this;
+    }
+
     /**
      * Iterates over all <tt>VirtualFiles</tt> matching the filters specified by this builder.
      * <p>
-     * Note that this will perform a DFS (depth first search).
+     * Note that this will perform a DFS (depth first search) unless {@link #parallel()} was specified.
      *
      * @param acceptanceFunction invoked for each matching file. Returns <tt>true</tt> to continue traversing the
      *                           directory tree or <tt>false</tt> to abort
@@ -126,6 +143,11 @@ public class TreeVisitorBuilder {
         }
 
         VirtualFileWalker fileWalker = new VirtualFileWalker(file, this);
+        if (parallel) {
+            fileWalker.iterateParallel(acceptanceFunction);
+            return;
+        }
+
         ValueHolder<VirtualFile> buffer = ValueHolder.of(null);
         boolean shouldContinue = true;
         while (shouldContinue) {
@@ -140,7 +162,9 @@ public class TreeVisitorBuilder {
      * Provides a stream over all matching  <tt>VirtualFiles</tt> for the filters specified by this builder.
      *
      * @return a stream which performs a DFS (depth first search) directory traversal of the files matching the given
-     * filters
+     * filters. Note that this stream is always sequential, even if {@link #parallel()} was specified, as a parallel
+     * stream would be executed by the common fork join pool (without a proper call context and without any control
+     * over the threads being used). Use {@link #iterate(Predicate)} for a parallel traversal
      */
     public Stream<VirtualFile> stream() {
         if (subTreeOnly && maxDepth == 0) {
@@ -606,6 +606,48 @@ public abstract class VirtualFile extends Composable implements Comparable<Virtu
         }
     }
 
+    /**
+     * Enumerates a block of children of this file.
+     * <p>
+     * This is used by {@link BlockwiseIterator} to efficiently iterate over large directories.
+     *
+     * @param cursor    the cursor returned by the previous call or <tt>null</tt> to start with the first child
+     * @param blockSize the maximal number of children to emit
+     * @param consumer  the consumer which is supplied with the children of the block
+     * @return the cursor used to fetch the next block or <tt>null</tt> if all children have been enumerated
+     * @see ChildProvider#enumerateBlock(VirtualFile, String, int, Consumer)
+     */
+    @Nullable
+    protected String childrenBlock(@Nullable String cursor, int blockSize, Consumer<VirtualFile> consumer) {
+        try {
+            if (childProvider != null) {
+                return childProvider.enumerateBlock(this, cursor, blockSize, consumer);
+            }
+
+            return null;
+        } catch (Exception exception) {
+            throw handleErrorInCallback(exception, "childProvider.enumerateBlock");
+        }
+    }
+
+    /**
+     * Determines how many threads may concurrently traverse the tree below this file.
+     *
+     * @return the maximal parallelism as determined by the child provider of this file
+     * @see ChildProvider#getMaxTraversalParallelism()
+     */
+    protected int getMaxTraversalParallelism() {
+        try {
+            if (childProvider != null) {
+                return Math.max(1, childProvider.getMaxTraversalParallelism());
+            }
+
+            return 1;
+        } catch (Exception exception) {
+            throw handleErrorInCallback(exception, "childProvider.getMaxTraversalParallelism");
+        }
+    }
+
     /**
      * Lists all children of this file.
      * <p>
@@ -8,69 +8,297 @@
 
 package sirius.biz.storage.layer3;
 
+import sirius.biz.storage.util.StorageUtils;
+import sirius.kernel.async.CallContext;
+import sirius.kernel.async.Tasks;
+import sirius.kernel.commons.Wait;
+import sirius.kernel.di.std.Part;
+import sirius.kernel.health.Exceptions;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Spliterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 /**
  * Implements a spliterator which is used to stream through sub-trees of the VFS via {@link VirtualFile#tree()} etc.
+ * <p>
+ * If a parallel traversal is requested (via {@link TreeVisitorBuilder#parallel()}), {@link #trySplit()} hands off
+ * unexplored parts of the tree to a new walker. This is either the remaining siblings of the outermost directory
+ * being visited or some of the subdirectories of the directory being listed. The total number of active walkers
+ * is limited by {@link VirtualFile#getMaxTraversalParallelism()} of the root file, so that slow uplinks are not
+ * overloaded.
+ * <p>
+ * {@link #iterateParallel(Predicate)} uses this to let a set of workers traverse the tree, where each worker which
+ * ran out of work steals a part of the tree from another worker. The workers run in their own executor and in a
+ * fork of the {@link CallContext} of the caller. As splitting only considers children which have already been
+ * fetched, a worker which is waiting for an uplink to list a directory never blocks other workers.
  */
 class VirtualFileWalker implements Spliterator<VirtualFile> {
 
+    /**
+     * Contains the maximal number of children which are inspected when trying to split off some subdirectories.
+     */
+    private static final int SPLIT_LOOKAHEAD = 64;
+
+    /**
+     * Contains the initial interval in which an idle worker tries to steal work from other workers.
+     * <p>
+     * Each unsuccessful attempt doubles the interval up to {@link #MAX_STEAL_INTERVAL_MILLIS}, so that idle workers
+     * don't keep spinning while there is nothing to steal.
+     */
+    private static final int MIN_STEAL_INTERVAL_MILLIS = 25;
+
+    /**
+     * Contains the maximal interval in which an idle worker tries to steal work from other workers.
+     */
+    private static final int MAX_STEAL_INTERVAL_MILLIS = 400;
+
+    /**
+     * Contains the name of the executor which runs the workers of a parallel traversal.
+     */
+    private static final String EXECUTOR_WALKER = "storage-layer3-walker";
+
+    @Part
+    private static Tasks tasks;
+
     private final TreeVisitorBuilder settings;
-    private final LinkedList<Iterator<VirtualFile>> stack = new LinkedList<>();
-    private Iterator<VirtualFile> children;
-    private int filesScanned;
+    private final Traversal traversal;
+    private final LinkedList<Children> stack = new LinkedList<>();
+    private Children children;
+    private int baseDepth;
+    private boolean fetching;
+    private volatile boolean exhausted;
+
+    /**
+     * Contains the remaining children of a directory being visited.
+     * <p>
+     * Next to the children which are fetched blockwise from the directory, this contains children which have been
+     * inspected while trying to split and then have been put back.
+     */
+    private static class Children {
+        private final LinkedList<VirtualFile> buffer = new LinkedList<>();
+        @Nullable
+        private final BlockwiseIterator directoryChildren;
+
+        private Children(BlockwiseIterator directoryChildren) {
+            this.directoryChildren = directoryChildren;
+        }
+
+        private Children(List<VirtualFile> files) {
+            this.buffer.addAll(files);
+            this.directoryChildren = null;
+        }
+
+        /**
+         * Returns the next child if it is available without performing any I/O.
+         *
+         * @return the next child or <tt>null</tt> if there is either no next child or if it has to be fetched first
+         */
+        @Nullable
+        private VirtualFile pollBuffered() {
+            if (!buffer.isEmpty()) {
+                return buffer.removeFirst();
+            }
+            if (directoryChildren != null && directoryChildren.hasBufferedNext()) {
+                return directoryChildren.next();
+            }
+
+            return null;
+        }
+
+        private boolean mightHaveNext() {
+            return !buffer.isEmpty() || directoryChildren != null && directoryChildren.mightHaveNext();
+        }
+
+        /**
+         * Fetches the next block of children if required.
+         * <p>
+         * Note that this might wait for the uplink and must therefore not be invoked while holding the monitor of
+         * the walker.
+         */
+        private void fetch() {
+            if (directoryChildren != null) {
+                directoryChildren.hasNext();
+            }
+        }
+
+        private void pushBack(List<VirtualFile> files) {
+            buffer.addAll(0, files);
+        }
+    }
+
+    /**
+     * Contains the state which is shared by all walkers which have been split off from the same root walker.
+     */
+    private static class Traversal {
+        private final int maxWalkers;
+        private final AtomicInteger activeWalkers = new AtomicInteger(1);
+        private final AtomicInteger filesScanned = new AtomicInteger();
+        private final AtomicBoolean aborted = new AtomicBoolean();
+        private final List<VirtualFileWalker> walkers = new CopyOnWriteArrayList<>();
+
+        private Traversal(int maxWalkers) {
+            this.maxWalkers = maxWalkers;
+        }
+
+        private boolean tryReserveWalker() {
+            while (true) {
+                int active = activeWalkers.get();
+                if (active >= maxWalkers) {
+                    return false;
+                }
+                if (activeWalkers.compareAndSet(active, active + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        private void releaseWalker() {
+            activeWalkers.decrementAndGet();
+        }
+
+        private boolean isCompleted() {
+            return aborted.get() || activeWalkers.get() == 0;
+        }
+
+        @Nullable
+        private VirtualFileWalker steal() {
+            for (VirtualFileWalker victim : walkers) {
+                if (!victim.exhausted) {
+                    VirtualFileWalker split = victim.trySplit();
+                    if (split != null) {
+                        return split;
+                    }
+                }
+            }
+
+            return null;
+        }
+    }
 
     VirtualFileWalker(VirtualFile rootFile, TreeVisitorBuilder settings) {
         this.settings = settings;
+        this.traversal = new Traversal(settings.parallel ? rootFile.getMaxTraversalParallelism() : 1);
+        this.traversal.walkers.add(this);
 
         if (settings.subTreeOnly) {
             settings.maxDepth -= 1;
-            this.children = new BlockwiseIterator(rootFile);
+            this.children = new Children(new BlockwiseIterator(rootFile));
         } else {
-            this.children = Collections.singletonList(rootFile).iterator();
+            this.children = new Children(Collections.singletonList(rootFile));
         }
     }
 
+    private VirtualFileWalker(VirtualFileWalker parent, Children children, int baseDepth) {
+        this.settings = parent.settings;
+        this.traversal = parent.traversal;
+        this.children = children;
+        this.baseDepth = baseDepth;
+        this.traversal.walkers.add(this);
+    }
+
     @Override
     public boolean tryAdvance(Consumer<? super VirtualFile> action) {
+        VirtualFile next = nextFile();
+        if (next == null) {
+            return false;
+        }
+
+        action.accept(next);
+        return scanCompleted();
+    }
+
+    /**
+     * Determines the next file to report.
+     * <p>
+     * Note that the state of the walker is only modified while holding its monitor, as other workers might split off
+     * a part of the tree at any time. However, listing a directory is performed outside the monitor, so that
+     * other workers aren't blocked while waiting for a (possibly slow) uplink.
+     *
+     * @return the next file to report or <tt>null</tt> if this walker is exhausted
+     */
+    @Nullable
+    private VirtualFile nextFile() {
         while (true) {
-            if (!prepareNext()) {
-                return false;
-            }
+            Children childrenToFetch = null;
+            VirtualFile directoryToEnter = null;
+            synchronized (this) {
+                if (isLimitReached()) {
+                    markExhausted();
+                    return null;
+                }
 
-            VirtualFile next = children.next();
-            if (shouldProcessAsFile(next)) {
-                action.accept(next);
-                return scanCompleted();
+                VirtualFile next = children.pollBuffered();
+                if (next == null) {
+                    if (children.mightHaveNext()) {
+                        fetching = true;
+                        childrenToFetch = children;
+                    } else if (stack.isEmpty()) {
+                        markExhausted();
+                        return null;
+                    } else {
+                        children = stack.removeLast();
+                    }
+                } else if (shouldProcessAsFile(next)) {
+                    return next;
+                } else if (shouldVisitDirectory(next)) {
+                    if (shouldEnterDirectory()) {
+                        directoryToEnter = next;
+                    } else if (shouldProcessAsDirectory()) {
+                        return next;
+                    }
+                }
             }
 
-            if (shouldVisitDirectory(next)) {
-                if (shouldEnterDirectory()) {
-                    stack.add(children);
-                    children = new BlockwiseIterator(next);
-                }
+            if (childrenToFetch != null) {
+                fetchChildren(childrenToFetch);
+            } else if (directoryToEnter != null) {
+                enterDirectory(directoryToEnter);
                 if (shouldProcessAsDirectory()) {
-                    action.accept(next);
-                    return scanCompleted();
+                    return directoryToEnter;
                 }
             }
         }
     }
 
-    private boolean prepareNext() {
-        if (children.hasNext()) {
-            return true;
+    private void fetchChildren(Children childrenToFetch) {
+        try {
+            childrenToFetch.fetch();
+        } finally {
+            synchronized (this) {
+                fetching = false;
+            }
         }
-        if (stack.isEmpty()) {
-            return false;
+    }
+
+    private void enterDirectory(VirtualFile directory) {
+        Children directoryChildren = new Children(new BlockwiseIterator(directory));
+        synchronized (this) {
+            stack.add(children);
+            children = directoryChildren;
         }
+    }
 
-        children = stack.removeLast();
-        return prepareNext();
+    private boolean isLimitReached() {
+        return traversal.aborted.get() || settings.maxFiles > 0 && traversal.filesScanned.get() > settings.maxFiles;
+    }
+
+    private synchronized void markExhausted() {
+        if (!exhausted) {
+            exhausted = true;
+            traversal.walkers.remove(this);
+            traversal.releaseWalker();
+        }
     }
 
     private boolean shouldProcessAsFile(VirtualFile next) {
@@ -82,7 +310,7 @@ class VirtualFileWalker implements Spliterator<VirtualFile> {
     }
 
     private boolean shouldEnterDirectory() {
-        return settings.maxDepth < 0 || stack.size() < settings.maxDepth;
+        return settings.maxDepth < 0 || baseDepth + stack.size() < settings.maxDepth;
     }
 
     private boolean shouldProcessAsDirectory() {
@@ -90,12 +318,176 @@ class VirtualFileWalker implements Spliterator<VirtualFile> {
     }
 
     private boolean scanCompleted() {
-        return settings.maxFiles <= 0 || filesScanned++ < settings.maxFiles;
+        return settings.maxFiles <= 0 || traversal.filesScanned.getAndIncrement() < settings.maxFiles;
     }
 
     @Override
-    public Spliterator<VirtualFile> trySplit() {
-        return null;
+    @Nullable
+    public synchronized VirtualFileWalker trySplit() {
+        if (exhausted || isLimitReached() || !traversal.tryReserveWalker()) {
+            return null;
+        }
+
+        VirtualFileWalker split = splitOff();
+        if (split == null) {
+            traversal.releaseWalker();
+        }
+
+        return split;
+    }
+
+    @Nullable
+    private VirtualFileWalker splitOff() {
+        // The siblings of the outermost directory being visited most probably represent the largest chunk of
+        // unexplored work, therefore we hand them off first...
+        while (!stack.isEmpty()) {
+            Children outermostSiblings = stack.removeFirst();
+            baseDepth++;
+            if (outermostSiblings.mightHaveNext()) {
+                return new VirtualFileWalker(this, outermostSiblings, baseDepth - 1);
+            }
+        }
+
+        return splitChildren();
+    }
+
+    /**
+     * Inspects the next children of the directory being listed and hands off some of them to a new walker.
+     * <p>
+     * If subdirectories are found, half of them are handed off, otherwise half of the files are. Note that only
+     * children which have already been fetched are considered, so that splitting never waits for the uplink.
+     *
+     * @return the new walker or <tt>null</tt> if there is nothing to hand off
+     */
+    @Nullable
+    private VirtualFileWalker splitChildren() {
+        if (fetching) {
+            // The walker itself is currently fetching the next children, which we must not interfere with...
+            return null;
+        }
+
+        List<VirtualFile> files = new ArrayList<>();
+        List<VirtualFile> directories = new ArrayList<>();
+        while (files.size() + directories.size() < SPLIT_LOOKAHEAD) {
+            VirtualFile child = children.pollBuffered();
+            if (child == null) {
+                break;
+            }
+            if (child.isDirectory()) {
+                directories.add(child);
+            } else {
+                files.add(child);
+            }
+        }
+
+        List<VirtualFile> candidates = directories.isEmpty() ? files : directories;
+        List<VirtualFile> handOff = new ArrayList<>();
+        if (files.size() + directories.size() >= 2) {
+            handOff.addAll(candidates.subList(candidates.size() / 2, candidates.size()));
+            candidates.subList(candidates.size() / 2, candidates.size()).clear();
+        }
+
+        children.pushBack(directories);
+        children.pushBack(files);
+
+        if (handOff.isEmpty()) {
+            return null;
+        }
+
+        return new VirtualFileWalker(this, new Children(handOff), baseDepth + stack.size());
+    }
+
+    /**
+     * Traverses the tree using up to {@link Traversal#maxWalkers} threads.
+     * <p>
+     * The calling thread participates in the traversal and this method only returns once the traversal is
+     * completed. Note that the given acceptance function will be called concurrently.
+     *
+     * @param acceptanceFunction invoked for each matching file. Returns <tt>true</tt> to continue traversing the
+     *                           directory tree or <tt>false</tt> to abort
+     */
+    void iterateParallel(Predicate<VirtualFile> acceptanceFunction) {
+        CallContext callContext = CallContext.getCurrent();
+        List<CompletableFuture<Void>> workers = new ArrayList<>();
+        for (int i = 1; i < traversal.maxWalkers; i++) {
+            CompletableFuture<Void> worker = new CompletableFuture<>();
+            tasks.executor(EXECUTOR_WALKER).dropOnOverload(() -> worker.complete(null)).fork(() -> {
+                try {
+                    // Each worker operates in a fork of the context of the caller, so that the acceptance function
+                    // has access to the current user, tenant, process etc...
+                    CallContext.setCurrent(callContext.fork());
+                    work(null, acceptanceFunction);
+                    worker.complete(null);
+                } catch (Throwable throwable) {
+                    // We also have to handle errors here, as the future would never be completed otherwise...
+                    worker.completeExceptionally(throwable);
+                }
+            });
+            workers.add(worker);
+        }
+
+        try {
+            work(this, acceptanceFunction);
+        } catch (Throwable throwable) {
+            // The traversal has been aborted, but we still have to wait for all workers to stop...
+            CompletableFuture.allOf(workers.toArray(CompletableFuture[]::new)).exceptionally(ignored -> null).join();
+            throw throwable;
+        }
+
+        awaitWorkers(workers);
+    }
+
+    private void work(@Nullable VirtualFileWalker initialWalker, Predicate<VirtualFile> acceptanceFunction) {
+        VirtualFileWalker walker = initialWalker;
+        int stealInterval = MIN_STEAL_INTERVAL_MILLIS;
+        try {
+            while (!traversal.isCompleted()) {
+                if (walker == null) {
+                    walker = traversal.steal();
+                    if (walker == null) {
+                        Wait.millis(stealInterval);
+                        stealInterval = Math.min(2 * stealInterval, MAX_STEAL_INTERVAL_MILLIS);
+                    } else {
+                        stealInterval = MIN_STEAL_INTERVAL_MILLIS;
+                    }
+                } else {
+                    VirtualFile next = walker.nextFile();
+                    if (next == null) {
+                        walker = null;
+                    } else if (!walker.scanCompleted() || !acceptanceFunction.test(next)) {
+                        // Note that the scan is counted first, so that the acceptance function is invoked for at
+                        // most "maxFiles" files, even if several workers reach the limit at once...
+                        traversal.aborted.set(true);
+                    }
+                }
+            }
+        } catch (Throwable throwable) {
+            traversal.aborted.set(true);
+            throw throwable;
+        } finally {
+            if (walker != null) {
+                walker.markExhausted();
+            }
+        }
+    }
+
+    private void awaitWorkers(List<CompletableFuture<Void>> workers) {
+        try {
+            CompletableFuture.allOf(workers.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException exception) {
+            if (exception.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (exception.getCause() instanceof Error error) {
+                throw error;
+            }
+
+            throw Exceptions.handle()
+                            .to(StorageUtils.LOG)
+                            .error(exception.getCause())
+                            .withSystemErrorMessage("Layer 3: A parallel directory traversal failed: %s (%s)")
+                            .handle();
+        }
     }
 
     @Override
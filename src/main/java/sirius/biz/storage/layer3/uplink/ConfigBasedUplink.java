@@ -36,6 +36,7 @@ public abstract class ConfigBasedUplink {
     protected String name;
     protected Function<String, Value> config;
     protected boolean readonly;
+    protected int traversalParallelism;
     protected VirtualFile file;
 
     protected ChildProvider innerChildProvider = new ChildProvider() {
@@ -49,6 +50,11 @@ public abstract class ConfigBasedUplink {
         public void enumerate(VirtualFile parent, FileSearch search) {
             enumerateDirectoryChildren(parent, search);
         }
+
+        @Override
+        public int getMaxTraversalParallelism() {
+            return traversalParallelism;
+        }
     };
 
     /**
@@ -60,6 +66,7 @@ public abstract class ConfigBasedUplink {
         this.readonly = config.apply("readonly").asBoolean();
         this.description = config.apply("description").asString();
         this.permission = config.apply("permission").asString();
+        this.traversalParallelism = config.apply("traversalParallelism").asInt(1);
         this.name = name;
         this.config = config;
     }
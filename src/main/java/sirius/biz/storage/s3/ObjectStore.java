@@ -75,9 +75,13 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /**
  * Represents a S3 compatible object store which is commonly obtained via {@link ObjectStores}.
@@ -853,6 +857,61 @@ public class ObjectStore {
      * @param inputStream the data to upload
      */
     public void upload(BucketName bucket, String objectId, InputStream inputStream) {
+        performMultipartUpload(bucket,
+                               objectId,
+                               multipartUploadId -> uploadInChunks(bucket,
+                                                                   objectId,
+                                                                   inputStream,
+                                                                   multipartUploadId));
+    }
+
+    /**
+     * Synchronously uploads the given input stream as an object while uploading several parts in parallel.
+     * <p>
+     * The stream is consumed by the calling thread and split into parts, which are then uploaded by the
+     * {@link #EXECUTOR_S3} thread pool. At most <tt>maxPartsInFlight</tt> parts are kept in memory at any time,
+     * therefore the calling thread is blocked once this limit is reached. This is especially useful if reading the
+     * stream itself is expensive (e.g. when compressing or encrypting data on the fly), as reading and uploading
+     * are then performed concurrently.
+     *
+     * @param bucket           the bucket to upload the file to
+     * @param objectId         the object id to use
+     * @param inputStream      the data to upload
+     * @param maxPartsInFlight the maximal number of parts being buffered or uploaded at the same time. If this is
+     *                         less than 2, a plain sequential upload is performed
+     */
+    public void uploadParallel(BucketName bucket, String objectId, InputStream inputStream, int maxPartsInFlight) {
+        if (maxPartsInFlight < 2) {
+            upload(bucket, objectId, inputStream);
+            return;
+        }
+
+        performMultipartUpload(bucket,
+                               objectId,
+                               multipartUploadId -> uploadInChunksParallel(bucket,
+                                                                           objectId,
+                                                                           inputStream,
+                                                                           multipartUploadId,
+                                                                           maxPartsInFlight));
+    }
+
+    /**
+     * Uploads all parts of a multipart upload.
+     */
+    @FunctionalInterface
+    private interface PartsUploader {
+
+        /**
+         * Uploads all parts for the given multipart upload.
+         *
+         * @param multipartUploadId the id of the multipart upload to upload parts for
+         * @return the list of completed parts ordered by their part number
+         * @throws IOException in case of an IO error
+         */
+        List<CompletedPart> uploadParts(String multipartUploadId) throws IOException;
+    }
+
+    private void performMultipartUpload(BucketName bucket, String objectId, PartsUploader partsUploader) {
         ensureBucketExists(bucket);
         CreateMultipartUploadResponse multipartUpload =
                 getClient().createMultipartUpload(CreateMultipartUploadRequest.builder()
@@ -861,7 +920,7 @@ public class ObjectStore {
                                                                               .build());
         try (var _ = new Operation(() -> Strings.apply("S3: Multipart upload of object %s to %s", objectId, bucket),
                                    Duration.ofHours(4))) {
-            List<CompletedPart> eTags = uploadInChunks(bucket, objectId, inputStream, multipartUpload.uploadId());
+            List<CompletedPart> eTags = partsUploader.uploadParts(multipartUpload.uploadId());
 
             if (ObjectStores.LOG.isFINE()) {
                 ObjectStores.LOG.FINE("Completing upload of %s to %s using %s parts...",
@@ -957,6 +1016,128 @@ public class ObjectStore {
         return eTags;
     }
 
+    @Nonnull
+    protected List<CompletedPart> uploadInChunksParallel(BucketName bucket,
+                                                         String objectId,
+                                                         InputStream inputStream,
+                                                         String multipartUploadId,
+                                                         int maxPartsInFlight) throws IOException {
+        if (ObjectStores.LOG.isFINE()) {
+            ObjectStores.LOG.FINE("Uploading %s to %s using up to %s parallel parts",
+                                  objectId,
+                                  bucket,
+                                  maxPartsInFlight);
+        }
+
+        List<CompletableFuture<CompletedPart>> pendingParts = new ArrayList<>();
+        Semaphore availableBuffers = new Semaphore(maxPartsInFlight);
+        int partNumber = 1;
+
+        ByteBuf localAggregationBuffer = null;
+        try {
+            byte[] transferBuffer = new byte[LOCAL_TRANSFER_BUFFER_SIZE];
+            int bytesRead = inputStream.read(transferBuffer);
+            while (bytesRead > 0) {
+                if (localAggregationBuffer == null) {
+                    // Blocks until one of the parts in flight has been uploaded...
+                    availableBuffers.acquire();
+                    abortOnFailedPart(pendingParts);
+                    localAggregationBuffer = Unpooled.buffer(INITIAL_LOCAL_AGGREGATION_BUFFER_SIZE);
+                }
+
+                localAggregationBuffer.writeBytes(transferBuffer, 0, bytesRead);
+                if (localAggregationBuffer.readableBytes() > MAXIMAL_LOCAL_AGGREGATION_BUFFER_SIZE) {
+                    pendingParts.add(forkChunkUpload(bucket,
+                                                     objectId,
+                                                     multipartUploadId,
+                                                     localAggregationBuffer,
+                                                     partNumber++,
+                                                     availableBuffers));
+                    localAggregationBuffer = null;
+                }
+
+                bytesRead = inputStream.read(transferBuffer);
+            }
+
+            if (localAggregationBuffer != null) {
+                pendingParts.add(forkChunkUpload(bucket,
+                                                 objectId,
+                                                 multipartUploadId,
+                                                 localAggregationBuffer,
+                                                 partNumber,
+                                                 availableBuffers));
+                localAggregationBuffer = null;
+            }
+
+            return awaitParts(pendingParts);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a free upload buffer");
+        } finally {
+            if (localAggregationBuffer != null) {
+                localAggregationBuffer.release();
+            }
+
+            // Ensures that no part upload is still running once the multipart upload is completed or aborted...
+            CompletableFuture.allOf(pendingParts.toArray(CompletableFuture[]::new))
+                             .handle((ignoredResult, ignoredError) -> null)
+                             .join();
+        }
+    }
+
+    private CompletableFuture<CompletedPart> forkChunkUpload(BucketName bucket,
+                                                             String objectId,
+                                                             String multipartUploadId,
+                                                             ByteBuf buffer,
+                                                             int partNumber,
+                                                             Semaphore availableBuffers) {
+        Supplier<CompletedPart> partUpload = () -> {
+            try {
+                return uploadChunk(bucket, objectId, multipartUploadId, buffer, partNumber);
+            } finally {
+                buffer.release();
+                availableBuffers.release();
+            }
+        };
+
+        try {
+            return CompletableFuture.supplyAsync(partUpload, tasks.executorService(EXECUTOR_S3));
+        } catch (RejectedExecutionException exception) {
+            // The shared thread pool is exhausted, therefore we upload the part in the calling thread...
+            Exceptions.ignore(exception);
+            return CompletableFuture.completedFuture(partUpload.get());
+        }
+    }
+
+    private void abortOnFailedPart(List<CompletableFuture<CompletedPart>> pendingParts) throws IOException {
+        for (CompletableFuture<CompletedPart> pendingPart : pendingParts) {
+            if (pendingPart.isCompletedExceptionally()) {
+                awaitPart(pendingPart);
+            }
+        }
+    }
+
+    private List<CompletedPart> awaitParts(List<CompletableFuture<CompletedPart>> pendingParts)
+            throws IOException {
+        List<CompletedPart> eTags = new ArrayList<>(pendingParts.size());
+        for (CompletableFuture<CompletedPart> pendingPart : pendingParts) {
+            eTags.add(awaitPart(pendingPart));
+        }
+
+        return eTags;
+    }
+
+    private CompletedPart awaitPart(CompletableFuture<CompletedPart> pendingPart) throws IOException {
+        try {
+            return pendingPart.get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a part upload to complete");
+        } catch (ExecutionException exception) {
+            throw new IOException(exception.getCause());
+        }
+    }
+
     protected CompletedPart uploadChunk(BucketName bucket,
                                         String objectId,
                                         String multipartUploadId,
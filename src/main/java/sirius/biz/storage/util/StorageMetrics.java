@@ -10,7 +10,10 @@ package sirius.biz.storage.util;
 
 import sirius.biz.storage.layer1.ObjectStorageSpace;
 import sirius.biz.storage.layer1.replication.ReplicationManager;
+import sirius.biz.storage.layer2.TouchWritebackLoop;
 import sirius.biz.storage.layer2.variants.ConversionEngine;
+import sirius.biz.storage.layer2.variants.ConversionPriority;
+import sirius.biz.storage.layer2.variants.SourceFileCache;
 import sirius.kernel.di.std.Part;
 import sirius.kernel.di.std.Register;
 import sirius.kernel.health.metrics.Metric;
@@ -33,6 +36,12 @@ public class StorageMetrics extends CachingLoadInfoProvider implements MetricPro
     @Part
     private ConversionEngine conversionEngine;
 
+    @Part
+    private TouchWritebackLoop touchWritebackLoop;
+
+    @Part
+    private SourceFileCache sourceFileCache;
+
     @Override
     public void gather(MetricsCollector metricsCollector) {
         metricsCollector.differentialMetric("storage_uploads",
@@ -50,6 +59,11 @@ public class StorageMetrics extends CachingLoadInfoProvider implements MetricPro
                                             "Storage Streams",
                                             ObjectStorageSpace.getStreams(),
                                             Metric.UNIT_PER_MIN);
+        metricsCollector.differentialMetric("storage_ranged_streams",
+                                            "storage-ranged-streams",
+                                            "Storage Ranged Streams",
+                                            ObjectStorageSpace.getRangedStreams(),
+                                            Metric.UNIT_PER_MIN);
         metricsCollector.differentialMetric("storage_deliveries",
                                             "storage-deliveries",
                                             "Storage Deliveries",
@@ -71,6 +85,32 @@ public class StorageMetrics extends CachingLoadInfoProvider implements MetricPro
                                             ObjectStorageSpace.getDeliveryServerFailures(),
                                             Metric.UNIT_PER_MIN);
 
+        metricsCollector.differentialMetric("storage_touches_recorded",
+                                            "storage-touches-recorded",
+                                            "Storage Recorded Touches",
+                                            touchWritebackLoop.getRecordedTouches(),
+                                            Metric.UNIT_PER_MIN);
+        metricsCollector.differentialMetric("storage_touches_merged",
+                                            "storage-touches-merged",
+                                            "Storage Merged Touches",
+                                            touchWritebackLoop.getMergedTouches(),
+                                            Metric.UNIT_PER_MIN);
+        metricsCollector.differentialMetric("storage_touches_dropped",
+                                            "storage-touches-dropped",
+                                            "Storage Dropped Touches",
+                                            touchWritebackLoop.getDroppedTouches(),
+                                            Metric.UNIT_PER_MIN);
+        metricsCollector.differentialMetric("storage_touches_written",
+                                            "storage-touches-written",
+                                            "Storage Written Touches",
+                                            touchWritebackLoop.getWrittenTouches(),
+                                            Metric.UNIT_PER_MIN);
+        metricsCollector.metric("storage_touches_pending",
+                                "storage-touches-pending",
+                                "Storage Pending Touches",
+                                touchWritebackLoop.getPendingTouches(),
+                                null);
+
         metricsCollector.metric("storage_replication_tasks",
                                 "storage-replication-tasks",
                                 "Storage Replication Tasks",
@@ -92,6 +132,31 @@ public class StorageMetrics extends CachingLoadInfoProvider implements MetricPro
                                 "Storage Conversion Duration",
                                 conversionEngine.getConversionDuration().getAndClear(),
                                 Metric.UNIT_MS);
+        metricsCollector.differentialMetric("storage_conversions_coalesced",
+                                            "storage-conversions-coalesced",
+                                            "Storage Coalesced Conversions",
+                                            conversionEngine.getCoalescedConversions().getCount(),
+                                            Metric.UNIT_PER_MIN);
+        metricsCollector.differentialMetric("storage_conversion_source_cache_hits",
+                                            "storage-conversion-source-cache-hits",
+                                            "Storage Conversion Source Cache Hits",
+                                            sourceFileCache.getHits().getCount(),
+                                            Metric.UNIT_PER_MIN);
+        metricsCollector.differentialMetric("storage_conversion_source_cache_misses",
+                                            "storage-conversion-source-cache-misses",
+                                            "Storage Conversion Source Cache Misses",
+                                            sourceFileCache.getMisses().getCount(),
+                                            Metric.UNIT_PER_MIN);
+        metricsCollector.metric("storage_conversions_queued_interactive",
+                                "storage-conversions-queued-interactive",
+                                "Storage Queued Interactive Conversions",
+                                conversionEngine.getQueuedConversions(ConversionPriority.INTERACTIVE),
+                                null);
+        metricsCollector.metric("storage_conversions_queued_background",
+                                "storage-conversions-queued-background",
+                                "Storage Queued Background Conversions",
+                                conversionEngine.getQueuedConversions(ConversionPriority.BACKGROUND),
+                                null);
     }
 
     @Override
@@ -9,7 +9,9 @@
 package sirius.biz.tenants.metrics.computers;
 
 import sirius.biz.analytics.flags.PerformanceFlag;
+import sirius.biz.analytics.metrics.BulkMetricQuery;
 import sirius.biz.analytics.metrics.MetricComputerContext;
+import sirius.biz.analytics.metrics.MetricMatrix;
 import sirius.biz.analytics.metrics.MonthlyMetricComputer;
 import sirius.biz.process.Processes;
 import sirius.biz.tenants.Tenant;
@@ -19,7 +21,11 @@ import sirius.kernel.commons.Tuple;
 import sirius.kernel.di.std.Part;
 
 import javax.annotation.Nullable;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
@@ -94,45 +100,59 @@ public abstract class TenantMetricComputer<T extends BaseEntity<?> & Tenant<?>>
         }
 
         AtomicInteger totalUsers = new AtomicInteger(0);
-        AtomicInteger activeUsers = new AtomicInteger(0);
-        AtomicInteger sumActivity = new AtomicInteger(0);
-        AtomicInteger sumEducationLevel = new AtomicInteger(0);
-        AtomicBoolean hasAcademyUsers = new AtomicBoolean(false);
+        List<UserAccount<?, T>> activeUsers = new ArrayList<>();
+        Set<String> academyUserIds = new HashSet<>();
 
         callForEachUser(tenant, user -> {
             totalUsers.incrementAndGet();
 
             if (user.getPerformanceData().isSet(getActiveUserFlag())) {
-                activeUsers.incrementAndGet();
-                sumActivity.addAndGet(metrics.query()
-                                             .monthly(UserAccountActivityMetricComputer.METRIC_USER_ACTIVITY)
-                                             .of(user.getTypeName(), user.getIdAsString())
-                                             .lastValue());
+                activeUsers.add(user);
                 if (user.getPerformanceData().isSet(getAcademyUserFlag())) {
-                    sumEducationLevel.addAndGet(metrics.query()
-                                                       .monthly(UserAccountAcademyMetricComputer.METRIC_USER_EDUCATION_LEVEL)
-                                                       .of(user.getTypeName(), user.getIdAsString())
-                                                       .lastValue());
-                    hasAcademyUsers.set(true);
+                    academyUserIds.add(user.getIdAsString());
                 }
             }
         });
 
+        // Fetch the metrics of all active users at once instead of performing one query per user and metric...
+        BulkMetricQuery query = metrics.bulkQuery()
+                                       .monthly(UserAccountActivityMetricComputer.METRIC_USER_ACTIVITY,
+                                                UserAccountAcademyMetricComputer.METRIC_USER_EDUCATION_LEVEL);
+        for (UserAccount<?, T> user : activeUsers) {
+            query = query.of(user.getTypeName(), user.getIdAsString());
+        }
+        MetricMatrix userMetrics = query.valuesUntil(LocalDate.now().minusMonths(1), 1);
+
+        int sumActivity = 0;
+        int sumEducationLevel = 0;
+        for (UserAccount<?, T> user : activeUsers) {
+            sumActivity += userMetrics.values(user.getTypeName(),
+                                              user.getIdAsString(),
+                                              UserAccountActivityMetricComputer.METRIC_USER_ACTIVITY).getFirst();
+            if (academyUserIds.contains(user.getIdAsString())) {
+                sumEducationLevel +=
+                        userMetrics.values(user.getTypeName(),
+                                           user.getIdAsString(),
+                                           UserAccountAcademyMetricComputer.METRIC_USER_EDUCATION_LEVEL).getFirst();
+            }
+        }
+        boolean hasAcademyUsers = !academyUserIds.isEmpty();
+
         metrics.updateMonthlyMetric(tenant, METRIC_NUM_USERS, context.date(), totalUsers.get());
-        tenant.getPerformanceData().modify().set(getAcademyUsersFlag(), hasAcademyUsers.get()).commit();
+        tenant.getPerformanceData().modify().set(getAcademyUsersFlag(), hasAcademyUsers).commit();
 
-        if (activeUsers.get() > 0) {
-            metrics.updateMonthlyMetric(tenant, METRIC_NUM_ACTIVE_USERS, context.date(), activeUsers.get());
+        if (!activeUsers.isEmpty()) {
+            metrics.updateMonthlyMetric(tenant, METRIC_NUM_ACTIVE_USERS, context.date(), activeUsers.size());
             metrics.updateMonthlyMetric(tenant,
                                         METRIC_AVG_ACTIVITY,
                                         context.date(),
-                                        sumActivity.get() / activeUsers.get());
+                                        sumActivity / activeUsers.size());
             metrics.updateMonthlyMetric(tenant,
                                         METRIC_AVG_EDUCATION_LEVEL,
                                         context.date(),
-                                        sumEducationLevel.get() / activeUsers.get());
+                                        sumEducationLevel / activeUsers.size());
 
-            tenant.getPerformanceData().modify().set(getActiveUsersFlag(), activeUsers.get() > 0).commit();
+            tenant.getPerformanceData().modify().set(getActiveUsersFlag(), true).commit();
         }
 
         if (processes != null) {
@@ -70,6 +70,12 @@ public abstract class UserAccountActivityMetricComputer<U extends BaseEntity<?>
     @Part
     private EventRecorder eventRecorder;
 
+    @Override
+    public boolean isBatchingMetrics() {
+        // This computes a single metric for each user, therefore writing these in bulk saves lots of round-trips...
+        return true;
+    }
+
     @Override
     public void compute(MetricComputerContext context, U entity) throws Exception {
         LocalDate lowerLimit = context.date().minusDays(observationPeriodDays);
@@ -35,6 +35,7 @@ import sirius.kernel.health.Exceptions;
 import sirius.web.security.UserContext;
 
 import javax.annotation.Nullable;
+import java.util.List;
 import java.util.Optional;
 import java.util.function.BiConsumer;
 
@@ -127,6 +128,17 @@ public class MongoUserAccountImportHandler extends MongoEntityImportHandler<Mong
         return Optional.empty();
     }
 
+    @Override
+    protected void tryFindAllByExample(List<MongoUserAccount> examples, List<Optional<MongoUserAccount>> results) {
+        findAllByMappings(examples, results, _ -> true, List.of(MongoUserAccount.ID, MongoUserAccount.TENANT));
+        findAllByMappings(examples,
+                          results,
+                          example -> Strings.isEmpty(example.getId()),
+                          List.of(MongoUserAccount.USER_ACCOUNT_DATA.inner(UserAccountData.LOGIN)
+                                                                    .inner(LoginData.USERNAME),
+                                  MongoUserAccount.TENANT));
+    }
+
     @Override
     protected boolean parseComplexProperty(MongoUserAccount entity, Property property, Value value, Context data) {
         if (UserAccount.TENANT.getName().equals(property.getName())) {
@@ -0,0 +1,79 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.analytics.metrics
+
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.extension.ExtendWith
+import sirius.kernel.SiriusExtension
+import sirius.kernel.di.std.Part
+import java.time.LocalDate
+import kotlin.test.assertEquals
+
+/**
+ * Tests the [BulkMetricQuery].
+ */
+@ExtendWith(SiriusExtension::class)
+class BulkMetricQueryTest {
+
+    companion object {
+        @Part
+        @JvmStatic
+        private lateinit var metrics: Metrics
+    }
+
+    @Test
+    fun `bulk queries fill the matrix for all targets and periods`() {
+        val date = LocalDate.of(2020, 6, 15)
+        metrics.updateMonthlyMetric("bulk-test", "a", "bulk-metric", 2020, 5, 1)
+        metrics.updateMonthlyMetric("bulk-test", "a", "bulk-metric", 2020, 6, 2)
+        metrics.updateMonthlyMetric("bulk-test", "b", "bulk-metric", 2020, 6, 3)
+        metrics.updateMonthlyMetric("bulk-test", "b", "other-bulk-metric", 2020, 6, 4)
+        metrics.updateGlobalMonthlyMetric("bulk-metric", 2020, 6, 5)
+
+        val matrix = metrics.bulkQuery()
+            .monthly("bulk-metric", "other-bulk-metric")
+            .of("bulk-test", "a")
+            .of("bulk-test", "b")
+            .of("bulk-test", "c")
+            .global()
+            .valuesUntil(date, 2)
+
+        assertEquals(listOf(LocalDate.of(2020, 5, 15), date), matrix.dates)
+        assertEquals(listOf(1, 2), matrix.values("bulk-test", "a", "bulk-metric"))
+        assertEquals(listOf(0, 3), matrix.values("bulk-test", "b", "bulk-metric"))
+        assertEquals(listOf(0, 4), matrix.values("bulk-test", "b", "other-bulk-metric"))
+        assertEquals(listOf(0, 0), matrix.values("bulk-test", "c", "bulk-metric"))
+        assertEquals(listOf(0, 5), matrix.globalValues("bulk-metric"))
+        assertEquals(listOf(0, 0), matrix.values("bulk-test", "unknown", "bulk-metric"))
+    }
+
+    @Test
+    fun `bulk queries don't put missing values into the shared metric cache`() {
+        val date = LocalDate.of(2020, 7, 1)
+        val matrix = metrics.bulkQuery().monthly("bulk-cache-metric").of("bulk-test", "d").valuesUntil(date, 1)
+        assertEquals(listOf(0), matrix.values("bulk-test", "d", "bulk-cache-metric"))
+
+        metrics.updateMonthlyMetric("bulk-test", "d", "bulk-cache-metric", 2020, 7, 42)
+
+        assertEquals(42, metrics.query().monthly("bulk-cache-metric").of("bulk-test", "d").value(date).orElse(0))
+    }
+
+    @Test
+    fun `yearly bulk queries honor the requested range`() {
+        metrics.updateYearlyMetric("bulk-test", "e", "bulk-yearly-metric", 2018, 7)
+        metrics.updateYearlyMetric("bulk-test", "e", "bulk-yearly-metric", 2019, 8)
+
+        val matrix = metrics.bulkQuery()
+            .yearly("bulk-yearly-metric")
+            .of("bulk-test", "e")
+            .values(LocalDate.of(2019, 1, 1), LocalDate.of(2020, 1, 1))
+
+        assertEquals(listOf(8, 0), matrix.values("bulk-test", "e", "bulk-yearly-metric"))
+    }
+}
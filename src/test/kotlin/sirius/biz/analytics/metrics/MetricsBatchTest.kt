@@ -0,0 +1,88 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.analytics.metrics
+
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.extension.ExtendWith
+import sirius.kernel.SiriusExtension
+import sirius.kernel.di.std.Part
+import java.time.LocalDate
+import kotlin.test.assertEquals
+
+/**
+ * Tests the [MetricsBatch].
+ */
+@ExtendWith(SiriusExtension::class)
+class MetricsBatchTest {
+
+    companion object {
+        @Part
+        @JvmStatic
+        private lateinit var metrics: Metrics
+
+        private val DATE = LocalDate.of(2021, 3, 1)
+    }
+
+    /**
+     * Reads the value via a bulk query, as single queries would cache (missing) values.
+     */
+    private fun readValue(targetId: String, name: String): Int {
+        return metrics.bulkQuery()
+            .monthly(name)
+            .of("batch-test", targetId)
+            .valuesUntil(DATE, 1)
+            .values("batch-test", targetId, name)
+            .first()
+    }
+
+    @Test
+    fun `updates within a batch are written once the batch is closed`() {
+        metrics.createBatch().use { batch ->
+            batch.execute {
+                metrics.updateMonthlyMetric("batch-test", "a", "batch-metric", 2021, 3, 1)
+                metrics.updateMonthlyMetric("batch-test", "a", "batch-metric", 2021, 3, 2)
+                metrics.updateMonthlyMetric("batch-test", "b", "batch-metric", 2021, 3, 3)
+            }
+
+            assertEquals(2, batch.size())
+            assertEquals(0, readValue("a", "batch-metric"))
+        }
+
+        assertEquals(2, readValue("a", "batch-metric"))
+        assertEquals(3, readValue("b", "batch-metric"))
+    }
+
+    @Test
+    fun `updates outside of execute are written immediately`() {
+        metrics.createBatch().use { batch ->
+            metrics.updateMonthlyMetric("batch-test", "c", "batch-metric", 2021, 3, 4)
+
+            assertEquals(0, batch.size())
+            assertEquals(4, readValue("c", "batch-metric"))
+        }
+    }
+
+    @Test
+    fun `batches update and delete existing metrics`() {
+        metrics.updateMonthlyMetric("batch-test", "d", "batch-update-metric", 2021, 3, 5)
+        metrics.updateMonthlyMetric("batch-test", "e", "batch-update-metric", 2021, 3, 6)
+
+        metrics.createBatch().use { batch ->
+            batch.execute {
+                metrics.updateMonthlyMetric("batch-test", "d", "batch-update-metric", 2021, 3, 7)
+                metrics.updateMonthlyMetric("batch-test", "e", "batch-update-metric", 2021, 3, 0)
+                metrics.updateMonthlyMetric("batch-test", "f", "batch-update-metric", 2021, 3, 8)
+            }
+        }
+
+        assertEquals(7, readValue("d", "batch-update-metric"))
+        assertEquals(0, readValue("e", "batch-update-metric"))
+        assertEquals(8, readValue("f", "batch-update-metric"))
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.cluster
+
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.extension.ExtendWith
+import sirius.kernel.SiriusExtension
+import sirius.kernel.cache.Cache
+import sirius.kernel.cache.CacheManager
+import tools.jackson.databind.node.ObjectNode
+import java.util.Collections
+import kotlin.test.assertEquals
+
+/**
+ * Tests the batching of invalidations performed by [InterconnectCacheCoherence].
+ */
+@ExtendWith(SiriusExtension::class)
+class InterconnectCacheCoherenceTest {
+
+    companion object {
+        private val cache by lazy<Cache<String, String>> { CacheManager.createCoherentCache("cache-coherence-test") }
+    }
+
+    /**
+     * Records all messages instead of sending them to the other nodes.
+     */
+    private class RecordingInterconnect : Interconnect() {
+        val messages: MutableList<ObjectNode> = Collections.synchronizedList(mutableListOf())
+
+        override fun dispatch(handler: String, event: ObjectNode) {
+            messages.add(event)
+        }
+    }
+
+    private val interconnect = RecordingInterconnect()
+
+    /**
+     * Creates a new instance which isn't started, so that invalidations are only sent via an explicit flush.
+     */
+    private fun createCoherence(): InterconnectCacheCoherence {
+        val coherence = InterconnectCacheCoherence()
+        coherence.javaClass.getDeclaredField("interconnect").apply {
+            isAccessible = true
+            set(coherence, interconnect)
+        }
+
+        return coherence
+    }
+
+    @Test
+    fun `pending keys are split into several messages`() {
+        val coherence = createCoherence()
+        val keys = (1..600).map { "key-$it" }
+
+        keys.forEach { coherence.removeKey(cache, it) }
+
+        assertEquals(3, coherence.flushPendingInvalidations())
+        assertEquals(listOf(256, 256, 88), interconnect.messages.map { it.path("keys").size() })
+        assertEquals(keys, interconnect.messages.flatMap { message -> message.path("keys").map { it.asString() } })
+        assertEquals(0, coherence.flushPendingInvalidations())
+    }
+
+    @Test
+    fun `too many pending keys are sent as a single clear`() {
+        val coherence = createCoherence()
+
+        (1..4096).forEach { coherence.removeKey(cache, "key-$it") }
+        coherence.removeKey(cache, "another-key")
+
+        assertEquals(1, coherence.flushPendingInvalidations())
+        assertEquals("clear", interconnect.messages.single().path("type").asString())
+    }
+
+    @Test
+    fun `too many pending removeAll requests are sent as a single clear`() {
+        val coherence = createCoherence()
+
+        (1..256).forEach { coherence.removeAll(cache, "test", "value-$it") }
+
+        assertEquals(1, coherence.flushPendingInvalidations())
+        assertEquals("clear", interconnect.messages.single().path("type").asString())
+    }
+
+    @Test
+    fun `clearing a cache supersedes its pending invalidations`() {
+        val coherence = createCoherence()
+
+        (1..10).forEach { coherence.removeKey(cache, "key-$it") }
+        coherence.removeAll(cache, "test", "value")
+        coherence.clear(cache)
+
+        assertEquals("clear", interconnect.messages.single().path("type").asString())
+        assertEquals(0, coherence.flushPendingInvalidations())
+        assertEquals(1, interconnect.messages.size)
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.cluster.work
+
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.extension.ExtendWith
+import sirius.db.redis.Redis
+import sirius.kernel.SiriusExtension
+import sirius.kernel.di.std.Part
+import kotlin.test.assertEquals
+
+@ExtendWith(SiriusExtension::class)
+class ClusterSemaphoresTest {
+
+    companion object {
+        @Part
+        private lateinit var redis: Redis
+    }
+
+    @Test
+    fun `Local cluster semaphores enforce their limit`() {
+        val semaphores = LocalClusterSemaphores()
+
+        assertEquals(2, semaphores.tryAcquire("test", 3, 2))
+        assertEquals(1, semaphores.tryAcquire("test", 3, 2))
+        assertEquals(0, semaphores.tryAcquire("test", 3, 1))
+
+        semaphores.release("test", 2)
+
+        assertEquals(2, semaphores.tryAcquire("test", 3, 5))
+    }
+
+    @Test
+    fun `Redis cluster semaphores enforce their limit across nodes`() {
+        val node1 = RedisClusterSemaphores(redis)
+        val node2 = RedisClusterSemaphores(redis)
+        node1.keepAlive(emptyMap())
+        node2.keepAlive(emptyMap())
+
+        assertEquals(2, node1.tryAcquire("test-redis", 3, 2))
+        assertEquals(1, node2.tryAcquire("test-redis", 3, 2))
+        assertEquals(0, node1.tryAcquire("test-redis", 3, 1))
+
+        node1.release("test-redis", 2)
+
+        assertEquals(2, node2.tryAcquire("test-redis", 3, 5))
+        node2.release("test-redis", 3)
+    }
+
+    @Test
+    fun `Local cluster semaphores reclaim leaked permits`() {
+        val semaphores = LocalClusterSemaphores()
+
+        assertEquals(3, semaphores.tryAcquire("test-leak", 3, 3))
+        semaphores.keepAlive(mapOf("test-leak" to 1))
+
+        assertEquals(2, semaphores.tryAcquire("test-leak", 3, 3))
+    }
+
+    @Test
+    fun `Redis cluster semaphores reclaim leaked permits`() {
+        val node1 = RedisClusterSemaphores(redis)
+        val node2 = RedisClusterSemaphores(redis)
+        node1.keepAlive(emptyMap())
+        node2.keepAlive(emptyMap())
+
+        assertEquals(2, node1.tryAcquire("test-redis-leak", 3, 2))
+        assertEquals(1, node2.tryAcquire("test-redis-leak", 3, 2))
+
+        // node1 only runs a single task, as a release failed (or the result of an acquisition was lost)...
+        node1.keepAlive(mapOf("test-redis-leak" to 1))
+        assertEquals(1, node2.tryAcquire("test-redis-leak", 3, 2))
+
+        // Reporting no permits at all discards the entry of node1...
+        node1.keepAlive(mapOf("test-redis-leak" to 0))
+        assertEquals(1, node2.tryAcquire("test-redis-leak", 3, 2))
+
+        node2.release("test-redis-leak", 3)
+    }
+}
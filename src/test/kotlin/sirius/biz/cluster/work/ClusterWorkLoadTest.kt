@@ -0,0 +1,66 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.cluster.work
+
+import org.junit.jupiter.api.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertTrue
+
+/**
+ * Tests the load-aware scheduling of [ClusterWorkLoad.computeTargetParallelism].
+ */
+class ClusterWorkLoadTest {
+
+    private fun load(node: String, activeTasks: Int, capacity: Int = 8) =
+        ClusterWorkLoad.NodeLoad(node, activeTasks, capacity, 0, 4000, emptyMap(), System.currentTimeMillis())
+
+    @Test
+    fun `identical idle nodes use their full capacity`() {
+        val others = listOf(load("node2", 0), load("node3", 0), load("node4", 0))
+
+        assertEquals(8, ClusterWorkLoad.computeTargetParallelism(8, 0, 20, others, 0.25))
+        assertEquals(8, ClusterWorkLoad.computeTargetParallelism(8, 0, 2, others, 0.25))
+    }
+
+    @Test
+    fun `identical busy nodes use their full capacity`() {
+        val others = listOf(load("node2", 4), load("node3", 4), load("node4", 4))
+
+        assertEquals(8, ClusterWorkLoad.computeTargetParallelism(8, 4, 2, others, 0.25))
+    }
+
+    @Test
+    fun `a node busier than the cluster leaves work for idle nodes`() {
+        val others = listOf(load("node2", 0), load("node3", 0), load("node4", 0))
+
+        // The cluster is at 25% utilization, therefore the node limits itself to 50% (including the slack)...
+        assertEquals(4, ClusterWorkLoad.computeTargetParallelism(8, 8, 2, others, 0.25))
+    }
+
+    @Test
+    fun `a node doesn't hold back if there is enough work for everyone`() {
+        val others = listOf(load("node2", 0), load("node3", 0), load("node4", 0))
+
+        assertEquals(8, ClusterWorkLoad.computeTargetParallelism(8, 8, 24, others, 0.25))
+    }
+
+    @Test
+    fun `a node doesn't hold back if no other node is idle`() {
+        val others = listOf(load("node2", 8), load("node3", 8))
+
+        assertEquals(8, ClusterWorkLoad.computeTargetParallelism(8, 6, 0, others, 0.25))
+    }
+
+    @Test
+    fun `the target parallelism is at least one`() {
+        val others = listOf(load("node2", 0, 64), load("node3", 0, 64))
+
+        assertTrue(ClusterWorkLoad.computeTargetParallelism(8, 8, 0, others, 0.0) >= 1)
+    }
+}
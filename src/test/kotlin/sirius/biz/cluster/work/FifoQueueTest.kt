@@ -52,4 +52,27 @@ class FifoQueueTest {
         assertEquals(30, fifo.poll()?.path("value")?.asInt())
         assertNull(fifo.poll())
     }
+
+    @Test
+    fun `FIFOs poll batches in order`() {
+        listOf(LocalFifoQueue(), RedisFifoQueue(redis, "fifo_batch_test")).forEach { fifo ->
+            fifo.offer(Json.createObject().put("value", 10))
+            fifo.offer(Json.createObject().put("value", 20))
+            fifo.offer(Json.createObject().put("value", 30))
+
+            assertEquals(listOf(10, 20), fifo.poll(2).map { it.path("value").asInt() })
+            assertEquals(listOf(30), fifo.poll(2).map { it.path("value").asInt() })
+            assertEquals(0, fifo.poll(2).size)
+        }
+    }
+
+    @Test
+    fun `FIFOs offer batches in order`() {
+        listOf(LocalFifoQueue(), RedisFifoQueue(redis, "fifo_batch_offer_test")).forEach { fifo ->
+            fifo.offerAll(listOf(Json.createObject().put("value", 10), Json.createObject().put("value", 20)))
+            fifo.offer(Json.createObject().put("value", 30))
+
+            assertEquals(listOf(10, 20, 30), fifo.poll(5).map { it.path("value").asInt() })
+        }
+    }
 }
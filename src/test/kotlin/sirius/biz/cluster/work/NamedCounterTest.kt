@@ -56,4 +56,23 @@ class NamedCounterTest {
         assertEquals(0, counters.get("test1"))
         assertEquals(0, counters.get("test2"))
     }
+
+    @Test
+    fun `Local named counters remain consistent under contention`() {
+        val counters = LocalNamedCounters()
+
+        val threads = (1..8).map {
+            Thread {
+                repeat(10_000) {
+                    counters.incrementAndGet("contended")
+                    counters.incrementAndGet("contended")
+                    counters.decrementAndGet("contended")
+                }
+            }
+        }
+        threads.forEach { it.start() }
+        threads.forEach { it.join() }
+
+        assertEquals(80_000, counters.get("contended"))
+    }
 }
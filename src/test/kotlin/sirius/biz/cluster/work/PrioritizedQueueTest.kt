@@ -53,4 +53,17 @@ class PrioritizedQueueTest {
         assertEquals(30, queue.poll()?.path("value")?.asInt())
         assertNull(queue.poll())
     }
+
+    @Test
+    fun `Prioritized queues poll batches in order`() {
+        listOf(LocalPrioritizedQueue(null), RedisPrioritizedQueue(redis, "prioritized_batch_test")).forEach { queue ->
+            queue.offer(30, Json.createObject().put("value", 30))
+            queue.offer(20, Json.createObject().put("value", 20))
+            queue.offer(10, Json.createObject().put("value", 10))
+
+            assertEquals(listOf(10, 20), queue.poll(2).map { it.path("value").asInt() })
+            assertEquals(listOf(30), queue.poll(2).map { it.path("value").asInt() })
+            assertEquals(0, queue.poll(2).size)
+        }
+    }
 }
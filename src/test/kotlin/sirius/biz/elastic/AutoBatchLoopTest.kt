@@ -0,0 +1,78 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.elastic
+
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.extension.ExtendWith
+import sirius.biz.web.pagehelper.ElasticPageHelperEntity
+import sirius.kernel.SiriusExtension
+import sirius.kernel.di.std.Part
+import java.time.Duration
+import kotlin.test.assertEquals
+import kotlin.test.assertTrue
+
+/**
+ * Tests the [AutoBatchLoop].
+ */
+@ExtendWith(SiriusExtension::class)
+class AutoBatchLoopTest {
+
+    companion object {
+        @Part
+        @JvmStatic
+        private lateinit var autoBatch: AutoBatchLoop
+    }
+
+    private fun createEntity(value: String): ElasticPageHelperEntity {
+        val entity = ElasticPageHelperEntity()
+        entity.stringField = value
+        return entity
+    }
+
+    @Test
+    fun `awaiting a group without queued entities returns immediately`() {
+        assertTrue(autoBatch.awaitFlushed("auto-batch-test-empty", Duration.ZERO))
+    }
+
+    @Test
+    fun `awaiting a group waits until its entities are flushed`() {
+        for (i in 0 until 10) {
+            val entity = createEntity("flush-$i")
+            assertTrue(autoBatch.insertAsync(entity, "auto-batch-test-flush", Duration.ofSeconds(30)))
+        }
+
+        assertTrue(autoBatch.awaitFlushed("auto-batch-test-flush", Duration.ofSeconds(30)))
+        assertEquals(0, autoBatch.countQueuedEntities("auto-batch-test-flush"))
+    }
+
+    @Test
+    fun `a group is blocked once it has queued too many entities`() {
+        for (i in 0 until 12) {
+            // As the loop flushes the entities, all of them are eventually queued...
+            val entity = createEntity("limit-$i")
+            assertTrue(autoBatch.insertAsync(entity, "auto-batch-test-limit", 5, Duration.ofSeconds(30)))
+            // ...but the group never occupies more than its share of the queue.
+            assertTrue(autoBatch.countQueuedEntities("auto-batch-test-limit") <= 5)
+        }
+
+        assertTrue(autoBatch.awaitFlushed("auto-batch-test-limit", Duration.ofSeconds(30)))
+    }
+
+    @Test
+    fun `a full group doesn't block other groups`() {
+        for (i in 0 until 3) {
+            autoBatch.insertAsync(createEntity("full-$i"), "auto-batch-test-full", 3, Duration.ofSeconds(30))
+        }
+
+        assertTrue(autoBatch.insertAsync(createEntity("other"), "auto-batch-test-other", 3, Duration.ZERO))
+
+        assertTrue(autoBatch.awaitFlushed("auto-batch-test-full", Duration.ofSeconds(30)))
+        assertTrue(autoBatch.awaitFlushed("auto-batch-test-other", Duration.ofSeconds(30)))
+    }
+}
@@ -19,6 +19,7 @@ import sirius.biz.tenants.TenantsHelper
 import sirius.biz.tenants.jdbc.SQLTenant
 import sirius.db.jdbc.OMA
 import sirius.kernel.SiriusExtension
+import sirius.kernel.commons.Context
 import sirius.kernel.di.std.Part
 import sirius.kernel.health.HandledException
 import java.time.Duration
@@ -52,6 +53,26 @@ class ImporterTest {
         assertEquals(tenant.tenantData.name, tenant1.tenantData.name)
     }
 
+    @Test
+    fun `tryFindAll and prefetch resolve a block of tenants`() {
+        val tenant = TenantsHelper.getTestTenant()
+        val rows = listOf<Context>(
+                ImportContext.create().set(SQLTenant.ID, tenant.id),
+                ImportContext.create().set(SQLTenant.ID, NON_EXISTENT_TENANT_ID),
+                ImportContext.create().set(SQLTenant.ID, tenant.id)
+        )
+
+        val results = importer.tryFindAll(SQLTenant::class.java, rows)
+        assertEquals(tenant.id, results[0].get().id)
+        assertFalse { results[1].isPresent }
+        assertEquals(tenant.id, results[2].get().id)
+
+        importer.prefetch(SQLTenant::class.java, rows)
+        assertEquals(tenant.id, importer.tryFind(SQLTenant::class.java, rows[0]).get().id)
+        assertFalse { importer.tryFind(SQLTenant::class.java, rows[1]).isPresent }
+        assertEquals(tenant.id, importer.tryFind(SQLTenant::class.java, rows[2]).get().id)
+    }
+
     @Test
     fun `fail on find non existent tenant with importer`() {
         val context = ImportContext.create().set(SQLTenant.ID, NON_EXISTENT_TENANT_ID)
@@ -89,10 +89,97 @@ class IsenguardTest {
         assertEquals(1, counter.get())
     }
 
+    @Test
+    fun `Sliding windows report an exceeded limit once`() {
+        val scope = "sliding-" + System.currentTimeMillis()
+        val counter = AtomicInteger()
+
+        val results = (1..8).map {
+            isenguard.registerCallAndCheckRateLimitExceeded(
+                scope,
+                "test-sliding",
+                Isenguard.USE_LIMIT_FROM_CONFIG,
+                { counter.incrementAndGet() },
+                { RateLimitingInfo(null, null, null) })
+        }
+
+        assertEquals(listOf(false, false, false, false, false, true, true, true), results)
+        assertEquals(1, counter.get())
+    }
+
+    @Test
+    fun `Sliding windows report an exceeded limit once if the previous interval used up the limit`() {
+        val scope = "sliding-previous-" + System.currentTimeMillis()
+        val intervalSeconds = 24 * 60 * 60
+        val previousInterval = System.currentTimeMillis() / 1000 / intervalSeconds - 1
+        redisLimiter.updateCallCounts(
+            listOf(
+                RedisLimiter.CallCountUpdate(
+                    "$scope-test-sliding-$previousInterval",
+                    intervalSeconds,
+                    1_000_000
+                )
+            )
+        )
+        val counter = AtomicInteger()
+
+        val results = (1..3).map {
+            isenguard.registerCallAndCheckRateLimitExceeded(
+                scope,
+                "test-sliding",
+                Isenguard.USE_LIMIT_FROM_CONFIG,
+                { counter.incrementAndGet() },
+                { RateLimitingInfo(null, null, null) })
+        }
+
+        // The weighted calls of the previous interval exceed the limit, so that the effective limit is 0...
+        assertEquals(listOf(true, true, true), results)
+        assertEquals(1, counter.get())
+    }
+
+    @Test
+    fun `Local limiter counts calls and reports an exceeded limit once`() {
+        val key = "local-limiter-test-" + System.currentTimeMillis()
+        val counter = AtomicInteger()
+
+        val results = (1..5).map {
+            localLimiter.registerCallAndCheckLimitExceeded(key, 60, 3, 0) { counter.incrementAndGet() }
+        }
+
+        assertEquals(listOf(false, false, false, true, true), results)
+        assertEquals(5, localLimiter.readCallCount(key))
+        assertEquals(1, counter.get())
+    }
+
+    @Test
+    fun `Hybrid limiter transmits locally counted calls to redis`() {
+        val key = "hybrid-limiter-test-" + System.currentTimeMillis()
+
+        repeat(10) {
+            hybridLimiter.registerCallAndCheckLimitExceeded(key, 60, 100, 50, null)
+        }
+        assertEquals(10, hybridLimiter.readCallCount(key, 60))
+
+        hybridLimiter.synchronizeCounters()
+        assertEquals(10, redisLimiter.readCallCount(key))
+    }
+
     companion object {
         @Part
         @JvmStatic
         private lateinit var isenguard: Isenguard
+
+        @Part
+        @JvmStatic
+        private lateinit var localLimiter: LocalLimiter
+
+        @Part
+        @JvmStatic
+        private lateinit var hybridLimiter: HybridLimiter
+
+        @Part
+        @JvmStatic
+        private lateinit var redisLimiter: RedisLimiter
     }
 
 }
@@ -0,0 +1,134 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.jobs.batch
+
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.junit.jupiter.api.extension.ExtendWith
+import sirius.kernel.SiriusExtension
+import sirius.kernel.async.Future
+import sirius.kernel.commons.UnitOfWork
+import sirius.kernel.health.HandledException
+import java.util.Collections
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.test.assertEquals
+import kotlin.test.assertTrue
+
+/**
+ * Tests the [ParallelImportWorkers].
+ */
+@ExtendWith(SiriusExtension::class)
+class ParallelImportWorkersTest {
+
+    /**
+     * Runs each worker in its own thread, optionally wrapping it (e.g. to simulate a failure when closing).
+     */
+    private class ThreadExecutor(val wrapper: (UnitOfWork) -> UnitOfWork = { it }) :
+        ParallelImportWorkers.WorkerExecutor {
+        override fun start(worker: UnitOfWork): Future {
+            val future = Future()
+            Thread.ofVirtual().start {
+                try {
+                    wrapper(worker).execute()
+                    future.success()
+                } catch (exception: Exception) {
+                    future.fail(exception)
+                }
+            }
+            return future
+        }
+    }
+
+    @Test
+    fun `records with the same partition key are routed to the same worker`() {
+        val workers = ParallelImportWorkers(ThreadExecutor(), { _ -> }, 4)
+
+        for (key in 0 until 100) {
+            assertEquals(workers.determineWorker("key-$key"), workers.determineWorker("key-$key"))
+        }
+        val usedWorkers = (0 until 8).map { workers.determineWorker(null) }.toSet()
+        assertEquals(setOf(0, 1, 2, 3), usedWorkers)
+
+        workers.awaitCompletion()
+    }
+
+    @Test
+    fun `all records are processed in order per partition before awaitCompletion returns`() {
+        val processed = ConcurrentHashMap<Int, MutableList<Int>>()
+        val workers = ParallelImportWorkers(ThreadExecutor(), { _ -> }, 4)
+
+        for (record in 0 until 5000) {
+            val partition = record % 17
+            workers.dispatch(partition) {
+                processed.computeIfAbsent(partition) { Collections.synchronizedList(mutableListOf()) }.add(record)
+            }
+        }
+        workers.awaitCompletion()
+
+        assertEquals(5000, processed.values.sumOf { it.size })
+        processed.forEach { (partition, records) ->
+            assertEquals((partition until 5000 step 17).toList(), records)
+        }
+    }
+
+    @Test
+    fun `awaitCompletion waits until the workers have terminated`() {
+        val closedWorkers = AtomicInteger()
+        val workers = ParallelImportWorkers(ThreadExecutor { worker ->
+            UnitOfWork {
+                worker.execute()
+                // Simulates closing the importer which commits all pending batches...
+                Thread.sleep(50)
+                closedWorkers.incrementAndGet()
+            }
+        }, { _ -> }, 3)
+
+        workers.dispatch(null) {}
+        workers.awaitCompletion()
+
+        assertEquals(3, closedWorkers.get())
+    }
+
+    @Test
+    fun `errors of single records are reported without stopping the worker`() {
+        val errors = Collections.synchronizedList(mutableListOf<Exception>())
+        val processed = AtomicInteger()
+        val workers = ParallelImportWorkers(ThreadExecutor(), { exception -> errors.add(exception) }, 2)
+
+        for (record in 0 until 100) {
+            workers.dispatch(record) {
+                if (record % 10 == 0) {
+                    throw IllegalStateException("Cannot import record $record")
+                }
+                processed.incrementAndGet()
+            }
+        }
+        workers.awaitCompletion()
+
+        assertEquals(10, errors.size)
+        assertEquals(90, processed.get())
+    }
+
+    @Test
+    fun `a failing worker is propagated by awaitCompletion`() {
+        val workers = ParallelImportWorkers(ThreadExecutor { worker ->
+            UnitOfWork {
+                worker.execute()
+                throw IllegalStateException("Cannot commit the batch")
+            }
+        }, { _ -> }, 2)
+
+        workers.dispatch("a") {}
+        val exception = assertThrows<HandledException> {
+            workers.awaitCompletion()
+        }
+        assertTrue(exception.message!!.contains("Cannot commit the batch"))
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.jobs.batch.file
+
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.junit.jupiter.api.extension.ExtendWith
+import sirius.kernel.SiriusExtension
+import sirius.kernel.async.Promise
+import sirius.kernel.commons.Producer
+import sirius.kernel.health.Exceptions
+import sirius.kernel.health.HandledException
+import java.util.Collections
+import java.util.concurrent.ThreadLocalRandom
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.test.assertEquals
+import kotlin.test.assertTrue
+
+/**
+ * Tests the [ParallelRowRenderer].
+ */
+@ExtendWith(SiriusExtension::class)
+class ParallelRowRendererTest {
+
+    /**
+     * Renders each block in its own thread after a random delay, so that blocks complete out of order.
+     */
+    private class DelayingExecutor(val onSubmit: () -> Unit = {}) : ParallelRowRenderer.SideTaskExecutor {
+        override fun <P> compute(task: Producer<P>): Promise<P> {
+            onSubmit()
+            val promise = Promise<P>()
+            Thread.ofVirtual().start {
+                try {
+                    Thread.sleep(ThreadLocalRandom.current().nextLong(1, 10))
+                    promise.success(task.create())
+                } catch (exception: Exception) {
+                    promise.fail(exception)
+                }
+            }
+            return promise
+        }
+    }
+
+    @Test
+    fun `rows are written in the order of their entities`() {
+        val written = Collections.synchronizedList(mutableListOf<Any>())
+        val renderer = ParallelRowRenderer<Int>(
+            DelayingExecutor(),
+            { exception -> Exceptions.handle(exception) },
+            4,
+            { entity -> listOf(entity) },
+            { row -> written.add(row[0]) })
+
+        for (entity in 0 until 2000) {
+            renderer.add(entity)
+        }
+        renderer.finish()
+
+        assertEquals((0 until 2000).toList(), written)
+    }
+
+    @Test
+    fun `a failure while rendering is propagated to the caller`() {
+        val renderer = ParallelRowRenderer<Int>(
+            DelayingExecutor(),
+            { exception -> Exceptions.handle(exception) },
+            4,
+            { entity -> if (entity == 300) throw IllegalStateException("Cannot render") else listOf(entity) },
+            { _ -> })
+
+        assertThrows<HandledException> {
+            for (entity in 0 until 2000) {
+                renderer.add(entity)
+            }
+            renderer.finish()
+        }
+    }
+
+    @Test
+    fun `a failure while writing is propagated to the caller`() {
+        val renderer = ParallelRowRenderer<Int>(
+            DelayingExecutor(),
+            { exception -> Exceptions.handle(exception) },
+            2,
+            { entity -> listOf(entity) },
+            { row -> if (row[0] == 10) throw IllegalStateException("Cannot write") })
+
+        assertThrows<HandledException> {
+            for (entity in 0 until 1000) {
+                renderer.add(entity)
+            }
+            renderer.finish()
+        }
+    }
+
+    @Test
+    fun `the number of pending blocks is bounded by the parallelism`() {
+        val maxPendingBlocks = AtomicInteger()
+        val submittedBlocks = AtomicInteger()
+        lateinit var renderer: ParallelRowRenderer<Int>
+        renderer = ParallelRowRenderer(
+            DelayingExecutor {
+                submittedBlocks.incrementAndGet()
+                // The new block is added once the executor accepted it...
+                maxPendingBlocks.accumulateAndGet(renderer.pendingBlocks + 1, Math::max)
+            },
+            { exception -> Exceptions.handle(exception) },
+            3,
+            { entity -> listOf(entity) },
+            { _ -> })
+
+        for (entity in 0 until 256 * 40) {
+            renderer.add(entity)
+        }
+        renderer.finish()
+
+        assertEquals(40, submittedBlocks.get())
+        assertTrue(maxPendingBlocks.get() <= 3)
+        assertEquals(0, renderer.pendingBlocks)
+    }
+}
@@ -109,6 +109,44 @@ class JupiterTest {
         assertFalse { cache.get("ext-key").isPresent }
     }
 
+    @Test
+    fun `LRU near cache keeps found values locally`() {
+        val cache = jupiter.getDefault().lru("test")
+        val nearCache = cache.withNearCache()
+        cache.put("near-key", "first")
+        assertEquals("first", nearCache.get("near-key").get())
+
+        // Writing via the plain cache bypasses the near cache, which therefore still serves the local value...
+        cache.put("near-key", "second")
+        assertEquals("first", nearCache.get("near-key").get())
+
+        // ...whereas writing via the wrapper evicts it...
+        nearCache.put("near-key", "third")
+        assertEquals("third", nearCache.get("near-key").get())
+    }
+
+    @Test
+    fun `LRU near cache doesn't keep missing values`() {
+        val cache = jupiter.getDefault().lru("test")
+        val nearCache = cache.withNearCache()
+        cache.remove("near-missing")
+        assertFalse { nearCache.get("near-missing").isPresent }
+
+        cache.put("near-missing", "value")
+        assertEquals("value", nearCache.get("near-missing").get())
+    }
+
+    @Test
+    fun `LRU extendedGet bypasses the near cache`() {
+        val cache = jupiter.getDefault().lru("test")
+        val nearCache = cache.withNearCache()
+        cache.remove("near-ext")
+        assertEquals("first", nearCache.extendedGet("near-ext") { "first" })
+
+        cache.put("near-ext", "second")
+        assertEquals("second", nearCache.extendedGet("near-ext") { "computed" })
+    }
+
     @Test
     fun `IDB show_tables works`() {
         val list = jupiter.getDefault().idb().showTables()
@@ -132,6 +170,13 @@ class JupiterTest {
                 "D", table.query().lookupPaths("code").searchValue("D").singleRow("code").get().at(0).asString()
         )
 
+        val nearCachedTable = table.withNearCache()
+        repeat(2) {
+            val nearCachedRow = nearCachedTable.query().lookupPaths("code").searchValue("D").singleRow("code")
+            assertEquals("D", nearCachedRow.get().at(0).asString())
+            assertFalse { nearCachedTable.query().lookupPaths("code").searchValue("X").singleRow("code").isPresent }
+        }
+
         val row = table.query().searchInAllFields().searchValue("de").translate("de").singleRow("code", "name").get()
         assertEquals("D", row.at(0).asString())
         assertEquals("Deutschland", row.at(1).asString())
@@ -14,7 +14,10 @@ import sirius.kernel.SiriusExtension
 import sirius.kernel.async.Tasks
 import sirius.kernel.di.std.Part
 import java.time.Duration
+import java.util.concurrent.CountDownLatch
 import java.util.concurrent.Semaphore
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
 import kotlin.test.assertFalse
 import kotlin.test.assertTrue
 
@@ -63,6 +66,28 @@ abstract class LocksTest {
         assertFalse { locks.isLocked("test") }
     }
 
+    @Test
+    fun `A waiting thread acquires the lock once it has been released`() {
+        // Acquire test lock in the main thread
+        locks.tryLock("test-wait", Duration.ofSeconds(1))
+        val acquired = AtomicBoolean()
+        val completed = CountDownLatch(1)
+        // Fork a thread which waits for the lock...
+        tasks.defaultExecutor().start { ->
+            acquired.set(locks.tryLock("test-wait", Duration.ofSeconds(10)))
+            if (acquired.get()) {
+                locks.unlock("test-wait")
+            }
+            completed.countDown()
+        }
+        // Release the lock while the other thread is waiting...
+        Thread.sleep(100)
+        locks.unlock("test-wait")
+        // The waiting thread is notified and acquires the lock...
+        assertTrue { completed.await(5, TimeUnit.SECONDS) }
+        assertTrue { acquired.get() }
+    }
+
     companion object {
         @Part
         @JvmStatic
@@ -9,13 +9,28 @@
 package sirius.biz.locks
 
 import org.junit.jupiter.api.BeforeAll
+import org.junit.jupiter.api.Test
 import sirius.kernel.di.Injector
+import kotlin.test.assertTrue
 
 /**
  * Tests the SQL backed [LockManager] implementation.
  */
 class SqlLocksTest : LocksTest() {
 
+    @Test
+    fun `Fencing tokens increase with each acquisition`() {
+        locks.tryLock("test-fencing", null)
+        val firstToken = locks.getFencingToken("test-fencing")
+        locks.unlock("test-fencing")
+        locks.tryLock("test-fencing", null)
+        val secondToken = locks.getFencingToken("test-fencing")
+        locks.unlock("test-fencing")
+
+        assertTrue { firstToken > 0 }
+        assertTrue { secondToken > firstToken }
+    }
+
     companion object {
         @BeforeAll
         @JvmStatic
@@ -60,6 +60,23 @@ open class SequencesTest {
         sequences.setNextValue(id, value, true)
     }
 
+    @Test
+    fun `Block allocation hands out unique ids and reserves whole blocks`() {
+        val id = "__generated" + ThreadLocalRandom.current().nextInt()
+        sequences.enableBlockAllocation(id, 10)
+        val ids = (1..25).map { sequences.generateId(id) }
+        assertEquals((1L..25L).toList(), ids)
+        assertEquals(31, sequences.peekNextValue(id))
+    }
+
+    @Test
+    fun `Block allocation generates unique ids in parallel`() {
+        val id = "__generated" + ThreadLocalRandom.current().nextInt()
+        sequences.enableBlockAllocation(id, 7)
+        val ids = (1..500).toList().parallelStream().map { sequences.generateId(id) }.toList()
+        assertEquals(500, ids.toSet().size)
+    }
+
     companion object {
         @Part
         @JvmStatic
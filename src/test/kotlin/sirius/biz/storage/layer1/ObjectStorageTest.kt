@@ -17,6 +17,7 @@ import sirius.kernel.SiriusExtension
 import sirius.kernel.commons.Streams
 import sirius.kernel.di.std.Part
 import java.io.ByteArrayInputStream
+import java.nio.ByteBuffer
 import java.nio.charset.StandardCharsets
 import java.nio.file.Files
 import java.util.Random
@@ -88,6 +89,54 @@ class ObjectStorageTest {
         assertTrue { testData.contentEquals(Streams.toByteArray(objectSpace.getInputStream(objectName).get())) }
     }
 
+    @ParameterizedTest
+    @ValueSource(strings = ["fs-test", "fs-zip-aes-test", "s3-test", "s3-zip-aes-test"])
+    fun `parallel uploads store data as expected`(space: String) {
+        val testData = generateRandomData(3 * 1024 * 1024 + 17)
+        val objectName = "parallel-test-data"
+        val objectSpace = storage.getSpace(space)
+
+        objectSpace.uploadParallel(objectName, ByteArrayInputStream(testData), testData.size.toLong(), 4)
+
+        assertTrue { testData.contentEquals(Streams.toByteArray(objectSpace.getInputStream(objectName).get())) }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = ["fs-test", "fs-zip-aes-test", "s3-test", "s3-zip-aes-test"])
+    fun `ranged reads and channels provide the requested data`(space: String) {
+        val testData = generateRandomData(100_000)
+        val objectName = "ranged-test-data"
+        val objectSpace = storage.getSpace(space)
+
+        objectSpace.upload(objectName, ByteArrayInputStream(testData), testData.size.toLong())
+
+        assertTrue {
+            testData.copyOfRange(1000, 1500)
+                .contentEquals(Streams.toByteArray(objectSpace.getInputStream(objectName, 1000, 500).get()))
+        }
+        assertTrue {
+            testData.copyOfRange(99_000, 100_000)
+                .contentEquals(Streams.toByteArray(objectSpace.getInputStream(objectName, 99_000, -1).get()))
+        }
+        assertTrue { Streams.toByteArray(objectSpace.getInputStream(objectName, 200_000, -1).get()).isEmpty() }
+
+        objectSpace.openChannel(objectName, testData.size.toLong()).use { channel ->
+            val buffer = ByteBuffer.allocate(100)
+            channel.position(50_000)
+            while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+                // Read until the buffer is full...
+            }
+            assertTrue { testData.copyOfRange(50_000, 50_100).contentEquals(buffer.array()) }
+
+            buffer.clear()
+            channel.position(10)
+            while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+                // Read until the buffer is full...
+            }
+            assertTrue { testData.copyOfRange(10, 110).contentEquals(buffer.array()) }
+        }
+    }
+
     @ParameterizedTest
     @ValueSource(strings = ["fs-test", "s3-test"])
     fun `deleting data works as expected`(space: String) {
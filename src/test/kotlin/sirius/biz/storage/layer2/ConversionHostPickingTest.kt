@@ -0,0 +1,75 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.storage.layer2
+
+import org.junit.jupiter.api.Test
+import kotlin.test.assertEquals
+import kotlin.test.assertTrue
+
+/**
+ * Tests the rendezvous hashing performed by [BasicBlobStorageSpace.pickConversionHost].
+ */
+class ConversionHostPickingTest {
+
+    private val hosts = listOf("conversion1", "conversion2", "conversion3", "conversion4")
+
+    private fun pick(hosts: List<String>, blobKey: String, hostsWithIssues: Set<String> = emptySet()) =
+        BasicBlobStorageSpace.pickConversionHost(hosts, blobKey) { hostsWithIssues.contains(it) }
+
+    @Test
+    fun `a single host is always picked`() {
+        assertEquals("conversion1", pick(listOf("conversion1"), "blob"))
+        assertEquals("conversion1", pick(listOf("conversion1"), "blob", setOf("conversion1")))
+    }
+
+    @Test
+    fun `the same host is picked for a blob regardless of the order of the hosts`() {
+        for (i in 0 until 100) {
+            val expectedHost = pick(hosts, "blob-$i")
+            assertEquals(expectedHost, pick(hosts.reversed(), "blob-$i"))
+            assertEquals(expectedHost, pick(hosts, "blob-$i"))
+        }
+    }
+
+    @Test
+    fun `blobs are distributed among all hosts`() {
+        val pickedHosts = (0 until 1000).map { pick(hosts, "blob-$it") }.groupingBy { it }.eachCount()
+
+        assertEquals(hosts.toSet(), pickedHosts.keys)
+        pickedHosts.values.forEach { assertTrue(it > 150, "Hosts should be picked roughly equally often") }
+    }
+
+    @Test
+    fun `removing a host only moves the blobs assigned to it`() {
+        val remainingHosts = hosts - "conversion2"
+        for (i in 0 until 100) {
+            val originalHost = pick(hosts, "blob-$i")
+            if (originalHost != "conversion2") {
+                assertEquals(originalHost, pick(remainingHosts, "blob-$i"))
+            }
+        }
+    }
+
+    @Test
+    fun `hosts with connectivity issues are skipped in favor of the next best host`() {
+        for (i in 0 until 100) {
+            val bestHost = pick(hosts, "blob-$i")
+            val nextBestHost = pick(hosts - bestHost, "blob-$i")
+
+            assertEquals(nextBestHost, pick(hosts, "blob-$i", setOf(bestHost)))
+        }
+    }
+
+    @Test
+    fun `the best host is picked if all hosts have connectivity issues`() {
+        for (i in 0 until 100) {
+            assertEquals(pick(hosts, "blob-$i"), pick(hosts, "blob-$i", hosts.toSet()))
+        }
+    }
+}
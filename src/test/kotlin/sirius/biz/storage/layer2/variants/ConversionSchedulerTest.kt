@@ -0,0 +1,200 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.storage.layer2.variants
+
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.extension.ExtendWith
+import sirius.kernel.SiriusExtension
+import java.util.EnumMap
+import kotlin.test.assertEquals
+import kotlin.test.assertFalse
+import kotlin.test.assertTrue
+
+/**
+ * Tests the [ConversionScheduler].
+ */
+@ExtendWith(SiriusExtension::class)
+class ConversionSchedulerTest {
+
+    /**
+     * Collects the submitted tasks per priority, so that the test controls when these are executed.
+     */
+    private class ManualExecutor(val capacity: Int = Int.MAX_VALUE) : ConversionScheduler.PriorityExecutor {
+        val queues = EnumMap<ConversionPriority, ArrayDeque<Runnable>>(ConversionPriority::class.java)
+
+        init {
+            ConversionPriority.values().forEach { queues[it] = ArrayDeque() }
+        }
+
+        override fun execute(priority: ConversionPriority, task: Runnable, dropHandler: Runnable) {
+            if (queues[priority]!!.size >= capacity) {
+                dropHandler.run()
+            } else {
+                queues[priority]!!.addLast(task)
+            }
+        }
+
+        fun runNext(priority: ConversionPriority): Boolean {
+            val task = queues[priority]!!.removeFirstOrNull() ?: return false
+            task.run()
+            return true
+        }
+
+        fun size(priority: ConversionPriority) = queues[priority]!!.size
+    }
+
+    @Test
+    fun `conversions are executed in the executor of their priority`() {
+        val executor = ManualExecutor()
+        val scheduler = ConversionScheduler(executor) { 0 }
+        val performed = mutableListOf<String>()
+
+        scheduler.schedule("a", "converter", ConversionPriority.BACKGROUND, { performed.add("a") }, {})
+        scheduler.schedule("b", "converter", ConversionPriority.INTERACTIVE, { performed.add("b") }, {})
+
+        assertEquals(1, executor.size(ConversionPriority.BACKGROUND))
+        assertEquals(1, executor.size(ConversionPriority.INTERACTIVE))
+        assertEquals(1, scheduler.getQueuedConversions(ConversionPriority.BACKGROUND))
+        assertEquals(1, scheduler.getQueuedConversions(ConversionPriority.INTERACTIVE))
+
+        executor.runNext(ConversionPriority.INTERACTIVE)
+        executor.runNext(ConversionPriority.BACKGROUND)
+
+        assertEquals(listOf("b", "a"), performed)
+        assertEquals(0, scheduler.getQueuedConversions(ConversionPriority.BACKGROUND))
+        assertEquals(0, scheduler.getQueuedConversions(ConversionPriority.INTERACTIVE))
+    }
+
+    @Test
+    fun `conversions exceeding the limit of their converter are parked and interactive ones start first`() {
+        val executor = ManualExecutor()
+        val scheduler = ConversionScheduler(executor) { 1 }
+        val performed = mutableListOf<String>()
+
+        scheduler.schedule("a", "converter", ConversionPriority.BACKGROUND, { performed.add("a") }, {})
+        scheduler.schedule("b", "converter", ConversionPriority.BACKGROUND, { performed.add("b") }, {})
+        scheduler.schedule("c", "converter", ConversionPriority.INTERACTIVE, { performed.add("c") }, {})
+
+        // Only one conversion may run at a time, the others are parked...
+        assertEquals(1, executor.size(ConversionPriority.BACKGROUND))
+        assertEquals(0, executor.size(ConversionPriority.INTERACTIVE))
+        assertEquals(3, scheduler.getQueuedConversions(ConversionPriority.BACKGROUND) +
+                scheduler.getQueuedConversions(ConversionPriority.INTERACTIVE))
+
+        // Once "a" completes, the interactive conversion takes over the slot...
+        executor.runNext(ConversionPriority.BACKGROUND)
+        assertTrue(executor.runNext(ConversionPriority.INTERACTIVE))
+        assertTrue(executor.runNext(ConversionPriority.BACKGROUND))
+
+        assertEquals(listOf("a", "c", "b"), performed)
+    }
+
+    @Test
+    fun `other converters are not affected by the limit of a converter`() {
+        val executor = ManualExecutor()
+        val scheduler = ConversionScheduler(executor) { converter -> if (converter == "slow") 1 else 0 }
+
+        scheduler.schedule("a", "slow", ConversionPriority.INTERACTIVE, {}, {})
+        scheduler.schedule("b", "slow", ConversionPriority.INTERACTIVE, {}, {})
+        scheduler.schedule("c", "fast", ConversionPriority.INTERACTIVE, {}, {})
+        scheduler.schedule("d", "fast", ConversionPriority.INTERACTIVE, {}, {})
+
+        assertEquals(3, executor.size(ConversionPriority.INTERACTIVE))
+    }
+
+    @Test
+    fun `a parked background conversion is promoted`() {
+        val executor = ManualExecutor()
+        val scheduler = ConversionScheduler(executor) { 1 }
+        val performed = mutableListOf<String>()
+
+        scheduler.schedule("running", "converter", ConversionPriority.INTERACTIVE, { performed.add("running") }, {})
+        scheduler.schedule("other", "converter", ConversionPriority.INTERACTIVE, { performed.add("other") }, {})
+        scheduler.schedule("pregenerate", "converter", ConversionPriority.BACKGROUND, {
+            performed.add("pregenerate")
+        }, {})
+
+        assertTrue(scheduler.promote("pregenerate", ConversionPriority.INTERACTIVE))
+        assertEquals(0, scheduler.getQueuedConversions(ConversionPriority.BACKGROUND))
+
+        executor.runNext(ConversionPriority.INTERACTIVE)
+        executor.runNext(ConversionPriority.INTERACTIVE)
+        executor.runNext(ConversionPriority.INTERACTIVE)
+
+        assertEquals(listOf("running", "other", "pregenerate"), performed)
+        assertEquals(0, executor.size(ConversionPriority.BACKGROUND))
+    }
+
+    @Test
+    fun `a queued background conversion is promoted and only executed once`() {
+        val executor = ManualExecutor()
+        val scheduler = ConversionScheduler(executor) { 0 }
+        var performed = 0
+
+        scheduler.schedule("pregenerate", "converter", ConversionPriority.BACKGROUND, { performed++ }, {})
+        assertTrue(scheduler.promote("pregenerate", ConversionPriority.INTERACTIVE))
+
+        // The conversion is handed to the interactive executor, while still waiting in the background executor...
+        assertEquals(1, executor.size(ConversionPriority.INTERACTIVE))
+        assertEquals(1, executor.size(ConversionPriority.BACKGROUND))
+        assertEquals(1, scheduler.getQueuedConversions(ConversionPriority.INTERACTIVE))
+
+        executor.runNext(ConversionPriority.INTERACTIVE)
+        executor.runNext(ConversionPriority.BACKGROUND)
+
+        assertEquals(1, performed)
+        assertEquals(0, scheduler.getQueuedConversions(ConversionPriority.INTERACTIVE))
+        assertEquals(0, scheduler.getQueuedConversions(ConversionPriority.BACKGROUND))
+    }
+
+    @Test
+    fun `started or equally urgent conversions are not promoted`() {
+        val executor = ManualExecutor()
+        val scheduler = ConversionScheduler(executor) { 0 }
+
+        scheduler.schedule("interactive", "converter", ConversionPriority.INTERACTIVE, {}, {})
+        assertFalse(scheduler.promote("interactive", ConversionPriority.INTERACTIVE))
+
+        scheduler.schedule("background", "converter", ConversionPriority.BACKGROUND, {}, {})
+        executor.runNext(ConversionPriority.BACKGROUND)
+        assertFalse(scheduler.promote("background", ConversionPriority.INTERACTIVE))
+
+        assertFalse(scheduler.promote("unknown", ConversionPriority.INTERACTIVE))
+    }
+
+    @Test
+    fun `conversions are failed if the executor is overloaded`() {
+        val executor = ManualExecutor(capacity = 1)
+        val scheduler = ConversionScheduler(executor) { 0 }
+        val failures = mutableListOf<Exception>()
+
+        scheduler.schedule("a", "converter", ConversionPriority.INTERACTIVE, {}, { failures.add(it) })
+        scheduler.schedule("b", "converter", ConversionPriority.INTERACTIVE, {}, { failures.add(it) })
+
+        assertEquals(1, failures.size)
+        assertEquals(1, scheduler.getQueuedConversions(ConversionPriority.INTERACTIVE))
+    }
+
+    @Test
+    fun `conversions are failed if too many are parked`() {
+        val executor = ManualExecutor()
+        val scheduler = ConversionScheduler(executor) { 1 }
+        val failures = mutableListOf<Exception>()
+
+        for (i in 0..ConversionScheduler.MAX_PENDING_CONVERSIONS_PER_CONVERTER + 1) {
+            scheduler.schedule("conversion-$i", "converter", ConversionPriority.BACKGROUND, {}, { failures.add(it) })
+        }
+
+        assertEquals(1, failures.size)
+        assertEquals(
+            ConversionScheduler.MAX_PENDING_CONVERSIONS_PER_CONVERTER + 1,
+            scheduler.getQueuedConversions(ConversionPriority.BACKGROUND)
+        )
+    }
+}
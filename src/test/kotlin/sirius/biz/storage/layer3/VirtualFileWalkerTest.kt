@@ -0,0 +1,170 @@
+/*
+ * Made with all the love in the world
+ * by scireum in Remshalden, Germany
+ *
+ * Copyright by scireum GmbH
+ * http://www.scireum.de - info@scireum.de
+ */
+
+package sirius.biz.storage.layer3
+
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.Timeout
+import org.junit.jupiter.api.extension.ExtendWith
+import sirius.kernel.SiriusExtension
+import sirius.kernel.di.std.Part
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+import kotlin.test.assertEquals
+import kotlin.test.assertFailsWith
+import kotlin.test.assertNotNull
+import kotlin.test.assertTrue
+
+/**
+ * Tests the parallel traversal of directory trees performed by [VirtualFileWalker].
+ */
+@ExtendWith(SiriusExtension::class)
+@Timeout(60)
+class VirtualFileWalkerTest {
+
+    companion object {
+        /**
+         * Contains the number of files in the tree provided by [TreeProvider].
+         */
+        private const val NUMBER_OF_FILES = 10 + 4 * 10 + 4 * 4 * 10
+
+        @Part
+        @JvmStatic
+        private lateinit var vfs: VirtualFileSystem
+    }
+
+    /**
+     * Provides a tree with three levels, where each directory contains ten files and each directory of the first
+     * two levels also contains four subdirectories.
+     */
+    private class TreeProvider(private val level: Int) : ChildProvider {
+
+        override fun findChild(parent: VirtualFile, name: String): VirtualFile? {
+            return listChildren(parent).firstOrNull { it.name() == name }
+        }
+
+        override fun enumerate(parent: VirtualFile, search: FileSearch) {
+            for (child in listChildren(parent)) {
+                if (!search.processResult(child)) {
+                    return
+                }
+            }
+        }
+
+        override fun getMaxTraversalParallelism(): Int {
+            return 4
+        }
+
+        private fun listChildren(parent: VirtualFile): List<VirtualFile> {
+            val children = mutableListOf<VirtualFile>()
+            if (level < 2) {
+                for (i in 1..4) {
+                    children.add(
+                        MutableVirtualFile.checkedCreate(parent, "dir-$i").markAsExistingDirectory()
+                            .withChildren(TreeProvider(level + 1))
+                    )
+                }
+            }
+            for (i in 1..10) {
+                children.add(MutableVirtualFile.checkedCreate(parent, "file-$i.txt").markAsExistingFile())
+            }
+
+            return children
+        }
+    }
+
+    private fun createTree(): VirtualFile {
+        return MutableVirtualFile.checkedCreate(vfs.root(), "walker-test").markAsExistingDirectory()
+            .withChildren(TreeProvider(0))
+    }
+
+    private class WalkerTestError : Error("Failed intentionally")
+
+    @Test
+    fun `a walker splits off a disjoint part of the tree`() {
+        val root = createTree()
+        val walker = VirtualFileWalker(root, root.tree().excludeDirectories().parallel())
+        val visitedByWalker = mutableListOf<String>()
+        walker.tryAdvance { visitedByWalker.add(it.path()) }
+
+        val split = assertNotNull(walker.trySplit(), "The walker should hand off a part of the tree")
+
+        val visitedBySplit = mutableListOf<String>()
+        while (split.tryAdvance { visitedBySplit.add(it.path()) }) {
+            // Drain the walker which has been split off...
+        }
+        while (walker.tryAdvance { visitedByWalker.add(it.path()) }) {
+            // Drain the original walker...
+        }
+
+        assertTrue(visitedBySplit.isNotEmpty())
+        assertTrue(visitedBySplit.intersect(visitedByWalker.toSet()).isEmpty())
+        assertEquals(NUMBER_OF_FILES, (visitedBySplit + visitedByWalker).toSet().size)
+    }
+
+    @Test
+    fun `a parallel traversal reports each file exactly once using several threads`() {
+        val visitedFiles = ConcurrentHashMap.newKeySet<String>()
+        val calls = AtomicInteger()
+        val threads = ConcurrentHashMap.newKeySet<String>()
+
+        createTree().tree().excludeDirectories().parallel().iterate {
+            calls.incrementAndGet()
+            visitedFiles.add(it.path())
+            threads.add(Thread.currentThread().name)
+            // Give other workers the chance to steal some work...
+            Thread.sleep(2)
+            true
+        }
+
+        assertEquals(NUMBER_OF_FILES, calls.get())
+        assertEquals(NUMBER_OF_FILES, visitedFiles.size)
+        assertTrue(threads.size > 1, "The traversal should have been performed by several threads")
+    }
+
+    @Test
+    fun `a parallel traversal stops once a file is rejected`() {
+        val calls = AtomicInteger()
+
+        createTree().tree().excludeDirectories().parallel().iterate {
+            Thread.sleep(1)
+            calls.incrementAndGet() < 20
+        }
+
+        // Each of the other (up to three) workers might already be processing a file when the traversal is aborted...
+        assertTrue(calls.get() in 20..23, "Unexpected number of calls: ${calls.get()}")
+    }
+
+    @Test
+    fun `a parallel traversal respects the max number of files across all workers`() {
+        val calls = AtomicInteger()
+
+        createTree().tree().excludeDirectories().limit(25).parallel().iterate {
+            Thread.sleep(1)
+            calls.incrementAndGet()
+            true
+        }
+
+        assertEquals(25, calls.get())
+    }
+
+    @Test
+    fun `a parallel traversal propagates errors instead of waiting forever`() {
+        val calls = AtomicInteger()
+
+        assertFailsWith<WalkerTestError> {
+            createTree().tree().excludeDirectories().parallel().iterate {
+                Thread.sleep(1)
+                if (calls.incrementAndGet() == 10) {
+                    throw WalkerTestError()
+                }
+                true
+            }
+        }
+    }
+}